@@ -21,7 +21,11 @@ import static org.forgerock.json.resource.Requests.copyOfCreateRequest;
 import static org.forgerock.util.promise.Promises.newResultPromise;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.felix.scr.annotations.Activate;
@@ -53,6 +57,7 @@ import org.forgerock.json.resource.Request;
 import org.forgerock.json.resource.RequestHandler;
 import org.forgerock.json.resource.RequestType;
 import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.Resources;
 import org.forgerock.json.resource.Response;
@@ -91,6 +96,9 @@ public class ServletConnectionFactory implements ConnectionFactory, RouterFilter
     /** Event name prefix for monitoring the router */
     private static final String EVENT_ROUTER_PREFIX = "openidm/internal/router/";
 
+    /** The maximum number of resource paths whose router event name is kept for each request type */
+    private static final int MAX_ROUTER_EVENT_NAMES = 500;
+
     /** Setup logging for the {@link org.forgerock.openidm.servlet.internal.ServletConnectionFactory}. */
     private static final Logger logger = LoggerFactory.getLogger(ServletConnectionFactory.class);
 
@@ -137,6 +145,16 @@ public class ServletConnectionFactory implements ConnectionFactory, RouterFilter
             cardinality = ReferenceCardinality.OPTIONAL_UNARY, policy = ReferencePolicy.DYNAMIC)
     private final MutableFilterDecorator auditFilter = new MutableFilterDecorator();
 
+    /** The router event names by request type and resource path, resolved once rather than on every request */
+    private final Map<RequestType, ConcurrentMap<ResourcePath, Name>> routerEventNames =
+            new EnumMap<>(RequestType.class);
+
+    {
+        for (RequestType requestType : RequestType.values()) {
+            routerEventNames.put(requestType, new ConcurrentHashMap<ResourcePath, Name>());
+        }
+    }
+
     /** the constructed filter chain */
     private FilterChain filterChain;
 
@@ -384,23 +402,28 @@ public class ServletConnectionFactory implements ConnectionFactory, RouterFilter
              */
             private Name getRouterEventName(Request request) {
                 RequestType requestType = request.getRequestType();
-                String idContext = "";
+                ResourcePath idContext = request.getResourcePathObject();
 
                 // For query and action group statistics by full URI
                 // Create has only the component name in the getResourceName to start with
-                if (RequestType.QUERY.equals(requestType) || RequestType.ACTION.equals(requestType)
-                        || RequestType.CREATE.equals(requestType)) {
-                    idContext = request.getResourcePath();
-                } else if (request.getResourcePathObject().size() > 1) {
+                if (!RequestType.QUERY.equals(requestType) && !RequestType.ACTION.equals(requestType)
+                        && !RequestType.CREATE.equals(requestType)) {
                     // For RUD, patch group statistics without the local resource identifier
-                    idContext = request.getResourcePathObject()
-                            .head(request.getResourcePathObject().size() - 1)
-                            .toString();
+                    idContext = idContext.size() > 1 ? idContext.head(idContext.size() - 1) : ResourcePath.empty();
                 }
 
-                String eventName = EVENT_ROUTER_PREFIX + idContext + "/" + requestType.toString().toLowerCase();
-
-                return Name.get(eventName);
+                ConcurrentMap<ResourcePath, Name> eventNames = routerEventNames.get(requestType);
+                Name name = eventNames.get(idContext);
+                if (name == null) {
+                    String eventName = EVENT_ROUTER_PREFIX + idContext + "/" + requestType.toString().toLowerCase();
+                    if (eventNames.size() < MAX_ROUTER_EVENT_NAMES) {
+                        name = Name.register(eventName);
+                        eventNames.putIfAbsent(idContext, name);
+                    } else {
+                        name = Name.get(eventName);
+                    }
+                }
+                return name;
             }
         };
     }
@@ -37,8 +37,10 @@ import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
 import org.forgerock.caf.authentication.api.AsyncServerAuthModule;
@@ -52,6 +54,7 @@ import org.forgerock.json.resource.ConnectionFactory;
 import org.forgerock.json.resource.QueryRequest;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.Responses;
 import org.forgerock.openidm.crypto.CryptoService;
@@ -65,6 +68,7 @@ import org.forgerock.util.encode.Base64;
 import org.forgerock.util.promise.NeverThrowsException;
 import org.forgerock.util.promise.Promise;
 import org.forgerock.util.query.QueryFilter;
+import org.forgerock.util.time.TimeService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -92,6 +96,7 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
     private static final String GROUP_ROLE_MAPPING = "groupRoleMapping";
     private static final String GROUP_MEMBERSHIP = "groupMembership";
     private static final String GROUP_COMPARISON_METHOD = "groupComparisonMethod";
+    private static final String SECURITY_CONTEXT_CACHE_SECONDS = "securityContextCacheSeconds";
 
     /** Authentication without a session header. */
     public static final String NO_SESSION = "X-OpenIDM-NoSession";
@@ -118,6 +123,9 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
     private UserDetailQueryBuilder queryBuilder;
     private RoleCalculator roleCalculator;
 
+    /** the cache of computed security contexts, if enabled */
+    private SecurityContextCache securityContextCache = null;
+
     /**
      * Constructs a new instance of the IDMAuthModuleWrapper.
      *
@@ -200,6 +208,17 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
      *     <dt>groupComparison</dt>
      *     <dd>The method of {@link GroupComparison} to use.</dd>
      * </dl>
+     * <p>
+     * Optional configuration:
+     * <dl>
+     *     <dt>securityContextCacheSeconds</dt>
+     *     <dd>How long the security context computed for a principal (user detail, roles and the result of the
+     *     augment security context script) is reused by later requests of the principal, 0 (the default) to
+     *     compute it on every request. A cached context is discarded when the managed object or internal user
+     *     it was computed from is changed through the router, once the change is known to this node; other
+     *     changes, such as those of objects the augment script reads, are only picked up once it expires. Only
+     *     enable it if the augment script does not depend on the request.</dd>
+     * </dl>
      *
      * @param requestMessagePolicy {@inheritDoc}
      * @param responseMessagePolicy {@inheritDoc}
@@ -270,6 +289,11 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
             augmentScript = getAugmentScript(scriptConfig);
             logger.debug("Registered script {}", augmentScript);
         }
+
+        long cacheSeconds = properties.get(SECURITY_CONTEXT_CACHE_SECONDS).defaultTo(0).asLong();
+        securityContextCache = cacheSeconds > 0
+                ? new SecurityContextCache(TimeUnit.SECONDS.toMillis(cacheSeconds), TimeService.SYSTEM)
+                : null;
     }
 
     /**
@@ -340,8 +364,30 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
                         // ... with successful authenticating module name
                         securityContextMapper.setModuleId(getModuleId());
 
+                        // ... with the security context cached for the principal, unless the principal just
+                        // logged in, in which case the security context is computed afresh
+                        final boolean login =
+                                messageInfo.getRequestContextMap().containsKey(AUTHENTICATED_RESOURCE);
+                        final Map<String, Object> initialAuthorization = securityContextCache != null
+                                ? new HashMap<>(securityContextMapper.getAuthorizationId())
+                                : null;
+                        if (securityContextCache != null && !login) {
+                            final SecurityContextCache.Entry cached =
+                                    securityContextCache.get(principalName, initialAuthorization);
+                            if (cached != null) {
+                                final Map<String, Object> authorization = new HashMap<>(initialAuthorization);
+                                authorization.putAll(cached.getAuthorization());
+                                securityContextMapper.setAuthenticationId(cached.getAuthenticationId())
+                                        .setAuthorizationId(authorization);
+                                return authStatus;
+                            }
+                        }
+
                         // ... with user details
 
+                        final long cacheGeneration = securityContextCache != null
+                                ? securityContextCache.generation()
+                                : 0;
                         try {
                             // query the resource - could return null
                             final ResourceResponse resource = getAuthenticatedResource(principalName, messageInfo);
@@ -365,6 +411,15 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
                             augmentationScriptExecutor.executeAugmentationScript(augmentScript, messageInfo, properties,
                                     securityContextMapper);
 
+                            if (securityContextCache != null) {
+                                securityContextCache.put(principalName, initialAuthorization,
+                                        securityContextMapper.getAuthenticationId(),
+                                        securityContextMapper.getAuthorizationId(),
+                                        getResourcePath(resource, securityContextMapper),
+                                        resource != null ? resource.getRevision() : null,
+                                        cacheGeneration);
+                            }
+
                         } catch (ResourceException e) {
                             // store failure reason
                             messageInfo.getRequestContextMap().put(
@@ -414,6 +469,23 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
         return queryExecutor.apply(request);
     }
 
+    /**
+     * Returns the path of the authenticated resource, so that its cached security context is discarded when
+     * it changes.
+     *
+     * @param resource the authenticated resource, possibly null
+     * @param securityContextMapper the computed security context
+     * @return the path of the resource, or null if there is none
+     */
+    private String getResourcePath(ResourceResponse resource, SecurityContextMapper securityContextMapper) {
+        final String component = securityContextMapper.getResource();
+        final String userId = securityContextMapper.getUserId();
+        if (resource == null || component == null || userId == null) {
+            return null;
+        }
+        return ResourcePath.valueOf(component).child(userId).toString();
+    }
+
     private void setClientIPAddress(MessageInfoContext messageInfo) {
         Request request = messageInfo.getRequest();
         String ipAddress;
@@ -0,0 +1,316 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.auth.modules;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.openidm.managed.ManagedObjectChangeNotifier;
+import org.forgerock.util.time.TimeService;
+
+/**
+ * Caches the security context computed for an authenticated principal by an {@link IDMAuthModuleWrapper}:
+ * the result of the user detail query, the role calculation and the augmentation script.
+ * <p>
+ * Entries are keyed by the principal and the authorization context the wrapped module provided (such as the
+ * context restored from a JWT session), excluding the client IP address, and indexed by the path of the
+ * managed object or internal user they were computed from. They expire after a fixed time to live, and are
+ * discarded once the {@link ManagedObjectChangeNotifier} reports a change of their object: right after a change
+ * made through this node, and once the cluster event is processed for a change made on another node. Changes
+ * that are not reported, such as changes made directly in the repository, are only picked up once the entry
+ * expires. The number of entries is bounded; beyond it, new contexts are not cached.
+ * <p>
+ * A security context computed while its object changes is not cached: callers take a {@link #generation()}
+ * before reading the object, and {@link #put} ignores the context if the object changed since.
+ */
+class SecurityContextCache implements ManagedObjectChangeNotifier.Listener {
+
+    /** The maximum number of cached security contexts */
+    static final int MAX_ENTRIES = 10000;
+
+    /** The number of stripes the entries are indexed in, a power of two */
+    private static final int STRIPES = 64;
+
+    /** Authorization context attributes that vary per request and are neither part of the key nor cached */
+    private static final String IP_ADDRESS = "ipAddress";
+
+    private final long ttlMillis;
+    private final TimeService timeService;
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * Creates a new cache, which listens to managed object changes.
+     *
+     * @param ttlMillis how long a security context is cached
+     * @param timeService the time service
+     */
+    SecurityContextCache(long ttlMillis, TimeService timeService) {
+        this.ttlMillis = ttlMillis;
+        this.timeService = timeService;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        ManagedObjectChangeNotifier.addListener(this);
+    }
+
+    /**
+     * Returns the generation of the cache, to be taken before the objects a security context is computed from
+     * are read and passed to {@link #put}.
+     *
+     * @return the number of changes reported so far
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the cached security context of a principal.
+     *
+     * @param principal the authenticated principal
+     * @param authorization the authorization context provided by the wrapped module
+     * @return the security context, or null if none is cached or it has expired
+     */
+    Entry get(String principal, Map<String, Object> authorization) {
+        final Key key = new Key(principal, authorization);
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expires <= timeService.now()) {
+            remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Caches the security context of a principal, unless the object it was computed from changed since the
+     * given generation.
+     *
+     * @param principal the authenticated principal
+     * @param initialAuthorization the authorization context provided by the wrapped module
+     * @param authenticationId the resulting authentication id
+     * @param authorization the resulting authorization context
+     * @param resourcePath the path of the object the security context was computed from, or null if none
+     * @param revision the revision of the object the security context was computed from, or null if unknown
+     * @param generation the {@link #generation()} taken before the object was read
+     */
+    void put(String principal, Map<String, Object> initialAuthorization, String authenticationId,
+            Map<String, Object> authorization, String resourcePath, String revision, long generation) {
+        if (entries.size() >= MAX_ENTRIES) {
+            removeExpired();
+            if (entries.size() >= MAX_ENTRIES) {
+                return;
+            }
+        }
+        final Key key = new Key(principal, initialAuthorization);
+        final Entry entry = new Entry(authenticationId, withoutIpAddress(authorization), resourcePath, revision,
+                timeService.now() + ttlMillis);
+        final Entry previous;
+        if (resourcePath == null) {
+            previous = entries.put(key, entry);
+        } else {
+            final Stripe stripe = stripe(resourcePath);
+            synchronized (stripe) {
+                if (stripe.changed > generation) {
+                    return;
+                }
+                previous = entries.put(key, entry);
+                stripe.index(resourcePath, key);
+            }
+        }
+        if (previous != null && previous.resourcePath != null && !previous.resourcePath.equals(resourcePath)) {
+            final Stripe stripe = stripe(previous.resourcePath);
+            synchronized (stripe) {
+                stripe.unindex(previous.resourcePath, key);
+            }
+        }
+    }
+
+    /**
+     * Discards the security contexts computed from a changed object, unless they were computed from the
+     * revision the object was changed to.
+     *
+     * @param resourcePath the path of the object
+     * @param revision the new revision of the object, or null if unknown
+     */
+    @Override
+    public void managedObjectChanged(String resourcePath, String revision) {
+        final Stripe stripe = stripe(resourcePath);
+        synchronized (stripe) {
+            stripe.changed = generation.incrementAndGet();
+            final Set<Key> keys = stripe.keysByPath.remove(resourcePath);
+            if (keys == null) {
+                return;
+            }
+            for (Iterator<Key> iterator = keys.iterator(); iterator.hasNext();) {
+                final Key key = iterator.next();
+                final Entry entry = entries.get(key);
+                if (entry == null || !resourcePath.equals(entry.resourcePath)) {
+                    iterator.remove();
+                } else if (revision == null || !revision.equals(entry.revision)) {
+                    entries.remove(key, entry);
+                    iterator.remove();
+                }
+            }
+            if (!keys.isEmpty()) {
+                stripe.keysByPath.put(resourcePath, keys);
+            }
+        }
+    }
+
+    /**
+     * @return the number of cached security contexts, including expired ones not removed yet
+     */
+    int size() {
+        return entries.size();
+    }
+
+    private void remove(Key key, Entry entry) {
+        if (entry.resourcePath == null) {
+            entries.remove(key, entry);
+            return;
+        }
+        final Stripe stripe = stripe(entry.resourcePath);
+        synchronized (stripe) {
+            if (entries.remove(key, entry)) {
+                stripe.unindex(entry.resourcePath, key);
+            }
+        }
+    }
+
+    private void removeExpired() {
+        final long now = timeService.now();
+        for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+            if (entry.getValue().expires <= now) {
+                remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private Stripe stripe(String resourcePath) {
+        final int hash = resourcePath.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * Returns a deep copy of an authorization context, without the client IP address.
+     */
+    private static Map<String, Object> withoutIpAddress(Map<String, Object> authorization) {
+        final Map<String, Object> copy = new LinkedHashMap<>(new JsonValue(authorization).copy().asMap());
+        copy.remove(IP_ADDRESS);
+        return copy;
+    }
+
+    /**
+     * The keys of the entries computed from the objects whose path falls in a stripe, and the generation of
+     * the last change of one of these objects. Guarded by the stripe itself.
+     */
+    private static final class Stripe {
+        private final Map<String, Set<Key>> keysByPath = new HashMap<>();
+        private long changed;
+
+        private void index(String resourcePath, Key key) {
+            Set<Key> keys = keysByPath.get(resourcePath);
+            if (keys == null) {
+                keys = new HashSet<>();
+                keysByPath.put(resourcePath, keys);
+            }
+            keys.add(key);
+        }
+
+        private void unindex(String resourcePath, Key key) {
+            final Set<Key> keys = keysByPath.get(resourcePath);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                keysByPath.remove(resourcePath);
+            }
+        }
+    }
+
+    /**
+     * A cached security context.
+     */
+    static final class Entry {
+        private final String authenticationId;
+        private final Map<String, Object> authorization;
+        private final String resourcePath;
+        private final String revision;
+        private final long expires;
+
+        private Entry(String authenticationId, Map<String, Object> authorization, String resourcePath,
+                String revision, long expires) {
+            this.authenticationId = authenticationId;
+            this.authorization = authorization;
+            this.resourcePath = resourcePath;
+            this.revision = revision;
+            this.expires = expires;
+        }
+
+        /**
+         * @return the authentication id
+         */
+        String getAuthenticationId() {
+            return authenticationId;
+        }
+
+        /**
+         * @return a copy of the authorization context, which the caller may modify
+         */
+        Map<String, Object> getAuthorization() {
+            return new JsonValue(authorization).copy().asMap();
+        }
+    }
+
+    /**
+     * The principal and the authorization context provided by the wrapped module.
+     */
+    private static final class Key {
+        private final String principal;
+        private final Map<String, Object> authorization;
+
+        private Key(String principal, Map<String, Object> authorization) {
+            this.principal = principal;
+            this.authorization = withoutIpAddress(authorization);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return principal.equals(other.principal) && authorization.equals(other.authorization);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * principal.hashCode() + authorization.hashCode();
+        }
+    }
+}
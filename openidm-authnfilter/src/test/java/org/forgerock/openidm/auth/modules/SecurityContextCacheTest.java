@@ -0,0 +1,146 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.auth.modules;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.forgerock.util.time.TimeService;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link SecurityContextCache}.
+ */
+public class SecurityContextCacheTest {
+
+    private static final String USER_PATH = "managed/user/bjensen";
+    private static final String INTERNAL_USER_PATH = "repo/internal/user/openidm-admin";
+
+    private TimeService timeService;
+    private SecurityContextCache cache;
+
+    @BeforeMethod
+    public void setUp() {
+        timeService = mock(TimeService.class);
+        when(timeService.now()).thenReturn(1000L);
+        cache = new SecurityContextCache(60000L, timeService);
+    }
+
+    @Test
+    public void testCachedContextIgnoresIpAddress() {
+        cache.put("bjensen", initialContext("10.0.0.1"), "bjensen", computedContext("10.0.0.1"), USER_PATH, "1",
+                cache.generation());
+
+        final SecurityContextCache.Entry entry = cache.get("bjensen", initialContext("10.0.0.2"));
+        assertThat(entry).isNotNull();
+        assertThat(entry.getAuthenticationId()).isEqualTo("bjensen");
+        assertThat(entry.getAuthorization())
+                .containsEntry("id", "bjensen")
+                .containsEntry("component", "managed/user")
+                .doesNotContainKey("ipAddress");
+        assertThat(cache.get("scarter", initialContext("10.0.0.1"))).isNull();
+    }
+
+    @Test
+    public void testCachedContextExpires() {
+        cache.put("bjensen", initialContext("10.0.0.1"), "bjensen", computedContext("10.0.0.1"), USER_PATH, "1",
+                cache.generation());
+
+        when(timeService.now()).thenReturn(61000L);
+
+        assertThat(cache.get("bjensen", initialContext("10.0.0.1"))).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCachedContextIsInvalidatedByChange() {
+        cache.put("bjensen", initialContext("10.0.0.1"), "bjensen", computedContext("10.0.0.1"), USER_PATH, "1",
+                cache.generation());
+        cache.put("scarter", initialContext("10.0.0.1"), "scarter", computedContext("10.0.0.1"),
+                "managed/user/scarter", "1", cache.generation());
+
+        cache.managedObjectChanged(USER_PATH, "2");
+
+        assertThat(cache.get("bjensen", initialContext("10.0.0.1"))).isNull();
+        assertThat(cache.get("scarter", initialContext("10.0.0.1"))).isNotNull();
+    }
+
+    @Test
+    public void testCachedContextOfChangedRevisionIsKept() {
+        cache.put("bjensen", initialContext("10.0.0.1"), "bjensen", computedContext("10.0.0.1"), USER_PATH, "2",
+                cache.generation());
+
+        // the change the context was computed after, reported by another node
+        cache.managedObjectChanged(USER_PATH, "2");
+        assertThat(cache.get("bjensen", initialContext("10.0.0.1"))).isNotNull();
+
+        cache.managedObjectChanged(USER_PATH, null);
+        assertThat(cache.get("bjensen", initialContext("10.0.0.1"))).isNull();
+    }
+
+    @Test
+    public void testContextComputedWhileChangedIsNotCached() {
+        final long generation = cache.generation();
+        cache.managedObjectChanged(USER_PATH, "2");
+        cache.managedObjectChanged("managed/user/scarter", "2");
+
+        cache.put("bjensen", initialContext("10.0.0.1"), "bjensen", computedContext("10.0.0.1"), USER_PATH, "1",
+                generation);
+
+        assertThat(cache.get("bjensen", initialContext("10.0.0.1"))).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testContextOfInternalUserIsInvalidatedByChange() {
+        cache.put("openidm-admin", initialContext("10.0.0.1"), "openidm-admin", computedContext("10.0.0.1"),
+                INTERNAL_USER_PATH, "0", cache.generation());
+
+        cache.managedObjectChanged(INTERNAL_USER_PATH, "1");
+
+        assertThat(cache.get("openidm-admin", initialContext("10.0.0.1"))).isNull();
+    }
+
+    @Test
+    public void testContextOfOtherObjectIsCachedWhileChanged() {
+        final long generation = cache.generation();
+        cache.managedObjectChanged("managed/user/scarter", "2");
+
+        cache.put("bjensen", initialContext("10.0.0.1"), "bjensen", computedContext("10.0.0.1"), USER_PATH, "1",
+                generation);
+
+        assertThat(cache.get("bjensen", initialContext("10.0.0.1"))).isNotNull();
+    }
+
+    private static Map<String, Object> initialContext(String ipAddress) {
+        final Map<String, Object> context = new HashMap<>();
+        context.put("ipAddress", ipAddress);
+        context.put("moduleId", "MANAGED_USER");
+        return context;
+    }
+
+    private static Map<String, Object> computedContext(String ipAddress) {
+        final Map<String, Object> context = initialContext(ipAddress);
+        context.put("id", "bjensen");
+        context.put("component", "managed/user");
+        return context;
+    }
+}
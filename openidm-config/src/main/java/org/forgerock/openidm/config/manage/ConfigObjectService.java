@@ -41,6 +41,7 @@ import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Properties;
 import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.ReferencePolicy;
 import org.apache.felix.scr.annotations.Service;
 import org.forgerock.api.models.ApiDescription;
@@ -78,6 +79,7 @@ import org.forgerock.openidm.config.crypto.ConfigCrypto;
 import org.forgerock.openidm.config.enhanced.EnhancedConfig;
 import org.forgerock.openidm.config.installer.JSONConfigInstaller;
 import org.forgerock.openidm.config.persistence.ConfigBootstrapHelper;
+import org.forgerock.openidm.config.persistence.ConfigPersisterMarker;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.metadata.WaitForMetaData;
 import org.forgerock.openidm.patch.JsonValuePatch;
@@ -157,6 +159,10 @@ public class ConfigObjectService implements RequestHandler, ClusterEventListener
         this.clusterManagementService = null;
     }
 
+    /** The configuration persistence, whose cache is invalidated when another node changes the configuration */
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY, policy = ReferencePolicy.DYNAMIC)
+    private volatile ConfigPersisterMarker configPersister;
+
     /** The Connection Factory */
     @Reference(policy = ReferencePolicy.STATIC)
     private IDMConnectionFactory connectionFactory;
@@ -815,6 +821,11 @@ public class ConfigObjectService implements RequestHandler, ClusterEventListener
             final String id = details.get(EVENT_RESOURCE_ID).isNull() ? null : details.get(EVENT_RESOURCE_ID).asString();
             final JsonValue obj = details.get(EVENT_RESOURCE_OBJECT).isNull() ? null : details.get(EVENT_RESOURCE_OBJECT);
             final List<PatchOperation> patchOperations = PatchOperation.valueOfList(details.get(EVENT_PATCH_OPERATIONS));
+            // the configuration was already persisted by the other node
+            final ConfigPersisterMarker persister = configPersister;
+            if (persister != null) {
+                persister.invalidateCache();
+            }
             switch (action) {
                 case CREATE:
                     create(resourcePath, id, obj, true);
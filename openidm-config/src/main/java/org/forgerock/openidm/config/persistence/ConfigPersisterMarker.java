@@ -41,4 +41,11 @@ public interface ConfigPersisterMarker {
      *          If the extension could not initialize properly.
      */
     void checkReady() throws BootstrapFailure;
+
+    /**
+     * Notifies the extension that the persisted configuration was changed
+     * by another cluster node, so that any configuration it cached is read
+     * again from the persistent store.
+     */
+    void invalidateCache();
 }
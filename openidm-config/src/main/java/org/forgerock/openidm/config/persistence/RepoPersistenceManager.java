@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -34,6 +35,9 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.felix.cm.PersistenceManager;
 import org.forgerock.json.JsonValue;
@@ -41,8 +45,8 @@ import org.forgerock.json.resource.CreateRequest;
 import org.forgerock.json.resource.DeleteRequest;
 import org.forgerock.json.resource.NotFoundException;
 import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryFilters;
 import org.forgerock.json.resource.QueryRequest;
-import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.ResourceException;
@@ -97,11 +101,39 @@ public class RepoPersistenceManager implements PersistenceManager, ConfigPersist
     @SuppressWarnings("rawtypes")
     Map<String, Dictionary> tempStore = new HashMap<>();
 
+    // Whether the configuration objects read from the repository are cached
+    private final boolean cacheEnabled =
+            Boolean.valueOf(System.getProperty("openidm.config.repo.cache.enabled", "true"));
+
+    // The configuration objects of the repository by repository id, along with their _id and _rev
+    private final ConcurrentMap<String, JsonValue> repoCache = new ConcurrentHashMap<>();
+
+    // Whether the cache holds all the configuration objects of the repository, a configuration not cached then
+    // does not exist
+    private volatile boolean cacheComplete = false;
+
+    // The number of times the cache was invalidated, taken before reading from the repository so that an object
+    // read before an invalidation is not cached after it
+    private final AtomicLong cacheGeneration = new AtomicLong();
+
     public RepoPersistenceManager(final BundleContext ctx) {
         this.ctx = ctx;
         logger.debug("Bootstrapping Repository Persistence Manager");
     }
 
+    /**
+     * Creates a persistence manager using the given repository, rather than the one bootstrapped from the bundle
+     * context.
+     *
+     * @param ctx the bundle context
+     * @param repo the repository service
+     */
+    RepoPersistenceManager(final BundleContext ctx, final RepoBootService repo) {
+        this(ctx);
+        this.repo = repo;
+        warmUpCache();
+    }
+
     /**
      * Handle the system notifying that it's ready to install configs.
      */
@@ -118,6 +150,7 @@ public class RepoPersistenceManager implements PersistenceManager, ConfigPersist
                     if (rawRepo != null) {
                         logger.debug("Bootstrap obtained repository");   
                         repo = rawRepo;
+                        warmUpCache();
                     } else {
                         logger.info("Failed to bootstrap repo, returned null");
                     }
@@ -137,6 +170,121 @@ public class RepoPersistenceManager implements PersistenceManager, ConfigPersist
         }
     }
 
+    /**
+     * Discards the cached configuration objects, once the configuration was changed by another cluster node, and
+     * reads them again.
+     */
+    @Override
+    public void invalidateCache() {
+        cacheGeneration.incrementAndGet();
+        cacheComplete = false;
+        repoCache.clear();
+        logger.debug("Configuration cache invalidated");
+        warmUpCache();
+    }
+
+    /**
+     * Reads all the configuration objects of the repository with a single query, so that the configuration
+     * installed at startup, or again after an invalidation, is not read from the repository one object at a time.
+     */
+    private void warmUpCache() {
+        if (!cacheEnabled || repo == null) {
+            return;
+        }
+        try {
+            long generation = cacheGeneration.get();
+            QueryRequest request = Requests.newQueryRequest("/config");
+            request.setQueryFilter(QueryFilters.parse("true"));
+            List<ResourceResponse> results = repo.query(request);
+            for (ResourceResponse resource : results) {
+                String id = resource.getId() != null
+                        ? resource.getId()
+                        : resource.getContent().get(ResourceResponse.FIELD_CONTENT_ID).asString();
+                cache(CONFIG_CONTEXT_PREFIX + id, resource.getContent().copy(), generation);
+            }
+            cacheComplete = true;
+            if (cacheGeneration.get() != generation) {
+                // invalidated meanwhile, the invalidation warms the cache up again
+                cacheComplete = false;
+                return;
+            }
+            logger.debug("Cached {} configuration objects from the repository", results.size());
+        } catch (ResourceException | RuntimeException ex) {
+            logger.debug("Unable to cache the configuration objects, reading them one at a time", ex);
+        }
+    }
+
+    /**
+     * Reads a configuration object, from the cache if possible.
+     *
+     * @param id the repository id of the configuration
+     * @param useCache whether the cached object, if any, may be returned
+     * @return a copy of the configuration object, including its _id and _rev
+     * @throws NotFoundException if the configuration does not exist
+     * @throws ResourceException if the configuration could not be read
+     */
+    private JsonValue readConfig(String id, boolean useCache) throws ResourceException {
+        if (cacheEnabled && useCache) {
+            JsonValue cached = repoCache.get(id);
+            if (cached != null) {
+                return cached.copy();
+            } else if (cacheComplete) {
+                throw new NotFoundException("No configuration " + id);
+            }
+        }
+        try {
+            long generation = cacheGeneration.get();
+            JsonValue content = repo.read(Requests.newReadRequest(id)).getContent();
+            if (cacheEnabled) {
+                cache(id, content.copy(), generation);
+            }
+            return content;
+        } catch (NotFoundException ex) {
+            repoCache.remove(id);
+            throw ex;
+        }
+    }
+
+    /**
+     * Caches a configuration object once written to the repository.
+     *
+     * @param id the repository id of the configuration
+     * @param obj the configuration object written
+     * @param written the response of the repository
+     * @param generation the cache generation taken before the object was written
+     */
+    private void cacheWritten(String id, Map<String, Object> obj, ResourceResponse written, long generation) {
+        if (!cacheEnabled) {
+            return;
+        }
+        if (written == null || written.getRevision() == null) {
+            // without the new revision the next write would fail, read it again instead; the cache then stays
+            // incomplete until it is invalidated and warmed up again
+            repoCache.remove(id);
+            cacheComplete = false;
+            return;
+        }
+        JsonValue content = new JsonValue(obj).copy();
+        content.put(ResourceResponse.FIELD_CONTENT_ID, id.substring(CONFIG_CONTEXT_PREFIX.length()));
+        content.put(ResourceResponse.FIELD_CONTENT_REVISION, written.getRevision());
+        cache(id, content, generation);
+    }
+
+    /**
+     * Caches a configuration object, unless the cache was invalidated since the object was read or written.
+     *
+     * @param id the repository id of the configuration
+     * @param content the configuration object, including its _id and _rev
+     * @param generation the cache generation taken before the object was read or written
+     */
+    private void cache(String id, JsonValue content, long generation) {
+        repoCache.put(id, content);
+        if (cacheGeneration.get() != generation) {
+            // the invalidation may have cleared the cache before the object was put
+            repoCache.remove(id, content);
+        }
+    }
+
     private boolean isReady(int retries) {
         try {
             checkReady();
@@ -160,8 +308,7 @@ public class RepoPersistenceManager implements PersistenceManager, ConfigPersist
         if (isReady(0) && requireRepository) {
             String id = pidToId(pid);
             try {
-                ReadRequest readRequest = Requests.newReadRequest(id);
-                ResourceResponse existing = repo.read(readRequest);
+                JsonValue existing = readConfig(id, true);
                 exists = (existing != null);
             } catch (NotFoundException ex) {
                 exists = false;
@@ -204,9 +351,8 @@ public class RepoPersistenceManager implements PersistenceManager, ConfigPersist
         try {
             if (isReady(0) && requireRepository) {
                 String id = pidToId(pid);
-                ReadRequest readRequest = Requests.newReadRequest(id);
-                ResourceResponse existing = repo.read(readRequest);
-                Map<String, Object> existingConfig = existing.getContent().asMap();
+                JsonValue existing = readConfig(id, true);
+                Map<String, Object> existingConfig = existing.asMap();
                 Object configMap = existingConfig.get(JSONEnhancedConfig.JSON_CONFIG_PROPERTY);
                 if (configMap != null) {
                     ((Map)configMap).remove(ResourceResponse.FIELD_CONTENT_ID);
@@ -214,10 +360,10 @@ public class RepoPersistenceManager implements PersistenceManager, ConfigPersist
                 String configString = serializeConfig(configMap);
                 existingConfig.put(JSONEnhancedConfig.JSON_CONFIG_PROPERTY, configString);
                 // OPENIDM-6538 Convert the map form of this property to a simple String
-                if (existing.getContent().get(FACTORY_PID).isMap()
-                        && existing.getContent().get(FACTORY_PID).isDefined(SERVICE_PID)
-                        && existing.getContent().get(FACTORY_PID).get(SERVICE_PID).isString()) {
-                    existingConfig.put(FACTORY_PID, existing.getContent().get(FACTORY_PID).get(SERVICE_PID).asString());
+                if (existing.get(FACTORY_PID).isMap()
+                        && existing.get(FACTORY_PID).isDefined(SERVICE_PID)
+                        && existing.get(FACTORY_PID).get(SERVICE_PID).isString()) {
+                    existingConfig.put(FACTORY_PID, existing.get(FACTORY_PID).get(SERVICE_PID).asString());
                 }
                 logger.debug("Config loaded {} {}", pid, existing);
                 result = mapToDict(existingConfig);
@@ -274,13 +420,21 @@ public class RepoPersistenceManager implements PersistenceManager, ConfigPersist
 
                     if (!hasMore) {
                         if (requireRepository && repo != null && dbIter == null) {
-                            QueryRequest r = Requests.newQueryRequest("/config");
-                            r.setQueryId("query-all-ids");
-                            logger.debug("Attempt query query-all-ids");
                             final List<Map<String, Object>> queryResult = new ArrayList<Map<String, Object>>();
-                            List<ResourceResponse> results = repo.query(r);
-                            for (ResourceResponse resource : results) {
-                                queryResult.add(resource.getContent().asMap());
+                            if (cacheEnabled && cacheComplete) {
+                                logger.debug("Listing cached configuration ids");
+                                for (String id : repoCache.keySet()) {
+                                    queryResult.add(Collections.<String, Object>singletonMap("_id",
+                                            id.substring(CONFIG_CONTEXT_PREFIX.length())));
+                                }
+                            } else {
+                                QueryRequest r = Requests.newQueryRequest("/config");
+                                r.setQueryId("query-all-ids");
+                                logger.debug("Attempt query query-all-ids");
+                                List<ResourceResponse> results = repo.query(r);
+                                for (ResourceResponse resource : results) {
+                                    queryResult.add(resource.getContent().asMap());
+                                }
                             }
                             dbIter = queryResult.iterator();
                         }
@@ -357,8 +511,7 @@ public class RepoPersistenceManager implements PersistenceManager, ConfigPersist
 
                 Map<String,Object> existing = null;
                 try {
-                    ReadRequest readRequest = Requests.newReadRequest(id);
-                    existing = repo.read(readRequest).getContent().asMap();
+                    existing = readConfig(id, true).asMap();
                 } catch (NotFoundException ex) {
                     // Just detect that it doesn't exist
                 }
@@ -379,11 +532,11 @@ public class RepoPersistenceManager implements PersistenceManager, ConfigPersist
                             try {
                                 UpdateRequest r = Requests.newUpdateRequest(id, new JsonValue(obj));
                                 r.setRevision(rev);
-                                repo.update(r);
+                                long generation = cacheGeneration.get();
+                                cacheWritten(id, obj, repo.update(r), generation);
                             } catch (PreconditionFailedException ex) {
                                 logger.debug("Concurrent change during update, retrying {} {}", pid, rev);
-                                ReadRequest readRequest = Requests.newReadRequest(id);
-                                existing = repo.read(readRequest).getContent().asMap();
+                                existing = readConfig(id, false).asMap();
                                 rev = (String) existing.get("_rev");
                                 retry = true;
                             }
@@ -398,7 +551,10 @@ public class RepoPersistenceManager implements PersistenceManager, ConfigPersist
                     String newResourceId = id.substring(CONFIG_CONTEXT_PREFIX.length());
                     CreateRequest createRequest = Requests.newCreateRequest(CONFIG_CONTEXT_PREFIX, new JsonValue(obj));
                     createRequest.setNewResourceId(newResourceId);
-                    obj = repo.create(createRequest).getContent().asMap();
+                    long generation = cacheGeneration.get();
+                    ResourceResponse created = repo.create(createRequest);
+                    cacheWritten(id, obj, created, generation);
+                    obj = created.getContent().asMap();
                     logger.debug("Stored new config in repository {} {}", pid, obj);
                 }
             } else {
@@ -431,12 +587,11 @@ public class RepoPersistenceManager implements PersistenceManager, ConfigPersist
                 String id = pidToId(pid);
                 boolean retry;
                 String rev = null;
+                boolean useCache = true;
                 do {
                     retry = false;
                     try {
-
-                        ReadRequest readRequest = Requests.newReadRequest(id);
-                        Map<String, Object> existing = repo.read(readRequest).getContent().asMap();
+                        Map<String, Object> existing = readConfig(id, useCache).asMap();
                         if (existing != null) {
                             rev = (String) existing.get("_rev");
                             DeleteRequest r = Requests.newDeleteRequest(id);
@@ -444,11 +599,14 @@ public class RepoPersistenceManager implements PersistenceManager, ConfigPersist
                             repo.delete(r);
                             logger.debug("Deleted {}", pid);
                         }
+                        repoCache.remove(id);
                     } catch (PreconditionFailedException ex) {
                         logger.debug("Concurrent change during delete, retrying {} {}", pid, rev);
+                        useCache = false;
                         retry = true;
                     } catch (NotFoundException ex) {
                         // If it doesn't exists (anymore) that's fine
+                        repoCache.remove(id);
                     }
                 } while (retry);
 
@@ -0,0 +1,173 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.config.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Enumeration;
+
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.config.enhanced.JSONEnhancedConfig;
+import org.forgerock.openidm.repo.RepoBootService;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.osgi.framework.BundleContext;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class RepoPersistenceManagerTest {
+
+    private static final String PID = "org.forgerock.openidm.router";
+
+    private RepoBootService repo;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        repo = mock(RepoBootService.class);
+        when(repo.query(any(QueryRequest.class))).thenReturn(Arrays.asList(config(PID, "1")));
+    }
+
+    @Test
+    public void testConfigurationIsLoadedFromTheCache() throws Exception {
+        final RepoPersistenceManager manager = new RepoPersistenceManager(mock(BundleContext.class), repo);
+
+        assertThat(manager.exists(PID)).isTrue();
+        final Dictionary<?, ?> loaded = manager.load(PID);
+        // loading does not alter the cached object
+        assertThat(manager.load(PID)).isEqualTo(loaded);
+
+        assertThat((String) loaded.get(JSONEnhancedConfig.JSON_CONFIG_PROPERTY)).contains("filters");
+        verify(repo, times(1)).query(any(QueryRequest.class));
+        verify(repo, never()).read(any(ReadRequest.class));
+    }
+
+    @Test
+    public void testUnknownConfigurationDoesNotExist() throws Exception {
+        final RepoPersistenceManager manager = new RepoPersistenceManager(mock(BundleContext.class), repo);
+
+        assertThat(manager.exists("org.forgerock.openidm.unknown")).isFalse();
+
+        verify(repo, never()).read(any(ReadRequest.class));
+    }
+
+    @Test
+    public void testInvalidatedCacheIsWarmedUpAgain() throws Exception {
+        final RepoPersistenceManager manager = new RepoPersistenceManager(mock(BundleContext.class), repo);
+        when(repo.query(any(QueryRequest.class))).thenReturn(Arrays.asList(config(PID, "2")));
+
+        manager.invalidateCache();
+
+        assertThat(manager.exists(PID)).isTrue();
+        assertThat(manager.load(PID).get("_rev")).isEqualTo("2");
+        // the cache is complete again
+        assertThat(manager.exists("org.forgerock.openidm.unknown")).isFalse();
+        verify(repo, times(2)).query(any(QueryRequest.class));
+        verify(repo, never()).read(any(ReadRequest.class));
+    }
+
+    @Test
+    public void testInvalidatedConfigurationIsReadFromTheRepository() throws Exception {
+        when(repo.query(any(QueryRequest.class))).thenThrow(new NotFoundException("no queryFilter support"));
+        when(repo.read(any(ReadRequest.class))).thenReturn(config(PID, "2"));
+        final RepoPersistenceManager manager = new RepoPersistenceManager(mock(BundleContext.class), repo);
+        manager.load(PID);
+
+        manager.invalidateCache();
+
+        assertThat(manager.exists(PID)).isTrue();
+        manager.load(PID);
+        // read once more, then cached again
+        verify(repo, times(2)).read(any(ReadRequest.class));
+    }
+
+    @Test
+    public void testConfigurationReadDuringAnInvalidationIsNotCached() throws Exception {
+        when(repo.query(any(QueryRequest.class))).thenThrow(new NotFoundException("no queryFilter support"));
+        final RepoPersistenceManager manager = new RepoPersistenceManager(mock(BundleContext.class), repo);
+        when(repo.read(any(ReadRequest.class))).thenAnswer(new Answer<ResourceResponse>() {
+            @Override
+            public ResourceResponse answer(InvocationOnMock invocation) throws Throwable {
+                // the configuration is changed by another node while it is read
+                manager.invalidateCache();
+                return config(PID, "1");
+            }
+        }).thenReturn(config(PID, "2"));
+
+        assertThat(manager.load(PID).get("_rev")).isEqualTo("1");
+
+        assertThat(manager.load(PID).get("_rev")).isEqualTo("2");
+        verify(repo, times(2)).read(any(ReadRequest.class));
+    }
+
+    @Test
+    public void testDeletedConfigurationIsRemovedFromTheCache() throws Exception {
+        final RepoPersistenceManager manager = new RepoPersistenceManager(mock(BundleContext.class), repo);
+
+        manager.delete(PID);
+
+        verify(repo).delete(any(DeleteRequest.class));
+        assertThat(manager.exists(PID)).isFalse();
+    }
+
+    @Test
+    public void testDictionariesAreListedFromTheCache() throws Exception {
+        final RepoPersistenceManager manager = new RepoPersistenceManager(mock(BundleContext.class), repo);
+
+        final Enumeration<?> dictionaries = manager.getDictionaries();
+
+        assertThat(Collections.list(dictionaries)).hasSize(1);
+        // the warm-up query only
+        verify(repo, times(1)).query(any(QueryRequest.class));
+        verify(repo, never()).read(any(ReadRequest.class));
+    }
+
+    @Test
+    public void testConfigurationsAreReadOneByOneIfTheWarmUpFails() throws Exception {
+        when(repo.query(any(QueryRequest.class))).thenThrow(new NotFoundException("no queryFilter support"));
+        when(repo.read(any(ReadRequest.class))).thenReturn(config(PID, "1"));
+        final RepoPersistenceManager manager = new RepoPersistenceManager(mock(BundleContext.class), repo);
+
+        assertThat(manager.exists(PID)).isTrue();
+        assertThat(manager.exists(PID)).isTrue();
+
+        verify(repo, times(1)).read(any(ReadRequest.class));
+    }
+
+    private static ResourceResponse config(String pid, String rev) {
+        return newResourceResponse(pid, rev, json(object(
+                field("_id", pid),
+                field("_rev", rev),
+                field("service__pid", pid),
+                field(JSONEnhancedConfig.JSON_CONFIG_PROPERTY, object(field("filters", Arrays.asList()))))));
+    }
+}
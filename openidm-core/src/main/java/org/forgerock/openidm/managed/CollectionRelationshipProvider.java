@@ -76,6 +76,12 @@ class CollectionRelationshipProvider extends RelationshipProvider implements Col
      * Setup logging for the {@link CollectionRelationshipProvider}.
      */
     private static final Logger logger = LoggerFactory.getLogger(CollectionRelationshipProvider.class);
+
+    // Smartevent names, resolved once
+    private static final Name EVENT_GET_RELATIONSHIP_VALUE = Name.register("openidm/internal/relationship/collection/getRelationshipValueForResource");
+    private static final Name EVENT_SET_RELATIONSHIP_VALUE = Name.register("openidm/internal/relationship/collection/setRelationshipValueForResource");
+    private static final Name EVENT_CLEAR_NOT_IN = Name.register("openidm/internal/relationship/collection/clearNotIn");
+    private static final Name EVENT_CLEAR = Name.register("openidm/internal/relationship/collection/clear");
     
     final static QueryFilterVisitor<QueryFilter<JsonPointer>, Boolean, JsonPointer> VISITOR = new RelationshipQueryFilterVisitor();
 
@@ -111,7 +117,7 @@ class CollectionRelationshipProvider extends RelationshipProvider implements Col
     /** {@inheritDoc} */
     @Override
     public Promise<JsonValue, ResourceException> getRelationshipValueForResource(final Context context, final String resourceId) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/relationship/collection/getRelationshipValueForResource"), resourceId, context);
+        EventEntry measure = Publisher.start(EVENT_GET_RELATIONSHIP_VALUE, resourceId, context);
 
         try {
             final QueryRequest queryRequest = Requests.newQueryRequest("")
@@ -141,10 +147,20 @@ class CollectionRelationshipProvider extends RelationshipProvider implements Col
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected JsonValue toRelationshipValue(String resourceFullPath, List<ResourceResponse> relationships) {
+        final JsonValue buf = json(array());
+        for (ResourceResponse relationship : relationships) {
+            buf.add(formatRelationship(relationship, resourceFullPath).getContent().getObject());
+        }
+        return buf;
+    }
+
     @Override
     public Promise<JsonValue, ResourceException> setRelationshipValueForResource(final boolean clearExisting, Context context, String resourceId,
             JsonValue relationships) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/relationship/collection/setRelationshipValueForResource"), resourceId, context);
+        EventEntry measure = Publisher.start(EVENT_SET_RELATIONSHIP_VALUE, resourceId, context);
 
         try {
             relationships.expect(List.class);
@@ -234,7 +250,7 @@ class CollectionRelationshipProvider extends RelationshipProvider implements Col
      */
     private Promise<JsonValue, ResourceException> clearNotIn(final Context context, final String resourceId,
             final Set<String> relationshipsToKeep) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/relationship/collection/clearNotIn"), resourceId, context);
+        EventEntry measure = Publisher.start(EVENT_CLEAR_NOT_IN, resourceId, context);
 
         try {
             return getRelationshipValueForResource(context, resourceId).thenAsync(new AsyncFunction<JsonValue, JsonValue, ResourceException>() {
@@ -273,7 +289,7 @@ class CollectionRelationshipProvider extends RelationshipProvider implements Col
     /** {@inheritDoc} */
     @Override
     public Promise<JsonValue, ResourceException> clear(final Context context, final String resourceId) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/relationship/collection/clear"), resourceId, null);
+        EventEntry measure = Publisher.start(EVENT_CLEAR, resourceId, null);
 
         try {
             /*
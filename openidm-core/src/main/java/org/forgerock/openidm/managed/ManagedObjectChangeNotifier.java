@@ -0,0 +1,135 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.managed;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Notifies in-process listeners, such as caches derived from managed objects, that a managed object or an
+ * internal user was updated or deleted, or that the relationships of a managed object changed.
+ * <p>
+ * Listeners are held weakly, so that a listener does not need to be removed when its owner is discarded.
+ * They are notified synchronously, on the thread that changed the object, and must not block. While a
+ * {@link ManagedObjectChangeRelay} is bound to the cluster, changes made on this node are also sent to the
+ * other nodes, whose listeners are notified once they process the cluster event.
+ */
+public final class ManagedObjectChangeNotifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(ManagedObjectChangeNotifier.class);
+
+    /**
+     * Listens to managed object changes.
+     */
+    public interface Listener {
+
+        /**
+         * Called after a managed object or an internal user was updated or deleted.
+         *
+         * @param resourcePath the path of the object, such as {@code managed/user/bjensen} or
+         *        {@code repo/internal/user/openidm-admin}
+         * @param revision the new revision of the object, or null if the object was deleted or only its
+         *        relationships changed
+         */
+        void managedObjectChanged(String resourcePath, String revision);
+    }
+
+    private static final Set<Listener> listeners =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<Listener, Boolean>()));
+
+    /** The relay sending the changes made on this node to the other cluster nodes, if any */
+    private static volatile ManagedObjectChangeRelay relay;
+
+    private ManagedObjectChangeNotifier() {
+        // prevent instantiation
+    }
+
+    /**
+     * Adds a listener.
+     *
+     * @param listener the listener, held weakly
+     */
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener
+     */
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Sets the relay sending the changes made on this node to the other cluster nodes.
+     *
+     * @param changeRelay the relay, or null if changes are not relayed
+     */
+    static void setRelay(ManagedObjectChangeRelay changeRelay) {
+        relay = changeRelay;
+    }
+
+    /**
+     * Notifies the listeners of this node that an object changed on this node and, if there are any, those of
+     * the other cluster nodes too. Nodes share their configuration, so changes are not sent to the other nodes
+     * when no listener is registered on this one.
+     *
+     * @param resourcePath the path of the object
+     * @param revision the new revision of the object, or null if unknown
+     */
+    static void notifyChanged(String resourcePath, String revision) {
+        if (!notifyListeners(resourcePath, revision)) {
+            return;
+        }
+        final ManagedObjectChangeRelay changeRelay = relay;
+        if (changeRelay != null) {
+            changeRelay.send(resourcePath, revision);
+        }
+    }
+
+    /**
+     * Notifies the listeners of this node that an object changed.
+     *
+     * @param resourcePath the path of the object
+     * @param revision the new revision of the object, or null if unknown
+     * @return false if there are no listeners
+     */
+    static boolean notifyListeners(String resourcePath, String revision) {
+        final List<Listener> current;
+        synchronized (listeners) {
+            if (listeners.isEmpty()) {
+                return false;
+            }
+            current = new ArrayList<>(listeners);
+        }
+        for (Listener listener : current) {
+            try {
+                listener.managedObjectChanged(resourcePath, revision);
+            } catch (RuntimeException e) {
+                logger.warn("Managed object change listener {} failed for {}", listener, resourcePath, e);
+            }
+        }
+        return true;
+    }
+}
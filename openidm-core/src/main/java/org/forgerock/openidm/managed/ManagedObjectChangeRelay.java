@@ -0,0 +1,242 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.managed;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import org.apache.felix.scr.annotations.Activate;
+import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.ConfigurationPolicy;
+import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Properties;
+import org.apache.felix.scr.annotations.Property;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.ReferenceCardinality;
+import org.apache.felix.scr.annotations.ReferencePolicy;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.Filter;
+import org.forgerock.json.resource.PatchRequest;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.Request;
+import org.forgerock.json.resource.RequestHandler;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.cluster.ClusterEvent;
+import org.forgerock.openidm.cluster.ClusterEventListener;
+import org.forgerock.openidm.cluster.ClusterEventType;
+import org.forgerock.openidm.cluster.ClusterManagementService;
+import org.forgerock.openidm.core.ServerConstants;
+import org.forgerock.openidm.router.RouterFilterRegistration;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.promise.Promise;
+import org.forgerock.util.promise.ResultHandler;
+import org.osgi.framework.Constants;
+import org.osgi.service.component.ComponentContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Feeds the {@link ManagedObjectChangeNotifier} with the changes it is not notified of by the managed object
+ * service: changes of internal users, seen by a router filter, and changes made on other cluster nodes,
+ * received as cluster events. While bound to the cluster, it also sends the changes made on this node to the
+ * other nodes.
+ */
+@Component(name = ManagedObjectChangeRelay.PID, policy = ConfigurationPolicy.IGNORE, immediate = true)
+@Properties({
+    @Property(name = Constants.SERVICE_DESCRIPTION, value = "OpenIDM managed object change relay"),
+    @Property(name = Constants.SERVICE_VENDOR, value = ServerConstants.SERVER_VENDOR_NAME) })
+public class ManagedObjectChangeRelay implements ClusterEventListener {
+
+    public static final String PID = "org.forgerock.openidm.managed.change";
+
+    private static final Logger logger = LoggerFactory.getLogger(ManagedObjectChangeRelay.class);
+
+    /** The id of the listener of the cluster events of this relay */
+    static final String EVENT_LISTENER_ID = "managedObjectChange";
+
+    /** The path of the changed object in a cluster event */
+    static final String EVENT_RESOURCE_PATH = "resourcePath";
+
+    /** The new revision of the changed object in a cluster event */
+    static final String EVENT_REVISION = "revision";
+
+    /** The container of the internal users */
+    static final ResourcePath INTERNAL_USERS = ResourcePath.valueOf("repo/internal/user");
+
+    /** The router filter notifying the changes of internal users */
+    final Filter internalUserFilter = new InternalUserFilter();
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY, policy = ReferencePolicy.DYNAMIC)
+    volatile ClusterManagementService clusterManagementService;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY, policy = ReferencePolicy.DYNAMIC)
+    volatile RouterFilterRegistration routerFilterRegistration;
+
+    public void bindClusterManagementService(final ClusterManagementService clusterManagementService) {
+        this.clusterManagementService = clusterManagementService;
+        clusterManagementService.register(EVENT_LISTENER_ID, this);
+    }
+
+    public void unbindClusterManagementService(final ClusterManagementService clusterManagementService) {
+        clusterManagementService.unregister(EVENT_LISTENER_ID);
+        this.clusterManagementService = null;
+    }
+
+    public void bindRouterFilterRegistration(final RouterFilterRegistration routerFilterRegistration) {
+        this.routerFilterRegistration = routerFilterRegistration;
+        routerFilterRegistration.addFilter(internalUserFilter);
+    }
+
+    public void unbindRouterFilterRegistration(final RouterFilterRegistration routerFilterRegistration) {
+        routerFilterRegistration.removeFilter(internalUserFilter);
+        this.routerFilterRegistration = null;
+    }
+
+    @Activate
+    void activate(ComponentContext context) {
+        ManagedObjectChangeNotifier.setRelay(this);
+    }
+
+    @Deactivate
+    void deactivate(ComponentContext context) {
+        ManagedObjectChangeNotifier.setRelay(null);
+    }
+
+    /**
+     * Sends a change made on this node to the other cluster nodes, if clustering is enabled.
+     *
+     * @param resourcePath the path of the changed object
+     * @param revision the new revision of the object, or null if unknown
+     */
+    void send(String resourcePath, String revision) {
+        final ClusterManagementService cluster = clusterManagementService;
+        if (cluster == null || !cluster.isEnabled()) {
+            return;
+        }
+        try {
+            cluster.sendEvent(new ClusterEvent(
+                    ClusterEventType.CUSTOM,
+                    cluster.getInstanceId(),
+                    EVENT_LISTENER_ID,
+                    json(object(
+                            field(EVENT_RESOURCE_PATH, resourcePath),
+                            field(EVENT_REVISION, revision)))));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to send the change of {} to the other cluster nodes", resourcePath, e);
+        }
+    }
+
+    @Override
+    public boolean handleEvent(ClusterEvent event) {
+        switch (event.getType()) {
+        case CUSTOM:
+            final JsonValue details = event.getDetails();
+            final String resourcePath = details.get(EVENT_RESOURCE_PATH).asString();
+            if (resourcePath != null) {
+                ManagedObjectChangeNotifier.notifyListeners(resourcePath, details.get(EVENT_REVISION).asString());
+            }
+            return true;
+        default:
+            return true;
+        }
+    }
+
+    /**
+     * Returns the path of the internal user a request changes.
+     *
+     * @param request the request
+     * @return the path of the internal user, or null if the request does not address one
+     */
+    static String getInternalUserPath(Request request) {
+        final ResourcePath path = request.getResourcePathObject();
+        return path.size() == INTERNAL_USERS.size() + 1 && path.startsWith(INTERNAL_USERS)
+                ? path.toString()
+                : null;
+    }
+
+    /**
+     * Notifies the successful updates, patches and deletions of internal users.
+     */
+    private static final class InternalUserFilter implements Filter {
+
+        private Promise<ResourceResponse, ResourceException> notifyChanged(
+                Promise<ResourceResponse, ResourceException> promise, final String resourcePath,
+                final boolean deleted) {
+            if (resourcePath == null) {
+                return promise;
+            }
+            return promise.thenOnResult(new ResultHandler<ResourceResponse>() {
+                @Override
+                public void handleResult(ResourceResponse response) {
+                    ManagedObjectChangeNotifier.notifyChanged(resourcePath, deleted ? null : response.getRevision());
+                }
+            });
+        }
+
+        @Override
+        public Promise<ActionResponse, ResourceException> filterAction(Context context, ActionRequest request,
+                RequestHandler next) {
+            return next.handleAction(context, request);
+        }
+
+        @Override
+        public Promise<ResourceResponse, ResourceException> filterCreate(Context context, CreateRequest request,
+                RequestHandler next) {
+            return next.handleCreate(context, request);
+        }
+
+        @Override
+        public Promise<ResourceResponse, ResourceException> filterDelete(Context context, DeleteRequest request,
+                RequestHandler next) {
+            return notifyChanged(next.handleDelete(context, request), getInternalUserPath(request), true);
+        }
+
+        @Override
+        public Promise<ResourceResponse, ResourceException> filterPatch(Context context, PatchRequest request,
+                RequestHandler next) {
+            return notifyChanged(next.handlePatch(context, request), getInternalUserPath(request), false);
+        }
+
+        @Override
+        public Promise<QueryResponse, ResourceException> filterQuery(Context context, QueryRequest request,
+                QueryResourceHandler handler, RequestHandler next) {
+            return next.handleQuery(context, request, handler);
+        }
+
+        @Override
+        public Promise<ResourceResponse, ResourceException> filterRead(Context context, ReadRequest request,
+                RequestHandler next) {
+            return next.handleRead(context, request);
+        }
+
+        @Override
+        public Promise<ResourceResponse, ResourceException> filterUpdate(Context context, UpdateRequest request,
+                RequestHandler next) {
+            return notifyChanged(next.handleUpdate(context, request), getInternalUserPath(request), false);
+        }
+    }
+}
@@ -31,9 +31,12 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -161,6 +164,12 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
      */
     private static final Logger logger = LoggerFactory.getLogger(ManagedObjectSet.class);
 
+    // Smartevent names, resolved once
+    private static final Name EVENT_PERSIST_RELATIONSHIPS = Name.register("openidm/internal/managedobjectset/persistRelationships");
+    private static final Name EVENT_FETCH_RELATIONSHIP_FIELDS = Name.register("openidm/internal/managed/set/fetchRealtionshipFields");
+    private static final Name EVENT_FETCH_RELATIONSHIP_FIELDS_BATCH = Name.register("openidm/internal/managed/set/fetchRelationshipFieldsBatch");
+    private static final Name EVENT_VALIDATE_RELATIONSHIP_FIELDS = Name.register("openidm/internal/managedObjectSet/validateRelationshipFields");
+
     /** The managed objects service that instantiated this managed object set. */
     private final CryptoService cryptoService;
 
@@ -185,15 +194,27 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
     /** Map of scripts to execute on specific actions. */
     private final Map<String, ScriptEntry> actionScripts = new HashMap<>();
 
+    /** The smartevent names of the configured scripts, resolved once rather than on every execution. */
+    private final ConcurrentMap<String, Name> scriptEventNames = new ConcurrentHashMap<>();
+
     /** reference to the sync service route; used to decided whether or not to perform a sync action */
     private final AtomicReference<RouteService> syncRoute;
 
+    /** The number of query results whose relationship fields are populated with a single query per field */
+    static final int RELATIONSHIP_BATCH_SIZE = 100;
+
     /** Map of relationship property names and their accompanying sets */
     private final Map<JsonPointer, RelationshipProvider> relationshipProviders = new HashMap<>();
 
     /** Flag for indicating if policy enforcement is enabled */
     private final boolean enforcePolicies;
 
+    /** The maximum number of result ids recorded in the activity log of a query */
+    private final int activityLogIdDigestSize;
+
+    /** Whether the activity log of a query records the results rather than a summary */
+    private final boolean activityLogFullObjects;
+
     private final JsonValue config;
 
     /**
@@ -274,6 +295,10 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
 
         enforcePolicies = Boolean.parseBoolean(IdentityServer.getInstance()
                 .getProperty("openidm.policy.enforcement.enabled", "true"));
+        activityLogIdDigestSize = Math.max(0, Integer.parseInt(IdentityServer.getInstance()
+                .getProperty(QueryActivitySummary.ID_DIGEST_SIZE_PROPERTY, "0")));
+        activityLogFullObjects = Boolean.parseBoolean(IdentityServer.getInstance()
+                .getProperty(RouterActivityLogger.OPENIDM_AUDIT_LOG_FULL_OBJECTS, "false"));
         logger.debug("Instantiated managed object set: {}", name);
     }
 
@@ -331,7 +356,7 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
      */
     private Object execScript(final Context context, String scriptName, ScriptEntry scriptEntry, JsonValue value,
             JsonValue additionalProps) throws ResourceException {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/managed/" + this.getName() + "/execScript/" + scriptName), null, null);
+        EventEntry measure = Publisher.start(getScriptEventName(scriptName, scriptEntry), null, null);
 
         try {
             if (null == scriptEntry || !scriptEntry.isActive()) {
@@ -361,6 +386,28 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         }
     }
 
+    /**
+     * Returns the smartevent name of a script execution. The names of configured scripts are kept, other names
+     * are looked up as they come from the requested action.
+     *
+     * @param scriptName the name of the script being executed
+     * @param scriptEntry the script entry being executed, null if there is none
+     * @return the event name
+     */
+    private Name getScriptEventName(String scriptName, ScriptEntry scriptEntry) {
+        Name name = scriptEventNames.get(scriptName);
+        if (name == null) {
+            String eventName = "openidm/internal/managed/" + this.getName() + "/execScript/" + scriptName;
+            if (scriptEntry != null) {
+                name = Name.register(eventName);
+                scriptEventNames.putIfAbsent(scriptName, name);
+            } else {
+                name = Name.get(eventName);
+            }
+        }
+        return name;
+    }
+
     public void executePostUpdate(Context context, Request request, String resourceId, JsonValue oldValue,
             JsonValue newValue) throws ResourceException {
         // Execute the postUpdate script if configured
@@ -582,6 +629,7 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         UpdateRequest updateRequest = Requests.newUpdateRequest(repoId(resourceId), decryptedNew);
         updateRequest.setRevision(rev);
         ResourceResponse response = connectionFactory.getConnection().update(context, updateRequest);
+        ManagedObjectChangeNotifier.notifyChanged(managedId(resourceId).toString(), response.getRevision());
         JsonValue responseContent = response.getContent();
 
         // Put relationships back in before we respond
@@ -677,7 +725,7 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
      */
     private JsonValue persistRelationships(final boolean clearExisting, Context context, String resourceId,
             final JsonValue oldValue, final JsonValue json, Set<JsonPointer> relationshipFields) throws ResourceException {
-        EventEntry measurement = Publisher.start(Name.get("openidm/internal/managedobjectset/persistRelationships"), json, context);
+        EventEntry measurement = Publisher.start(EVENT_PERSIST_RELATIONSHIPS, json, context);
 
         try {
             final List<Promise<JsonValue, ResourceException>> persisted = new ArrayList<>();
@@ -888,41 +936,58 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
     private JsonValue fetchRelationshipFields(final Context context, final String resourceId,
             final List<JsonPointer> requestFields)
             throws ExecutionException, InterruptedException, ResourceException {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/managed/set/fetchRealtionshipFields"), resourceId, context);
+        EventEntry measure = Publisher.start(EVENT_FETCH_RELATIONSHIP_FIELDS, resourceId, context);
 
         try {
             final JsonValue joined = json(object());
 
-            /*
-             * Create set only containing the head of request fields
-             * Allows for a relationship to be fetched when only an expansion is requested.
-             * ie. a field of foo/name will retrieve the foo relationship
-             */
-            final Set<JsonPointer> fieldHeads = new HashSet<>();
-            for (JsonPointer field : requestFields) {
-                // A blank _fields param can yield a single '/' (empty) pointer
-                if (!field.isEmpty()) {
-                    fieldHeads.add(new JsonPointer(field.get(0)));
+            for (Map.Entry<JsonPointer, RelationshipProvider> entry
+                    : requestedRelationshipProviders(requestFields).entrySet()) {
+                final JsonPointer field = entry.getKey();
+                final RelationshipProvider provider = entry.getValue();
+                try {
+                    joined.put(field, provider.getRelationshipValueForResource(context,
+                            resourceId).getOrThrow().getObject());
+                } catch (NotFoundException e) {
+                    logger.debug("No {} relationships found for {}", field, resourceId);
+                    joined.put(field, null);
                 }
             }
 
-            for (Map.Entry<JsonPointer, RelationshipProvider> entry : relationshipProviders.entrySet()) {
-                final JsonPointer field = entry.getKey();
-                final RelationshipProvider provider = entry.getValue();
+            return joined;
+        } finally {
+            measure.end();
+        }
+    }
 
-                if (requestFields.contains(SchemaField.FIELD_ALL_RELATIONSHIPS)
-                        || provider.getSchemaField().isReturnedByDefault()
-                        || fieldHeads.contains(field)) { // only check head of request fields (see above)
-                    try {
-                        joined.put(field, provider.getRelationshipValueForResource(context,
-                                resourceId).getOrThrow().getObject());
-                    } catch (NotFoundException e) {
-                        logger.debug("No {} relationships found for {}", field, resourceId);
-                        joined.put(field, null);
-                    }
-                } else {
-                    // relationship was not requested or set to return by default
-                    logger.debug("Relationship field {} skipped", field);
+    /**
+     * Fetch the current relationship(s) of several resources for relationship fields set to be returned by default
+     * or specified in the request fields, with one query per relationship field for all resources.
+     *
+     * @param context The current context
+     * @param resourceIds The ids of the resources to fetch relationships of
+     * @param requestFields The fields requested in the initial request
+     * @return The resource ids mapped to a {@link JsonValue} map containing all relationship fields and their values
+     * @throws ResourceException if the relationships could not be queried
+     */
+    private Map<String, JsonValue> fetchRelationshipFields(final Context context, final Set<String> resourceIds,
+            final List<JsonPointer> requestFields) throws ResourceException {
+        EventEntry measure = Publisher.start(EVENT_FETCH_RELATIONSHIP_FIELDS_BATCH,
+                resourceIds, context);
+
+        try {
+            final Map<String, JsonValue> joined = new HashMap<>(resourceIds.size() * 2);
+            for (String resourceId : resourceIds) {
+                joined.put(resourceId, json(object()));
+            }
+
+            for (Map.Entry<JsonPointer, RelationshipProvider> entry
+                    : requestedRelationshipProviders(requestFields).entrySet()) {
+                final JsonPointer field = entry.getKey();
+                for (Map.Entry<String, JsonValue> value
+                        : entry.getValue().getRelationshipValuesForResources(context, resourceIds).entrySet()) {
+                    joined.get(value.getKey()).put(field,
+                            value.getValue() != null ? value.getValue().getObject() : null);
                 }
             }
 
@@ -932,6 +997,44 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         }
     }
 
+    /**
+     * Returns the relationship fields set to be returned by default or specified in the request fields.
+     *
+     * @param requestFields The fields requested in the initial request
+     * @return The relationship fields mapped to their providers
+     */
+    private Map<JsonPointer, RelationshipProvider> requestedRelationshipProviders(
+            final List<JsonPointer> requestFields) {
+        /*
+         * Create set only containing the head of request fields
+         * Allows for a relationship to be fetched when only an expansion is requested.
+         * ie. a field of foo/name will retrieve the foo relationship
+         */
+        final Set<JsonPointer> fieldHeads = new HashSet<>();
+        for (JsonPointer field : requestFields) {
+            // A blank _fields param can yield a single '/' (empty) pointer
+            if (!field.isEmpty()) {
+                fieldHeads.add(new JsonPointer(field.get(0)));
+            }
+        }
+
+        final Map<JsonPointer, RelationshipProvider> requested = new LinkedHashMap<>();
+        for (Map.Entry<JsonPointer, RelationshipProvider> entry : relationshipProviders.entrySet()) {
+            final JsonPointer field = entry.getKey();
+            final RelationshipProvider provider = entry.getValue();
+
+            if (requestFields.contains(SchemaField.FIELD_ALL_RELATIONSHIPS)
+                    || provider.getSchemaField().isReturnedByDefault()
+                    || fieldHeads.contains(field)) { // only check head of request fields (see above)
+                requested.put(field, provider);
+            } else {
+                // relationship was not requested or set to return by default
+                logger.debug("Relationship field {} skipped", field);
+            }
+        }
+        return requested;
+    }
+
     /**
      * This will traverse the jsonValue and validate that all relationship references are valid and available for
      * assignment.
@@ -949,7 +1052,7 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
      */
     private void validateRelationshipFields(Context context, JsonValue oldValue, JsonValue newValue,
                 Set<JsonPointer> toBeValidatedRelationshipFields, ResourcePath referrerId, boolean performDuplicateAssignmentCheck) throws ResourceException {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/managedObjectSet/validateRelationshipFields"), null, null);
+        EventEntry measure = Publisher.start(EVENT_VALIDATE_RELATIONSHIP_FIELDS, null, null);
         try {
             for (JsonPointer field : toBeValidatedRelationshipFields) {
                 final SchemaField schemaField = schema.getField(field);
@@ -1046,6 +1149,7 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
             }
 
             connectionFactory.getConnection().delete(managedContext, deleteRequest);
+            ManagedObjectChangeNotifier.notifyChanged(managedId(resourceId).toString(), null);
 
             // Delete any relationships associated with this resource
             final List<Promise<JsonValue, ResourceException>> deleted = new ArrayList<>();
@@ -1254,8 +1358,8 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         // The onRetrieve script should only be run queries that return full managed objects
         final boolean onRetrieve = executeOnRetrieve != null && Boolean.parseBoolean(executeOnRetrieve);
 
-        final List<Map<String,Object>> results = new ArrayList<Map<String,Object>>();
-        final ResourceException[] ex = new ResourceException[]{null};
+        final QueryActivitySummary summary = new QueryActivitySummary(activityLogIdDigestSize,
+                activityLogFullObjects);
         try {
             // Create new QueryRequest to send to the repository
             // Does not include any fields specified in the current request
@@ -1272,49 +1376,20 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
                 repoRequest.setAdditionalParameter(key, request.getAdditionalParameter(key));
             }
         	
-        	QueryResponse queryResponse = connectionFactory.getConnection().query(managedContext, repoRequest,
-            		new QueryResourceHandler() {
-                @Override
-                public boolean handleResource(ResourceResponse resource) {
-                    ResourceResponse resourceResponse = null;
-                    // Check if the onRetrieve script should be run
-                    if (onRetrieve) {
-                        try {
-                            onRetrieve(managedContext, request, resource.getId(), resource);
-                        } catch (ResourceException e) {
-                        	ex[0] = e;
-                            return false;
-                        }
-                    }
-                    if (ServerConstants.QUERY_ALL_IDS.equals(request.getQueryId())) {
-                        // Don't populate relationships if this is a query-all-ids query.
-                        resourceResponse = resource;    
-                    } else {
-                        // Populate the relationship fields
-                        try {
-                            JsonValue relationships = fetchRelationshipFields(managedContext, resource.getId(), request.getFields());
-                            resource.getContent().asMap().putAll(relationships.asMap());
-                            resourceResponse = prepareResponse(managedContext, resource, request.getFields());
-                        } catch (ResourceException e) {
-                            ex[0] = e;
-                            return false;
-                        } catch (Exception e) {
-                            ex[0] = new InternalServerErrorException(e.getMessage(), e);
-                            return false;
-                        }
-                    }
-                    results.add(resourceResponse.getContent().asMap());
-                    return handler.handleResource(prepareResponse(managedContext, resourceResponse, request.getFields()));
-                }
-            });
-        	
-        	if(ex[0] != null) {
-            	return ex[0].asPromise();
-        	}
+            final RelationshipBatchingHandler batchingHandler = new RelationshipBatchingHandler(managedContext,
+                    request, handler, onRetrieve, summary);
+            QueryResponse queryResponse = connectionFactory.getConnection().query(managedContext, repoRequest,
+                    batchingHandler);
+            // Hand over the last, partial, batch
+            batchingHandler.flush();
+
+            if (batchingHandler.exception != null) {
+                return batchingHandler.exception.asPromise();
+            }
         	
             activityLogger.log(managedContext, request, 
             		"query: " + request.getQueryId() + ", parameters: " + request.getAdditionalParameters(), 
-            		request.getQueryId(), null, new JsonValue(results), Status.SUCCESS);
+            		request.getQueryId(), null, summary.toJsonValue(), Status.SUCCESS);
             
         	return queryResponse.asPromise();
 
@@ -1325,6 +1400,95 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         }
     }
 
+    /**
+     * Hands the results of a managed object query to the handler of the request. Unless the query only returns ids,
+     * the relationship fields of the results are populated a batch of results at a time, with one relationship query
+     * per relationship field and batch rather than per result.
+     */
+    private final class RelationshipBatchingHandler implements QueryResourceHandler {
+
+        private final Context context;
+        private final QueryRequest request;
+        private final QueryResourceHandler handler;
+        private final boolean onRetrieve;
+        private final boolean populateRelationships;
+        private final QueryActivitySummary summary;
+        private final List<ResourceResponse> batch = new ArrayList<>(RELATIONSHIP_BATCH_SIZE);
+
+        /** The first failure, which stopped the query */
+        private ResourceException exception;
+
+        private RelationshipBatchingHandler(Context context, QueryRequest request, QueryResourceHandler handler,
+                boolean onRetrieve, QueryActivitySummary summary) {
+            this.context = context;
+            this.request = request;
+            this.handler = handler;
+            this.onRetrieve = onRetrieve;
+            // Don't populate relationships if this is a query-all-ids query.
+            this.populateRelationships = !ServerConstants.QUERY_ALL_IDS.equals(request.getQueryId());
+            this.summary = summary;
+        }
+
+        @Override
+        public boolean handleResource(ResourceResponse resource) {
+            // Check if the onRetrieve script should be run
+            if (onRetrieve) {
+                try {
+                    onRetrieve(context, request, resource.getId(), resource);
+                } catch (ResourceException e) {
+                    exception = e;
+                    return false;
+                }
+            }
+            if (!populateRelationships) {
+                return handle(resource);
+            }
+            batch.add(resource);
+            return batch.size() < RELATIONSHIP_BATCH_SIZE || flush();
+        }
+
+        /**
+         * Populates the relationship fields of the batched results and hands them to the handler of the request.
+         *
+         * @return true to continue reading results, false if the handler asked to stop or a failure occurred
+         */
+        boolean flush() {
+            if (batch.isEmpty() || exception != null) {
+                batch.clear();
+                return exception == null;
+            }
+            final List<ResourceResponse> resources = new ArrayList<>(batch);
+            batch.clear();
+            try {
+                final Set<String> resourceIds = new LinkedHashSet<>(resources.size() * 2);
+                for (ResourceResponse resource : resources) {
+                    resourceIds.add(resource.getId());
+                }
+                // Populate the relationship fields
+                final Map<String, JsonValue> relationships =
+                        fetchRelationshipFields(context, resourceIds, request.getFields());
+                for (ResourceResponse resource : resources) {
+                    resource.getContent().asMap().putAll(relationships.get(resource.getId()).asMap());
+                    if (!handle(prepareResponse(context, resource, request.getFields()))) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (ResourceException e) {
+                exception = e;
+                return false;
+            } catch (Exception e) {
+                exception = new InternalServerErrorException(e.getMessage(), e);
+                return false;
+            }
+        }
+
+        private boolean handle(ResourceResponse resourceResponse) {
+            summary.add(resourceResponse);
+            return handler.handleResource(prepareResponse(context, resourceResponse, request.getFields()));
+        }
+    }
+
     @Override
     public Promise<ActionResponse, ResourceException> actionInstance(Context context, String resourceId,
     		ActionRequest request) {
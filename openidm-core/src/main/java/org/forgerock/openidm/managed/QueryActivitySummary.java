@@ -0,0 +1,102 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.managed;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ResourceResponse;
+
+/**
+ * Summarizes the results of a managed object query for the activity log, as they are handed to the
+ * client, rather than holding the full result set until the query completes.
+ * <p>
+ * The summary records the number of results and, if enabled, the ids of the first results:
+ * <pre>
+ *     {
+ *         "resultCount": 1234,
+ *         "ids": [ "id1", "id2", ... ],
+ *         "idsTruncated": true
+ *     }
+ * </pre>
+ * When full objects are logged, see {@code openidm.audit.logFullObjects}, the results are collected and logged
+ * instead, as the activity log would otherwise drop them.
+ */
+class QueryActivitySummary {
+
+    /** The property setting the maximum number of result ids recorded, 0 (the default) to record none */
+    static final String ID_DIGEST_SIZE_PROPERTY = "openidm.audit.query.idDigestSize";
+
+    private final int idDigestSize;
+    private final List<String> ids;
+    private final List<Map<String, Object>> results;
+    private int resultCount;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param idDigestSize the maximum number of result ids to record
+     * @param logFullObjects whether to collect the results rather than summarize them
+     */
+    QueryActivitySummary(int idDigestSize, boolean logFullObjects) {
+        this.idDigestSize = idDigestSize;
+        this.ids = new ArrayList<>(Math.min(idDigestSize, 16));
+        this.results = logFullObjects ? new ArrayList<Map<String, Object>>() : null;
+    }
+
+    /**
+     * Records a result handed to the client.
+     *
+     * @param resource the result
+     */
+    void add(ResourceResponse resource) {
+        if (results != null) {
+            results.add(resource.getContent().asMap());
+        }
+        if (resultCount++ < idDigestSize) {
+            ids.add(resource.getId());
+        }
+    }
+
+    /**
+     * @return the number of results recorded
+     */
+    int getResultCount() {
+        return resultCount;
+    }
+
+    /**
+     * @return the summary, or the results if full objects are logged, to be logged as the state of the query after
+     *         the request
+     */
+    JsonValue toJsonValue() {
+        if (results != null) {
+            return new JsonValue(results);
+        }
+        final JsonValue summary = json(object(field("resultCount", resultCount)));
+        if (idDigestSize > 0) {
+            summary.put("ids", ids);
+            summary.put("idsTruncated", resultCount > ids.size());
+        }
+        return summary;
+    }
+}
@@ -31,6 +31,7 @@ import static org.forgerock.util.promise.Promises.newResultPromise;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -50,6 +51,7 @@ import org.forgerock.json.resource.DeleteRequest;
 import org.forgerock.json.resource.InternalServerErrorException;
 import org.forgerock.json.resource.PatchRequest;
 import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryResourceHandler;
 import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.Request;
 import org.forgerock.json.resource.RequestHandler;
@@ -67,6 +69,7 @@ import org.forgerock.util.Function;
 import org.forgerock.util.promise.NeverThrowsException;
 import org.forgerock.util.promise.Promise;
 import org.forgerock.util.promise.ResultHandler;
+import org.forgerock.util.query.QueryFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -205,41 +208,54 @@ public abstract class RelationshipProvider {
                 
                 @Override
                 public ResourceResponse apply(final ResourceResponse raw) {
-                    final JsonValue rawContent = raw.getContent();
-                    final JsonValue formatted = json(object());
-                    final Map<String, Object> properties = new LinkedHashMap<>();
-                    final Map<String, Object> repoProperties = rawContent.get(REPO_FIELD_PROPERTIES).asMap();
-                    final String ref;
-
-                    // set the field reference
-                    if (schemaField.isReverseRelationship()
-                            && !rawContent.get(REPO_FIELD_FIRST_ID).asString().equals(resourceFullPath)) {
-                        ref = rawContent.get(REPO_FIELD_FIRST_ID).asString();
-                    } else {
-                        ref = rawContent.get(REPO_FIELD_SECOND_ID).asString();
-                    }
+                    return formatRelationship(raw, resourceFullPath);
+                }
+            };
+    }
 
-                    if (repoProperties != null) {
-                        properties.putAll(repoProperties);
-                    }
+    /**
+     * Formats a relationship from the repository to that expected by the provider consumer.
+     *
+     * @param raw The relationship resource from the repository
+     * @param resourceFullPath The full path of the managed object the relationship is a field of
+     * @return The formatted relationship
+     *
+     * @see #formatResponseNoException(Context, Request)
+     */
+    protected ResourceResponse formatRelationship(final ResourceResponse raw, final String resourceFullPath) {
+        final JsonValue rawContent = raw.getContent();
+        final JsonValue formatted = json(object());
+        final Map<String, Object> properties = new LinkedHashMap<>();
+        final Map<String, Object> repoProperties = rawContent.get(REPO_FIELD_PROPERTIES).asMap();
+        final String ref;
+
+        // set the field reference
+        if (schemaField.isReverseRelationship()
+                && !rawContent.get(REPO_FIELD_FIRST_ID).asString().equals(resourceFullPath)) {
+            ref = rawContent.get(REPO_FIELD_FIRST_ID).asString();
+        } else {
+            ref = rawContent.get(REPO_FIELD_SECOND_ID).asString();
+        }
 
-                    properties.put(FIELD_CONTENT_ID, raw.getId());
-                    properties.put(FIELD_CONTENT_REVISION, raw.getRevision());
+        if (repoProperties != null) {
+            properties.putAll(repoProperties);
+        }
 
-                    formatted.put(SchemaField.FIELD_REFERENCE, ref);
-                    formatted.put(SchemaField.FIELD_PROPERTIES, properties);
+        properties.put(FIELD_CONTENT_ID, raw.getId());
+        properties.put(FIELD_CONTENT_REVISION, raw.getRevision());
 
-                    // If has error, append error flag and message.
-                    if (rawContent.get(REFERENCE_ERROR).defaultTo(false).asBoolean()) {
-                        formatted.put(REFERENCE_ERROR, true);
-                        formatted.put(REFERENCE_ERROR_MESSAGE,
-                                rawContent.get(REFERENCE_ERROR_MESSAGE).defaultTo("").asString());
-                    }
+        formatted.put(SchemaField.FIELD_REFERENCE, ref);
+        formatted.put(SchemaField.FIELD_PROPERTIES, properties);
 
-                    // Return the resource without _id or _rev
-                    return newResourceResponse(null, null, formatted);
-                }
-            };
+        // If has error, append error flag and message.
+        if (rawContent.get(REFERENCE_ERROR).defaultTo(false).asBoolean()) {
+            formatted.put(REFERENCE_ERROR, true);
+            formatted.put(REFERENCE_ERROR_MESSAGE,
+                    rawContent.get(REFERENCE_ERROR_MESSAGE).defaultTo("").asString());
+        }
+
+        // Return the resource without _id or _rev
+        return newResourceResponse(null, null, formatted);
     }
 
     /**
@@ -339,6 +355,82 @@ public abstract class RelationshipProvider {
     public abstract Promise<JsonValue, ResourceException> getRelationshipValueForResource(Context context, 
             String resourceId);
 
+    /**
+     * Get the full relationship representations for this provider of several resources, with a single repository
+     * query rather than one query per resource.
+     *
+     * @param context Context of this request
+     * @param resourceIds Ids of the resources to fetch relationships of
+     *
+     * @return The resource ids mapped to the representation of their relationship, as returned by
+     *         {@link #getRelationshipValueForResource(Context, String)}, or to null if a singleton relationship is
+     *         not set
+     * @throws ResourceException if the relationships could not be queried
+     */
+    public Map<String, JsonValue> getRelationshipValuesForResources(final Context context,
+            final Collection<String> resourceIds) throws ResourceException {
+        // The full resource paths, mapped to the raw relationships of each resource
+        final Map<String, List<ResourceResponse>> relationships = new LinkedHashMap<>();
+        final List<QueryFilter<JsonPointer>> firstIdFilters = new ArrayList<>(resourceIds.size());
+        final List<QueryFilter<JsonPointer>> secondIdFilters = new ArrayList<>(resourceIds.size());
+        for (String resourceId : resourceIds) {
+            final String resourceFullPath = resourceContainer.child(resourceId).toString();
+            relationships.put(resourceFullPath, new ArrayList<ResourceResponse>());
+            firstIdFilters.add(QueryFilter.equalTo(new JsonPointer(REPO_FIELD_FIRST_ID), resourceFullPath));
+            secondIdFilters.add(QueryFilter.equalTo(new JsonPointer(REPO_FIELD_SECOND_ID), resourceFullPath));
+        }
+        final Map<String, JsonValue> values = new LinkedHashMap<>();
+        if (relationships.isEmpty()) {
+            return values;
+        }
+
+        // Same relationships as the RELATIONSHIP_QUERY_ID query, for all resources at once
+        final QueryFilter<JsonPointer> filter = QueryFilter.or(
+                QueryFilter.and(
+                        QueryFilter.equalTo(new JsonPointer(REPO_FIELD_FIRST_PROPERTY_NAME), schemaField.getName()),
+                        QueryFilter.or(firstIdFilters)),
+                QueryFilter.and(
+                        QueryFilter.equalTo(new JsonPointer(REPO_FIELD_SECOND_PROPERTY_NAME), schemaField.getName()),
+                        QueryFilter.or(secondIdFilters)));
+        getConnection().query(context, Requests.newQueryRequest(REPO_RESOURCE_PATH).setQueryFilter(filter),
+                new QueryResourceHandler() {
+                    @Override
+                    public boolean handleResource(ResourceResponse raw) {
+                        final JsonValue content = raw.getContent();
+                        final String firstId = content.get(REPO_FIELD_FIRST_ID).asString();
+                        final String secondId = content.get(REPO_FIELD_SECOND_ID).asString();
+                        final boolean firstMatch = relationships.containsKey(firstId) && schemaField.getName()
+                                .equals(content.get(REPO_FIELD_FIRST_PROPERTY_NAME).asString());
+                        final boolean secondMatch = relationships.containsKey(secondId) && schemaField.getName()
+                                .equals(content.get(REPO_FIELD_SECOND_PROPERTY_NAME).asString());
+                        if (firstMatch) {
+                            relationships.get(firstId).add(raw);
+                        }
+                        // A relationship of a resource to itself is only returned once, as by the query
+                        if (secondMatch && !(firstMatch && secondId.equals(firstId))) {
+                            relationships.get(secondId).add(raw);
+                        }
+                        return true;
+                    }
+                });
+
+        for (String resourceId : resourceIds) {
+            final String resourceFullPath = resourceContainer.child(resourceId).toString();
+            values.put(resourceId, toRelationshipValue(resourceFullPath, relationships.get(resourceFullPath)));
+        }
+        return values;
+    }
+
+    /**
+     * Converts the relationships of a resource, as read from the repository, to the representation of this
+     * relationship field.
+     *
+     * @param resourceFullPath The full path of the resource
+     * @param relationships The raw relationships of the resource
+     * @return The representation of the relationship field, or null if a singleton relationship is not set
+     */
+    protected abstract JsonValue toRelationshipValue(String resourceFullPath, List<ResourceResponse> relationships);
+
     /**
      * Set the supplied {@link JsonValue} as the current state of this relationship. This will support updating any 
      * existing relationship (_id is present) and remove any relationship not present in the value from the repository.
@@ -1109,6 +1201,8 @@ public abstract class RelationshipProvider {
 
             @Override
             public void handleResult(ResourceResponse invokeResponse) {
+                // the relationships of the referenced object changed, although its revision did not
+                ManagedObjectChangeNotifier.notifyChanged(resourcePath(referenceToSync).toString(), null);
                 try {
                     // now re-read the referenced object to see the aftermath of the request
                     ResourceResponse afterResponse = getConnection()
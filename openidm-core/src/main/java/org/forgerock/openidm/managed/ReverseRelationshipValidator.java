@@ -54,6 +54,10 @@ import org.slf4j.LoggerFactory;
 public class ReverseRelationshipValidator extends RelationshipValidator {
     private static final Logger logger = LoggerFactory.getLogger(ReverseRelationshipValidator.class);
 
+    // Smartevent names, resolved once
+    private static final Name EVENT_READ_RELATIONSHIP_ENDPOINT_EDGES = Name.register("openidm/internal/reverseRelationshipValidator/readRelationshipEndpointEdges");
+    private static final Name EVENT_GET_REVERSE_REFERENCE_TYPE = Name.register("openidm/internal/reverseRelationshipValidator/getReverseReferenceType");
+
     private enum ReverseReferenceType {
         ARRAY, RELATIONSHIP, NA;
 
@@ -219,7 +223,7 @@ public class ReverseRelationshipValidator extends RelationshipValidator {
      */
     private Collection<ResourceResponse> readRelationshipEndpointEdges(Context context, JsonValue relationshipField, ResourcePath referrerId) throws ResourceException {
         final EventEntry measure = Publisher.start(
-                Name.get("openidm/internal/reverseRelationshipValidator/readRelationshipEndpointEdges"), null, null);
+                EVENT_READ_RELATIONSHIP_ENDPOINT_EDGES, null, null);
         try {
             final String vertex1Id = referrerId.toString();
             final String vertex1FieldName = relationshipPropertyName;
@@ -277,7 +281,7 @@ public class ReverseRelationshipValidator extends RelationshipValidator {
          */
         if (relationshipRef.startsWith("managed/")) {
             final EventEntry measure = Publisher.start(
-                    Name.get("openidm/internal/reverseRelationshipValidator/getReverseReferenceType"), null, null);
+                    EVENT_GET_REVERSE_REFERENCE_TYPE, null, null);
             try {
                 final Connection connection = getRelationshipProvider().getConnection();
                 if (connection instanceof Describable) {
@@ -17,6 +17,7 @@ package org.forgerock.openidm.managed;
 
 import static org.forgerock.http.routing.RoutingMode.STARTS_WITH;
 import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
 import static org.forgerock.json.resource.Router.uriTemplate;
 import static org.forgerock.util.promise.Promises.newResultPromise;
 
@@ -61,6 +62,11 @@ class SingletonRelationshipProvider extends RelationshipProvider implements Sing
 
     private static final Logger logger = LoggerFactory.getLogger(SingletonRelationshipProvider.class);
 
+    // Smartevent names, resolved once
+    private static final Name EVENT_GET_RELATIONSHIP_VALUE = Name.register("openidm/internal/relationship/singleton/getRelationshipValueForResource");
+    private static final Name EVENT_SET_RELATIONSHIP_VALUE = Name.register("openidm/internal/relationship/singleton/setRelationshipValueForResource");
+    private static final Name EVENT_CLEAR = Name.register("openidm/internal/relationship/singleton/clear");
+
     private final RequestHandler requestHandler;
 
     /**
@@ -93,7 +99,7 @@ class SingletonRelationshipProvider extends RelationshipProvider implements Sing
     /** {@inheritDoc} */
     @Override
     public Promise<JsonValue, ResourceException> getRelationshipValueForResource(final Context context, final String resourceId) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/relationship/singleton/getRelationshipValueForResource"), resourceId, context);
+        EventEntry measure = Publisher.start(EVENT_GET_RELATIONSHIP_VALUE, resourceId, context);
 
         try {
             return queryRelationship(context, resourceId).thenAsync(new AsyncFunction<ResourceResponse, JsonValue,
@@ -131,36 +137,60 @@ class SingletonRelationshipProvider extends RelationshipProvider implements Sing
 
             if (relationships.isEmpty()) {
                 return new NotFoundException().asPromise();
-            } else if (relationships.size() == 1) {
-                return newResultPromise(formatResponse(context, queryRequest).apply(relationships.get(0)));
             } else {
-                // This is a singleton relationship with more than 1 reference - this is an error.
-                // Collect all the erroneous references and add them to the error message.
-                List<String> errorReferences = new ArrayList<>();
-                for (ResourceResponse relationship : relationships) {
-                    JsonValue content = relationship.getContent();
-                    if (schemaField.isReverseRelationship() &&
-                            content.get(REPO_FIELD_FIRST_ID).defaultTo("").asString().equals(resourceFullPath)) {
-                        errorReferences.add(content.get(REPO_FIELD_SECOND_ID).asString());
-                    } else {
-                        errorReferences.add(content.get(REPO_FIELD_FIRST_ID).asString());
-                    }
-                }
-                ResourceResponse relationship = relationships.get(0);
-                relationship.getContent().add(RelationshipUtil.REFERENCE_ERROR, true);
-                relationship.getContent().add(RelationshipUtil.REFERENCE_ERROR_MESSAGE,
-                        "Multiple references found for singleton relationship " + errorReferences);
-                return newResultPromise(formatResponse(context, queryRequest).apply(relationship));
+                return newResultPromise(formatResponse(context, queryRequest)
+                        .apply(singleRelationship(resourceFullPath, relationships)));
             }
         } catch (ResourceException e) {
             return e.asPromise();
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected JsonValue toRelationshipValue(String resourceFullPath, List<ResourceResponse> relationships) {
+        if (relationships.isEmpty()) {
+            return null;
+        }
+        return formatRelationship(singleRelationship(resourceFullPath, relationships), resourceFullPath).getContent();
+    }
+
+    /**
+     * Returns the relationship of a resource, flagged with a reference error if there is more than one.
+     *
+     * @param resourceFullPath The full path of the resource
+     * @param relationships The raw relationships of the resource, at least one
+     * @return The raw relationship
+     */
+    private ResourceResponse singleRelationship(String resourceFullPath, List<ResourceResponse> relationships) {
+        if (relationships.size() == 1) {
+            return relationships.get(0);
+        }
+        // This is a singleton relationship with more than 1 reference - this is an error.
+        // Collect all the erroneous references and add them to the error message.
+        List<String> errorReferences = new ArrayList<>();
+        for (ResourceResponse relationship : relationships) {
+            JsonValue content = relationship.getContent();
+            if (schemaField.isReverseRelationship() &&
+                    content.get(REPO_FIELD_FIRST_ID).defaultTo("").asString().equals(resourceFullPath)) {
+                errorReferences.add(content.get(REPO_FIELD_SECOND_ID).asString());
+            } else {
+                errorReferences.add(content.get(REPO_FIELD_FIRST_ID).asString());
+            }
+        }
+        // Flag a copy, as the relationship read may be shared with other readers
+        final ResourceResponse first = relationships.get(0);
+        final JsonValue content = first.getContent().copy();
+        content.add(RelationshipUtil.REFERENCE_ERROR, true);
+        content.add(RelationshipUtil.REFERENCE_ERROR_MESSAGE,
+                "Multiple references found for singleton relationship " + errorReferences);
+        return newResourceResponse(first.getId(), first.getRevision(), content);
+    }
+
     @Override
     public Promise<JsonValue, ResourceException> setRelationshipValueForResource(final boolean clearExisting,
             final Context context, final String resourceId, final JsonValue value) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/relationship/singleton/setRelationshipValueForResource"), resourceId, context);
+        EventEntry measure = Publisher.start(EVENT_SET_RELATIONSHIP_VALUE, resourceId, context);
 
         try {
             if (value.isNotNull()) {
@@ -210,7 +240,7 @@ class SingletonRelationshipProvider extends RelationshipProvider implements Sing
     /** {@inheritDoc} */
     @Override
     public Promise<JsonValue, ResourceException> clear(final Context context, final String resourceId) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/relationship/singleton/clear"), resourceId, context);
+        EventEntry measure = Publisher.start(EVENT_CLEAR, resourceId, context);
 
         try {
             return getRelationshipValueForResource(context, resourceId).then(new Function<JsonValue, JsonValue, ResourceException>() {
@@ -0,0 +1,141 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.forgerock.openidm.util.DurationStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adjusts the number of reconciliation tasks processed concurrently to what the source and target
+ * systems tolerate, by additive increase and multiplicative decrease (AIMD).
+ * <p>
+ * Task latencies are recorded in windows of at least as many tasks as the current limit. After
+ * each window, the limit is halved if the mean latency exceeded {@link #LATENCY_TOLERANCE} times
+ * the baseline latency or if more than {@link #MAX_FAILURE_RATE} of the tasks failed, and is
+ * otherwise raised by one. The baseline is the lowest window mean seen, drifting slowly towards
+ * higher means so that a lasting change in the systems' response times is eventually accepted.
+ * <p>
+ * The limit is enforced by the {@link ReconFeeder}, which keeps at most that many tasks in flight.
+ * The core size of the reconciliation thread pool follows the limit, so that idle threads are not
+ * kept around.
+ * <p>
+ * Latencies are recorded by the task threads, the limit is evaluated by the single feeder thread.
+ */
+class AdaptiveConcurrency {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrency.class);
+
+    /** The mean latency of a window, relative to the baseline, above which the limit is decreased */
+    static final double LATENCY_TOLERANCE = 2.0;
+
+    /** The ratio of failed tasks in a window above which the limit is decreased */
+    static final double MAX_FAILURE_RATE = 0.05;
+
+    /** The minimum number of tasks per window, so that a low limit still yields a meaningful mean */
+    static final int MIN_WINDOW_SIZE = 20;
+
+    /** The weight of a window mean above the baseline when drifting the baseline */
+    private static final double BASELINE_DRIFT = 0.1;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final ThreadPoolExecutor executor;
+
+    private volatile int limit;
+    private volatile DurationStatistics window = new DurationStatistics();
+    private long windowStartFailures;
+    private double baselineNanos = -1;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param initialLimit the initial number of concurrent tasks
+     * @param minLimit the minimum number of concurrent tasks
+     * @param maxLimit the maximum number of concurrent tasks
+     * @param executor the thread pool to resize along with the limit, or null
+     */
+    AdaptiveConcurrency(int initialLimit, int minLimit, int maxLimit, ThreadPoolExecutor executor) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.executor = executor;
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        resizeExecutor();
+    }
+
+    /**
+     * @return the current number of tasks to process concurrently
+     */
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Records the latency of a completed task. Called by the task threads.
+     *
+     * @param startNanoTime the start time of the task, as obtained by {@link DurationStatistics#startNanoTime()}
+     */
+    void record(long startNanoTime) {
+        window.stopNanoTime(startNanoTime);
+    }
+
+    /**
+     * Evaluates the current window, if complete, and adjusts the limit. Called by the feeder thread.
+     *
+     * @param failures the total number of tasks failed so far in the reconciliation run
+     * @return the possibly adjusted limit
+     */
+    int evaluate(long failures) {
+        final DurationStatistics current = window;
+        final long count = current.count();
+        if (count < Math.max(limit, MIN_WINDOW_SIZE)) {
+            return limit;
+        }
+        window = new DurationStatistics();
+
+        final double mean = current.mean();
+        final double failureRate = (double) (failures - windowStartFailures) / count;
+        windowStartFailures = failures;
+        if (baselineNanos < 0 || mean < baselineNanos) {
+            baselineNanos = mean;
+        } else {
+            baselineNanos += (mean - baselineNanos) * BASELINE_DRIFT;
+        }
+
+        final int previous = limit;
+        if (failureRate > MAX_FAILURE_RATE || mean > baselineNanos * LATENCY_TOLERANCE) {
+            limit = Math.max(minLimit, previous / 2);
+        } else if (previous < maxLimit) {
+            limit = previous + 1;
+        }
+        if (limit != previous) {
+            LOGGER.debug("Adjusted recon concurrency from {} to {}, mean task latency {} ms (baseline {} ms), "
+                    + "failure rate {}", previous, limit, DurationStatistics.nanoToMillis((long) mean),
+                    DurationStatistics.nanoToMillis((long) baselineNanos), failureRate);
+            resizeExecutor();
+        }
+        return limit;
+    }
+
+    private void resizeExecutor() {
+        if (executor != null) {
+            // the core size must not exceed the maximum size of the pool
+            executor.setCorePoolSize(Math.min(limit, executor.getMaximumPoolSize()));
+        }
+    }
+}
@@ -42,7 +42,7 @@ import org.slf4j.LoggerFactory;
 public class LazyObjectAccessor {
     private static final Logger logger = LoggerFactory.getLogger(LazyObjectAccessor.class);
 
-    public static final Name EVENT_READ_OBJ = Name.get("openidm/internal/discovery-engine/sync/read-object");
+    public static final Name EVENT_READ_OBJ = Name.register("openidm/internal/discovery-engine/sync/read-object");
 
     private ConnectionFactory connectionFactory;
     private JsonValue object = null;       // The object once loaded, or null if not found
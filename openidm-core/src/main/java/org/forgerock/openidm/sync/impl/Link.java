@@ -27,7 +27,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.forgerock.openidm.sync.SynchronizationException;
 import org.forgerock.services.context.Context;
@@ -35,6 +34,7 @@ import org.forgerock.json.JsonValue;
 import org.forgerock.json.JsonValueException;
 
 // SLF4J
+import org.forgerock.json.JsonPointer;
 import org.forgerock.json.resource.ConnectionFactory;
 import org.forgerock.json.resource.CreateRequest;
 import org.forgerock.json.resource.DeleteRequest;
@@ -298,32 +298,99 @@ class Link {
     }
 
     /**
-     * Queries all the links for a given mapping, indexed by the source identifier
+     * Queries the links of a given mapping and link qualifier, handing each link to the handler as it is read.
      * <p>
-     * This method expects a {@code "links-for-linkType"} defined with a parameter of
-     * {@code "linkType"}.
+     * The links can be restricted to a set of source identifiers, in which case they are queried in batches
+     * of {@code batchSize} identifiers.
      *
      * @param mapping the mapping to look up the links for
+     * @param linkQualifier the link qualifier to look up the links for
+     * @param normalizedSourceIds the normalized source identifiers to restrict the links to, or null for all links
+     * @param batchSize the maximum number of source identifiers per query
+     * @param handler the handler to receive the links
      * @throws SynchronizationException if the query could not be performed.
-     * @return the mapping from source identifier to the link object for it
      */
-    public static Map<String, Link> getLinksForMapping(ObjectMapping mapping, String linkQualifier) throws SynchronizationException {
-        Map<String, Link> sourceIdToLink = new ConcurrentHashMap<String, Link>();
-        if (mapping != null) {
-            JsonValue query = new JsonValue(new HashMap<String, Object>());
-            query.put(FIELD_QUERY_FILTER,
-                    QueryFilter.and(Arrays.asList(
-                            QueryFilter.equalTo("/linkType", mapping.getLinkType().getName()),
-                            QueryFilter.equalTo("/linkQualifier", linkQualifier)))
-                            .toString());
-            JsonValue queryResults = linkQuery(mapping.getConnectionFactory(), ObjectSetContext.get(), query);
-            for (JsonValue entry : queryResults) {
-                Link link = new Link(mapping);
-                link.fromJsonValue(entry);
-                sourceIdToLink.put(link.sourceId, link);
+    static void queryLinksForMapping(final ObjectMapping mapping, final String linkQualifier,
+            Collection<String> normalizedSourceIds, int batchSize, final LinkHandler handler)
+            throws SynchronizationException {
+        final QueryFilter<JsonPointer> mappingFilter = QueryFilter.and(Arrays.asList(
+                QueryFilter.equalTo(new JsonPointer("linkType"), mapping.getLinkType().getName()),
+                QueryFilter.equalTo(new JsonPointer("linkQualifier"), linkQualifier)));
+        if (normalizedSourceIds == null) {
+            queryLinks(mapping, linkQualifier, mappingFilter, handler);
+            return;
+        }
+        final JsonPointer sourceIdField = new JsonPointer(mapping.getLinkType().useReverse() ? "secondId" : "firstId");
+        final List<QueryFilter<JsonPointer>> batch = new ArrayList<>(batchSize);
+        for (String sourceId : normalizedSourceIds) {
+            batch.add(QueryFilter.equalTo(sourceIdField, sourceId));
+            if (batch.size() == batchSize) {
+                queryLinks(mapping, linkQualifier, QueryFilter.and(mappingFilter, QueryFilter.or(batch)), handler);
+                batch.clear();
             }
         }
-        return sourceIdToLink;
+        if (!batch.isEmpty()) {
+            queryLinks(mapping, linkQualifier, QueryFilter.and(mappingFilter, QueryFilter.or(batch)), handler);
+        }
+    }
+
+    private static void queryLinks(final ObjectMapping mapping, final String linkQualifier,
+            QueryFilter<JsonPointer> filter, final LinkHandler handler) throws SynchronizationException {
+        final QueryRequest request = newQueryRequest(linkId(null)).setQueryFilter(filter);
+        final SynchronizationException[] failure = new SynchronizationException[1];
+        try {
+            mapping.getConnectionFactory().getConnection().query(ObjectSetContext.get(), request,
+                    new QueryResourceHandler() {
+                        @Override
+                        public boolean handleResource(ResourceResponse resource) {
+                            final Link link = new Link(mapping);
+                            try {
+                                link.fromJsonValue(resource.getContent());
+                            } catch (JsonValueException jve) {
+                                failure[0] = new SynchronizationException("Malformed link query response", jve);
+                                return false;
+                            }
+                            link.linkQualifier = linkQualifier;
+                            handler.handleLink(link);
+                            return true;
+                        }
+                    });
+        } catch (ResourceException ose) {
+            throw new SynchronizationException("Link query failed", ose);
+        }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    /**
+     * Receives the links of a link query, one at a time.
+     */
+    interface LinkHandler {
+        /**
+         * @param link an initialized link
+         */
+        void handleLink(Link link);
+    }
+
+    /**
+     * Initializes this link view from previously queried link properties.
+     *
+     * @param id the unique identifier of the link
+     * @param rev the revision of the link
+     * @param normalizedSourceId the normalized source identifier
+     * @param normalizedTargetId the normalized target identifier
+     * @param qualifier the link qualifier
+     * @return this link
+     */
+    Link initialize(String id, String rev, String normalizedSourceId, String normalizedTargetId, String qualifier) {
+        _id = id;
+        _rev = rev;
+        sourceId = normalizedSourceId;
+        targetId = normalizedTargetId;
+        linkQualifier = qualifier;
+        initialized = true;
+        return this;
     }
 
     /** Compares the given Id to the current targetId,
@@ -26,14 +26,13 @@ import static org.forgerock.json.JsonValueFunctions.enumConstant;
 import static org.forgerock.json.JsonValueFunctions.setOf;
 import static org.forgerock.openidm.sync.impl.ReconciliationStatistic.DurationMetric;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Timer;
 
 import javax.script.ScriptException;
 
@@ -52,6 +51,7 @@ import org.forgerock.openidm.smartevent.Name;
 import org.forgerock.openidm.smartevent.Publisher;
 import org.forgerock.openidm.sync.ReconAction;
 import org.forgerock.openidm.sync.TriggerContext;
+import org.forgerock.openidm.sync.impl.PhaseStatistic.IdRetention;
 import org.forgerock.openidm.util.Script;
 import org.forgerock.openidm.util.Scripts;
 import org.forgerock.script.exception.ScriptThrownException;
@@ -69,30 +69,42 @@ class ObjectMapping {
     /**
      * Event names for monitoring ObjectMapping behavior
      */
-    static final Name EVENT_CREATE_OBJ = Name.get("openidm/internal/discovery-engine/sync/create-object");
-    static final Name EVENT_SOURCE_ASSESS_SITUATION = Name.get("openidm/internal/discovery-engine/sync/source/assess-situation");
-    static final Name EVENT_SOURCE_DETERMINE_ACTION = Name.get("openidm/internal/discovery-engine/sync/source/determine-action");
-    static final Name EVENT_SOURCE_PERFORM_ACTION = Name.get("openidm/internal/discovery-engine/sync/source/perform-action");
-    static final Name EVENT_CORRELATE_TARGET = Name.get("openidm/internal/discovery-engine/sync/source/correlate-target");
-    static final Name EVENT_UPDATE_TARGET = Name.get("openidm/internal/discovery-engine/sync/update-target");
-    static final Name EVENT_DELETE_TARGET = Name.get("openidm/internal/discovery-engine/sync/delete-target");
-    static final Name EVENT_TARGET_ASSESS_SITUATION = Name.get("openidm/internal/discovery-engine/sync/target/assess-situation");
-    static final Name EVENT_TARGET_DETERMINE_ACTION = Name.get("openidm/internal/discovery-engine/sync/target/determine-action");
-    static final Name EVENT_TARGET_PERFORM_ACTION = Name.get("openidm/internal/discovery-engine/sync/target/perform-action");
+    static final Name EVENT_CREATE_OBJ = Name.register("openidm/internal/discovery-engine/sync/create-object");
+    static final Name EVENT_SOURCE_ASSESS_SITUATION = Name.register("openidm/internal/discovery-engine/sync/source/assess-situation");
+    static final Name EVENT_SOURCE_DETERMINE_ACTION = Name.register("openidm/internal/discovery-engine/sync/source/determine-action");
+    static final Name EVENT_SOURCE_PERFORM_ACTION = Name.register("openidm/internal/discovery-engine/sync/source/perform-action");
+    static final Name EVENT_CORRELATE_TARGET = Name.register("openidm/internal/discovery-engine/sync/source/correlate-target");
+    static final Name EVENT_UPDATE_TARGET = Name.register("openidm/internal/discovery-engine/sync/update-target");
+    static final Name EVENT_DELETE_TARGET = Name.register("openidm/internal/discovery-engine/sync/delete-target");
+    static final Name EVENT_TARGET_ASSESS_SITUATION = Name.register("openidm/internal/discovery-engine/sync/target/assess-situation");
+    static final Name EVENT_TARGET_DETERMINE_ACTION = Name.register("openidm/internal/discovery-engine/sync/target/determine-action");
+    static final Name EVENT_TARGET_PERFORM_ACTION = Name.register("openidm/internal/discovery-engine/sync/target/perform-action");
     static final String EVENT_OBJECT_MAPPING_PREFIX = "openidm/internal/discovery-engine/sync/objectmapping/";
 
     /**
      * Event names for monitoring Reconciliation behavior
      */
-    static final Name EVENT_RECON = Name.get("openidm/internal/discovery-engine/reconciliation");
-    static final Name EVENT_RECON_ID_QUERIES = Name.get("openidm/internal/discovery-engine/reconciliation/id-queries-phase");
-    static final Name EVENT_RECON_SOURCE = Name.get("openidm/internal/discovery-engine/reconciliation/source-phase");
-    static final Name EVENT_RECON_TARGET = Name.get(
+    static final Name EVENT_RECON = Name.register("openidm/internal/discovery-engine/reconciliation");
+    static final Name EVENT_RECON_ID_QUERIES = Name.register("openidm/internal/discovery-engine/reconciliation/id-queries-phase");
+    static final Name EVENT_RECON_SOURCE = Name.register("openidm/internal/discovery-engine/reconciliation/source-phase");
+    static final Name EVENT_RECON_TARGET = Name.register(
             "openidm/internal/discovery-engine/reconciliation/target-phase");
 
     /** Default number of executor threads to process ReconTasks */
     private static final int DEFAULT_TASK_THREADS = 10;
 
+    /** Default number of ids kept per situation when sampling reconciliation statistics ids */
+    private static final int DEFAULT_RECON_STATISTICS_SAMPLE_SIZE = 100;
+
+    /** Interval, in milliseconds, at which the coordinating node checks the partitions of a distributed recon */
+    private static final long RECON_PARTITIONS_POLL_INTERVAL = 1000;
+
+    /** Default duration in milliseconds of a claim on a recon partition, renewed while it is reconciled */
+    static final long DEFAULT_RECON_PARTITION_LEASE = 60000;
+
+    /** Default time in seconds to wait for another recon partition to complete before failing the recon */
+    private static final int DEFAULT_RECON_PARTITIONS_TIMEOUT = 3600;
+
     /** Logger */
     private static final Logger LOGGER = LoggerFactory.getLogger(ObjectMapping.class);
 
@@ -174,6 +186,36 @@ class ObjectMapping {
     /** The number of initial tasks the ReconFeeder should submit to executors */
     private int feedSize;
 
+    /** Whether the number of concurrently processed tasks adapts to the latency and failures of the tasks */
+    private final boolean adaptiveTaskThreads;
+
+    /** The minimum number of processing threads when adapting the number of threads */
+    private final int minTaskThreads;
+
+    /** The maximum number of processing threads when adapting the number of threads */
+    private final int maxTaskThreads;
+
+    /** Which processed ids the reconciliation statistics keep in memory per situation */
+    private final IdRetention reconStatisticsIds;
+
+    /** The maximum number of ids kept per situation when sampling reconciliation statistics ids */
+    private final int reconStatisticsSampleSize;
+
+    /** Whether all processed ids are spilled to compressed files for paging after the reconciliation */
+    private final boolean reconStatisticsSpillIds;
+
+    /** The number of partitions the source phase is split into across the cluster nodes; 1 to not distribute */
+    private final int reconPartitions;
+
+    /** The duration in milliseconds of a claim on a partition, renewed by its owner while it reconciles it */
+    private final long reconPartitionLease;
+
+    /** The time in milliseconds to wait for another partition to complete before failing the reconciliation */
+    private final long reconPartitionsTimeout;
+
+    /** The number of source entries whose source objects, links and target objects are read together; 0 to not batch */
+    private final int reconBatchSize;
+
     /** a reference to the {@link ConnectionFactory} */
     private final ConnectionFactory connectionFactory;
 
@@ -224,11 +266,25 @@ class ObjectMapping {
         prefetchLinks = config.get("prefetchLinks").defaultTo(true).asBoolean();
         taskThreads = config.get("taskThreads").defaultTo(DEFAULT_TASK_THREADS).asInteger();
         feedSize = config.get("feedSize").defaultTo(ReconFeeder.DEFAULT_FEED_SIZE).asInteger();
+        adaptiveTaskThreads = config.get("adaptiveTaskThreads").defaultTo(false).asBoolean();
+        maxTaskThreads = Math.max(taskThreads, config.get("maxTaskThreads").defaultTo(taskThreads).asInteger());
+        minTaskThreads = Math.min(maxTaskThreads, config.get("minTaskThreads").defaultTo(1).asInteger());
         syncEnabled = config.get("enableSync").defaultTo(true).asBoolean();
         linkingEnabled = config.get("enableLinking").defaultTo(true).asBoolean();
         reconSourceQueryPaging = config.get("reconSourceQueryPaging").defaultTo(false).asBoolean();
         reconSourceQueryPageSize = config.get("reconSourceQueryPageSize")
                 .defaultTo(reconSourceQueryPaging ? ReconFeeder.DEFAULT_FEED_SIZE : 0).asInteger();
+        reconStatisticsIds = config.get("reconStatisticsIds").defaultTo(IdRetention.ALL.name())
+                .as(enumConstant(IdRetention.class));
+        reconStatisticsSampleSize = config.get("reconStatisticsSampleSize")
+                .defaultTo(DEFAULT_RECON_STATISTICS_SAMPLE_SIZE).asInteger();
+        reconStatisticsSpillIds = config.get("reconStatisticsSpillIds").defaultTo(false).asBoolean();
+        reconPartitions = config.get("reconPartitions").defaultTo(1).asInteger();
+        reconPartitionLease = config.get("reconPartitionLease")
+                .defaultTo(DEFAULT_RECON_PARTITION_LEASE / 1000).asLong() * 1000;
+        reconPartitionsTimeout = config.get("reconPartitionsTimeout")
+                .defaultTo(DEFAULT_RECON_PARTITIONS_TIMEOUT).asLong() * 1000;
+        reconBatchSize = config.get("reconBatchSize").defaultTo(0).asInteger();
 
         LOGGER.debug("Instantiated {}", name);
     }
@@ -731,36 +787,34 @@ class ObjectMapping {
             }
 
             // If we will handle a target phase, pre-load all relevant target identifiers
-            Set<String> remainingTargetIds = new LinkedHashSet<>();
-            ResultIterable targetIterable =
-                    new ResultIterable(Collections.<String>emptyList(), Collections.<JsonValue>emptyList());
+            // and track the targets handled during the source phase
+            SeenTargetIds seenTargetIds = null;
+            ResultIterable targetIterable = null;
             if (reconContext.getReconHandler().isRunTargetPhase()) {
                 stats.targetQueryStart();
                 final long targetQueryStart = startNanoTime(reconContext);
 
                 targetIterable = reconContext.queryTarget();
-                remainingTargetIds.addAll(targetIterable.getAllIds());
-                remainingTargetIds = Collections.synchronizedSet(remainingTargetIds);
+                seenTargetIds = new SeenTargetIds(targetIterable.getAllIds().size());
 
                 stats.addDuration(DurationMetric.targetQuery, targetQueryStart);
                 stats.targetQueryEnd();
             }
 
-            // Optionally get all links up front as well
-            Map<String, Map<String, Link>> allLinks = null;
-            if (prefetchLinks) {
-                allLinks = new HashMap<>();
-                int totalLinkEntries = 0;
-                stats.linkQueryStart();
-                for (String linkQualifier : getAllLinkQualifiers(context, reconContext)) {
-                    final long linkQueryStart = startNanoTime(reconContext);
-                    Map<String, Link> linksByQualifier = Link.getLinksForMapping(ObjectMapping.this, linkQualifier);
-                    stats.addDuration(DurationMetric.linkQuery, linkQueryStart);
+            final Set<String> linkQualifiers = prefetchLinks ? getAllLinkQualifiers(context, reconContext) : null;
 
-                    allLinks.put(linkQualifier, linksByQualifier);
-                    totalLinkEntries += linksByQualifier.size();
-                }
-                reconContext.setTotalLinkEntries(totalLinkEntries);
+            // Distribute the source phase across the cluster nodes if so configured
+            final ReconPartitions partitions = reconContext.service == null
+                    ? null
+                    : reconContext.service.distribute(reconContext, seenTargetIds != null);
+
+            // Optionally get links up front as well; all of them, or if paging the source query or
+            // distributing the source phase, only the links of each page as it is processed
+            PrefetchedLinks prefetchedLinks = null;
+            if (prefetchLinks && !reconSourceQueryPaging && partitions == null) {
+                stats.linkQueryStart();
+                prefetchedLinks = PrefetchedLinks.forMapping(this, linkQualifiers, reconContext);
+                reconContext.setTotalLinkEntries(prefetchedLinks.size());
                 stats.linkQueryEnd();
             }
 
@@ -771,44 +825,42 @@ class ObjectMapping {
 
             stats.sourcePhaseStart();
             final long sourcePhaseStart = startNanoTime(reconContext);
-            
-            boolean queryNextPage = false;
 
             LOGGER.info("Performing source sync for recon {} on mapping {}", reconId, name);
-            do {
-                // Query next page of results if paging
-                if (queryNextPage) {
-                    LOGGER.debug("Querying next page of source ids");
-                    final long pagedSourceQueryStart = startNanoTime(reconContext);
-                    sourceQueryResult = reconContext.querySourceIter(reconSourceQueryPageSize,
-                            sourceQueryResult.getPagingCookie());
-                    sourceIter = sourceQueryResult.getIterator();
-                    stats.addDuration(DurationMetric.sourceQuery, pagedSourceQueryStart);
+            if (partitions != null) {
+                boolean completed = false;
+                try {
+                    reconPartitions(reconContext, context, partitions, seenTargetIds);
+                    completed = true;
+                } finally {
+                    reconContext.service.finishDistributed(partitions, !completed);
                 }
-                // Perform source recon phase on current set of source ids
-                ReconPhase sourcePhase = 
-                        new ReconPhase(sourceIter, reconContext, context, allLinks, remainingTargetIds, sourceRecon);
-                sourcePhase.setFeedSize(feedSize);
-                sourcePhase.execute();
-                queryNextPage = true;
-            } while (reconSourceQueryPaging && sourceQueryResult.getPagingCookie() != null); // If paging, loop through next pages
+            } else {
+                reconSourcePages(sourceQueryResult, sourceIter, reconContext, context, linkQualifiers,
+                        prefetchedLinks, seenTargetIds);
+            }
 
             stats.addDuration(DurationMetric.sourcePhase, sourcePhaseStart);
             stats.sourcePhaseEnd();
             measureSource.end();
 
-            LOGGER.debug("Remaining targets after source phase : {}", remainingTargetIds);
-
             if (reconContext.getReconHandler().isRunTargetPhase()) {
+                LOGGER.debug("Targets seen during source phase : {}", seenTargetIds.size());
                 EventEntry measureTarget = Publisher.start(EVENT_RECON_TARGET, reconId, null);
                 final long targetPhaseStart = startNanoTime(reconContext);
                 reconContext.setStage(ReconStage.ACTIVE_RECONCILING_TARGET);
-                targetIterable = targetIterable.removeNotMatchingEntries(remainingTargetIds);
                 stats.targetPhaseStart();
-                ReconPhase targetPhase = new ReconPhase(targetIterable.iterator(), reconContext, context,
-                        allLinks, null, targetRecon);
+                // Stream over the queried targets, skipping the ones handled during the source phase;
+                // target recon looks up the link of each target on demand
+                ReconPhase targetPhase = new ReconPhase(
+                        seenTargetIds.unseen(targetIterable.iterator(), stats.getTargetStat()),
+                        reconContext, context, null, null, targetRecon);
                 targetPhase.setFeedSize(feedSize);
                 targetPhase.execute();
+                // The targets are no longer needed, release them rather than hold them until the run ends
+                targetIterable = null;
+                seenTargetIds = null;
+                reconContext.releaseTargets();
                 stats.addDuration(DurationMetric.targetPhase, targetPhaseStart);
                 stats.targetPhaseEnd();
                 measureTarget.end();
@@ -856,7 +908,185 @@ class ObjectMapping {
 
 // TODO: cleanup orphan link objects (no matching source or target) here
     }
+
+    /**
+     * Runs the source phase of a distributed reconciliation on the coordinating node: claims and
+     * reconciles pending partitions until none are left, then waits for the partitions claimed by
+     * other nodes to complete, merging their statistics and seen targets as they do. While waiting,
+     * partitions whose claim expired are claimed again and reconciled by this node.
+     *
+     * @param reconContext the reconciliation context of the coordinating node
+     * @param context the context
+     * @param partitions the partitions of the reconciliation
+     * @param seenTargetIds the targets seen during the source phase, or null if there is no target phase
+     * @throws SynchronizationException if a partition failed, no partition completed within the configured
+     * timeout, or the reconciliation was canceled
+     * @throws InterruptedException if the thread was interrupted
+     */
+    private void reconPartitions(ReconciliationContext reconContext, Context context, ReconPartitions partitions,
+            SeenTargetIds seenTargetIds) throws SynchronizationException, InterruptedException {
+        final String instanceId = partitions.getCoordinator();
+        // Partitions reconciled or merged by this node
+        final Set<Integer> merged = new HashSet<>();
+        long lastProgress = System.currentTimeMillis();
+        while (true) {
+            reconContext.checkCanceled();
+            final Integer partition = partitions.claim(instanceId);
+            if (partition != null) {
+                LOGGER.debug("Reconciling partition {} of recon {}", partition, reconContext.getReconId());
+                final Timer lease = partitions.renewInBackground(partition, instanceId);
+                try {
+                    reconPartition(reconContext, context, partitions, partition, seenTargetIds);
+                } finally {
+                    lease.cancel();
+                }
+                // The results are recorded in this run as the partition is reconciled, so even if the
+                // claim expired meanwhile, the partition must not be merged again once completed elsewhere
+                partitions.complete(partition, instanceId, null, null);
+                merged.add(partition);
+                lastProgress = System.currentTimeMillis();
+                continue;
+            }
+
+            boolean done = true;
+            final JsonValue entries = partitions.readPartitions();
+            for (int i = 0; i < entries.size(); i++) {
+                final JsonValue entry = entries.get(i);
+                switch (ReconPartitions.getState(entry)) {
+                case COMPLETED:
+                    if (merged.add(i)) {
+                        LOGGER.debug("Merging partition {} of recon {} reconciled on {}",
+                                i, reconContext.getReconId(), ReconPartitions.getOwner(entry));
+                        reconContext.getStatistics().mergePartitionStatistics(ReconPartitions.getStatistics(entry));
+                        if (seenTargetIds != null) {
+                            partitions.readSeenTargets(i, entry, seenTargetIds);
+                        }
+                        lastProgress = System.currentTimeMillis();
+                    }
+                    break;
+                case FAILED:
+                    throw new SynchronizationException("Partition " + i + " of reconciliation "
+                            + reconContext.getReconId() + " failed on " + ReconPartitions.getOwner(entry)
+                            + ": " + ReconPartitions.getMessage(entry));
+                default:
+                    done = false;
+                    break;
+                }
+            }
+            if (done) {
+                return;
+            }
+            if (System.currentTimeMillis() - lastProgress > reconPartitionsTimeout) {
+                throw new SynchronizationException("No partition of reconciliation " + reconContext.getReconId()
+                        + " completed within " + reconPartitionsTimeout / 1000 + " seconds");
+            }
+            Thread.sleep(RECON_PARTITIONS_POLL_INTERVAL);
+        }
+    }
+
+    /**
+     * Reconciles the source entries of one partition of a distributed reconciliation.
+     * <p>
+     * The source is queried (page by page, if paging) and only the entries of the partition are
+     * reconciled. If links are prefetched, only the links of these entries are.
+     *
+     * @param reconContext the reconciliation context
+     * @param context the context
+     * @param partitions the partitions of the reconciliation
+     * @param partition the partition to reconcile
+     * @param seenTargetIds the set to mark the targets handled in the partition in, or null
+     * @throws SynchronizationException if the partition could not be reconciled
+     * @throws InterruptedException if the thread was interrupted
+     */
+    void reconPartition(ReconciliationContext reconContext, Context context, ReconPartitions partitions,
+            int partition, SeenTargetIds seenTargetIds) throws SynchronizationException, InterruptedException {
+        final Set<String> linkQualifiers = prefetchLinks ? getAllLinkQualifiers(context, reconContext) : null;
+        ReconQueryResult sourceQueryResult = null;
+        do {
+            final long sourceQueryStart = startNanoTime(reconContext);
+            sourceQueryResult = reconContext.querySourceIter(reconSourceQueryPageSize,
+                    sourceQueryResult == null ? null : sourceQueryResult.getPagingCookie());
+            addDuration(reconContext, DurationMetric.sourceQuery, sourceQueryStart);
+            PrefetchedLinks prefetchedLinks = null;
+            if (prefetchLinks && reconBatchSize <= 0) {
+                prefetchedLinks = PrefetchedLinks.forSourceIds(this, linkQualifiers,
+                        partitions.filterIds(this, sourceQueryResult.getAllIds(), partition), reconContext);
+            }
+            ReconPhase sourcePhase = newSourcePhase(
+                    partitions.filter(this, sourceQueryResult.getIterator(), partition),
+                    reconContext, context, linkQualifiers, prefetchedLinks, seenTargetIds);
+            sourcePhase.execute();
+        } while (reconSourceQueryPaging && sourceQueryResult.getPagingCookie() != null);
+    }
     
+    /**
+     * Runs the source phase on the first page of source entries and, if paging the source query, on the next
+     * pages. When paging with prefetched links, the links of each page are queried right before the page is
+     * processed, once the links of the previous page are released.
+     *
+     * @param sourceQueryResult the result of the first source query
+     * @param sourceIter the source entries of the first page
+     * @param reconContext the reconciliation context
+     * @param context the context
+     * @param linkQualifiers the link qualifiers if links are prefetched, else null
+     * @param prefetchedLinks all links of the mapping if prefetched up front, else null
+     * @param seenTargetIds the set to mark the targets handled in the source phase in, or null
+     * @throws SynchronizationException if the source phase failed
+     * @throws InterruptedException if the thread was interrupted
+     */
+    void reconSourcePages(ReconQueryResult sourceQueryResult, Iterator<ResultEntry> sourceIter,
+            ReconciliationContext reconContext, Context context, Set<String> linkQualifiers,
+            PrefetchedLinks prefetchedLinks, SeenTargetIds seenTargetIds)
+            throws SynchronizationException, InterruptedException {
+        boolean queryNextPage = false;
+        do {
+            // Query next page of results if paging
+            if (queryNextPage) {
+                LOGGER.debug("Querying next page of source ids");
+                final long pagedSourceQueryStart = startNanoTime(reconContext);
+                sourceQueryResult = reconContext.querySourceIter(reconSourceQueryPageSize,
+                        sourceQueryResult.getPagingCookie());
+                sourceIter = sourceQueryResult.getIterator();
+                addDuration(reconContext, DurationMetric.sourceQuery, pagedSourceQueryStart);
+            }
+            if (prefetchLinks && reconSourceQueryPaging && reconBatchSize <= 0) {
+                // Release the links of the previous page before querying the links of this one
+                prefetchedLinks = null;
+                prefetchedLinks = PrefetchedLinks.forSourceIds(this, linkQualifiers,
+                        sourceQueryResult.getAllIds(), reconContext);
+            }
+            // Perform source recon phase on current set of source ids
+            ReconPhase sourcePhase = newSourcePhase(sourceIter, reconContext, context, linkQualifiers,
+                    prefetchedLinks, seenTargetIds);
+            sourcePhase.execute();
+            queryNextPage = true;
+            // If paging, loop through next pages
+        } while (reconSourceQueryPaging && sourceQueryResult.getPagingCookie() != null);
+    }
+
+    /**
+     * Creates the source phase for a set of source entries, reading the entries in batches if so configured.
+     *
+     * @param sourceEntries the source entries
+     * @param reconContext the reconciliation context
+     * @param context the context
+     * @param linkQualifiers the link qualifiers if links are prefetched, else null
+     * @param prefetchedLinks the links prefetched for the source entries; if null and batching, the links
+     * are prefetched per batch
+     * @param seenTargetIds the set to mark the targets handled in the source phase in, or null
+     * @return the source phase
+     */
+    ReconPhase newSourcePhase(Iterator<ResultEntry> sourceEntries, ReconciliationContext reconContext,
+            Context context, Set<String> linkQualifiers, PrefetchedLinks prefetchedLinks,
+            SeenTargetIds seenTargetIds) {
+        final ReconPhase sourcePhase = reconBatchSize > 0
+                ? new ReconPhase(new SourceBatches(sourceEntries, this, reconContext, linkQualifiers,
+                        prefetchedLinks, reconBatchSize), reconContext, context, seenTargetIds, sourceRecon)
+                : new ReconPhase(sourceEntries, reconContext, context, prefetchedLinks, seenTargetIds, sourceRecon);
+        sourcePhase.setFeedSize(feedSize);
+        return sourcePhase;
+    }
+
     private void executeOnRecon(Context context, final ReconciliationContext reconContext) throws SynchronizationException {
         if (onReconScript != null) {
             Map<String, Object> scope = new HashMap<>();
@@ -908,6 +1138,43 @@ class ObjectMapping {
                 : cause.getMessage());
     }
 
+    /**
+     * @return which processed ids the reconciliation statistics keep in memory per situation
+     */
+    IdRetention getReconStatisticsIds() {
+        return reconStatisticsIds;
+    }
+
+    /**
+     * @return the maximum number of ids kept per situation when sampling reconciliation statistics ids
+     */
+    int getReconStatisticsSampleSize() {
+        return reconStatisticsSampleSize;
+    }
+
+    /**
+     * @return whether all processed ids are spilled to compressed files for paging after the reconciliation
+     */
+    boolean isReconStatisticsSpillIds() {
+        return reconStatisticsSpillIds;
+    }
+
+    /**
+     * @return the number of partitions the source phase of a reconciliation is split into
+     * across the cluster nodes; 1 or less to reconcile on the node the reconciliation was requested on
+     */
+    int getReconPartitions() {
+        return reconPartitions;
+    }
+
+    /**
+     * @return the duration in milliseconds of a claim on a recon partition, renewed by its owner while
+     * it reconciles the partition
+     */
+    long getReconPartitionLease() {
+        return reconPartitionLease;
+    }
+
     /**
      * @return the configured number of threads to use for processing tasks.
      * 0 to process in a single thread.
@@ -916,6 +1183,27 @@ class ObjectMapping {
         return taskThreads;
     }
 
+    /**
+     * @return whether the number of concurrently processed tasks adapts to the latency and failures of the tasks
+     */
+    boolean isAdaptiveTaskThreads() {
+        return adaptiveTaskThreads;
+    }
+
+    /**
+     * @return the minimum number of processing threads when adapting the number of threads
+     */
+    int getMinTaskThreads() {
+        return minTaskThreads;
+    }
+
+    /**
+     * @return the maximum number of processing threads when adapting the number of threads
+     */
+    int getMaxTaskThreads() {
+        return maxTaskThreads;
+    }
+
     /**
      * Creates an entry in the audit log.
      *
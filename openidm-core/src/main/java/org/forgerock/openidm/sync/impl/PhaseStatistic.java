@@ -18,17 +18,20 @@ package org.forgerock.openidm.sync.impl;
 //import java.text.SimpleDateFormat;
 import org.forgerock.openidm.sync.ReconAction;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.File;
+import java.io.IOException;
 import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.forgerock.json.JsonValue;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.util.DateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Holds the (source/target) Phase specific statistics
@@ -36,16 +39,56 @@ import org.forgerock.openidm.util.DateUtil;
  */
 public class PhaseStatistic {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(PhaseStatistic.class);
+
     static DateUtil dateUtil = DateUtil.getDateUtil(ServerConstants.TIME_ZONE_UTC);
 
     public enum Phase { SOURCE, TARGET }
-    
+
+    /**
+     * Which processed ids are kept in memory for each situation.
+     */
+    public enum IdRetention {
+        /** Keep every processed id */
+        ALL,
+        /** Keep a bounded, uniformly sampled subset of the processed ids */
+        SAMPLE,
+        /** Keep counts only */
+        NONE
+    }
+
+    /** The situations tracked per phase */
+    private static final Situation[] TRACKED_SITUATIONS = {
+        Situation.CONFIRMED,
+        Situation.FOUND,
+        Situation.ABSENT,
+        Situation.AMBIGUOUS,
+        Situation.MISSING,
+        Situation.UNQUALIFIED,
+        Situation.UNASSIGNED,
+        Situation.SOURCE_MISSING,
+        Situation.SOURCE_IGNORED,
+        Situation.TARGET_IGNORED,
+        Situation.FOUND_ALREADY_LINKED
+    };
+
+    private static final String NOT_VALID = "NOTVALID";
+
+    /**
+     * The target phase pseudo situation of the targets skipped as handled during the source phase.
+     * As handled targets are tracked by fingerprint (see {@link SeenTargetIds}), a target listed here
+     * that no source entry handled has been skipped because of a fingerprint collision.
+     */
+    private static final String SKIPPED = "SKIPPED";
+
     private ReconciliationStatistic parentStat;
     Phase phase;
     private String name;
-    private Map<Situation, List<String>> ids = Collections.synchronizedMap(new EnumMap<Situation, List<String>>(Situation.class));
+    // Populated once in the constructor and only read afterwards, so no synchronization is needed
+    private final Map<Situation, SituationIds> ids = new EnumMap<Situation, SituationIds>(Situation.class);
     private AtomicLong processedEntries = new AtomicLong();
-    private List<String> notValid;
+    private final SituationIds notValid;
+    private final SituationIds skipped;
 
     long queryStartTime;
     long queryEndTime;
@@ -53,22 +96,51 @@ public class PhaseStatistic {
     long phaseStartTime;
     long phaseEndTime;
 
+    /**
+     * Creates phase statistics which keep all processed ids in memory.
+     *
+     * @param parentStat the statistics of the whole reconciliation run
+     * @param phase the phase
+     * @param name the name of the object set reconciled in this phase
+     */
     public PhaseStatistic(ReconciliationStatistic parentStat, Phase phase, String name) {
+        this(parentStat, phase, name, IdRetention.ALL, 0, null);
+    }
+
+    /**
+     * Creates phase statistics.
+     *
+     * @param parentStat the statistics of the whole reconciliation run
+     * @param phase the phase
+     * @param name the name of the object set reconciled in this phase
+     * @param retention which processed ids to keep in memory
+     * @param sampleSize the maximum number of ids kept per situation with {@link IdRetention#SAMPLE}
+     * @param spillDirectory the directory to spill all processed ids to, or null to not spill ids
+     */
+    public PhaseStatistic(ReconciliationStatistic parentStat, Phase phase, String name,
+            IdRetention retention, int sampleSize, File spillDirectory) {
         this.parentStat = parentStat;
         this.phase = phase;
         this.name = name;
-        ids.put(Situation.CONFIRMED, Collections.synchronizedList(new ArrayList<String>()));
-        ids.put(Situation.FOUND, Collections.synchronizedList(new ArrayList<String>()));
-        ids.put(Situation.ABSENT, Collections.synchronizedList(new ArrayList<String>()));
-        ids.put(Situation.AMBIGUOUS, Collections.synchronizedList(new ArrayList<String>()));
-        ids.put(Situation.MISSING, Collections.synchronizedList(new ArrayList<String>()));
-        ids.put(Situation.UNQUALIFIED, Collections.synchronizedList(new ArrayList<String>()));
-        ids.put(Situation.UNASSIGNED, Collections.synchronizedList(new ArrayList<String>()));
-        ids.put(Situation.SOURCE_MISSING, Collections.synchronizedList(new ArrayList<String>()));
-        ids.put(Situation.SOURCE_IGNORED, Collections.synchronizedList(new ArrayList<String>()));
-        ids.put(Situation.TARGET_IGNORED, Collections.synchronizedList(new ArrayList<String>()));
-        ids.put(Situation.FOUND_ALREADY_LINKED, Collections.synchronizedList(new ArrayList<String>()));
-        notValid = Collections.synchronizedList(new ArrayList<String>());
+        for (Situation situation : TRACKED_SITUATIONS) {
+            ids.put(situation, new SituationIds(retention, sampleSize,
+                    createSpillFile(spillDirectory, situation.name())));
+        }
+        notValid = new SituationIds(retention, sampleSize, createSpillFile(spillDirectory, NOT_VALID));
+        skipped = new SituationIds(retention, sampleSize, createSpillFile(spillDirectory, SKIPPED));
+    }
+
+    private ReconIdSpillFile createSpillFile(File spillDirectory, String situation) {
+        if (spillDirectory == null) {
+            return null;
+        }
+        final File file = new File(spillDirectory, phase.name().toLowerCase(Locale.ENGLISH) + "-" + situation + ".gz");
+        try {
+            return new ReconIdSpillFile(file);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to create reconciliation id spill file {}, ids will not be spilled", file, e);
+            return null;
+        }
     }
 
     /**
@@ -94,9 +166,9 @@ public class PhaseStatistic {
         if (id != null) {
             processedEntries.incrementAndGet();
             if (situation != null) {
-                List<String> situationIds = ids.get(situation);
+                SituationIds situationIds = ids.get(situation);
                 if (situationIds != null) {
-                    situationIds.add(id); // TODO: option to not keep all results in memory
+                    situationIds.add(id);
                 }
             }
         }
@@ -108,6 +180,15 @@ public class PhaseStatistic {
         notValid.add(id);
     }
 
+    /**
+     * Records a target skipped in the target phase as it was handled during the source phase.
+     *
+     * @param id the normalized target id
+     */
+    void addSkipped(String id) {
+        skipped.add(id);
+    }
+
     public long getProcessed() {
         return processedEntries.get();
     }
@@ -121,34 +202,124 @@ public class PhaseStatistic {
         results.put("duration", parentStat.getDuration(phaseStartTime, phaseEndTime));
         results.put("entryListDuration", parentStat.getDuration(queryStartTime, queryEndTime));
         results.put("processed", getProcessed());
+        results.put(NOT_VALID, asMap(notValid));
+        results.put(SKIPPED, asMap(skipped));
 
-        Map<String, Object> nv = new HashMap<String, Object>();
-        nv.put("count", notValid.size());
-        nv.put("ids", notValid);
-        results.put("NOTVALID", nv);
-
-        int entries = 0;
-        for (Entry<Situation, List<String>> e : ids.entrySet()) {
-            Map<String, Object> res = new HashMap<String, Object>();
-            entries += e.getValue().size();
-            res.put("count", e.getValue().size());
-            res.put("ids", e.getValue());
-            results.put(e.getKey().name(), res);
+        long entries = 0;
+        for (Entry<Situation, SituationIds> e : ids.entrySet()) {
+            entries += e.getValue().getCount();
+            results.put(e.getKey().name(), asMap(e.getValue()));
         }
         results.put("entries", entries);
 
         return results;
     }
 
+    private Map<String, Object> asMap(SituationIds situationIds) {
+        Map<String, Object> res = new HashMap<String, Object>();
+        res.put("count", situationIds.getCount());
+        res.put("ids", situationIds.getIds());
+        if (!situationIds.isComplete()) {
+            res.put("sampled", Boolean.TRUE);
+        }
+        return res;
+    }
+
     public void updateSummary(Map<String, Integer> simpleSummary) {
-        for (Entry<Situation, List<String>> e : ids.entrySet()) {
+        for (Entry<Situation, SituationIds> e : ids.entrySet()) {
             String key = e.getKey().name();
             Integer existing = simpleSummary.get(key);
             if (existing == null) {
                 existing = 0;
             }
-            Integer updated = existing + e.getValue().size();
+            Integer updated = existing + (int) e.getValue().getCount();
             simpleSummary.put(key, updated);
         }
     }
+
+    /**
+     * Returns the counts of this phase, to be merged into the statistics of the same phase on
+     * another node with {@link #addCounts(JsonValue)}.
+     *
+     * @return the number of processed entries and the count of each situation
+     */
+    Map<String, Object> getCounts() {
+        Map<String, Object> counts = new HashMap<String, Object>();
+        counts.put("processed", getProcessed());
+        counts.put(NOT_VALID, notValid.getCount());
+        counts.put(SKIPPED, skipped.getCount());
+        for (Entry<Situation, SituationIds> e : ids.entrySet()) {
+            counts.put(e.getKey().name(), e.getValue().getCount());
+        }
+        return counts;
+    }
+
+    /**
+     * Adds counts recorded for this phase on another node.
+     *
+     * @param counts the counts, as returned by {@link #getCounts()}
+     */
+    void addCounts(JsonValue counts) {
+        processedEntries.addAndGet(counts.get("processed").defaultTo(0L).asLong());
+        notValid.addCount(counts.get(NOT_VALID).defaultTo(0L).asLong());
+        skipped.addCount(counts.get(SKIPPED).defaultTo(0L).asLong());
+        for (Entry<Situation, SituationIds> e : ids.entrySet()) {
+            e.getValue().addCount(counts.get(e.getKey().name()).defaultTo(0L).asLong());
+        }
+    }
+
+    /**
+     * Returns the accumulated ids for a situation, or for the {@code NOTVALID} and {@code SKIPPED} pseudo
+     * situations.
+     *
+     * @param situation the situation name
+     * @return the accumulated ids, or null if the situation is not tracked
+     */
+    SituationIds getSituationIds(String situation) {
+        if (NOT_VALID.equals(situation)) {
+            return notValid;
+        }
+        if (SKIPPED.equals(situation)) {
+            return skipped;
+        }
+        try {
+            return ids.get(Situation.valueOf(situation));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Flushes and closes all spill files so that they can be read back.
+     */
+    void closeSpillFiles() {
+        for (SituationIds situationIds : ids.values()) {
+            closeSpillFile(situationIds);
+        }
+        closeSpillFile(notValid);
+        closeSpillFile(skipped);
+    }
+
+    private void closeSpillFile(SituationIds situationIds) {
+        if (situationIds.getSpillFile() != null) {
+            situationIds.getSpillFile().close();
+        }
+    }
+
+    /**
+     * Removes all spill files.
+     */
+    void deleteSpillFiles() {
+        for (SituationIds situationIds : ids.values()) {
+            deleteSpillFile(situationIds);
+        }
+        deleteSpillFile(notValid);
+        deleteSpillFile(skipped);
+    }
+
+    private void deleteSpillFile(SituationIds situationIds) {
+        if (situationIds.getSpillFile() != null) {
+            situationIds.getSpillFile().delete();
+        }
+    }
 }
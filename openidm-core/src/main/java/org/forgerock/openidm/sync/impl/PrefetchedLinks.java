@@ -0,0 +1,167 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.openidm.sync.SynchronizationException;
+
+/**
+ * Links of a mapping queried ahead of the source phase of a reconciliation, indexed by link
+ * qualifier and normalized source id.
+ * <p>
+ * Links are kept in a compact form holding only the link id, revision and target id; the
+ * {@link Link} views handed to the sync operations are created on demand. Either all links of
+ * the mapping are prefetched, or, when the source query is paged, only the links of the source
+ * ids of the current page.
+ */
+class PrefetchedLinks {
+
+    /** The maximum number of source ids per link query when prefetching the links of a page */
+    static final int SOURCE_ID_BATCH_SIZE = 100;
+
+    private final ObjectMapping mapping;
+    private final Map<String, Map<String, CompactLink>> linksByQualifier = new HashMap<>();
+    private int size;
+
+    private PrefetchedLinks(ObjectMapping mapping) {
+        this.mapping = mapping;
+    }
+
+    /**
+     * Prefetches all links of a mapping.
+     *
+     * @param mapping the mapping
+     * @param linkQualifiers the link qualifiers to prefetch the links for
+     * @param reconContext the reconciliation context, used to record the link query durations
+     * @return the prefetched links
+     * @throws SynchronizationException if the links could not be queried
+     */
+    static PrefetchedLinks forMapping(ObjectMapping mapping, Collection<String> linkQualifiers,
+            ReconciliationContext reconContext) throws SynchronizationException {
+        return prefetch(mapping, linkQualifiers, null, reconContext);
+    }
+
+    /**
+     * Prefetches the links of a set of source ids, typically the source ids of a page of the source query.
+     *
+     * @param mapping the mapping
+     * @param linkQualifiers the link qualifiers to prefetch the links for
+     * @param sourceIds the (not normalized) source ids
+     * @param reconContext the reconciliation context, used to record the link query durations
+     * @return the prefetched links
+     * @throws SynchronizationException if the links could not be queried
+     */
+    static PrefetchedLinks forSourceIds(ObjectMapping mapping, Collection<String> linkQualifiers,
+            Collection<String> sourceIds, ReconciliationContext reconContext) throws SynchronizationException {
+        final List<String> normalizedSourceIds = new ArrayList<>(sourceIds.size());
+        for (String sourceId : sourceIds) {
+            normalizedSourceIds.add(mapping.getLinkType().normalizeSourceId(sourceId));
+        }
+        return prefetch(mapping, linkQualifiers, normalizedSourceIds, reconContext);
+    }
+
+    private static PrefetchedLinks prefetch(ObjectMapping mapping, Collection<String> linkQualifiers,
+            Collection<String> normalizedSourceIds, ReconciliationContext reconContext)
+            throws SynchronizationException {
+        final PrefetchedLinks prefetched = new PrefetchedLinks(mapping);
+        for (String linkQualifier : linkQualifiers) {
+            final Map<String, CompactLink> links = new HashMap<>(
+                    normalizedSourceIds == null ? 16 : normalizedSourceIds.size() * 2);
+            final long linkQueryStart = ObjectMapping.startNanoTime(reconContext);
+            Link.queryLinksForMapping(mapping, linkQualifier, normalizedSourceIds, SOURCE_ID_BATCH_SIZE,
+                    new Link.LinkHandler() {
+                        @Override
+                        public void handleLink(Link link) {
+                            links.put(link.sourceId, new CompactLink(link._id, link._rev, link.targetId));
+                        }
+                    });
+            ObjectMapping.addDuration(reconContext, ReconciliationStatistic.DurationMetric.linkQuery,
+                    linkQueryStart);
+            prefetched.linksByQualifier.put(linkQualifier, links);
+            prefetched.size += links.size();
+        }
+        return prefetched;
+    }
+
+    /**
+     * @param linkQualifier the link qualifier
+     * @return whether the links of the given qualifier were prefetched
+     */
+    boolean isPrefetched(String linkQualifier) {
+        return linksByQualifier.containsKey(linkQualifier);
+    }
+
+    /**
+     * Returns a new link view for a source id.
+     *
+     * @param linkQualifier the link qualifier, which must have been {@link #isPrefetched(String) prefetched}
+     * @param normalizedSourceId the normalized source id
+     * @return a new, initialized link view, or null if the source id has no link
+     */
+    Link getLink(String linkQualifier, String normalizedSourceId) {
+        final CompactLink link = linksByQualifier.get(linkQualifier).get(normalizedSourceId);
+        if (link == null) {
+            return null;
+        }
+        return new Link(mapping).initialize(link.id, link.rev, normalizedSourceId, link.targetId, linkQualifier);
+    }
+
+    /**
+     * Returns the target ids linked to a set of source ids, across all prefetched link qualifiers.
+     *
+     * @param normalizedSourceIds the normalized source ids
+     * @return the target ids of the links of the source ids
+     */
+    List<String> getTargetIds(Collection<String> normalizedSourceIds) {
+        final List<String> targetIds = new ArrayList<>(normalizedSourceIds.size());
+        for (Map<String, CompactLink> links : linksByQualifier.values()) {
+            for (String normalizedSourceId : normalizedSourceIds) {
+                final CompactLink link = links.get(normalizedSourceId);
+                if (link != null) {
+                    targetIds.add(link.targetId);
+                }
+            }
+        }
+        return targetIds;
+    }
+
+    /**
+     * @return the total number of prefetched links across all link qualifiers
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * The properties of a link not implied by its position in the index.
+     */
+    private static final class CompactLink {
+        private final String id;
+        private final String rev;
+        private final String targetId;
+
+        private CompactLink(String id, String rev, String targetId) {
+            this.id = id;
+            this.rev = rev;
+            this.targetId = targetId;
+        }
+    }
+}
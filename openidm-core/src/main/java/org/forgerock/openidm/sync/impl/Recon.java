@@ -16,9 +16,6 @@
 
 package org.forgerock.openidm.sync.impl;
 
-import java.util.Collection;
-import java.util.Map;
-
 import org.forgerock.json.JsonValue;
 import org.forgerock.openidm.sync.SynchronizationException;
 import org.forgerock.services.context.Context;
@@ -35,10 +32,10 @@ interface Recon {
      * @param entry an optional value if the given entry was pre-loaded, or null if not
      * @param reconContext reconciliation context
      * @param rootContext json resource root ctx
-     * @param allLinks all links if pre-queried, or null for on-demand link querying
-     * @param remainingIds The set to update/remove any targets that were matched
+     * @param prefetchedLinks links if pre-queried, or null for on-demand link querying
+     * @param seenTargetIds The set to mark any targets that were matched in, or null if not tracked
      * @throws SynchronizationException if there is a failure reported in reconciling this id
      */
     void recon(String id, JsonValue entry, ReconciliationContext reconContext, Context rootContext,
-            Map<String, Map<String, Link>> allLinks, Collection<String> remainingIds) throws SynchronizationException;
+            PrefetchedLinks prefetchedLinks, SeenTargetIds seenTargetIds) throws SynchronizationException;
 }
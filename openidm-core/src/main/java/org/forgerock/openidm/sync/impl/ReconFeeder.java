@@ -24,7 +24,9 @@
 */
 package org.forgerock.openidm.sync.impl;
 
+import org.forgerock.openidm.audit.util.Status;
 import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.openidm.util.DurationStatistics;
 
 import java.util.Iterator;
 import java.util.concurrent.Callable;
@@ -40,7 +42,8 @@ import java.util.concurrent.Future;
  * multi-threaded using an executor.
  *
  * Keeps the executor loaded to a desirable level, rather than filling up
- * its queue with all tasks up front.
+ * its queue with all tasks up front. The level is either the fixed feed size,
+ * or, if the mapping adapts its task threads, the current {@link AdaptiveConcurrency} limit.
  */
 public abstract class ReconFeeder {
     
@@ -69,14 +72,16 @@ public abstract class ReconFeeder {
         Executor executor = reconContext.getExcecutor();
         if (executor == null) {
             // Execute single threaded
-            while (entriesIter.hasNext()) {
-                ResultEntry entry = entriesIter.next();
+            while (hasNextEntry()) {
+                ResultEntry entry = nextEntry();
                 try {
                     createTask(entry).call();
                 } catch (Exception ex) {
                     translateTaskThrowable(ex);
                 }
             }
+        } else if (reconContext.getConcurrency() != null) {
+            executeAdaptive(executor, reconContext.getConcurrency());
         } else {
             submitted = 0;
             completionService = new ExecutorCompletionService<Void>(executor);
@@ -101,13 +106,78 @@ public abstract class ReconFeeder {
         }
     }
 
-    void submitNextIfPresent() throws SynchronizationException {
+    /**
+     * Keeps as many tasks in flight as the adaptive concurrency limit allows, re-evaluating the
+     * limit each time a task completes.
+     */
+    private void executeAdaptive(Executor executor, AdaptiveConcurrency concurrency)
+            throws SynchronizationException, InterruptedException {
+        submitted = 0;
+        completionService = new ExecutorCompletionService<Void>(executor);
+        final ReconciliationStatistic stats = reconContext.getStatistics();
+        int inFlight = 0;
+        while (true) {
+            while (inFlight < concurrency.getLimit() && submitNextIfPresent()) {
+                ++inFlight;
+            }
+            if (inFlight == 0) {
+                break;
+            }
+            Future<Void> future = completionService.take();
+            --inFlight;
+            try {
+                future.get();
+            } catch (ExecutionException ex) {
+                translateTaskThrowable(ex);
+            }
+            concurrency.evaluate(stats.getStatusCount(Status.FAILURE));
+        }
+    }
+
+    boolean submitNextIfPresent() throws SynchronizationException {
         reconContext.checkCanceled();
-        if (entriesIter.hasNext()) {
-            ResultEntry entry = entriesIter.next();
-            completionService.submit(createTask(entry));
+        if (hasNextEntry()) {
+            ResultEntry entry = nextEntry();
+            final AdaptiveConcurrency concurrency = reconContext.getConcurrency();
+            completionService.submit(concurrency == null
+                    ? createTask(entry)
+                    : timed(createTask(entry), concurrency));
             ++submitted;
+            return true;
         }
+        return false;
+    }
+
+    /**
+     * @return whether there are more entries to reconcile
+     */
+    boolean hasNextEntry() {
+        return entriesIter.hasNext();
+    }
+
+    /**
+     * @return the next entry to reconcile
+     * @throws SynchronizationException if the entry could not be obtained
+     */
+    ResultEntry nextEntry() throws SynchronizationException {
+        return entriesIter.next();
+    }
+
+    /**
+     * Wraps a task to record its latency with the adaptive concurrency limit.
+     */
+    private Callable<Void> timed(final Callable<Void> task, final AdaptiveConcurrency concurrency) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                final long startNanoTime = DurationStatistics.startNanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    concurrency.record(startNanoTime);
+                }
+            }
+        };
     }
 
     void translateTaskThrowable(Throwable throwable) throws SynchronizationException {
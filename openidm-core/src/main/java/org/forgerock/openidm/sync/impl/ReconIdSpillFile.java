@@ -0,0 +1,149 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only, gzip compressed file of reconciliation ids.
+ * <p>
+ * Ids are appended while the reconciliation runs and can be read back page by page once the
+ * file has been {@link #close() closed}.
+ */
+class ReconIdSpillFile {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReconIdSpillFile.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private DataOutputStream out;
+
+    /**
+     * Creates the file, including any missing parent directories, and opens it for writing.
+     *
+     * @param file the file to write the ids to
+     * @throws IOException if the file could not be created
+     */
+    ReconIdSpillFile(File file) throws IOException {
+        this.file = file;
+        final File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Unable to create directory " + parent);
+        }
+        out = new DataOutputStream(
+                new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE), BUFFER_SIZE));
+    }
+
+    /**
+     * @return the underlying file
+     */
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Appends an id.
+     *
+     * @param id the id to append
+     * @throws IOException if the file is closed or the write failed
+     */
+    synchronized void write(String id) throws IOException {
+        if (out == null) {
+            throw new IOException("Spill file " + file + " is closed");
+        }
+        out.writeUTF(id);
+    }
+
+    /**
+     * Flushes and closes the file for writing. Subsequent calls have no effect.
+     */
+    synchronized void close() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to close reconciliation id spill file {}", file, e);
+            }
+            out = null;
+        }
+    }
+
+    /**
+     * Closes and removes the file.
+     */
+    void delete() {
+        close();
+        if (file.exists() && !file.delete()) {
+            LOGGER.debug("Unable to delete reconciliation id spill file {}", file);
+        }
+    }
+
+    /**
+     * Reads a page of ids from a closed file.
+     *
+     * @param offset the number of ids to skip
+     * @param pageSize the maximum number of ids to return
+     * @return the ids, empty if the offset is past the end of the file
+     * @throws IOException if the file is still being written to, or could not be read
+     */
+    List<String> read(long offset, int pageSize) throws IOException {
+        synchronized (this) {
+            if (out != null) {
+                throw new IOException("Spill file " + file + " is still being written");
+            }
+        }
+        final List<String> ids = new ArrayList<>(Math.min(pageSize, BUFFER_SIZE));
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE), BUFFER_SIZE))) {
+            for (long i = 0; i < offset; i++) {
+                skipRecord(in);
+            }
+            while (ids.size() < pageSize) {
+                ids.add(in.readUTF());
+            }
+        } catch (EOFException e) {
+            // end of file reached before the page was filled
+        }
+        return ids;
+    }
+
+    private static void skipRecord(DataInputStream in) throws IOException {
+        int remaining = in.readUnsignedShort();
+        while (remaining > 0) {
+            final int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            remaining -= skipped;
+        }
+    }
+}
@@ -0,0 +1,661 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+import static org.forgerock.json.resource.Requests.newDeleteRequest;
+import static org.forgerock.json.resource.Requests.newReadRequest;
+import static org.forgerock.json.resource.Requests.newUpdateRequest;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.openidm.util.ContextUtil;
+import org.forgerock.util.encode.Base64;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Repository backed state of the source phase partitions of a distributed reconciliation.
+ * <p>
+ * The source id space is split into a fixed number of partitions by a hash of the normalized
+ * source id. The partitions are recorded in a single object in the cluster area of the
+ * repository, which the cluster nodes update with optimistic concurrency to claim and complete
+ * partitions. Each node reconciles the source entries of its claimed partitions, records the
+ * statistics of each partition and, if the coordinating node runs a target phase, the
+ * fingerprints of the targets it has seen.
+ * <p>
+ * A claim is a lease, which the owner renews while it reconciles the partition. A partition whose
+ * lease has expired, because its owner stopped without releasing it, is claimed again by the next
+ * node looking for a partition, and only the current owner of a partition can complete it.
+ */
+class ReconPartitions {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReconPartitions.class);
+
+    /** The repository container of the partition state and the seen target chunks */
+    static final String PARTITIONS_CONTAINER = "repo/cluster/reconpartitions";
+
+    /** The maximum number of target fingerprints stored per repository object */
+    static final int SEEN_TARGETS_CHUNK_SIZE = 16384;
+
+    private static final String MAPPING = "mapping";
+    private static final String COORDINATOR = "coordinator";
+    private static final String PARAMETERS = "parameters";
+    private static final String OVERRIDING_CONFIG = "overridingConfig";
+    private static final String TRACK_TARGETS = "trackTargets";
+    private static final String LEASE_DURATION = "leaseDuration";
+    private static final String PARTITIONS = "partitions";
+    private static final String STATE = "state";
+    private static final String OWNER = "owner";
+    private static final String LEASE_EXPIRES = "leaseExpires";
+    private static final String STATISTICS = "statistics";
+    private static final String SEEN_TARGET_CHUNKS = "seenTargetChunks";
+    private static final String SEEN_TARGETS_ID = "seenTargetsId";
+    private static final String MESSAGE = "message";
+    private static final String FINGERPRINTS = "fingerprints";
+
+    /**
+     * The state of a single partition.
+     */
+    enum State {
+        /** Waiting to be claimed by a node */
+        PENDING,
+        /** Being reconciled by its owner */
+        CLAIMED,
+        /** Reconciled by its owner */
+        COMPLETED,
+        /** Failed on its owner */
+        FAILED
+    }
+
+    private final ConnectionFactory connectionFactory;
+    private final String reconId;
+    private final int size;
+    private final JsonValue initial;
+
+    private ReconPartitions(ConnectionFactory connectionFactory, String reconId, JsonValue content) {
+        this.connectionFactory = connectionFactory;
+        this.reconId = reconId;
+        this.size = content.get(PARTITIONS).size();
+        this.initial = content;
+    }
+
+    /**
+     * Records the partitions of a new distributed reconciliation, all in {@link State#PENDING} state.
+     *
+     * @param connectionFactory the connection factory to access the repository with
+     * @param reconContext the reconciliation context of the coordinating node
+     * @param coordinator the instance id of the coordinating node
+     * @param size the number of partitions
+     * @param trackTargets whether the nodes should record the targets seen in each partition
+     * @param leaseDuration the duration of a claim on a partition in milliseconds, unless renewed
+     * @return the partitions
+     * @throws SynchronizationException if the partitions could not be recorded
+     */
+    static ReconPartitions create(ConnectionFactory connectionFactory, ReconciliationContext reconContext,
+            String coordinator, int size, boolean trackTargets, long leaseDuration) throws SynchronizationException {
+        final List<Object> partitions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            partitions.add(object(
+                    field(STATE, State.PENDING.name()),
+                    field(OWNER, null),
+                    field(SEEN_TARGET_CHUNKS, 0)));
+        }
+        final JsonValue content = json(object(
+                field(MAPPING, reconContext.getMapping()),
+                field(COORDINATOR, coordinator),
+                field(PARAMETERS, reconContext.getReconParams() == null
+                        ? null : reconContext.getReconParams().getObject()),
+                field(OVERRIDING_CONFIG, reconContext.getOverridingConfig() == null
+                        ? null : reconContext.getOverridingConfig().getObject()),
+                field(TRACK_TARGETS, trackTargets),
+                field(LEASE_DURATION, leaseDuration),
+                field(PARTITIONS, partitions)));
+        try {
+            connectionFactory.getConnection().create(ContextUtil.createInternalContext(),
+                    newCreateRequest(PARTITIONS_CONTAINER, reconContext.getReconId(), content));
+        } catch (ResourceException e) {
+            throw new SynchronizationException("Unable to record the partitions of reconciliation "
+                    + reconContext.getReconId(), e);
+        }
+        return new ReconPartitions(connectionFactory, reconContext.getReconId(), content);
+    }
+
+    /**
+     * Reads the partitions of a distributed reconciliation started by another node.
+     *
+     * @param connectionFactory the connection factory to access the repository with
+     * @param reconId the id of the reconciliation
+     * @return the partitions, or null if the reconciliation has already finished
+     * @throws SynchronizationException if the partitions could not be read
+     */
+    static ReconPartitions read(ConnectionFactory connectionFactory, String reconId)
+            throws SynchronizationException {
+        try {
+            final ResourceResponse response = connectionFactory.getConnection().read(
+                    ContextUtil.createInternalContext(), newReadRequest(PARTITIONS_CONTAINER, reconId));
+            return new ReconPartitions(connectionFactory, reconId, response.getContent());
+        } catch (NotFoundException e) {
+            return null;
+        } catch (ResourceException e) {
+            throw new SynchronizationException("Unable to read the partitions of reconciliation " + reconId, e);
+        }
+    }
+
+    /**
+     * Returns the partition of a source id.
+     *
+     * @param normalizedSourceId the normalized source id
+     * @param size the number of partitions
+     * @return the partition, between 0 (inclusive) and size (exclusive)
+     */
+    static int partitionOf(String normalizedSourceId, int size) {
+        return (int) ((SeenTargetIds.fingerprint(normalizedSourceId) >>> 1) % size);
+    }
+
+    /**
+     * Filters source ids down to the ones of a partition.
+     *
+     * @param mapping the mapping, used to normalize the source ids
+     * @param sourceIds the (not normalized) source ids
+     * @param partition the partition
+     * @return the source ids of the partition
+     */
+    List<String> filterIds(ObjectMapping mapping, Collection<String> sourceIds, int partition) {
+        final List<String> ids = new ArrayList<>(sourceIds.size() / size + 1);
+        for (String sourceId : sourceIds) {
+            if (partitionOf(mapping.getLinkType().normalizeSourceId(sourceId), size) == partition) {
+                ids.add(sourceId);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Filters source entries down to the ones of a partition.
+     *
+     * @param mapping the mapping, used to normalize the source ids
+     * @param entries the source entries
+     * @param partition the partition
+     * @return an iterator over the source entries of the partition
+     */
+    Iterator<ResultEntry> filter(final ObjectMapping mapping, final Iterator<ResultEntry> entries,
+            final int partition) {
+        return new Iterator<ResultEntry>() {
+            private ResultEntry next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && entries.hasNext()) {
+                    final ResultEntry entry = entries.next();
+                    if (partitionOf(mapping.getLinkType().normalizeSourceId(entry.getId()), size) == partition) {
+                        next = entry;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public ResultEntry next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final ResultEntry entry = next;
+                next = null;
+                return entry;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * @return the id of the reconciliation
+     */
+    String getReconId() {
+        return reconId;
+    }
+
+    /**
+     * @return the number of partitions
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the name of the reconciled mapping
+     */
+    String getMapping() {
+        return initial.get(MAPPING).asString();
+    }
+
+    /**
+     * @return the instance id of the coordinating node
+     */
+    String getCoordinator() {
+        return initial.get(COORDINATOR).asString();
+    }
+
+    /**
+     * @return the parameters of the reconciliation
+     */
+    JsonValue getParameters() {
+        return initial.get(PARAMETERS);
+    }
+
+    /**
+     * @return the overriding configuration of the reconciliation
+     */
+    JsonValue getOverridingConfig() {
+        return initial.get(OVERRIDING_CONFIG);
+    }
+
+    /**
+     * @return whether the nodes record the targets seen in each partition
+     */
+    boolean isTrackTargets() {
+        return initial.get(TRACK_TARGETS).defaultTo(false).asBoolean();
+    }
+
+    /**
+     * @return the duration of a claim on a partition in milliseconds, unless renewed
+     */
+    long getLeaseDuration() {
+        return initial.get(LEASE_DURATION).defaultTo(ObjectMapping.DEFAULT_RECON_PARTITION_LEASE).asLong();
+    }
+
+    /**
+     * Claims a pending partition, or a partition whose claim has expired.
+     *
+     * @param instanceId the instance id of the claiming node
+     * @return the claimed partition, or null if no partition is pending or has an expired claim
+     * @throws SynchronizationException if the partitions could not be updated
+     */
+    Integer claim(final String instanceId) throws SynchronizationException {
+        final long leaseDuration = getLeaseDuration();
+        final Integer[] claimed = new Integer[1];
+        update(new StateUpdate() {
+            @Override
+            public boolean apply(JsonValue partitions) {
+                claimed[0] = null;
+                final long now = System.currentTimeMillis();
+                for (int i = 0; i < partitions.size(); i++) {
+                    final JsonValue entry = partitions.get(i);
+                    final State state = getState(entry);
+                    if (state == State.CLAIMED && entry.get(LEASE_EXPIRES).defaultTo(0L).asLong() < now) {
+                        LOGGER.info("Claim of {} on partition {} of reconciliation {} expired, claiming it again",
+                                getOwner(entry), i, reconId);
+                    } else if (state != State.PENDING) {
+                        continue;
+                    }
+                    entry.put(STATE, State.CLAIMED.name());
+                    entry.put(OWNER, instanceId);
+                    entry.put(LEASE_EXPIRES, now + leaseDuration);
+                    claimed[0] = i;
+                    return true;
+                }
+                return false;
+            }
+        });
+        return claimed[0];
+    }
+
+    /**
+     * Renews the claim of a node on a partition.
+     *
+     * @param partition the partition
+     * @param instanceId the instance id of the node that claimed the partition
+     * @return whether the node still holds the claim
+     * @throws SynchronizationException if the partitions could not be updated
+     */
+    boolean renew(final int partition, final String instanceId) throws SynchronizationException {
+        final long leaseDuration = getLeaseDuration();
+        final boolean[] owned = new boolean[1];
+        update(new StateUpdate() {
+            @Override
+            public boolean apply(JsonValue partitions) {
+                final JsonValue entry = partitions.get(partition);
+                owned[0] = isOwner(entry, instanceId);
+                if (owned[0]) {
+                    entry.put(LEASE_EXPIRES, System.currentTimeMillis() + leaseDuration);
+                }
+                return owned[0];
+            }
+        });
+        return owned[0];
+    }
+
+    /**
+     * Renews the claim of a node on a partition in the background, every third of the lease
+     * duration, until the returned timer is canceled.
+     *
+     * @param partition the partition
+     * @param instanceId the instance id of the node that claimed the partition
+     * @return the timer renewing the claim, to cancel once the partition is reconciled
+     */
+    Timer renewInBackground(final int partition, final String instanceId) {
+        final Timer timer = new Timer("Recon partition lease " + reconId + "-" + partition, true);
+        final long period = Math.max(1L, getLeaseDuration() / 3);
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                try {
+                    if (!renew(partition, instanceId)) {
+                        LOGGER.warn("Lost the claim on partition {} of reconciliation {}", partition, reconId);
+                        cancel();
+                    }
+                } catch (SynchronizationException e) {
+                    LOGGER.warn("Unable to renew the claim on partition {} of reconciliation {}",
+                            partition, reconId, e);
+                }
+            }
+        }, period, period);
+        return timer;
+    }
+
+    /**
+     * Completes a claimed partition, if the node still holds the claim. If it does not, the partition
+     * has been claimed again by another node after the claim expired, and the results are discarded.
+     *
+     * @param partition the partition
+     * @param instanceId the instance id of the node that claimed the partition
+     * @param statistics the statistics of the partition, or null if the statistics were recorded
+     *                   directly by the coordinating node
+     * @param seenTargetIds the targets seen in the partition, or null if not tracked or recorded
+     *                      directly by the coordinating node
+     * @return whether the partition was completed
+     * @throws SynchronizationException if the partitions could not be updated
+     */
+    boolean complete(final int partition, final String instanceId, final JsonValue statistics,
+            SeenTargetIds seenTargetIds) throws SynchronizationException {
+        // Each claim writes its own chunks, so that the chunks of an expired claim do not clash
+        final String seenTargetsId = seenTargetIds == null ? null : reconId + "-" + partition + "-" + instanceId;
+        final int chunks = seenTargetIds == null ? 0 : writeSeenTargets(seenTargetsId, seenTargetIds.fingerprints());
+        final boolean[] completed = new boolean[1];
+        update(new StateUpdate() {
+            @Override
+            public boolean apply(JsonValue partitions) {
+                final JsonValue entry = partitions.get(partition);
+                completed[0] = isOwner(entry, instanceId);
+                if (completed[0]) {
+                    entry.put(STATE, State.COMPLETED.name());
+                    entry.remove(LEASE_EXPIRES);
+                    entry.put(STATISTICS, statistics == null ? null : statistics.getObject());
+                    entry.put(SEEN_TARGETS_ID, seenTargetsId);
+                    entry.put(SEEN_TARGET_CHUNKS, chunks);
+                }
+                return completed[0];
+            }
+        });
+        if (!completed[0]) {
+            LOGGER.warn("Partition {} of reconciliation {} is no longer claimed by {}, discarding its results",
+                    partition, reconId, instanceId);
+            deleteSeenTargets(seenTargetsId, chunks);
+        }
+        return completed[0];
+    }
+
+    /**
+     * Marks a claimed partition as failed, if the node still holds the claim.
+     *
+     * @param partition the partition
+     * @param instanceId the instance id of the node that claimed the partition
+     * @param message a description of the failure
+     * @throws SynchronizationException if the partitions could not be updated
+     */
+    void fail(final int partition, final String instanceId, final String message)
+            throws SynchronizationException {
+        update(new StateUpdate() {
+            @Override
+            public boolean apply(JsonValue partitions) {
+                final JsonValue entry = partitions.get(partition);
+                if (!isOwner(entry, instanceId)) {
+                    return false;
+                }
+                entry.put(STATE, State.FAILED.name());
+                entry.put(MESSAGE, message);
+                return true;
+            }
+        });
+    }
+
+    private static boolean isOwner(JsonValue entry, String instanceId) {
+        return getState(entry) == State.CLAIMED && instanceId.equals(getOwner(entry));
+    }
+
+    /**
+     * Returns the partitions claimed by a failed node to the pending state.
+     *
+     * @param instanceId the instance id of the failed node
+     * @return the number of released partitions
+     * @throws SynchronizationException if the partitions could not be updated
+     */
+    int release(final String instanceId) throws SynchronizationException {
+        final int[] released = new int[1];
+        update(new StateUpdate() {
+            @Override
+            public boolean apply(JsonValue partitions) {
+                released[0] = 0;
+                for (JsonValue entry : partitions) {
+                    if (State.CLAIMED.name().equals(entry.get(STATE).asString())
+                            && instanceId.equals(entry.get(OWNER).asString())) {
+                        entry.put(STATE, State.PENDING.name());
+                        entry.put(OWNER, null);
+                        entry.remove(LEASE_EXPIRES);
+                        released[0]++;
+                    }
+                }
+                return released[0] > 0;
+            }
+        });
+        return released[0];
+    }
+
+    /**
+     * Reads the current state of the partitions.
+     *
+     * @return the list of partition entries, each holding {@code state}, {@code owner},
+     *         {@code statistics}, {@code seenTargetChunks} and, on failure, {@code message}
+     * @throws SynchronizationException if the partitions could not be read, or were removed
+     */
+    JsonValue readPartitions() throws SynchronizationException {
+        return readState().getContent().get(PARTITIONS);
+    }
+
+    /**
+     * Returns the state of a partition entry as returned by {@link #readPartitions()}.
+     *
+     * @param entry the partition entry
+     * @return the state
+     */
+    static State getState(JsonValue entry) {
+        return State.valueOf(entry.get(STATE).asString());
+    }
+
+    /**
+     * @param entry a partition entry as returned by {@link #readPartitions()}
+     * @return the instance id of the node that claimed the partition, or null if pending
+     */
+    static String getOwner(JsonValue entry) {
+        return entry.get(OWNER).asString();
+    }
+
+    /**
+     * @param entry a partition entry as returned by {@link #readPartitions()}
+     * @return the statistics recorded for a completed partition, a null value if recorded
+     *         directly by the coordinating node
+     */
+    static JsonValue getStatistics(JsonValue entry) {
+        return entry.get(STATISTICS);
+    }
+
+    /**
+     * @param entry a partition entry as returned by {@link #readPartitions()}
+     * @return the description of the failure of a failed partition
+     */
+    static String getMessage(JsonValue entry) {
+        return entry.get(MESSAGE).asString();
+    }
+
+    /**
+     * Adds the targets seen in a completed partition to a set of seen targets.
+     *
+     * @param partition the partition
+     * @param entry the partition entry as returned by {@link #readPartitions()}
+     * @param seenTargetIds the set to add the seen targets to
+     * @throws SynchronizationException if the seen targets could not be read
+     */
+    void readSeenTargets(int partition, JsonValue entry, SeenTargetIds seenTargetIds)
+            throws SynchronizationException {
+        final String seenTargetsId = entry.get(SEEN_TARGETS_ID).asString();
+        final int chunks = entry.get(SEEN_TARGET_CHUNKS).defaultTo(0).asInteger();
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            try {
+                final ResourceResponse response = connectionFactory.getConnection().read(
+                        ContextUtil.createInternalContext(),
+                        newReadRequest(PARTITIONS_CONTAINER, chunkId(seenTargetsId, chunk)));
+                final ByteBuffer buffer =
+                        ByteBuffer.wrap(Base64.decode(response.getContent().get(FINGERPRINTS).asString()));
+                while (buffer.remaining() >= 8) {
+                    seenTargetIds.markFingerprint(buffer.getLong());
+                }
+            } catch (ResourceException e) {
+                throw new SynchronizationException("Unable to read the seen targets of partition " + partition
+                        + " of reconciliation " + reconId, e);
+            }
+        }
+    }
+
+    /**
+     * Removes the partitions and seen targets of the reconciliation from the repository.
+     */
+    void delete() {
+        try {
+            for (JsonValue entry : readPartitions()) {
+                deleteSeenTargets(entry.get(SEEN_TARGETS_ID).asString(),
+                        entry.get(SEEN_TARGET_CHUNKS).defaultTo(0).asInteger());
+            }
+        } catch (SynchronizationException e) {
+            LOGGER.debug("Unable to read the partitions of reconciliation {} for removal", reconId, e);
+        }
+        deleteQuietly(reconId);
+    }
+
+    private void deleteSeenTargets(String seenTargetsId, int chunks) {
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            deleteQuietly(chunkId(seenTargetsId, chunk));
+        }
+    }
+
+    private void deleteQuietly(String id) {
+        try {
+            connectionFactory.getConnection().delete(ContextUtil.createInternalContext(),
+                    newDeleteRequest(PARTITIONS_CONTAINER, id));
+        } catch (NotFoundException e) {
+            // already removed
+        } catch (ResourceException e) {
+            LOGGER.warn("Unable to remove {}/{}", PARTITIONS_CONTAINER, id, e);
+        }
+    }
+
+    private int writeSeenTargets(String seenTargetsId, long[] fingerprints) throws SynchronizationException {
+        int chunk = 0;
+        for (int offset = 0; offset < fingerprints.length; offset += SEEN_TARGETS_CHUNK_SIZE, chunk++) {
+            final int length = Math.min(SEEN_TARGETS_CHUNK_SIZE, fingerprints.length - offset);
+            final ByteBuffer buffer = ByteBuffer.allocate(length * 8);
+            buffer.asLongBuffer().put(fingerprints, offset, length);
+            final JsonValue content = json(object(field(FINGERPRINTS, Base64.encode(buffer.array()))));
+            try {
+                connectionFactory.getConnection().create(ContextUtil.createInternalContext(),
+                        newCreateRequest(PARTITIONS_CONTAINER, chunkId(seenTargetsId, chunk), content));
+            } catch (ResourceException e) {
+                throw new SynchronizationException("Unable to record the seen targets " + seenTargetsId
+                        + " of reconciliation " + reconId, e);
+            }
+        }
+        return chunk;
+    }
+
+    private static String chunkId(String seenTargetsId, int chunk) {
+        return seenTargetsId + "-" + chunk;
+    }
+
+    private ResourceResponse readState() throws SynchronizationException {
+        try {
+            return connectionFactory.getConnection().read(ContextUtil.createInternalContext(),
+                    newReadRequest(PARTITIONS_CONTAINER, reconId));
+        } catch (ResourceException e) {
+            throw new SynchronizationException("Unable to read the partitions of reconciliation " + reconId, e);
+        }
+    }
+
+    /**
+     * Applies an update to the partitions, retrying on concurrent modification by another node.
+     */
+    private void update(StateUpdate stateUpdate) throws SynchronizationException {
+        while (true) {
+            final ResourceResponse current = readState();
+            final JsonValue content = current.getContent();
+            if (!stateUpdate.apply(content.get(PARTITIONS))) {
+                return;
+            }
+            final UpdateRequest request = newUpdateRequest(PARTITIONS_CONTAINER, reconId, content);
+            request.setRevision(current.getRevision());
+            try {
+                connectionFactory.getConnection().update(ContextUtil.createInternalContext(), request);
+                return;
+            } catch (PreconditionFailedException e) {
+                LOGGER.debug("Partitions of reconciliation {} were concurrently updated, retrying", reconId);
+            } catch (ResourceException e) {
+                throw new SynchronizationException("Unable to update the partitions of reconciliation "
+                        + reconId, e);
+            }
+        }
+    }
+
+    /**
+     * An update of the list of partition entries.
+     */
+    private interface StateUpdate {
+        /**
+         * @param partitions the current partition entries, to be modified in place
+         * @return whether the partitions were modified and need to be written back
+         */
+        boolean apply(JsonValue partitions);
+    }
+}
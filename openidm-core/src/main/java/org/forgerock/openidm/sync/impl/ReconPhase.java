@@ -16,9 +16,7 @@
 
 package org.forgerock.openidm.sync.impl;
 
-import java.util.Collection;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.concurrent.Callable;
 
 import org.forgerock.openidm.sync.SynchronizationException;
@@ -29,21 +27,60 @@ import org.forgerock.services.context.Context;
  */
 class ReconPhase extends ReconFeeder {
     private final Context parentContext;
-    private final Map<String, Map<String, Link>> allLinks;
-    private final Collection<String> remainingIds;
+    private final PrefetchedLinks prefetchedLinks;
+    private final SeenTargetIds seenTargetIds;
     private final Recon reconById;
+    private final SourceBatches batches;
 
     ReconPhase(Iterator<ResultEntry> resultIter, ReconciliationContext reconContext, Context parentContext,
-            Map<String, Map<String, Link>> allLinks, Collection<String> remainingIds, Recon reconById) {
+            PrefetchedLinks prefetchedLinks, SeenTargetIds seenTargetIds, Recon reconById) {
         super(resultIter, reconContext);
         this.parentContext = parentContext;
-        this.allLinks = allLinks;
-        this.remainingIds = remainingIds;
+        this.prefetchedLinks = prefetchedLinks;
+        this.seenTargetIds = seenTargetIds;
         this.reconById = reconById;
+        this.batches = null;
     }
+
+    /**
+     * Reconciles the source entries read and resolved in batches.
+     */
+    ReconPhase(SourceBatches batches, ReconciliationContext reconContext, Context parentContext,
+            SeenTargetIds seenTargetIds, Recon reconById) {
+        super(null, reconContext);
+        this.parentContext = parentContext;
+        this.prefetchedLinks = null;
+        this.seenTargetIds = seenTargetIds;
+        this.reconById = reconById;
+        this.batches = batches;
+    }
+
+    @Override
+    boolean hasNextEntry() {
+        return batches != null ? batches.hasNext() : super.hasNextEntry();
+    }
+
+    @Override
+    ResultEntry nextEntry() throws SynchronizationException {
+        return batches != null ? batches.next() : super.nextEntry();
+    }
+
     @Override
-    Callable<Void> createTask(ResultEntry objectEntry) throws SynchronizationException {
-        return new ReconTask(objectEntry, reconContext, parentContext,
-                allLinks, remainingIds, reconById);
+    Callable<Void> createTask(final ResultEntry objectEntry) throws SynchronizationException {
+        if (batches == null) {
+            return new ReconTask(objectEntry, reconContext, parentContext, prefetchedLinks, seenTargetIds, reconById);
+        }
+        final PrefetchedLinks links = batches.getLinks();
+        final ReconTask task = new ReconTask(objectEntry, reconContext, parentContext, links, seenTargetIds, reconById);
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                try {
+                    return task.call();
+                } finally {
+                    batches.release(objectEntry, links);
+                }
+            }
+        };
     }
 }
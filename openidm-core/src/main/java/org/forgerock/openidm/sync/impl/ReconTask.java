@@ -16,8 +16,6 @@
 
 package org.forgerock.openidm.sync.impl;
 
-import java.util.Collection;
-import java.util.Map;
 import java.util.concurrent.Callable;
 
 import org.forgerock.json.JsonValue;
@@ -37,12 +35,12 @@ class ReconTask implements Callable<Void> {
     private final JsonValue objectEntry;
     private final ReconciliationContext reconContext;
     private final Context parentContext;
-    private final Map<String, Map<String, Link>> allLinks;
-    private final Collection<String> remainingIds;
+    private final PrefetchedLinks prefetchedLinks;
+    private final SeenTargetIds seenTargetIds;
     private final Recon reconById;
 
     ReconTask(ResultEntry resultEntry, ReconciliationContext reconContext, Context parentContext,
-            Map<String, Map<String, Link>> allLinks, Collection<String> remainingIds, Recon reconById) {
+            PrefetchedLinks prefetchedLinks, SeenTargetIds seenTargetIds, Recon reconById) {
         this.id = resultEntry.getId();
         // This value is null if it wasn't pre-queried
         this.objectEntry = resultEntry.getValue();
@@ -50,8 +48,8 @@ class ReconTask implements Callable<Void> {
 
         this.reconContext = reconContext;
         this.parentContext = parentContext;
-        this.allLinks = allLinks;
-        this.remainingIds = remainingIds;
+        this.prefetchedLinks = prefetchedLinks;
+        this.seenTargetIds = seenTargetIds;
         this.reconById = reconById;
     }
 
@@ -59,7 +57,7 @@ class ReconTask implements Callable<Void> {
         //TODO I miss the Request Context
         ObjectSetContext.push(parentContext);
         try {
-            reconById.recon(id, objectEntry, reconContext, parentContext, allLinks, remainingIds);
+            reconById.recon(id, objectEntry, reconContext, parentContext, prefetchedLinks, seenTargetIds);
         } finally {
             ObjectSetContext.pop();
         }
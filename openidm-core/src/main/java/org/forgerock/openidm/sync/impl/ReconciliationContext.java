@@ -24,6 +24,9 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.forgerock.openidm.sync.SynchronizationException;
 import org.forgerock.services.context.Context;
@@ -55,6 +58,8 @@ public class ReconciliationContext {
     private ReconTypeHandler reconTypeHandler;
     private final ReconciliationStatistic reconStat;
     private ExecutorService executor;
+    // If set, adjusts the number of tasks processed concurrently
+    private AdaptiveConcurrency concurrency;
 
     // If set, the list of all queried source Ids
     private Set<String> sourceIds;
@@ -63,11 +68,17 @@ public class ReconciliationContext {
     private Map<String, JsonValue> targets;
     // Whether the targets map contains preloaded values
     private boolean hasTargetsValues;
+
+    // Target objects read in batches during the source phase, by normalized id, until taken by their sync operation
+    private final Map<String, JsonValue> batchTargets = new ConcurrentHashMap<String, JsonValue>();
     
     private Integer totalSourceEntries;
     private Integer totalTargetEntries;
     private Integer totalLinkEntries;
 
+    // Idle time after which threads above the adaptive concurrency limit are stopped
+    private final static long ADAPTIVE_THREAD_KEEP_ALIVE_SECONDS = 30;
+
     // Marker value for nulls to use in maps without null value support
     private final static JsonValue NULL_MARKER = new JsonValue(null);
     
@@ -86,10 +97,29 @@ public class ReconciliationContext {
             JsonValue overridingConfig,
             ReconciliationService service)
         throws BadRequestException {
+        this(reconAction, mapping, callingContext.getId(), reconParams, overridingConfig, service);
+    }
+
+    /**
+     * Creates the instance for a given reconciliation id, such as the id of a distributed
+     * reconciliation coordinated by another cluster node.
+     * @param reconAction the recon action
+     * @param mapping the mapping configuration
+     * @param reconId the id of the reconciliation run
+     * @param reconParams configuration options for the recon
+     */
+    ReconciliationContext(
+            ReconciliationService.ReconAction reconAction,
+            ObjectMapping mapping,
+            String reconId,
+            JsonValue reconParams,
+            JsonValue overridingConfig,
+            ReconciliationService service)
+        throws BadRequestException {
 
         this.reconAction = reconAction;
         this.mapping = mapping;
-        this.reconId = callingContext.getId();
+        this.reconId = reconId;
         this.reconStat = new ReconciliationStatistic(this);
         this.reconParams = reconParams;
         this.overridingConfig = overridingConfig;
@@ -99,7 +129,14 @@ public class ReconciliationContext {
 
         // Initialize the executor for this recon, or null if no executor should be used
         int noOfThreads = mapping.getTaskThreads();
-        if (noOfThreads > 0) {
+        if (noOfThreads > 0 && mapping.isAdaptiveTaskThreads()) {
+            // The core pool size follows the concurrency limit, between the min and max task threads
+            final ThreadPoolExecutor pool = new ThreadPoolExecutor(noOfThreads, mapping.getMaxTaskThreads(),
+                    ADAPTIVE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+            executor = pool;
+            concurrency = new AdaptiveConcurrency(noOfThreads, mapping.getMinTaskThreads(),
+                    mapping.getMaxTaskThreads(), pool);
+        } else if (noOfThreads > 0) {
             executor = Executors.newFixedThreadPool(noOfThreads);
         } else {
             executor = null;
@@ -266,6 +303,13 @@ public class ReconciliationContext {
         return executor;
     }
 
+    /**
+     * @return the adaptive concurrency limit of this recon, or null if tasks are fed at the configured feed size
+     */
+    AdaptiveConcurrency getConcurrency() {
+        return concurrency;
+    }
+
     /**
      * Query (and cache if necessary) sources to reconcile
      * @return the source ids to reconcile in this recon scope
@@ -317,6 +361,37 @@ public class ReconciliationContext {
         this.totalTargetEntries = Integer.valueOf(targets.size());
     }
     
+    /**
+     * Adds target objects read in a batch ahead of the source entries linked to them.
+     *
+     * @param targets the normalized target ids mapped to the target objects, or to null if not found
+     */
+    void addBatchTargets(Map<String, JsonValue> targets) {
+        for (Map.Entry<String, JsonValue> target : targets.entrySet()) {
+            batchTargets.put(target.getKey(), target.getValue() == null ? NULL_MARKER : target.getValue());
+        }
+    }
+
+    /**
+     * Takes a target object read in a batch, removing it so that it is only held until used.
+     *
+     * @param normalizedTargetId the normalized target id
+     * @return the target object, a null {@link JsonValue} if the batch found no such target,
+     * or null if the target was not read in a batch
+     */
+    JsonValue takeBatchTarget(String normalizedTargetId) {
+        return batchTargets.remove(normalizedTargetId);
+    }
+
+    /**
+     * Releases the target objects queried at the outset of reconciliation once the target phase
+     * no longer needs them.
+     */
+    void releaseTargets() {
+        targets = null;
+        batchTargets.clear();
+    }
+
     /**
      * Set all pre-fetched links
      * Since pre-fetching all links is optional, links may be gotten individually rather than
@@ -390,6 +465,8 @@ public class ReconciliationContext {
     private synchronized void cleanupState() {
         sourceIds = null;
         targets = null;
+        batchTargets.clear();
+        reconStat.closeSpillFiles();
         if (executor != null) {
             executor.shutdown();
             executor = null;
@@ -15,19 +15,26 @@
  */
 package org.forgerock.openidm.sync.impl;
 
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
 import static org.forgerock.json.resource.Responses.newActionResponse;
 import static org.forgerock.json.resource.Responses.newResourceResponse;
 import static org.forgerock.openidm.util.ResourceUtil.notSupported;
 import static org.forgerock.util.query.QueryFilter.and;
 import static org.forgerock.util.query.QueryFilter.equalTo;
 
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Timer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -47,9 +54,15 @@ import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.ReferencePolicy;
 import org.apache.felix.scr.annotations.Service;
 import org.forgerock.json.JsonValueException;
+import org.forgerock.openidm.cluster.ClusterEvent;
+import org.forgerock.openidm.cluster.ClusterEventListener;
+import org.forgerock.openidm.cluster.ClusterEventType;
+import org.forgerock.openidm.cluster.ClusterManagementService;
 import org.forgerock.openidm.router.IDMConnectionFactory;
 import org.forgerock.openidm.sync.ReconContext;
 import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.openidm.sync.TriggerContext;
+import org.forgerock.openidm.util.ContextUtil;
 import org.forgerock.services.context.Context;
 import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
@@ -89,13 +102,30 @@ import org.slf4j.LoggerFactory;
         @Property(name = "openidm.router.prefix", value = "/recon/*")
 })
 public class ReconciliationService
-        implements RequestHandler, Reconcile, ReconciliationServiceMBean {
+        implements RequestHandler, Reconcile, ReconciliationServiceMBean, ClusterEventListener {
     final static Logger logger = LoggerFactory.getLogger(ReconciliationService.class);
 
     public static final String PID = "org.forgerock.openidm.recon";
     private static final String MBEAN_NAME = "org.forgerock.openidm.recon:type=Reconciliation";
     private static final String AUDIT_RECON = "audit/recon";
     private static final String SUMMARY = "summary";
+    private static final String DEFAULT_IDS_PAGE_SIZE = "1000";
+
+    /** The id this service receives cluster events for distributed reconciliations with */
+    private static final String EVENT_LISTENER_ID = "recon";
+    private static final String EVENT_ACTION = "action";
+    private static final String EVENT_RECON_ID = "reconId";
+    private static final String EVENT_INSTANCE_ID = "instanceId";
+
+    /** Actions of the cluster events for distributed reconciliations */
+    private enum PartitionAction {
+        /** Claim and reconcile partitions of a distributed reconciliation */
+        start,
+        /** Cancel the partitions of a distributed reconciliation in progress */
+        cancel,
+        /** Return the partitions claimed by a failed instance to the pending state */
+        release
+    }
 
     public enum ReconAction {
         recon, reconByQuery, reconById;
@@ -136,6 +166,35 @@ public class ReconciliationService
     )
     volatile Mappings mappings;
 
+    /**
+     * The ClusterManagementService used to distribute reconciliations across the cluster nodes
+     */
+    @Reference(
+            cardinality = ReferenceCardinality.OPTIONAL_UNARY,
+            policy = ReferencePolicy.DYNAMIC
+    )
+    volatile ClusterManagementService clusterManagementService;
+
+    public void bindClusterManagementService(final ClusterManagementService clusterManagementService) {
+        this.clusterManagementService = clusterManagementService;
+        this.clusterManagementService.register(EVENT_LISTENER_ID, this);
+    }
+
+    public void unbindClusterManagementService(final ClusterManagementService clusterManagementService) {
+        clusterManagementService.unregister(EVENT_LISTENER_ID);
+        this.clusterManagementService = null;
+    }
+
+    /**
+     * The partitions of the distributed reconciliations coordinated by this node, by reconciliation id
+     */
+    private final Map<String, ReconPartitions> coordinatedPartitions = new ConcurrentHashMap<>();
+
+    /**
+     * The partition runs of distributed reconciliations coordinated by other nodes, by reconciliation id
+     */
+    private final Map<String, ReconciliationContext> partitionRuns = new ConcurrentHashMap<>();
+
     /**
      * The thread pool for executing full reconciliation runs.
      */
@@ -300,6 +359,8 @@ public class ReconciliationService
                     result.put("_id", foundRun.getReconId());
                     result.put("action", request.getAction());
                     result.put("status", "SUCCESS");
+                } else if ("ids".equalsIgnoreCase(request.getAction())) {
+                    result.putAll(getProcessedIds(foundRun, paramsVal));
                 } else {
                     throw new BadRequestException("Action " + request.getAction() + " on recon run " + id 
                             + " not supported " + request.getAdditionalParameters());
@@ -317,6 +378,87 @@ public class ReconciliationService
         }
     }
 
+    /**
+     * Returns a page of the ids processed in a situation of a reconciliation run.
+     * If the run spilled its ids, the complete list is paged through once the run has completed;
+     * otherwise the ids kept in memory are paged through, which may be a sample only.
+     *
+     * @param run the reconciliation run
+     * @param params the action parameters: {@code phase}, {@code situation}, {@code pagedResultsOffset}
+     *               and {@code pageSize}
+     * @return the page of ids
+     * @throws ResourceException if the parameters are invalid or the ids could not be read
+     */
+    private Map<String, Object> getProcessedIds(ReconciliationContext run, JsonValue params)
+            throws ResourceException {
+        final String phase = params.get("phase").required().asString();
+        final String situation = params.get("situation").required().asString();
+        final int offset = getIntegerParameter(params, "pagedResultsOffset", "0");
+        final int pageSize = getIntegerParameter(params, "pageSize", DEFAULT_IDS_PAGE_SIZE);
+        if (offset < 0 || pageSize <= 0) {
+            throw new BadRequestException("pagedResultsOffset must not be negative and pageSize must be positive");
+        }
+
+        final PhaseStatistic phaseStat;
+        if ("source".equalsIgnoreCase(phase)) {
+            phaseStat = run.getStatistics().getSourceStat();
+        } else if ("target".equalsIgnoreCase(phase)) {
+            phaseStat = run.getStatistics().getTargetStat();
+        } else {
+            throw new BadRequestException("Unknown phase " + phase + ", expecting source or target");
+        }
+        final SituationIds situationIds = phaseStat.getSituationIds(situation);
+        if (situationIds == null) {
+            throw new BadRequestException("Unknown situation " + situation);
+        }
+
+        final List<String> ids;
+        final boolean complete;
+        if (situationIds.getSpillFile() != null && run.getStage().isComplete()) {
+            try {
+                ids = situationIds.getSpillFile().read(offset, pageSize);
+            } catch (IOException e) {
+                throw new InternalServerErrorException("Unable to read ids of reconciliation " + run.getReconId(), e);
+            }
+            complete = true;
+        } else {
+            final List<String> inMemory = situationIds.getIds();
+            ids = offset < inMemory.size()
+                    ? inMemory.subList(offset, Math.min(inMemory.size(), offset + pageSize))
+                    : Collections.<String>emptyList();
+            complete = situationIds.isComplete();
+        }
+
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("_id", run.getReconId());
+        result.put("phase", phase.toLowerCase(Locale.ROOT));
+        result.put("situation", situation);
+        result.put("count", situationIds.getCount());
+        result.put("sampled", !complete);
+        result.put("pagedResultsOffset", offset);
+        result.put("ids", ids);
+        return result;
+    }
+
+    /**
+     * Returns an integer action parameter.
+     *
+     * @param params the action parameters
+     * @param name the name of the parameter
+     * @param defaultValue the value of the parameter if not provided
+     * @return the value of the parameter
+     * @throws BadRequestException if the value is not an integer
+     */
+    private static int getIntegerParameter(JsonValue params, String name, String defaultValue)
+            throws BadRequestException {
+        final String value = String.valueOf(params.get(name).defaultTo(defaultValue).getObject());
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException(name + " must be an integer, not " + value);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -410,6 +552,209 @@ public class ReconciliationService
         }
     }
 
+    /**
+     * Distributes the source phase of a reconciliation across the cluster nodes, if configured for
+     * its mapping and clustering is enabled. The partitions are recorded in the repository and the
+     * other nodes are notified to start claiming them.
+     *
+     * @param reconContext the reconciliation context of the coordinating node
+     * @param trackTargets whether the nodes should record the targets seen in each partition
+     * @return the partitions, or null if the source phase is to be run on this node only
+     * @throws SynchronizationException if the partitions could not be recorded
+     */
+    ReconPartitions distribute(ReconciliationContext reconContext, boolean trackTargets)
+            throws SynchronizationException {
+        final ClusterManagementService cluster = clusterManagementService;
+        final int size = reconContext.getObjectMapping().getReconPartitions();
+        if (size <= 1 || cluster == null || !cluster.isEnabled()
+                || reconContext.getReconAction() != ReconAction.recon) {
+            return null;
+        }
+        final ReconPartitions partitions = ReconPartitions.create(connectionFactory, reconContext,
+                cluster.getInstanceId(), size, trackTargets,
+                reconContext.getObjectMapping().getReconPartitionLease());
+        coordinatedPartitions.put(partitions.getReconId(), partitions);
+        logger.info("Distributing source phase of reconciliation {} in {} partitions",
+                partitions.getReconId(), size);
+        sendPartitionEvent(cluster, PartitionAction.start, partitions.getReconId(), null);
+        return partitions;
+    }
+
+    /**
+     * Ends the distribution of a reconciliation, removing its partitions from the repository.
+     *
+     * @param partitions the partitions of the reconciliation
+     * @param cancel whether to cancel the partitions still being reconciled by other nodes
+     */
+    void finishDistributed(ReconPartitions partitions, boolean cancel) {
+        coordinatedPartitions.remove(partitions.getReconId());
+        final ClusterManagementService cluster = clusterManagementService;
+        if (cancel && cluster != null) {
+            sendPartitionEvent(cluster, PartitionAction.cancel, partitions.getReconId(), null);
+        }
+        partitions.delete();
+    }
+
+    private void sendPartitionEvent(ClusterManagementService cluster, PartitionAction action, String reconId,
+            String instanceId) {
+        cluster.sendEvent(new ClusterEvent(
+                ClusterEventType.CUSTOM,
+                cluster.getInstanceId(),
+                EVENT_LISTENER_ID,
+                json(object(
+                        field(EVENT_ACTION, action.name()),
+                        field(EVENT_RECON_ID, reconId),
+                        field(EVENT_INSTANCE_ID, instanceId)))));
+    }
+
+    @Override
+    public boolean handleEvent(ClusterEvent event) {
+        switch (event.getType()) {
+        case CUSTOM:
+            return handleCustomEvent(event);
+        case RECOVERY_INITIATED:
+            // Only the recovering node is notified, so let the nodes coordinating reconciliations know
+            releasePartitions(event.getInstanceId());
+            final ClusterManagementService cluster = clusterManagementService;
+            if (cluster != null) {
+                sendPartitionEvent(cluster, PartitionAction.release, null, event.getInstanceId());
+            }
+            return true;
+        default:
+            return true;
+        }
+    }
+
+    private boolean handleCustomEvent(ClusterEvent event) {
+        final JsonValue details = event.getDetails();
+        final String reconId = details.get(EVENT_RECON_ID).asString();
+        try {
+            switch (PartitionAction.valueOf(details.get(EVENT_ACTION).asString())) {
+            case start:
+                fullReconExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        runPartitions(reconId);
+                    }
+                });
+                break;
+            case cancel:
+                final ReconciliationContext run = partitionRuns.get(reconId);
+                if (run != null) {
+                    run.cancel();
+                }
+                break;
+            case release:
+                releasePartitions(details.get(EVENT_INSTANCE_ID).asString());
+                break;
+            }
+            return true;
+        } catch (Exception e) {
+            logger.error("Error handling cluster event " + event.toJsonValue(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Returns the partitions claimed by a failed instance in the distributed reconciliations
+     * coordinated by this node to the pending state, so that they are claimed again.
+     *
+     * @param instanceId the instance id of the failed node
+     */
+    private void releasePartitions(String instanceId) {
+        for (ReconPartitions partitions : coordinatedPartitions.values()) {
+            try {
+                final int released = partitions.release(instanceId);
+                if (released > 0) {
+                    logger.info("Released {} partitions of reconciliation {} claimed by failed instance {}",
+                            released, partitions.getReconId(), instanceId);
+                }
+            } catch (SynchronizationException e) {
+                logger.warn("Unable to release the partitions of reconciliation {} claimed by instance {}",
+                        partitions.getReconId(), instanceId, e);
+            }
+        }
+    }
+
+    /**
+     * Claims and reconciles partitions of a distributed reconciliation coordinated by another node,
+     * until none are left to claim.
+     *
+     * @param reconId the id of the reconciliation
+     */
+    private void runPartitions(String reconId) {
+        final ClusterManagementService cluster = clusterManagementService;
+        if (cluster == null) {
+            return;
+        }
+        try {
+            final ReconPartitions partitions = ReconPartitions.read(connectionFactory, reconId);
+            if (partitions == null) {
+                logger.debug("Reconciliation {} has already finished", reconId);
+                return;
+            }
+            final ObjectMapping mapping = mappings.getMapping(partitions.getMapping());
+            final String instanceId = cluster.getInstanceId();
+            Integer partition;
+            while ((partition = partitions.claim(instanceId)) != null) {
+                if (!runPartition(partitions, mapping, partition, instanceId)) {
+                    return;
+                }
+            }
+        } catch (SynchronizationException e) {
+            logger.warn("Unable to reconcile partitions of reconciliation {}", reconId, e);
+        }
+    }
+
+    /**
+     * Reconciles a claimed partition of a distributed reconciliation coordinated by another node,
+     * recording its statistics and seen targets on completion. The claim on the partition is renewed
+     * while it is reconciled.
+     *
+     * @return whether the partition was reconciled, false if it failed or was canceled
+     */
+    private boolean runPartition(ReconPartitions partitions, ObjectMapping mapping, int partition,
+            String instanceId) throws SynchronizationException {
+        final String reconId = partitions.getReconId();
+        logger.info("Reconciling partition {} of reconciliation {}", partition, reconId);
+        ReconciliationContext run = null;
+        final Timer lease = partitions.renewInBackground(partition, instanceId);
+        ObjectSetContext.push(new TriggerContext(
+                new ReconContext(ContextUtil.createInternalContext(), mapping.getName()), "recon"));
+        try {
+            run = new ReconciliationContext(ReconAction.recon, mapping, reconId,
+                    partitions.getParameters(), partitions.getOverridingConfig(), this);
+            partitionRuns.put(reconId, run);
+            run.setStage(ReconStage.ACTIVE_RECONCILING_SOURCE);
+            final SeenTargetIds seenTargetIds = partitions.isTrackTargets() ? new SeenTargetIds(0) : null;
+            mapping.reconPartition(run, ObjectSetContext.get(), partitions, partition, seenTargetIds);
+            // stop renewing before completing, the claim ends with the completion
+            lease.cancel();
+            partitions.complete(partition, instanceId, run.getStatistics().getPartitionStatistics(),
+                    seenTargetIds);
+            run.setStage(ReconStage.COMPLETED_SUCCESS);
+            return true;
+        } catch (Exception e) {
+            if (run != null && run.isCanceled()) {
+                logger.info("Partition {} of reconciliation {} canceled", partition, reconId);
+            } else {
+                logger.warn("Partition {} of reconciliation {} failed", partition, reconId, e);
+                partitions.fail(partition, instanceId, e.getMessage());
+            }
+            if (run != null) {
+                run.setStage(ReconStage.COMPLETED_FAILED);
+            }
+            return false;
+        } finally {
+            lease.cancel();
+            ObjectSetContext.pop();
+            partitionRuns.remove(reconId);
+            if (run != null) {
+                run.getStatistics().deleteSpillFiles();
+            }
+        }
+    }
+
     /**
      * Add a reconciliation run to the cached list of reconcliation runs.
      * May clean out old entries of completed reconciliation runs.
@@ -432,6 +777,7 @@ public class ReconciliationService
                         ++completedCount;
                         if (completedCount > maxCompletedRuns) {
                             reconRuns.remove(key);
+                            aRun.getStatistics().deleteSpillFiles();
                         }
                     }
                 }
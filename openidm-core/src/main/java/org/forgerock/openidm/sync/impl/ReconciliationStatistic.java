@@ -15,9 +15,13 @@
  */
 package org.forgerock.openidm.sync.impl;
 
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
 import static org.forgerock.openidm.util.DurationStatistics.nanoToMillis;
 import static org.forgerock.util.Reject.checkNotNull;
 
+import java.io.File;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
@@ -25,20 +29,29 @@ import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.forgerock.json.JsonValue;
 import org.forgerock.openidm.audit.util.Status;
+import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.sync.ReconAction;
 import org.forgerock.openidm.util.DateUtil;
 import org.forgerock.openidm.util.DurationStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Statistic for a reconciliation run
  * 
  */
 public class ReconciliationStatistic {
-    
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReconciliationStatistic.class);
+
     private static final DateUtil dateUtil = DateUtil.getDateUtil(ServerConstants.TIME_ZONE_UTC);
 
+    /** Working directory path, relative to which the processed ids of each recon run are spilled */
+    private static final String SPILL_PATH = "recon/statistics/";
+
     public enum DurationMetric {
         activePolicyPostActionScript,
         activePolicyScript,
@@ -88,14 +101,23 @@ public class ReconciliationStatistic {
 
     private PhaseStatistic sourceStat;
     private PhaseStatistic targetStat;
+
+    /** The directory processed ids are spilled to, or null if ids are not spilled */
+    private final File spillDirectory;
     
     private Map<ReconStage, Map<String, Object>> stageStat = new ConcurrentHashMap<>();
     private ConcurrentHashMap<String, DurationStatistics> durationStat = new ConcurrentHashMap<>();
 
     public ReconciliationStatistic(ReconciliationContext reconContext) {
         this.reconContext = reconContext;
-        sourceStat = new PhaseStatistic(this, PhaseStatistic.Phase.SOURCE, reconContext.getObjectMapping().getSourceObjectSet());
-        targetStat = new PhaseStatistic(this, PhaseStatistic.Phase.TARGET, reconContext.getObjectMapping().getTargetObjectSet());
+        final ObjectMapping mapping = reconContext.getObjectMapping();
+        spillDirectory = mapping.isReconStatisticsSpillIds()
+                ? IdentityServer.getFileForWorkingPath(SPILL_PATH + reconContext.getReconId())
+                : null;
+        sourceStat = new PhaseStatistic(this, PhaseStatistic.Phase.SOURCE, mapping.getSourceObjectSet(),
+                mapping.getReconStatisticsIds(), mapping.getReconStatisticsSampleSize(), spillDirectory);
+        targetStat = new PhaseStatistic(this, PhaseStatistic.Phase.TARGET, mapping.getTargetObjectSet(),
+                mapping.getReconStatisticsIds(), mapping.getReconStatisticsSampleSize(), spillDirectory);
         for (Status status : Status.values()) {
             statusProcessed.put(status, new AtomicInteger());
         }
@@ -129,6 +151,27 @@ public class ReconciliationStatistic {
     public PhaseStatistic getTargetStat() {
         return targetStat;
     }
+
+    /**
+     * Flushes and closes the files processed ids are spilled to, so that they can be paged through.
+     */
+    void closeSpillFiles() {
+        sourceStat.closeSpillFiles();
+        targetStat.closeSpillFiles();
+    }
+
+    /**
+     * Removes the files processed ids are spilled to, if any.
+     */
+    void deleteSpillFiles() {
+        if (spillDirectory != null) {
+            sourceStat.deleteSpillFiles();
+            targetStat.deleteSpillFiles();
+            if (spillDirectory.isDirectory() && !spillDirectory.delete()) {
+                LOGGER.debug("Unable to delete reconciliation id spill directory {}", spillDirectory);
+            }
+        }
+    }
     
     public void reconStart() {
         startTime = System.currentTimeMillis();
@@ -226,6 +269,53 @@ public class ReconciliationStatistic {
         statusProcessed.get(status).incrementAndGet();
     }
 
+    /**
+     * Returns the counts of a source phase partition reconciled with these statistics, to be
+     * merged into the statistics of the coordinating node of a distributed reconciliation.
+     *
+     * @return the counts of the run and of its source phase
+     */
+    JsonValue getPartitionStatistics() {
+        Map<String, Object> statusCounts = new HashMap<>();
+        for (Map.Entry<Status, AtomicInteger> entry : statusProcessed.entrySet()) {
+            statusCounts.put(entry.getKey().name(), entry.getValue().get());
+        }
+        return json(object(
+                field("sourceProcessed", sourceProcessed.get()),
+                field("linkProcessed", linkProcessed.get()),
+                field("linkCreated", linkCreated.get()),
+                field("targetProcessed", targetProcessed.get()),
+                field("targetCreated", targetCreated.get()),
+                field("status", statusCounts),
+                field("source", sourceStat.getCounts())));
+    }
+
+    /**
+     * Merges the counts of a source phase partition reconciled on another node.
+     *
+     * @param partitionStatistics the counts, as returned by {@link #getPartitionStatistics()}
+     */
+    void mergePartitionStatistics(JsonValue partitionStatistics) {
+        sourceProcessed.addAndGet(partitionStatistics.get("sourceProcessed").defaultTo(0).asInteger());
+        linkProcessed.addAndGet(partitionStatistics.get("linkProcessed").defaultTo(0).asInteger());
+        linkCreated.addAndGet(partitionStatistics.get("linkCreated").defaultTo(0).asInteger());
+        targetProcessed.addAndGet(partitionStatistics.get("targetProcessed").defaultTo(0).asInteger());
+        targetCreated.addAndGet(partitionStatistics.get("targetCreated").defaultTo(0).asInteger());
+        for (Map.Entry<Status, AtomicInteger> entry : statusProcessed.entrySet()) {
+            entry.getValue().addAndGet(
+                    partitionStatistics.get("status").get(entry.getKey().name()).defaultTo(0).asInteger());
+        }
+        sourceStat.addCounts(partitionStatistics.get("source"));
+    }
+
+    /**
+     * @param status the status
+     * @return The number of entries processed with the given status
+     */
+    public int getStatusCount(Status status) {
+        return statusProcessed.get(status).get();
+    }
+
     /**
      * @return The number of existing source objects processed
      */
@@ -0,0 +1,160 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.forgerock.openidm.sync.impl.PhaseStatistic.IdRetention;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Thread-safe, lock-free accumulator for the ids processed in one reconciliation situation.
+ * <p>
+ * The count is always exact. Depending on the {@link IdRetention}, either all ids, a bounded
+ * uniform reservoir sample of the ids, or no ids at all are kept in memory. All ids can
+ * additionally be spilled to a {@link ReconIdSpillFile} so that they can be paged through
+ * after the reconciliation run without being held on the heap.
+ */
+class SituationIds {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SituationIds.class);
+
+    private final IdRetention retention;
+    private final AtomicLong count = new AtomicLong();
+    private final Queue<String> all;
+    private final AtomicReferenceArray<String> sample;
+    private volatile ReconIdSpillFile spillFile;
+    /** Set once ids recorded elsewhere, such as on another cluster node, have been counted */
+    private volatile boolean partial;
+
+    /**
+     * Creates a new accumulator.
+     *
+     * @param retention which ids to keep in memory
+     * @param sampleSize the reservoir size, only used for {@link IdRetention#SAMPLE}
+     * @param spillFile the file to spill all ids to, or null if ids should not be spilled
+     */
+    SituationIds(IdRetention retention, int sampleSize, ReconIdSpillFile spillFile) {
+        this.retention = retention;
+        this.all = retention == IdRetention.ALL ? new ConcurrentLinkedQueue<String>() : null;
+        this.sample = retention == IdRetention.SAMPLE ? new AtomicReferenceArray<String>(sampleSize) : null;
+        this.spillFile = spillFile;
+    }
+
+    /**
+     * Records a processed id.
+     *
+     * @param id the id, must not be null
+     */
+    void add(String id) {
+        final long n = count.incrementAndGet();
+        switch (retention) {
+        case ALL:
+            all.add(id);
+            break;
+        case SAMPLE:
+            // Reservoir sampling (algorithm R); the n-th id replaces a random slot with probability k/n
+            final int k = sample.length();
+            if (n <= k) {
+                sample.set((int) (n - 1), id);
+            } else if (k > 0) {
+                final long slot = ThreadLocalRandom.current().nextLong(n);
+                if (slot < k) {
+                    sample.set((int) slot, id);
+                }
+            }
+            break;
+        default:
+            break;
+        }
+        final ReconIdSpillFile spill = spillFile;
+        if (spill != null) {
+            try {
+                spill.write(id);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to spill reconciliation id to {}, disabling spilling", spill.getFile(), e);
+                spillFile = null;
+                spill.close();
+                spill.delete();
+            }
+        }
+    }
+
+    /**
+     * Counts ids that were recorded elsewhere, such as by another cluster node reconciling a
+     * partition of the same reconciliation. The ids themselves are not available here, so
+     * the in-memory ids are no longer {@link #isComplete() complete}.
+     *
+     * @param delta the number of ids to add to the count
+     */
+    void addCount(long delta) {
+        if (delta > 0) {
+            count.addAndGet(delta);
+            partial = true;
+        }
+    }
+
+    /**
+     * @return the exact number of ids recorded
+     */
+    long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return a snapshot of the ids kept in memory; all ids, the sample, or an empty list
+     */
+    List<String> getIds() {
+        switch (retention) {
+        case ALL:
+            return new ArrayList<>(all);
+        case SAMPLE:
+            final List<String> ids = new ArrayList<>(sample.length());
+            for (int i = 0; i < sample.length(); i++) {
+                final String id = sample.get(i);
+                if (id != null) {
+                    ids.add(id);
+                }
+            }
+            return ids;
+        default:
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * @return whether the in-memory ids are a complete record of all processed ids
+     */
+    boolean isComplete() {
+        return retention == IdRetention.ALL && !partial;
+    }
+
+    /**
+     * @return the spill file holding all ids, or null if ids were not spilled
+     */
+    ReconIdSpillFile getSpillFile() {
+        return spillFile;
+    }
+}
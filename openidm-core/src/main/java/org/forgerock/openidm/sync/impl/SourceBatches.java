@@ -0,0 +1,247 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.resource.Requests.newQueryRequest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.openidm.sync.impl.ReconciliationStatistic.DurationMetric;
+import org.forgerock.util.query.QueryFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the source entries of a reconciliation phase in batches, resolving what each entry needs
+ * with one query per batch rather than one read per entry:
+ * <ul>
+ *     <li>the source objects of entries the source query returned ids only for,</li>
+ *     <li>the links of the entries, unless all links of the mapping were prefetched, and</li>
+ *     <li>the target objects of the links.</li>
+ * </ul>
+ * The target objects are handed to the sync operations through
+ * {@link ReconciliationContext#takeBatchTarget(String)}, and those an operation did not take are
+ * {@link #release(ResultEntry, PrefetchedLinks) released} once it is done. If a batch query fails,
+ * the affected entries fall back to being read one by one.
+ * <p>
+ * Correlation queries are not batched: they are scripts evaluated against each source object,
+ * which may return any query, so there is no query to group them by.
+ */
+class SourceBatches {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SourceBatches.class);
+
+    private static final JsonPointer ID = new JsonPointer(ResourceResponse.FIELD_CONTENT_ID);
+
+    private final Iterator<ResultEntry> entries;
+    private final ObjectMapping mapping;
+    private final ReconciliationContext reconContext;
+    private final Collection<String> linkQualifiers;
+    private final PrefetchedLinks allLinks;
+    private final int batchSize;
+
+    private final List<ResultEntry> batch;
+    private int position;
+    private PrefetchedLinks batchLinks;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param entries the source entries
+     * @param mapping the mapping
+     * @param reconContext the reconciliation context
+     * @param linkQualifiers the link qualifiers to prefetch links for, or null if links are not prefetched
+     * @param allLinks the links prefetched for all source entries, or null to prefetch the links of each batch
+     * @param batchSize the number of entries per batch
+     */
+    SourceBatches(Iterator<ResultEntry> entries, ObjectMapping mapping, ReconciliationContext reconContext,
+            Collection<String> linkQualifiers, PrefetchedLinks allLinks, int batchSize) {
+        this.entries = entries;
+        this.mapping = mapping;
+        this.reconContext = reconContext;
+        this.linkQualifiers = linkQualifiers;
+        this.allLinks = allLinks;
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * @return whether there are more entries
+     */
+    boolean hasNext() {
+        return position < batch.size() || entries.hasNext();
+    }
+
+    /**
+     * Returns the next entry, reading and resolving the next batch if the current one is exhausted.
+     *
+     * @return the next entry
+     * @throws SynchronizationException if the links of the next batch could not be queried
+     */
+    ResultEntry next() throws SynchronizationException {
+        if (position == batch.size()) {
+            readBatch();
+        }
+        return batch.get(position++);
+    }
+
+    /**
+     * @return the links of the entry last returned by {@link #next()}, or null if links are not prefetched
+     */
+    PrefetchedLinks getLinks() {
+        return allLinks != null ? allLinks : batchLinks;
+    }
+
+    /**
+     * Releases the target objects read in a batch for an entry whose sync operation is done, so that
+     * the targets the operation did not take, because it failed or did not need them, are not held
+     * for the rest of the reconciliation.
+     *
+     * @param entry an entry returned by {@link #next()}
+     * @param links the links returned by {@link #getLinks()} along with the entry
+     */
+    void release(ResultEntry entry, PrefetchedLinks links) {
+        if (links == null || reconContext.hasTargetsValues()) {
+            return;
+        }
+        final String normalizedSourceId = mapping.getLinkType().normalizeSourceId(entry.getId());
+        for (String targetId : links.getTargetIds(Collections.singletonList(normalizedSourceId))) {
+            reconContext.takeBatchTarget(mapping.getLinkType().normalizeTargetId(targetId));
+        }
+    }
+
+    private void readBatch() throws SynchronizationException {
+        batch.clear();
+        position = 0;
+        while (batch.size() < batchSize && entries.hasNext()) {
+            batch.add(entries.next());
+        }
+        readSourceObjects();
+
+        if (linkQualifiers == null) {
+            return;
+        }
+        if (allLinks == null) {
+            batchLinks = PrefetchedLinks.forSourceIds(mapping, linkQualifiers, idsOf(batch), reconContext);
+        }
+        if (reconContext.hasTargetsValues()) {
+            // The target objects were all read along with the target ids
+            return;
+        }
+        final List<String> normalizedSourceIds = new ArrayList<>(batch.size());
+        for (ResultEntry entry : batch) {
+            normalizedSourceIds.add(mapping.getLinkType().normalizeSourceId(entry.getId()));
+        }
+        final List<String> targetIds = getLinks().getTargetIds(normalizedSourceIds);
+        final Map<String, JsonValue> targets =
+                queryObjects(mapping.getTargetObjectSet(), targetIds, DurationMetric.targetObjectQuery);
+        if (targets != null) {
+            // Linked targets not found are handed over as missing, rather than read again
+            final Map<String, JsonValue> normalizedTargets = new HashMap<>(targetIds.size() * 2);
+            for (String targetId : targetIds) {
+                normalizedTargets.put(mapping.getLinkType().normalizeTargetId(targetId), null);
+            }
+            for (Map.Entry<String, JsonValue> target : targets.entrySet()) {
+                normalizedTargets.put(mapping.getLinkType().normalizeTargetId(target.getKey()), target.getValue());
+            }
+            reconContext.addBatchTargets(normalizedTargets);
+        }
+    }
+
+    /**
+     * Reads the source objects of the entries the source query only returned ids for.
+     */
+    private void readSourceObjects() {
+        final List<String> ids = new ArrayList<>();
+        for (ResultEntry entry : batch) {
+            if (entry.getValue() == null) {
+                ids.add(entry.getId());
+            }
+        }
+        final Map<String, JsonValue> sources =
+                queryObjects(mapping.getSourceObjectSet(), ids, DurationMetric.sourceObjectQuery);
+        if (sources == null) {
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            final ResultEntry entry = batch.get(i);
+            // Sources not found are left to be read, and found missing, by their sync operation
+            final JsonValue source = entry.getValue() == null ? sources.get(entry.getId()) : null;
+            if (source != null) {
+                batch.set(i, new ResultEntry(entry.getId(), source));
+            }
+        }
+    }
+
+    private static List<String> idsOf(List<ResultEntry> entries) {
+        final List<String> ids = new ArrayList<>(entries.size());
+        for (ResultEntry entry : entries) {
+            ids.add(entry.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Queries objects by id with a single query.
+     *
+     * @param resourceContainer the object set to query
+     * @param ids the ids of the objects
+     * @param metric the metric to record the query duration with
+     * @return the ids of the objects found mapped to the objects; null if the query failed, so that
+     *         the objects are read one by one instead
+     */
+    private Map<String, JsonValue> queryObjects(String resourceContainer, List<String> ids, DurationMetric metric) {
+        if (ids.isEmpty()) {
+            return null;
+        }
+        final Map<String, JsonValue> objects = new HashMap<>(ids.size() * 2);
+        final List<QueryFilter<JsonPointer>> filters = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            filters.add(QueryFilter.equalTo(ID, id));
+        }
+        final long queryStart = ObjectMapping.startNanoTime(reconContext);
+        try {
+            mapping.getConnectionFactory().getConnection().query(ObjectSetContext.get(),
+                    newQueryRequest(resourceContainer).setQueryFilter(QueryFilter.or(filters)),
+                    new QueryResourceHandler() {
+                        @Override
+                        public boolean handleResource(ResourceResponse resource) {
+                            objects.put(resource.getId(), resource.getContent());
+                            return true;
+                        }
+                    });
+            return objects;
+        } catch (ResourceException e) {
+            LOGGER.debug("Batch query of {} objects in {} failed, reading them one by one",
+                    ids.size(), resourceContainer, e);
+            return null;
+        } finally {
+            ObjectMapping.addDuration(reconContext, metric, queryStart);
+        }
+    }
+}
@@ -16,9 +16,6 @@
 
 package org.forgerock.openidm.sync.impl;
 
-import java.util.Collection;
-import java.util.Map;
-
 import org.forgerock.json.JsonValue;
 import org.forgerock.openidm.audit.util.Status;
 import org.forgerock.openidm.sync.ReconAction;
@@ -43,7 +40,7 @@ class SourceRecon implements Recon {
      */
     @Override
     public void recon(String id, JsonValue objectEntry, ReconciliationContext reconContext, Context context,
-            Map<String, Map<String, Link>> allLinks, Collection<String> remainingIds)
+            PrefetchedLinks prefetchedLinks, SeenTargetIds seenTargetIds)
             throws SynchronizationException {
         reconContext.checkCanceled();
         LazyObjectAccessor sourceObjectAccessor = objectEntry == null
@@ -66,9 +63,9 @@ class SourceRecon implements Recon {
             ReconAuditEventLogger auditEvent = new ReconAuditEventLogger(op, objectMapping.getName(), context);
             auditEvent.setLinkQualifier(op.getLinkQualifier());
             op.sourceObjectAccessor = sourceObjectAccessor;
-            if (allLinks != null) {
+            if (prefetchedLinks != null && prefetchedLinks.isPrefetched(linkQualifier)) {
                 String normalizedSourceId = objectMapping.getLinkType().normalizeSourceId(id);
-                op.initializeLink(allLinks.get(linkQualifier).get(normalizedSourceId));
+                op.initializeLink(prefetchedLinks.getLink(linkQualifier, normalizedSourceId));
             }
             auditEvent.setSourceObjectId(LazyObjectAccessor.qualifiedId(objectMapping.getSourceObjectSet(), id));
             op.reconId = reconContext.getReconId();
@@ -85,12 +82,13 @@ class SourceRecon implements Recon {
             // update statistics with status
             reconContext.getStatistics().processStatus(status);
 
-            String[] targetIds = op.getTargetIds();
-            for (String handledId : targetIds) {
-                // If target system has case insensitive IDs, remove without regard to case
-                String normalizedHandledId = objectMapping.getLinkType().normalizeTargetId(handledId);
-                remainingIds.remove(normalizedHandledId);
-                LOGGER.trace("Removed target from remaining targets: {}", normalizedHandledId);
+            if (seenTargetIds != null) {
+                for (String handledId : op.getTargetIds()) {
+                    // If target system has case insensitive IDs, mark without regard to case
+                    String normalizedHandledId = objectMapping.getLinkType().normalizeTargetId(handledId);
+                    seenTargetIds.mark(normalizedHandledId);
+                    LOGGER.trace("Marked target as seen: {}", normalizedHandledId);
+                }
             }
             if (!ReconAction.NOREPORT.equals(op.action) && (status == Status.FAILURE || op.action != null)) {
                 auditEvent.setReconciling("source");
@@ -173,7 +173,16 @@ class SourceSyncOperation extends SyncOperation {
                     preloaded = reconContext.getTargets().get(linkObject.targetId);
                 }
             }
-            if (preloaded != null) {
+            JsonValue batched = null;
+            if (preloaded == null && reconContext != null) {
+                // If the target was read in a batch along with other targets of the source phase, use it
+                batched = reconContext.takeBatchTarget(
+                        objectMapping.getLinkType().normalizeTargetId(linkObject.targetId));
+            }
+            if (batched != null) {
+                targetObjectAccessor = new LazyObjectAccessor(objectMapping.getConnectionFactory(),
+                        objectMapping.getTargetObjectSet(), linkObject.targetId, batched.isNull() ? null : batched);
+            } else if (preloaded != null) {
                 targetObjectAccessor = new LazyObjectAccessor(
                         objectMapping.getConnectionFactory(), objectMapping.getTargetObjectSet(), linkObject.targetId, preloaded);
             } else {
@@ -16,9 +16,6 @@
 
 package org.forgerock.openidm.sync.impl;
 
-import java.util.Collection;
-import java.util.Map;
-
 import org.forgerock.json.JsonValue;
 import org.forgerock.openidm.audit.util.Status;
 import org.forgerock.openidm.sync.ReconAction;
@@ -43,7 +40,7 @@ class TargetRecon implements Recon {
      */
     @Override
     public void recon(String id, JsonValue objectEntry, ReconciliationContext reconContext, Context context,
-            Map<String, Map<String, Link>> allLinks, Collection<String> remainingIds)  throws SynchronizationException {
+            PrefetchedLinks prefetchedLinks, SeenTargetIds seenTargetIds)  throws SynchronizationException {
         reconContext.checkCanceled();
         for (String linkQualifier : objectMapping.getAllLinkQualifiers(context, reconContext)) {
             TargetSyncOperation op = new TargetSyncOperation(objectMapping, context);
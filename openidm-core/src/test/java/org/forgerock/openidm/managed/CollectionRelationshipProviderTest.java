@@ -16,16 +16,26 @@
 package org.forgerock.openidm.managed;
 
 import static org.forgerock.json.JsonValue.*;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
 import static org.forgerock.json.resource.Responses.newResourceResponse;
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.*;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.Connection;
 import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.MemoryBackend;
 import org.forgerock.json.resource.PreconditionFailedException;
 import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.Resources;
+import org.forgerock.json.resource.Router;
 import org.forgerock.openidm.audit.util.ActivityLogger;
 import org.forgerock.openidm.util.RelationshipUtil;
 import org.forgerock.services.context.Context;
@@ -147,6 +157,62 @@ public class CollectionRelationshipProviderTest {
         }
     }
 
+    @Test
+    public void testGetRelationshipValuesForResources() throws Exception {
+        final Router router = new Router();
+        router.addRoute(Router.uriTemplate("repo/relationships"), new MemoryBackend());
+        final ConnectionFactory repoConnectionFactory = Resources.newInternalConnectionFactory(router);
+        final Connection connection = repoConnectionFactory.getConnection();
+        final RootContext context = new RootContext();
+        connection.create(context, newCreateRequest("repo/relationships",
+                relationship("managed/user/user1", "roles", "managed/role/role1", "members")));
+        connection.create(context, newCreateRequest("repo/relationships",
+                relationship("managed/user/user1", "roles", "managed/role/role2", "members")));
+        connection.create(context, newCreateRequest("repo/relationships",
+                relationship("managed/user/user2", "roles", "managed/role/role1", "members")));
+        connection.create(context, newCreateRequest("repo/relationships",
+                relationship("managed/user/user3", "roles", "managed/role/role1", "members")));
+        connection.create(context, newCreateRequest("repo/relationships",
+                relationship("managed/user/user1", "manager", "managed/user/user2", "reports")));
+
+        SchemaField schemaField = mock(SchemaField.class);
+        when(schemaField.getName()).thenReturn("roles");
+        when(schemaField.isReverseRelationship()).thenReturn(true);
+        when(schemaField.getReversePropertyName()).thenReturn("members");
+        CollectionRelationshipProvider provider = new CollectionRelationshipProvider(repoConnectionFactory,
+                ResourcePath.resourcePath("managed/user"), schemaField, activityLogger, managedObjectSyncService);
+
+        Map<String, JsonValue> values = provider.getRelationshipValuesForResources(context,
+                Arrays.asList("user1", "user2", "user4"));
+
+        assertEquals(values.keySet(), new HashSet<>(Arrays.asList("user1", "user2", "user4")));
+        assertEquals(references(values.get("user1")),
+                new HashSet<>(Arrays.asList("managed/role/role1", "managed/role/role2")));
+        assertEquals(references(values.get("user2")), Collections.singleton("managed/role/role1"));
+        assertEquals(values.get("user4").size(), 0);
+        for (JsonValue relationship : values.get("user1")) {
+            assertNotNull(relationship.get(RelationshipProvider.FIELD_ID).asString());
+        }
+    }
+
+    private static JsonValue relationship(String firstId, String firstPropertyName, String secondId,
+            String secondPropertyName) {
+        return json(object(
+                field("firstId", firstId),
+                field("firstPropertyName", firstPropertyName),
+                field("secondId", secondId),
+                field("secondPropertyName", secondPropertyName),
+                field("properties", object())));
+    }
+
+    private static Set<String> references(JsonValue relationships) {
+        final Set<String> references = new HashSet<>();
+        for (JsonValue relationship : relationships) {
+            references.add(relationship.get(SchemaField.FIELD_REFERENCE).asString());
+        }
+        return references;
+    }
+
     private static class IsRouteMatcher extends ArgumentMatcher<ReadRequest> {
         private final String route;
 
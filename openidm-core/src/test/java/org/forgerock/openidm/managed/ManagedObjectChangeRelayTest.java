@@ -0,0 +1,143 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.managed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+import static org.forgerock.json.resource.Requests.newDeleteRequest;
+import static org.forgerock.json.resource.Requests.newReadRequest;
+import static org.forgerock.json.resource.Requests.newUpdateRequest;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.FilterChain;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.Resources;
+import org.forgerock.json.resource.Router;
+import org.forgerock.openidm.cluster.ClusterEvent;
+import org.forgerock.openidm.cluster.ClusterEventType;
+import org.forgerock.openidm.cluster.ClusterManagementService;
+import org.forgerock.services.context.RootContext;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that {@link ManagedObjectChangeRelay} notifies the changes of internal users and relays the changes
+ * between cluster nodes.
+ */
+public class ManagedObjectChangeRelayTest {
+
+    private static final String INTERNAL_USER = "repo/internal/user/openidm-admin";
+
+    private final List<String> changes = new ArrayList<>();
+    private final ManagedObjectChangeNotifier.Listener listener = new ManagedObjectChangeNotifier.Listener() {
+        @Override
+        public void managedObjectChanged(String resourcePath, String revision) {
+            changes.add(resourcePath + "@" + revision);
+        }
+    };
+
+    private ManagedObjectChangeRelay relay;
+    private ClusterManagementService cluster;
+
+    @BeforeMethod
+    public void setUp() {
+        changes.clear();
+        ManagedObjectChangeNotifier.addListener(listener);
+        cluster = mock(ClusterManagementService.class);
+        when(cluster.isEnabled()).thenReturn(true);
+        when(cluster.getInstanceId()).thenReturn("node1");
+        relay = new ManagedObjectChangeRelay();
+        relay.activate(null);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        relay.deactivate(null);
+        ManagedObjectChangeNotifier.removeListener(listener);
+    }
+
+    @Test
+    public void testInternalUserChangesAreNotified() throws Exception {
+        final Router router = new Router();
+        router.addRoute(Router.uriTemplate("repo/internal/user"), new MemoryBackend());
+        final Connection connection = Resources.newInternalConnection(
+                new FilterChain(router, relay.internalUserFilter));
+        final String revision = connection.create(new RootContext(),
+                newCreateRequest("repo/internal/user", "openidm-admin", json(object(field("roles", "admin")))))
+                .getRevision();
+        connection.read(new RootContext(), newReadRequest(INTERNAL_USER));
+        assertThat(changes).isEmpty();
+
+        final String updated = connection.update(new RootContext(),
+                newUpdateRequest(INTERNAL_USER, json(object(field("roles", "user")))).setRevision(revision))
+                .getRevision();
+        connection.delete(new RootContext(), newDeleteRequest(INTERNAL_USER));
+
+        assertThat(changes).containsExactly(INTERNAL_USER + "@" + updated, INTERNAL_USER + "@null");
+    }
+
+    @Test
+    public void testChangesAreSentToTheOtherNodes() {
+        relay.bindClusterManagementService(cluster);
+
+        ManagedObjectChangeNotifier.notifyChanged("managed/user/bjensen", "2");
+
+        final ArgumentCaptor<ClusterEvent> event = ArgumentCaptor.forClass(ClusterEvent.class);
+        verify(cluster).register(ManagedObjectChangeRelay.EVENT_LISTENER_ID, relay);
+        verify(cluster).sendEvent(event.capture());
+        assertThat(event.getValue().getType()).isEqualTo(ClusterEventType.CUSTOM);
+        assertThat(event.getValue().getListenerId()).isEqualTo(ManagedObjectChangeRelay.EVENT_LISTENER_ID);
+        assertThat(event.getValue().getDetails().get(ManagedObjectChangeRelay.EVENT_RESOURCE_PATH).asString())
+                .isEqualTo("managed/user/bjensen");
+        assertThat(changes).containsExactly("managed/user/bjensen@2");
+    }
+
+    @Test
+    public void testChangesAreNotSentWithoutListeners() {
+        relay.bindClusterManagementService(cluster);
+        ManagedObjectChangeNotifier.removeListener(listener);
+
+        ManagedObjectChangeNotifier.notifyChanged("managed/user/bjensen", "2");
+
+        verify(cluster, never()).sendEvent(any(ClusterEvent.class));
+    }
+
+    @Test
+    public void testChangesOfOtherNodesAreNotifiedButNotSentBack() {
+        relay.bindClusterManagementService(cluster);
+
+        relay.handleEvent(new ClusterEvent(ClusterEventType.CUSTOM, "node2",
+                ManagedObjectChangeRelay.EVENT_LISTENER_ID, json(object(
+                        field(ManagedObjectChangeRelay.EVENT_RESOURCE_PATH, "managed/user/bjensen"),
+                        field(ManagedObjectChangeRelay.EVENT_REVISION, "3")))));
+
+        assertThat(changes).containsExactly("managed/user/bjensen@3");
+        verify(cluster, never()).sendEvent(any(ClusterEvent.class));
+    }
+}
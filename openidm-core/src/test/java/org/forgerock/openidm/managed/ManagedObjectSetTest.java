@@ -23,6 +23,7 @@ import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
 import static org.forgerock.json.resource.Requests.newActionRequest;
 import static org.forgerock.json.resource.Requests.newCreateRequest;
+import static org.forgerock.json.resource.Requests.newQueryRequest;
 import static org.forgerock.json.resource.Requests.newUpdateRequest;
 import static org.forgerock.json.resource.ResourceResponse.FIELD_REVISION;
 import static org.forgerock.json.resource.Resources.newInternalConnectionFactory;
@@ -32,7 +33,10 @@ import static org.forgerock.openidm.managed.ManagedObjectSet.Action.triggerSyncC
 import static org.forgerock.openidm.managed.ManagedObjectSet.CRYPTO_KEY_PTR;
 import static org.forgerock.util.Utils.closeSilently;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -61,13 +65,19 @@ import org.forgerock.json.resource.ActionRequest;
 import org.forgerock.json.resource.ActionResponse;
 import org.forgerock.json.resource.Connection;
 import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
 import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourcePath;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.Router;
 import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.audit.util.ActivityLogger;
 import org.forgerock.openidm.audit.util.NullActivityLogger;
+import org.forgerock.openidm.audit.util.RouterActivityLogger;
+import org.forgerock.openidm.audit.util.Status;
 import org.forgerock.openidm.core.IdentityServerTestUtils;
 import org.forgerock.openidm.crypto.CryptoService;
 import org.forgerock.openidm.crypto.impl.CryptoServiceImpl;
@@ -83,6 +93,7 @@ import org.forgerock.services.context.Context;
 import org.forgerock.services.context.RootContext;
 import org.forgerock.util.promise.Promise;
 import org.forgerock.util.promise.ResultHandler;
+import org.mockito.ArgumentCaptor;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
@@ -402,6 +413,48 @@ public class ManagedObjectSetTest {
         assertThat(updatedUser.isEqualTo(createdUser)).isFalse();
     }
 
+    @Test
+    public void testQueryActivityLogsSummary() throws Exception {
+        // given
+        final ActivityLogger activityLogger = mock(ActivityLogger.class);
+        final ManagedObjectSet managedObjectSet = createQueryableManagedObjectSet(activityLogger);
+
+        // when
+        final List<JsonValue> users = createUsers(NUMBER_OF_USERS, managedObjectSet);
+        final int resultCount = queryAllUsers(managedObjectSet);
+
+        // then
+        final JsonValue logged = captureQueryActivity(activityLogger);
+        assertThat(resultCount).isEqualTo(users.size());
+        assertThat(logged.get("resultCount").asInteger()).isEqualTo(users.size());
+    }
+
+    @Test
+    public void testQueryActivityLogsFullObjects() throws Exception {
+        // given
+        final ActivityLogger activityLogger = mock(ActivityLogger.class);
+        final ManagedObjectSet managedObjectSet;
+        System.setProperty(RouterActivityLogger.OPENIDM_AUDIT_LOG_FULL_OBJECTS, "true");
+        try {
+            managedObjectSet = createQueryableManagedObjectSet(activityLogger);
+        } finally {
+            System.clearProperty(RouterActivityLogger.OPENIDM_AUDIT_LOG_FULL_OBJECTS);
+        }
+
+        // when
+        final List<JsonValue> users = createUsers(NUMBER_OF_USERS, managedObjectSet);
+        final int resultCount = queryAllUsers(managedObjectSet);
+
+        // then
+        final JsonValue logged = captureQueryActivity(activityLogger);
+        assertThat(resultCount).isEqualTo(users.size());
+        assertThat(logged.isList()).isTrue();
+        assertThat(logged.size()).isEqualTo(users.size());
+        for (JsonValue result : logged) {
+            assertThat(result.get(FIELD_USERNAME).isString()).isTrue();
+        }
+    }
+
     /**
      * Create a number of users with generated random content.
      *
@@ -480,12 +533,46 @@ public class ManagedObjectSetTest {
 
     private ManagedObjectSet createManagedObjectSet(final String configJson, final CryptoService cryptoService,
             final IDMConnectionFactory connectionFactory) throws Exception {
+        return createManagedObjectSet(configJson, cryptoService, connectionFactory, new NullActivityLogger());
+    }
+
+    private ManagedObjectSet createManagedObjectSet(final String configJson, final CryptoService cryptoService,
+            final IDMConnectionFactory connectionFactory, final ActivityLogger activityLogger) throws Exception {
         // given
         final ScriptRegistry scriptRegistry = mock(ScriptRegistry.class);
         final AtomicReference<RouteService> routeService = new AtomicReference<>(mock(RouteService.class));
         final JsonValue config = getResource(configJson);
         return new ManagedObjectSet(scriptRegistry, cryptoService, routeService, connectionFactory, config,
-                new NullActivityLogger());
+                activityLogger);
+    }
+
+    private ManagedObjectSet createQueryableManagedObjectSet(final ActivityLogger activityLogger) throws Exception {
+        final ConnectionObjects connectionObjects = createConnectionObjects();
+        final ManagedObjectSet managedObjectSet = createManagedObjectSet(CONF_MANAGED_USER_USING_NO_ENCRYPTION,
+                createCryptoService(), connectionObjects.getConnectionFactory(), activityLogger);
+        addRoutesToRouter(connectionObjects.getRouter(), managedObjectSet, new MemoryBackend());
+        return managedObjectSet;
+    }
+
+    private int queryAllUsers(final ManagedObjectSet managedObjectSet) throws ResourceException {
+        final List<ResourceResponse> results = new LinkedList<>();
+        managedObjectSet.queryCollection(new RootContext(),
+                newQueryRequest(MANAGED_USER_RESOURCE_PATH).setQueryFilter(QueryFilters.parse("true")),
+                new QueryResourceHandler() {
+                    @Override
+                    public boolean handleResource(ResourceResponse resource) {
+                        results.add(resource);
+                        return true;
+                    }
+                }).getOrThrowUninterruptibly();
+        return results.size();
+    }
+
+    private JsonValue captureQueryActivity(final ActivityLogger activityLogger) throws ResourceException {
+        final ArgumentCaptor<JsonValue> after = ArgumentCaptor.forClass(JsonValue.class);
+        verify(activityLogger).log(any(Context.class), isA(QueryRequest.class), anyString(), anyString(),
+                any(JsonValue.class), after.capture(), any(Status.class));
+        return after.getValue();
     }
 
     private JsonValue createUser(final String resourceId, final JsonValue userContent,
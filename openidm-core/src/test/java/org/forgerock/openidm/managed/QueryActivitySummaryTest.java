@@ -0,0 +1,74 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.managed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ResourceResponse;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link QueryActivitySummary}.
+ */
+public class QueryActivitySummaryTest {
+
+    @Test
+    public void testCountsWithoutIds() {
+        final QueryActivitySummary summary = new QueryActivitySummary(0, false);
+        summary.add(newUser("user1"));
+        summary.add(newUser("user2"));
+
+        final JsonValue json = summary.toJsonValue();
+        assertThat(json.get("resultCount").asInteger()).isEqualTo(2);
+        assertThat(json.isDefined("ids")).isFalse();
+    }
+
+    @Test
+    public void testIdDigestIsBounded() {
+        final QueryActivitySummary summary = new QueryActivitySummary(2, false);
+        summary.add(newUser("user1"));
+        summary.add(newUser("user2"));
+        summary.add(newUser("user3"));
+
+        final JsonValue json = summary.toJsonValue();
+        assertThat(json.get("resultCount").asInteger()).isEqualTo(3);
+        assertThat(json.get("ids").asList(String.class)).containsExactly("user1", "user2");
+        assertThat(json.get("idsTruncated").asBoolean()).isTrue();
+    }
+
+    @Test
+    public void testFullObjectsAreCollected() {
+        final QueryActivitySummary summary = new QueryActivitySummary(1, true);
+        summary.add(newUser("user1"));
+        summary.add(newUser("user2"));
+
+        final JsonValue json = summary.toJsonValue();
+        assertThat(summary.getResultCount()).isEqualTo(2);
+        assertThat(json.isList()).isTrue();
+        assertThat(json.size()).isEqualTo(2);
+        assertThat(json.get(0).get("userName").asString()).isEqualTo("user1");
+        assertThat(json.get(1).get("userName").asString()).isEqualTo("user2");
+    }
+
+    private ResourceResponse newUser(String id) {
+        return newResourceResponse(id, "1", json(object(field("_id", id), field("userName", id))));
+    }
+}
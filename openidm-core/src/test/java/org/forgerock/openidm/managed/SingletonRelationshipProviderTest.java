@@ -15,5 +15,49 @@
  */
 package org.forgerock.openidm.managed;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.audit.util.ActivityLogger;
+import org.forgerock.openidm.util.RelationshipUtil;
+import org.testng.annotations.Test;
+
 public class SingletonRelationshipProviderTest {
+
+    @Test
+    public void testMultipleReferencesAreFlaggedOnACopy() {
+        final SchemaField schemaField = mock(SchemaField.class);
+        when(schemaField.getName()).thenReturn("manager");
+        final SingletonRelationshipProvider provider = new SingletonRelationshipProvider(
+                mock(ConnectionFactory.class), new ResourcePath("managed", "user"), schemaField,
+                mock(ActivityLogger.class), mock(ManagedObjectSetService.class));
+        final ResourceResponse first = relationship("1", "managed/user/mgr1");
+        final ResourceResponse second = relationship("2", "managed/user/mgr2");
+
+        final JsonValue value = provider.toRelationshipValue("managed/user/foo", Arrays.asList(first, second));
+
+        assertThat(value.get(RelationshipUtil.REFERENCE_ERROR).asBoolean()).isTrue();
+        assertThat(value.get("_ref").asString()).isEqualTo("managed/user/mgr1");
+        // the relationships read are left as they were
+        assertThat(first.getContent().isDefined(RelationshipUtil.REFERENCE_ERROR)).isFalse();
+        assertThat(first.getContent().isDefined(RelationshipUtil.REFERENCE_ERROR_MESSAGE)).isFalse();
+    }
+
+    private static ResourceResponse relationship(String id, String ref) {
+        return newResourceResponse(id, "0", json(object(
+                field("firstId", "managed/user/foo"),
+                field("firstPropertyName", "manager"),
+                field("secondId", ref))));
+    }
 }
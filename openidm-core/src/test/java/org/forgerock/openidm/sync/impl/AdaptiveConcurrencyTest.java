@@ -0,0 +1,97 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+public class AdaptiveConcurrencyTest {
+
+    private static void recordWindow(AdaptiveConcurrency concurrency, long latencyMillis) {
+        for (int i = 0; i < AdaptiveConcurrency.MIN_WINDOW_SIZE; i++) {
+            concurrency.record(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        }
+    }
+
+    @Test
+    public void testAdditiveIncreaseUpToMax() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(10, 1, 12, null);
+        // an incomplete window does not change the limit
+        concurrency.record(System.nanoTime());
+        assertThat(concurrency.evaluate(0)).isEqualTo(10);
+
+        recordWindow(concurrency, 10);
+        assertThat(concurrency.evaluate(0)).isEqualTo(11);
+        recordWindow(concurrency, 10);
+        assertThat(concurrency.evaluate(0)).isEqualTo(12);
+        recordWindow(concurrency, 10);
+        assertThat(concurrency.evaluate(0)).isEqualTo(12);
+    }
+
+    @Test
+    public void testMultiplicativeDecreaseOnLatency() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(8, 1, 8, null);
+        recordWindow(concurrency, 10);
+        assertThat(concurrency.evaluate(0)).isEqualTo(8);
+        recordWindow(concurrency, 100);
+        assertThat(concurrency.evaluate(0)).isEqualTo(4);
+    }
+
+    @Test
+    public void testMultiplicativeDecreaseOnFailuresDownToMin() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(8, 3, 8, null);
+        recordWindow(concurrency, 10);
+        assertThat(concurrency.evaluate(0)).isEqualTo(8);
+        recordWindow(concurrency, 10);
+        assertThat(concurrency.evaluate(5)).isEqualTo(4);
+        recordWindow(concurrency, 10);
+        assertThat(concurrency.evaluate(10)).isEqualTo(3);
+    }
+
+    @Test
+    public void testExecutorFollowsLimit() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(4, 8, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        try {
+            AdaptiveConcurrency concurrency = new AdaptiveConcurrency(4, 1, 8, executor);
+            recordWindow(concurrency, 10);
+            concurrency.evaluate(0);
+            assertThat(executor.getCorePoolSize()).isEqualTo(5);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testExecutorIsNotResizedBeyondItsMaximum() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(4, 4, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        try {
+            // a minimum above the maximum size of the pool
+            AdaptiveConcurrency concurrency = new AdaptiveConcurrency(4, 8, 4, executor);
+            recordWindow(concurrency, 10);
+            concurrency.evaluate(0);
+            assertThat(executor.getCorePoolSize()).isEqualTo(4);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
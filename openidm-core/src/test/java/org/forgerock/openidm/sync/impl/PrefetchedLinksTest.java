@@ -0,0 +1,273 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.AbstractConnectionWrapper;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.Resources;
+import org.forgerock.json.resource.Router;
+import org.forgerock.openidm.util.Scripts;
+import org.forgerock.script.ScriptRegistry;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class PrefetchedLinksTest {
+
+    private static final String SOURCE = "system/ldap/account";
+    private static final String TARGET = "managed/user";
+    private static final String LINK_TYPE = "ldap_user";
+    private static final String TEST_LINK_QUALIFIER = "test";
+
+    private static final Answer<String> LOWER_CASE_FIRST_ARGUMENT = new Answer<String>() {
+        @Override
+        public String answer(InvocationOnMock invocation) {
+            return ((String) invocation.getArguments()[0]).toLowerCase();
+        }
+    };
+
+    private Connection connection;
+    private ConnectionFactory connectionFactory;
+    private final List<QueryRequest> linkQueries = new ArrayList<>();
+    private LinkType linkType;
+    private ObjectMapping mapping;
+    private ReconciliationContext reconContext;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        final Router router = new Router();
+        router.addRoute(Router.uriTemplate("repo/link"), new MemoryBackend());
+        connection = Resources.newInternalConnectionFactory(router).getConnection();
+        ObjectSetContext.push(new RootContext());
+
+        // records the link queries
+        linkQueries.clear();
+        connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(new AbstractConnectionWrapper<Connection>(connection) {
+            @Override
+            public QueryResponse query(Context context, QueryRequest request, QueryResourceHandler handler)
+                    throws ResourceException {
+                linkQueries.add(request);
+                return super.query(context, request, handler);
+            }
+        });
+
+        // source and target ids are case insensitive
+        linkType = mock(LinkType.class);
+        when(linkType.getName()).thenReturn(LINK_TYPE);
+        when(linkType.normalizeSourceId(anyString())).thenAnswer(LOWER_CASE_FIRST_ARGUMENT);
+        when(linkType.normalizeTargetId(anyString())).thenAnswer(LOWER_CASE_FIRST_ARGUMENT);
+
+        mapping = mock(ObjectMapping.class);
+        when(mapping.getLinkType()).thenReturn(linkType);
+        when(mapping.getConnectionFactory()).thenReturn(connectionFactory);
+
+        reconContext = mock(ReconciliationContext.class);
+        when(reconContext.getStatistics()).thenReturn(mock(ReconciliationStatistic.class));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        ObjectSetContext.clear();
+    }
+
+    @Test
+    public void testAllLinksOfTheMappingAreQueriedAtOnce() throws Exception {
+        createLink("link0", Link.DEFAULT_LINK_QUALIFIER, "source0", "target0");
+        createLink("link1", Link.DEFAULT_LINK_QUALIFIER, "source1", "target1");
+        createLink("link2", TEST_LINK_QUALIFIER, "source0", "target2");
+
+        final PrefetchedLinks links = PrefetchedLinks.forMapping(mapping,
+                Collections.singleton(Link.DEFAULT_LINK_QUALIFIER), reconContext);
+
+        assertThat(linkQueries).hasSize(1);
+        assertThat(count(linkQueries.get(0), "firstId")).isZero();
+        assertThat(links.size()).isEqualTo(2);
+        assertThat(links.isPrefetched(Link.DEFAULT_LINK_QUALIFIER)).isTrue();
+        assertThat(links.isPrefetched(TEST_LINK_QUALIFIER)).isFalse();
+        final Link link = links.getLink(Link.DEFAULT_LINK_QUALIFIER, "source1");
+        assertThat(link._id).isEqualTo("link1");
+        assertThat(link.targetId).isEqualTo("target1");
+        assertThat(link.linkQualifier).isEqualTo(Link.DEFAULT_LINK_QUALIFIER);
+    }
+
+    @Test
+    public void testLinksOfSourceIdsAreQueriedInBatches() throws Exception {
+        final int sourceCount = 2 * PrefetchedLinks.SOURCE_ID_BATCH_SIZE + 50;
+        final List<String> sourceIds = new ArrayList<>(sourceCount);
+        for (int i = 0; i < sourceCount; i++) {
+            sourceIds.add("source" + i);
+            createLink("link" + i, Link.DEFAULT_LINK_QUALIFIER, "source" + i, "target" + i);
+        }
+        // a link of another source, which is not queried
+        createLink("other", Link.DEFAULT_LINK_QUALIFIER, "other", "target");
+
+        final PrefetchedLinks links = PrefetchedLinks.forSourceIds(mapping,
+                Collections.singleton(Link.DEFAULT_LINK_QUALIFIER), sourceIds, reconContext);
+
+        // an OR filter of at most SOURCE_ID_BATCH_SIZE source ids per query
+        assertThat(linkQueries).hasSize(3);
+        assertThat(count(linkQueries.get(0), "firstId")).isEqualTo(PrefetchedLinks.SOURCE_ID_BATCH_SIZE);
+        assertThat(count(linkQueries.get(1), "firstId")).isEqualTo(PrefetchedLinks.SOURCE_ID_BATCH_SIZE);
+        assertThat(count(linkQueries.get(2), "firstId")).isEqualTo(50);
+        assertThat(links.size()).isEqualTo(sourceCount);
+        assertThat(links.getLink(Link.DEFAULT_LINK_QUALIFIER, "source" + (sourceCount - 1)).targetId)
+                .isEqualTo("target" + (sourceCount - 1));
+        assertThat(links.getLink(Link.DEFAULT_LINK_QUALIFIER, "other")).isNull();
+    }
+
+    @Test
+    public void testSourceIdsAreNormalizedForEachLinkQualifier() throws Exception {
+        createLink("link0", Link.DEFAULT_LINK_QUALIFIER, "source0", "target0");
+        createLink("link1", TEST_LINK_QUALIFIER, "source0", "target1");
+
+        final PrefetchedLinks links = PrefetchedLinks.forSourceIds(mapping,
+                new LinkedHashSet<>(Arrays.asList(Link.DEFAULT_LINK_QUALIFIER, TEST_LINK_QUALIFIER)),
+                Collections.singleton("SOURCE0"), reconContext);
+
+        // the links are queried, and looked up, by normalized source id
+        assertThat(linkQueries).hasSize(2);
+        for (QueryRequest linkQuery : linkQueries) {
+            assertThat(linkQuery.getQueryFilter().toString()).contains("source0").doesNotContain("SOURCE0");
+        }
+        assertThat(links.getLink(Link.DEFAULT_LINK_QUALIFIER, "source0").targetId).isEqualTo("target0");
+        assertThat(links.getLink(TEST_LINK_QUALIFIER, "source0").targetId).isEqualTo("target1");
+        assertThat(links.getLink(TEST_LINK_QUALIFIER, "source0").linkQualifier).isEqualTo(TEST_LINK_QUALIFIER);
+        assertThat(links.getTargetIds(Collections.singleton("source0"))).containsOnly("target0", "target1");
+    }
+
+    @Test
+    public void testReverseLinksAreQueriedBySecondId() throws Exception {
+        when(linkType.useReverse()).thenReturn(true);
+        // the source of a reverse link is its second id
+        createLink("link0", Link.DEFAULT_LINK_QUALIFIER, "target0", "source0");
+        createLink("link1", Link.DEFAULT_LINK_QUALIFIER, "source0", "target1");
+
+        final PrefetchedLinks links = PrefetchedLinks.forSourceIds(mapping,
+                Collections.singleton(Link.DEFAULT_LINK_QUALIFIER), Collections.singleton("source0"), reconContext);
+
+        assertThat(linkQueries).hasSize(1);
+        assertThat(count(linkQueries.get(0), "secondId")).isEqualTo(1);
+        assertThat(count(linkQueries.get(0), "firstId")).isZero();
+        assertThat(links.size()).isEqualTo(1);
+        final Link link = links.getLink(Link.DEFAULT_LINK_QUALIFIER, "source0");
+        assertThat(link._id).isEqualTo("link0");
+        assertThat(link.targetId).isEqualTo("target0");
+    }
+
+    @Test
+    public void testLinksArePrefetchedPerSourcePage() throws Exception {
+        Scripts.init(mock(ScriptRegistry.class));
+        createLink("link0", Link.DEFAULT_LINK_QUALIFIER, "source0", "target0");
+        createLink("link1", Link.DEFAULT_LINK_QUALIFIER, "source1", "target1");
+        createLink("link2", Link.DEFAULT_LINK_QUALIFIER, "source2", "target2");
+        final PagingObjectMapping pagingMapping = new PagingObjectMapping(connectionFactory, json(object(
+                field("name", LINK_TYPE),
+                field("source", SOURCE),
+                field("target", TARGET),
+                field("reconSourceQueryPaging", true),
+                field("reconSourceQueryPageSize", 2))));
+        pagingMapping.linkType = linkType;
+        when(reconContext.querySourceIter(anyInt(), eq("page2")))
+                .thenReturn(new ReconQueryResult(new ResultIterable(Arrays.asList("source2"), null), null));
+
+        pagingMapping.reconSourcePages(
+                new ReconQueryResult(new ResultIterable(Arrays.asList("source0", "source1"), null), "page2"),
+                Arrays.asList(new ResultEntry("source0", null), new ResultEntry("source1", null)).iterator(),
+                reconContext, new RootContext(), Collections.singleton(Link.DEFAULT_LINK_QUALIFIER), null, null);
+
+        // the links of each page are queried right before the page is processed
+        assertThat(linkQueries).hasSize(2);
+        assertThat(pagingMapping.pageLinks).hasSize(2);
+        final PrefetchedLinks firstPage = pagingMapping.pageLinks.get(0);
+        assertThat(firstPage.size()).isEqualTo(2);
+        assertThat(firstPage.getLink(Link.DEFAULT_LINK_QUALIFIER, "source0").targetId).isEqualTo("target0");
+        assertThat(firstPage.getLink(Link.DEFAULT_LINK_QUALIFIER, "source2")).isNull();
+        // and replace the links of the previous page
+        final PrefetchedLinks secondPage = pagingMapping.pageLinks.get(1);
+        assertThat(secondPage).isNotSameAs(firstPage);
+        assertThat(secondPage.size()).isEqualTo(1);
+        assertThat(secondPage.getLink(Link.DEFAULT_LINK_QUALIFIER, "source0")).isNull();
+        assertThat(secondPage.getLink(Link.DEFAULT_LINK_QUALIFIER, "source2").targetId).isEqualTo("target2");
+    }
+
+    private void createLink(String id, String linkQualifier, String firstId, String secondId) throws Exception {
+        connection.create(new RootContext(), newCreateRequest("repo/link", id, json(object(
+                field("linkType", LINK_TYPE),
+                field("linkQualifier", linkQualifier),
+                field("firstId", firstId),
+                field("secondId", secondId)))));
+    }
+
+    private static int count(QueryRequest request, String field) {
+        final String filter = request.getQueryFilter().toString();
+        int count = 0;
+        for (int i = filter.indexOf(field); i >= 0; i = filter.indexOf(field, i + field.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * A mapping recording the links each source page is processed with, rather than processing it.
+     */
+    private static class PagingObjectMapping extends ObjectMapping {
+
+        private final List<PrefetchedLinks> pageLinks = new ArrayList<>();
+
+        PagingObjectMapping(ConnectionFactory connectionFactory, JsonValue config) {
+            super(connectionFactory, config);
+        }
+
+        @Override
+        ReconPhase newSourcePhase(Iterator<ResultEntry> sourceEntries, ReconciliationContext reconContext,
+                Context context, Set<String> linkQualifiers, PrefetchedLinks prefetchedLinks,
+                SeenTargetIds seenTargetIds) {
+            pageLinks.add(prefetchedLinks);
+            return mock(ReconPhase.class);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.Resources;
+import org.forgerock.json.resource.Router;
+import org.forgerock.openidm.sync.impl.ReconPartitions.State;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ReconPartitionsTest {
+
+    private static final String RECON_ID = "recon1";
+    private static final long LEASE = 60000L;
+
+    private ConnectionFactory connectionFactory;
+
+    @BeforeMethod
+    public void setUp() {
+        final Router router = new Router();
+        router.addRoute(Router.uriTemplate(ReconPartitions.PARTITIONS_CONTAINER), new MemoryBackend());
+        connectionFactory = Resources.newInternalConnectionFactory(router);
+    }
+
+    @Test
+    public void testPartitionsAreClaimedOnce() throws Exception {
+        ReconPartitions partitions = create(3, false, LEASE);
+        ReconPartitions otherNode = ReconPartitions.read(connectionFactory, RECON_ID);
+
+        assertThat(partitions.claim("node1")).isEqualTo(0);
+        assertThat(otherNode.claim("node2")).isEqualTo(1);
+        assertThat(partitions.claim("node1")).isEqualTo(2);
+        assertThat(otherNode.claim("node2")).isNull();
+
+        JsonValue entries = partitions.readPartitions();
+        assertThat(ReconPartitions.getOwner(entries.get(0))).isEqualTo("node1");
+        assertThat(ReconPartitions.getOwner(entries.get(1))).isEqualTo("node2");
+        assertThat(ReconPartitions.getState(entries.get(2))).isEqualTo(State.CLAIMED);
+    }
+
+    @Test
+    public void testClaimIsRenewedByItsOwnerOnly() throws Exception {
+        ReconPartitions partitions = create(1, false, LEASE);
+
+        assertThat(partitions.claim("node1")).isEqualTo(0);
+        assertThat(partitions.renew(0, "node1")).isTrue();
+        assertThat(partitions.renew(0, "node2")).isFalse();
+        // the claim has not expired
+        assertThat(partitions.claim("node2")).isNull();
+    }
+
+    @Test
+    public void testExpiredClaimIsClaimedAgain() throws Exception {
+        // claims expire as soon as they are made
+        ReconPartitions partitions = create(1, false, -1L);
+
+        assertThat(partitions.claim("node1")).isEqualTo(0);
+        assertThat(partitions.claim("node2")).isEqualTo(0);
+
+        // the results of the node which lost the claim are discarded
+        assertThat(partitions.complete(0, "node1", null, null)).isFalse();
+        assertThat(partitions.complete(0, "node2", null, null)).isTrue();
+        assertThat(ReconPartitions.getState(partitions.readPartitions().get(0))).isEqualTo(State.COMPLETED);
+    }
+
+    @Test
+    public void testFailureOfFormerOwnerIsIgnored() throws Exception {
+        ReconPartitions partitions = create(1, false, -1L);
+
+        partitions.claim("node1");
+        partitions.claim("node2");
+        partitions.fail(0, "node1", "lost");
+
+        assertThat(ReconPartitions.getState(partitions.readPartitions().get(0))).isEqualTo(State.CLAIMED);
+        assertThat(ReconPartitions.getOwner(partitions.readPartitions().get(0))).isEqualTo("node2");
+    }
+
+    @Test
+    public void testReleasedPartitionIsClaimedAgain() throws Exception {
+        ReconPartitions partitions = create(2, false, LEASE);
+
+        partitions.claim("node1");
+        partitions.claim("node2");
+        assertThat(partitions.release("node2")).isEqualTo(1);
+
+        assertThat(partitions.claim("node3")).isEqualTo(1);
+    }
+
+    @Test
+    public void testCompletedPartitionIsMerged() throws Exception {
+        ReconPartitions partitions = create(2, true, LEASE);
+        ReconPartitions otherNode = ReconPartitions.read(connectionFactory, RECON_ID);
+        assertThat(otherNode.isTrackTargets()).isTrue();
+        assertThat(otherNode.getMapping()).isEqualTo("systemLdapAccounts_managedUser");
+
+        // another node reconciles the partition, seeing more targets than fit in a chunk
+        int partition = otherNode.claim("node2");
+        SeenTargetIds seenOnNode = new SeenTargetIds(0);
+        int seen = ReconPartitions.SEEN_TARGETS_CHUNK_SIZE + 10;
+        for (int i = 0; i < seen; i++) {
+            seenOnNode.mark("target" + i);
+        }
+        JsonValue statistics = json(object(field("sourceProcessed", 42)));
+        assertThat(otherNode.complete(partition, "node2", statistics, seenOnNode)).isTrue();
+
+        // the coordinating node merges it
+        JsonValue entry = partitions.readPartitions().get(partition);
+        assertThat(ReconPartitions.getState(entry)).isEqualTo(State.COMPLETED);
+        assertThat(ReconPartitions.getStatistics(entry).get("sourceProcessed").asInteger()).isEqualTo(42);
+        SeenTargetIds seenTargetIds = new SeenTargetIds(0);
+        partitions.readSeenTargets(partition, entry, seenTargetIds);
+        assertThat(seenTargetIds.size()).isEqualTo(seen);
+        assertThat(seenTargetIds.isSeen("target0")).isTrue();
+        assertThat(seenTargetIds.isSeen("target" + seen)).isFalse();
+
+        partitions.delete();
+        assertThat(ReconPartitions.read(connectionFactory, RECON_ID)).isNull();
+    }
+
+    private ReconPartitions create(int size, boolean trackTargets, long leaseDuration) throws Exception {
+        ReconciliationContext reconContext = mock(ReconciliationContext.class);
+        when(reconContext.getReconId()).thenReturn(RECON_ID);
+        when(reconContext.getMapping()).thenReturn("systemLdapAccounts_managedUser");
+        return ReconPartitions.create(connectionFactory, reconContext, "node1", size, trackTargets, leaseDuration);
+    }
+}
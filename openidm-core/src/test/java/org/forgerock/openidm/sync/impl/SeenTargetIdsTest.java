@@ -0,0 +1,105 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.forgerock.json.JsonValue;
+import org.testng.annotations.Test;
+
+public class SeenTargetIdsTest {
+
+    @Test
+    public void testMarkAndResize() {
+        // start small to force the shards to resize
+        SeenTargetIds seen = new SeenTargetIds(0);
+        for (int i = 0; i < 10000; i++) {
+            seen.mark("target" + i);
+        }
+        // marking twice does not count twice
+        seen.mark("target0");
+
+        assertThat(seen.size()).isEqualTo(10000);
+        for (int i = 0; i < 10000; i++) {
+            assertThat(seen.isSeen("target" + i)).isTrue();
+        }
+        assertThat(seen.isSeen("target10000")).isFalse();
+        assertThat(seen.isSeen("Target0")).isFalse();
+    }
+
+    @Test
+    public void testUnseenSkipsSeenEntries() {
+        List<ResultEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            entries.add(new ResultEntry("Id" + i, new JsonValue("Value" + i)));
+        }
+        SeenTargetIds seen = new SeenTargetIds(entries.size());
+        seen.mark("Id0");
+        seen.mark("Id2");
+        seen.mark("Id5");
+
+        List<String> ids = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        PhaseStatistic stat = new PhaseStatistic(null, PhaseStatistic.Phase.TARGET, "target");
+        Iterator<ResultEntry> unseen = seen.unseen(entries.iterator(), stat);
+        while (unseen.hasNext()) {
+            ResultEntry entry = unseen.next();
+            ids.add(entry.getId());
+            values.add(entry.getValue().getObject());
+        }
+        assertThat(ids).containsExactly("Id1", "Id3", "Id4");
+        assertThat(values).containsExactly("Value1", "Value3", "Value4");
+        // the skipped entries are reported
+        assertThat(stat.getSituationIds("SKIPPED").getCount()).isEqualTo(3);
+        assertThat(stat.getSituationIds("SKIPPED").getIds()).containsOnly("Id0", "Id2", "Id5");
+    }
+
+    @Test
+    public void testFingerprintsCanBeMergedIntoAnotherSet() {
+        SeenTargetIds partition = new SeenTargetIds(0);
+        for (int i = 0; i < 1000; i++) {
+            partition.mark("target" + i);
+        }
+        long[] fingerprints = partition.fingerprints();
+        assertThat(fingerprints).hasSize(1000);
+
+        SeenTargetIds merged = new SeenTargetIds(0);
+        merged.mark("target0");
+        for (long fingerprint : fingerprints) {
+            merged.markFingerprint(fingerprint);
+        }
+        assertThat(merged.size()).isEqualTo(1000);
+        assertThat(merged.isSeen("target999")).isTrue();
+        assertThat(merged.isSeen("target1000")).isFalse();
+    }
+
+    @Test
+    public void testPartitionsCoverAllIds() {
+        int[] counts = new int[4];
+        for (int i = 0; i < 10000; i++) {
+            int partition = ReconPartitions.partitionOf("source" + i, counts.length);
+            assertThat(partition).isEqualTo(ReconPartitions.partitionOf("source" + i, counts.length));
+            counts[partition]++;
+        }
+        for (int count : counts) {
+            assertThat(count).isBetween(2000, 3000);
+        }
+    }
+}
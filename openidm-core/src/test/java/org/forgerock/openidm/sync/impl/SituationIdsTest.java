@@ -0,0 +1,82 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.forgerock.openidm.sync.impl.PhaseStatistic.IdRetention;
+import org.testng.annotations.Test;
+
+public class SituationIdsTest {
+
+    @Test
+    public void testAllRetentionKeepsEveryId() {
+        SituationIds ids = new SituationIds(IdRetention.ALL, 0, null);
+        for (int i = 0; i < 50; i++) {
+            ids.add("id" + i);
+        }
+        assertThat(ids.getCount()).isEqualTo(50);
+        assertThat(ids.getIds()).hasSize(50).startsWith("id0", "id1").endsWith("id49");
+        assertThat(ids.isComplete()).isTrue();
+    }
+
+    @Test
+    public void testSampleRetentionIsBounded() {
+        SituationIds ids = new SituationIds(IdRetention.SAMPLE, 10, null);
+        Set<String> added = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add("id" + i);
+            added.add("id" + i);
+        }
+        assertThat(ids.getCount()).isEqualTo(1000);
+        assertThat(ids.getIds()).hasSize(10).doesNotHaveDuplicates();
+        assertThat(added).containsAll(ids.getIds());
+        assertThat(ids.isComplete()).isFalse();
+    }
+
+    @Test
+    public void testNoneRetentionOnlyCounts() {
+        SituationIds ids = new SituationIds(IdRetention.NONE, 10, null);
+        ids.add("id0");
+        ids.add("id1");
+        assertThat(ids.getCount()).isEqualTo(2);
+        assertThat(ids.getIds()).isEmpty();
+    }
+
+    @Test
+    public void testSpilledIdsCanBePaged() throws Exception {
+        File file = File.createTempFile("recon-ids", ".gz");
+        ReconIdSpillFile spillFile = new ReconIdSpillFile(file);
+        try {
+            SituationIds ids = new SituationIds(IdRetention.NONE, 0, spillFile);
+            for (int i = 0; i < 25; i++) {
+                ids.add("id" + i);
+            }
+            spillFile.close();
+
+            assertThat(spillFile.read(0, 10)).hasSize(10).startsWith("id0").endsWith("id9");
+            assertThat(spillFile.read(20, 10)).containsExactly("id20", "id21", "id22", "id23", "id24");
+            assertThat(spillFile.read(30, 10)).isEmpty();
+        } finally {
+            spillFile.delete();
+        }
+        assertThat(file.exists()).isFalse();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.Resources;
+import org.forgerock.json.resource.Router;
+import org.forgerock.services.context.RootContext;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SourceBatchesTest {
+
+    private static final String SOURCE = "system/ldap/account";
+    private static final String TARGET = "managed/user";
+
+    private static final Answer<String> FIRST_ARGUMENT = new Answer<String>() {
+        @Override
+        public String answer(InvocationOnMock invocation) {
+            return (String) invocation.getArguments()[0];
+        }
+    };
+
+    private Connection connection;
+    private ObjectMapping mapping;
+    private ReconciliationContext reconContext;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        final Router router = new Router();
+        router.addRoute(Router.uriTemplate(SOURCE), new MemoryBackend());
+        router.addRoute(Router.uriTemplate(TARGET), new MemoryBackend());
+        router.addRoute(Router.uriTemplate("repo/link"), new MemoryBackend());
+        final ConnectionFactory connectionFactory = Resources.newInternalConnectionFactory(router);
+        connection = connectionFactory.getConnection();
+        ObjectSetContext.push(new RootContext());
+
+        final LinkType linkType = mock(LinkType.class);
+        when(linkType.getName()).thenReturn("ldap_user");
+        when(linkType.normalizeSourceId(anyString())).thenAnswer(FIRST_ARGUMENT);
+        when(linkType.normalizeTargetId(anyString())).thenAnswer(FIRST_ARGUMENT);
+
+        mapping = mock(ObjectMapping.class);
+        when(mapping.getLinkType()).thenReturn(linkType);
+        when(mapping.getSourceObjectSet()).thenReturn(SOURCE);
+        when(mapping.getTargetObjectSet()).thenReturn(TARGET);
+        when(mapping.getConnectionFactory()).thenReturn(connectionFactory);
+
+        reconContext = mock(ReconciliationContext.class);
+        when(reconContext.getStatistics()).thenReturn(mock(ReconciliationStatistic.class));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        ObjectSetContext.clear();
+    }
+
+    @Test
+    public void testSourceObjectsAreReadPerBatch() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            create(SOURCE, "source" + i, json(object(field("uid", "user" + i))));
+        }
+        final SourceBatches batches = new SourceBatches(entries("source0", "source1", "source2", "missing"),
+                mapping, reconContext, null, null, 2);
+
+        assertThat(batches.next().getValue().get("uid").asString()).isEqualTo("user0");
+        assertThat(batches.next().getValue().get("uid").asString()).isEqualTo("user1");
+        assertThat(batches.next().getValue().get("uid").asString()).isEqualTo("user2");
+        // sources not found are left to their sync operation
+        assertThat(batches.next().getValue()).isNull();
+        assertThat(batches.hasNext()).isFalse();
+        assertThat(batches.getLinks()).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLinkedTargetsAreHandedOverAndReleased() throws Exception {
+        create(SOURCE, "source0", json(object()));
+        create(SOURCE, "source1", json(object()));
+        create(SOURCE, "source2", json(object()));
+        create(TARGET, "target0", json(object(field("userName", "user0"))));
+        createLink("link0", "source0", "target0");
+        createLink("link1", "source1", "target1");
+        final SourceBatches batches = new SourceBatches(entries("source0", "source1", "source2"),
+                mapping, reconContext, Collections.singleton(Link.DEFAULT_LINK_QUALIFIER), null, 3);
+
+        final ResultEntry first = batches.next();
+        final PrefetchedLinks links = batches.getLinks();
+        assertThat(links.getLink(Link.DEFAULT_LINK_QUALIFIER, "source0").targetId).isEqualTo("target0");
+
+        final ArgumentCaptor<Map> targets = ArgumentCaptor.forClass(Map.class);
+        verify(reconContext).addBatchTargets(targets.capture());
+        assertThat(targets.getValue()).hasSize(2);
+        assertThat(((JsonValue) targets.getValue().get("target0")).get("userName").asString()).isEqualTo("user0");
+        // linked targets not found are handed over as missing
+        assertThat(targets.getValue()).containsEntry("target1", null);
+
+        // the targets an operation did not take are released once it is done
+        batches.release(first, links);
+        verify(reconContext).takeBatchTarget("target0");
+        batches.release(batches.next(), links);
+        verify(reconContext).takeBatchTarget("target1");
+    }
+
+    @Test
+    public void testTargetsAreNotQueriedWhenReadWithTheTargetIds() throws Exception {
+        create(SOURCE, "source0", json(object()));
+        createLink("link0", "source0", "target0");
+        when(reconContext.hasTargetsValues()).thenReturn(true);
+        final SourceBatches batches = new SourceBatches(entries("source0"),
+                mapping, reconContext, Collections.singleton(Link.DEFAULT_LINK_QUALIFIER), null, 2);
+
+        batches.release(batches.next(), batches.getLinks());
+
+        verify(reconContext, never()).addBatchTargets(anyMapOf(String.class, JsonValue.class));
+        verify(reconContext, never()).takeBatchTarget(anyString());
+    }
+
+    private Iterator<ResultEntry> entries(String... ids) {
+        final ResultEntry[] entries = new ResultEntry[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            entries[i] = new ResultEntry(ids[i], null);
+        }
+        return Arrays.asList(entries).iterator();
+    }
+
+    private void create(String container, String id, JsonValue content) throws Exception {
+        connection.create(new RootContext(), newCreateRequest(container, id, content));
+    }
+
+    private void createLink(String id, String sourceId, String targetId) throws Exception {
+        create("repo/link", id, json(object(
+                field("linkType", "ldap_user"),
+                field("linkQualifier", Link.DEFAULT_LINK_QUALIFIER),
+                field("firstId", sourceId),
+                field("secondId", targetId))));
+    }
+}
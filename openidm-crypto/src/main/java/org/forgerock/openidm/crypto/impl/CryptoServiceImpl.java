@@ -24,6 +24,10 @@ import static org.forgerock.json.JsonValueFunctions.identity;
 
 import java.io.IOException;
 import java.security.Key;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.ConfigurationPolicy;
@@ -78,6 +82,9 @@ public class CryptoServiceImpl implements CryptoService {
     private Function<JsonValue, JsonValue, JsonValueException> decryptionFunction = identity();
     private SimpleKeySelector keySelector;
 
+    /** The field storage schemes by algorithm, which are thread safe and costly to create */
+    private final ConcurrentMap<String, FieldStorageScheme> fieldStorageSchemes = new ConcurrentHashMap<>();
+
     @Reference(target="(service.pid=org.forgerock.openidm.keystore)")
     private KeyStoreService keyStoreService;
 
@@ -210,7 +217,20 @@ public class CryptoServiceImpl implements CryptoService {
 
     @Override
     public JsonValue hash(JsonValue value, String algorithm) throws JsonException, JsonCryptoException {
+        return hash(getFieldStorageScheme(algorithm), value, algorithm);
+    }
+
+    @Override
+    public List<JsonValue> hash(List<JsonValue> values, String algorithm) throws JsonException, JsonCryptoException {
         final FieldStorageScheme fieldStorageScheme = getFieldStorageScheme(algorithm);
+        final List<JsonValue> hashed = new ArrayList<>(values.size());
+        for (JsonValue value : values) {
+            hashed.add(hash(fieldStorageScheme, value, algorithm));
+        }
+        return hashed;
+    }
+
+    private JsonValue hash(FieldStorageScheme fieldStorageScheme, JsonValue value, String algorithm) {
         final String plainTextField = normalizeValueBeforeHash(value);
         final String encodedField = fieldStorageScheme.hashField(plainTextField);
         return json(object(
@@ -230,13 +250,32 @@ public class CryptoServiceImpl implements CryptoService {
     }
     
     /**
-     * Returns a {@link FieldStorageScheme} instance based on the supplied algorithm.
+     * Returns the shared {@link FieldStorageScheme} instance of the supplied algorithm.
      * 
      * @param algorithm a string representing a storage scheme algorithm
      * @return a field storage scheme implementation.
      * @throws JsonCryptoException
      */
     private FieldStorageScheme getFieldStorageScheme(String algorithm) throws JsonCryptoException {
+        FieldStorageScheme fieldStorageScheme = fieldStorageSchemes.get(algorithm);
+        if (fieldStorageScheme == null) {
+            fieldStorageScheme = newFieldStorageScheme(algorithm);
+            FieldStorageScheme existing = fieldStorageSchemes.putIfAbsent(algorithm, fieldStorageScheme);
+            if (existing != null) {
+                fieldStorageScheme = existing;
+            }
+        }
+        return fieldStorageScheme;
+    }
+
+    /**
+     * Returns a new {@link FieldStorageScheme} instance based on the supplied algorithm.
+     * 
+     * @param algorithm a string representing a storage scheme algorithm
+     * @return a field storage scheme implementation.
+     * @throws JsonCryptoException
+     */
+    private FieldStorageScheme newFieldStorageScheme(String algorithm) throws JsonCryptoException {
         try {
             if (algorithm.equals(CryptoConstants.ALGORITHM_MD5)) {
                 return new SaltedMD5FieldStorageScheme();
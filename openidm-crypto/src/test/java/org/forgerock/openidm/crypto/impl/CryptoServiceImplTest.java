@@ -18,8 +18,12 @@ package org.forgerock.openidm.crypto.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.forgerock.json.JsonValue.*;
+import static org.forgerock.openidm.crypto.CryptoConstants.ALGORITHM_SHA_256;
 import static org.forgerock.openidm.util.JsonUtil.writeValueAsString;
 
+import java.util.Arrays;
+import java.util.List;
+
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.forgerock.json.JsonValue;
 import org.testng.annotations.DataProvider;
@@ -54,4 +58,21 @@ public class CryptoServiceImplTest {
         assertThat(actualOutput).isEqualTo(expectedOutput);
     }
 
+    @Test
+    public void hashValuesTest() throws Exception {
+        // given
+        final CryptoServiceImpl cryptoService = new CryptoServiceImpl();
+
+        // when
+        final List<JsonValue> hashed = cryptoService.hash(Arrays.asList(json("passw0rd"), json("s3cret")),
+                ALGORITHM_SHA_256);
+
+        // then
+        assertThat(hashed).hasSize(2);
+        assertThat(cryptoService.isHashed(hashed.get(0))).isTrue();
+        assertThat(cryptoService.matches("passw0rd", hashed.get(0))).isTrue();
+        assertThat(cryptoService.matches("s3cret", hashed.get(1))).isTrue();
+        assertThat(cryptoService.matches("passw0rd", hashed.get(1))).isFalse();
+    }
+
 }
@@ -0,0 +1,104 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.crypto.impl;
+
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.openidm.crypto.CryptoConstants.ALGORITHM_SHA_256;
+import static org.forgerock.openidm.crypto.CryptoConstants.ALGORITHM_SHA_384;
+import static org.forgerock.openidm.crypto.CryptoConstants.ALGORITHM_SHA_512;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.crypto.JsonCryptoException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures how many password fields a single {@link CryptoServiceImpl} hashes and verifies per millisecond when
+ * as many threads as cores call it at once, as when many users are created or log in concurrently.
+ * <p>
+ * The service looks up the shared scheme of the algorithm on each call, so the figures include the lookup and the
+ * building of the {@code $crypto} value. {@code hashList} hashes a list of 100 values per call, as an import does,
+ * and is reported per value. Not run by the tests; run {@link #main(String[])} with the test classpath, then again
+ * with {@code threads(1)} added to its options: the throughput should grow with the number of cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class FieldStorageSchemeBenchmark {
+
+    private static final String PASSWORD = "Passw0rd";
+
+    private static final int LIST_SIZE = 100;
+
+    @Param({ ALGORITHM_SHA_256, ALGORITHM_SHA_384, ALGORITHM_SHA_512 })
+    private String algorithm;
+
+    private CryptoServiceImpl cryptoService;
+    private JsonValue hashed;
+    private List<JsonValue> passwords;
+
+    @Setup
+    public void setUp() throws Exception {
+        cryptoService = new CryptoServiceImpl();
+        hashed = cryptoService.hash(json(PASSWORD), algorithm);
+        passwords = new ArrayList<>(LIST_SIZE);
+        for (int i = 0; i < LIST_SIZE; i++) {
+            passwords.add(json(PASSWORD + i));
+        }
+    }
+
+    @Benchmark
+    public JsonValue hash() throws JsonCryptoException {
+        return cryptoService.hash(json(PASSWORD), algorithm);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LIST_SIZE)
+    public List<JsonValue> hashList() throws JsonCryptoException {
+        return cryptoService.hash(passwords, algorithm);
+    }
+
+    @Benchmark
+    public boolean matches() throws JsonCryptoException {
+        return cryptoService.matches(PASSWORD, hashed);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FieldStorageSchemeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -24,33 +24,71 @@
  */
 package org.forgerock.openidm.external.email.impl;
 
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
 import com.sun.mail.util.MailSSLSocketFactory;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import javax.mail.Message;
 import javax.mail.MessagingException;
 import javax.mail.Session;
-import javax.mail.Transport;
 import javax.mail.internet.AddressException;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 
 /**
  * Email client.
+ * <p>
+ * Messages are sent over pooled SMTP connections, which stay connected and authenticated between messages. Messages
+ * may also be queued, to be sent in batches by background threads.
  */
 public class EmailClient {
 
+    private static final Logger logger = LoggerFactory.getLogger(EmailClient.class);
+
     private static final String DEFAULT_HOST = "localhost";
     private static final String DEFAULT_PORT = "25";
+    private static final int DEFAULT_CONNECTION_POOL_SIZE = 4;
+    private static final long DEFAULT_CONNECTION_IDLE_TIMEOUT = 30000L;
+    private static final int DEFAULT_SEND_QUEUE_SIZE = 1000;
+    private static final int DEFAULT_SEND_QUEUE_THREADS = 2;
+
+    /** The maximum number of queued messages sent over one connection at once */
+    private static final int MAX_QUEUED_BATCH = 100;
+
+    /** How long the send threads wait for queued messages before checking whether the client is closed, in ms */
+    private static final long QUEUE_POLL_TIMEOUT = 1000L;
+
+    /** How long closing the client waits for the queued messages to be sent, in ms */
+    private static final long CLOSE_TIMEOUT = 30000L;
+
     private String username = null;
     private String password = null;
     private String fromAddr = null;
     private boolean smtpAuth = false;
     private Properties props = new Properties();
     private Session session;
-    
+    private final TransportPool transportPool;
+    private final BlockingQueue<Message> sendQueue;
+    private final int sendQueueThreads;
+    private List<Thread> sendThreads = null;
+    private volatile boolean closed = false;
+
     // Keys in the JSON configuration
     public static final String CONFIG_MAIL_SMTP_HOST = "host";
     public static final String CONFIG_MAIL_SMTP_PORT = "port";
@@ -62,8 +100,24 @@ public class EmailClient {
     public static final String CONFIG_MAIL_SMTP_STARTTLS_ENABLE = "enable";
     public static final String CONFIG_MAIL_FROM = "from";
     public static final String CONFIG_MAIL_DEBUG = "debug";
+    public static final String CONFIG_CONNECTION_POOL = "connectionPool";
+    public static final String CONFIG_CONNECTION_POOL_SIZE = "size";
+    public static final String CONFIG_CONNECTION_POOL_IDLE_TIMEOUT = "idleTimeout";
+    public static final String CONFIG_SEND_QUEUE = "sendQueue";
+    public static final String CONFIG_SEND_QUEUE_SIZE = "size";
+    public static final String CONFIG_SEND_QUEUE_THREADS = "threads";
 
     public EmailClient(JsonValue config) throws RuntimeException {
+        this(config, null);
+    }
+
+    /**
+     * Creates a client sending messages over the transports of a given pool.
+     *
+     * @param config the configuration
+     * @param transportPool the pool, or null to create one from the configuration
+     */
+    EmailClient(JsonValue config, TransportPool transportPool) {
 
         props.put("mail.smtp.host", config.get(CONFIG_MAIL_SMTP_HOST).defaultTo(DEFAULT_HOST).asString());
         props.put("mail.smtp.port", config.get(CONFIG_MAIL_SMTP_PORT).defaultTo(DEFAULT_PORT).asString());
@@ -94,6 +148,21 @@ public class EmailClient {
 
         fromAddr = config.get(CONFIG_MAIL_FROM).asString();
         session = Session.getInstance(props);
+
+        JsonValue poolConfig = config.get(CONFIG_CONNECTION_POOL);
+        this.transportPool = transportPool != null
+                ? transportPool
+                : new TransportPool(session, smtpAuth ? username : null, password,
+                        poolConfig.get(CONFIG_CONNECTION_POOL_SIZE).defaultTo(DEFAULT_CONNECTION_POOL_SIZE)
+                                .asInteger(),
+                        poolConfig.get(CONFIG_CONNECTION_POOL_IDLE_TIMEOUT)
+                                .defaultTo(DEFAULT_CONNECTION_IDLE_TIMEOUT).asLong());
+
+        JsonValue queueConfig = config.get(CONFIG_SEND_QUEUE);
+        sendQueue = new ArrayBlockingQueue<>(
+                queueConfig.get(CONFIG_SEND_QUEUE_SIZE).defaultTo(DEFAULT_SEND_QUEUE_SIZE).asInteger());
+        sendQueueThreads =
+                queueConfig.get(CONFIG_SEND_QUEUE_THREADS).defaultTo(DEFAULT_SEND_QUEUE_THREADS).asInteger();
     }
 
     /**
@@ -115,6 +184,207 @@ public class EmailClient {
      *          {@code subject}, or {@code body} parameters are missing or improperly formatted.
      */
     public void send(JsonValue params) throws BadRequestException {
+        MessagingException failure = sendAll(Collections.singletonList(createMessage(params)))[0];
+        if (failure != null) {
+            throw new BadRequestException(failure);
+        }
+    }
+
+    /**
+     * Sends several emails over one connection. Each email is described by the same parameters as for
+     * {@link #send(JsonValue)}.
+     *
+     * @param   messages
+     *          A JsonValue list of email parameters.
+     *
+     * @return  A list of results, in the order of the emails: {@code {"status": "OK"}} for an email sent, or
+     *          {@code {"status": "FAILED", "error": "..."}} for an email that could not be sent.
+     */
+    public JsonValue sendBatch(JsonValue messages) {
+        final List<Object> results = new ArrayList<>(messages.size());
+        final List<Message> valid = new ArrayList<>(messages.size());
+        final List<Integer> validIndexes = new ArrayList<>(messages.size());
+        for (JsonValue params : messages) {
+            try {
+                valid.add(createMessage(params));
+                validIndexes.add(results.size());
+                results.add(null);
+            } catch (BadRequestException e) {
+                results.add(failed(e.getMessage()));
+            }
+        }
+        final MessagingException[] failures = sendAll(valid);
+        for (int i = 0; i < failures.length; i++) {
+            results.set(validIndexes.get(i), failures[i] == null
+                    ? object(field("status", "OK"))
+                    : failed(failures[i].getMessage()));
+        }
+        return json(results);
+    }
+
+    /**
+     * Queues an email, described by the same parameters as for {@link #send(JsonValue)}, to be sent in the
+     * background. The parameters are validated before the email is queued.
+     *
+     * @param   params
+     *          A JsonValue containing the email parameters.
+     *
+     * @throws  BadRequestException
+     *          If the parameters are missing or improperly formatted.
+     * @throws  ServiceUnavailableException
+     *          If the send queue is full, or the client is closed.
+     */
+    public void queue(JsonValue params) throws ResourceException {
+        final Message message = createMessage(params);
+        // queued while holding the lock, so that close() cannot stop the send threads in between
+        synchronized (this) {
+            startSendThreads();
+            if (!sendQueue.offer(message)) {
+                throw new ServiceUnavailableException("The email send queue is full");
+            }
+        }
+    }
+
+    /**
+     * Stops the send threads once the queued emails are sent, and closes the pooled connections.
+     */
+    public void close() {
+        final List<Thread> threads;
+        synchronized (this) {
+            closed = true;
+            threads = sendThreads;
+        }
+        if (threads != null) {
+            final long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT;
+            for (Thread thread : threads) {
+                try {
+                    thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                thread.interrupt();
+            }
+            if (!sendQueue.isEmpty()) {
+                logger.warn("Discarding {} queued emails not sent before closing", sendQueue.size());
+                sendQueue.clear();
+            }
+        }
+        transportPool.close();
+    }
+
+    /**
+     * Sends the messages over one connection, taken from the pool.
+     * <p>
+     * A message refused by the server fails alone. If the connection is lost, it is reconnected for the next
+     * messages; a message that failed because a pooled connection was closed by the server meanwhile is sent again
+     * over a new connection. If connecting fails, all the remaining messages fail.
+     *
+     * @param messages the messages to send, with their changes saved
+     * @return the failure of each message, or null for the messages sent
+     */
+    MessagingException[] sendAll(List<Message> messages) {
+        final MessagingException[] failures = new MessagingException[messages.size()];
+        TransportPool.PooledTransport transport = null;
+        for (int i = 0; i < messages.size(); i++) {
+            final Message message = messages.get(i);
+            boolean retry = false;
+            while (true) {
+                try {
+                    if (transport == null) {
+                        transport = retry ? transportPool.connect() : transportPool.borrow();
+                    }
+                } catch (MessagingException e) {
+                    Arrays.fill(failures, i, failures.length, e);
+                    return failures;
+                }
+                try {
+                    transport.send(message);
+                } catch (MessagingException e) {
+                    if (!transport.isConnected()) {
+                        transportPool.discard(transport);
+                        final boolean stale = transport.isReused() && !retry;
+                        transport = null;
+                        if (stale) {
+                            // closed by the server while idle in the pool
+                            retry = true;
+                            continue;
+                        }
+                    }
+                    failures[i] = e;
+                }
+                break;
+            }
+        }
+        if (transport != null) {
+            transportPool.release(transport);
+        }
+        return failures;
+    }
+
+    private static Object failed(String error) {
+        return object(field("status", "FAILED"), field("error", error));
+    }
+
+    /**
+     * Starts the send threads, if not started yet. Must be called while holding the lock of the client.
+     */
+    private void startSendThreads() throws ServiceUnavailableException {
+        if (closed) {
+            throw new ServiceUnavailableException("The email client is closed");
+        }
+        if (sendThreads != null) {
+            return;
+        }
+        sendThreads = new ArrayList<>(sendQueueThreads);
+        for (int i = 0; i < sendQueueThreads; i++) {
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    sendQueued();
+                }
+            }, "email-send-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            sendThreads.add(thread);
+        }
+    }
+
+    /**
+     * Sends the queued messages in batches until the client is closed and the queue is empty.
+     */
+    private void sendQueued() {
+        final List<Message> batch = new ArrayList<>(MAX_QUEUED_BATCH);
+        while (!closed || !sendQueue.isEmpty()) {
+            try {
+                final Message message = sendQueue.poll(QUEUE_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (message == null) {
+                    continue;
+                }
+                batch.add(message);
+                sendQueue.drainTo(batch, MAX_QUEUED_BATCH - 1);
+                final MessagingException[] failures = sendAll(batch);
+                for (int i = 0; i < failures.length; i++) {
+                    if (failures[i] != null) {
+                        logger.warn("Failed to send queued email to {}",
+                                Arrays.toString(batch.get(i).getAllRecipients()), failures[i]);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (MessagingException | RuntimeException e) {
+                logger.error("Failure sending queued emails", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Creates the message described by the parameters, ready to be sent.
+     */
+    private Message createMessage(JsonValue params) throws BadRequestException {
         InternetAddress from = null;
         InternetAddress[] to = null;
         InternetAddress[] cc = null;
@@ -195,18 +465,8 @@ public class EmailClient {
                 // no idea what this is... let's throw
                 throw new BadRequestException("Email type: " + type + " is not handled");
             }
-
-            Transport transport = session.getTransport("smtp");
-
-            if (smtpAuth) {
-                transport.connect(username, password);
-            } else {
-                transport.connect();
-            }
             message.saveChanges();
-            transport.sendMessage(message, message.getAllRecipients());
-            transport.close();
-
+            return message;
         } catch (MessagingException e) {
             throw new BadRequestException(e);
         }
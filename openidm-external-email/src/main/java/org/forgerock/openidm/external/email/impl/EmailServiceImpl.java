@@ -37,6 +37,7 @@ import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferencePolicy;
 import org.apache.felix.scr.annotations.Service;
 import org.forgerock.api.annotations.Action;
+import org.forgerock.api.annotations.Actions;
 import org.forgerock.api.annotations.ApiError;
 import org.forgerock.api.annotations.Handler;
 import org.forgerock.api.annotations.Operation;
@@ -46,12 +47,14 @@ import org.forgerock.services.context.Context;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.ActionRequest;
 import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.BadRequestException;
 import org.forgerock.json.resource.ForbiddenException;
 import org.forgerock.json.resource.PatchRequest;
 import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.Responses;
+import org.forgerock.json.resource.ServiceUnavailableException;
 import org.forgerock.json.resource.SingletonResourceProvider;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.config.enhanced.EnhancedConfig;
@@ -81,35 +84,73 @@ public class EmailServiceImpl implements SingletonResourceProvider {
     final static Logger logger = LoggerFactory.getLogger(EmailServiceImpl.class);
     public static final String PID = "org.forgerock.openidm.external.email";
 
+    static final String ACTION_SEND = "send";
+    static final String ACTION_SEND_BATCH = "sendBatch";
+    static final String MESSAGES = "messages";
+    static final String PARAM_WAIT_FOR_COMPLETION = "waitForCompletion";
+
     /** Enhanced configuration service. */
     @Reference(policy = ReferencePolicy.DYNAMIC)
     private volatile EnhancedConfig enhancedConfig;
 
-    EmailClient emailClient;
+    volatile EmailClient emailClient;
 
-    @Action(operationDescription =
-    @Operation(
-            description = "Send email",
-            errors = {
-                    @ApiError(
-                            code = 400,
-                            description = "Indicates that the request could not be understood by "
-                                    + "the resource due to malformed syntax.")
-            }),
-            name = "send",
-            request = @Schema(schemaResource = "sendActionRequest.json"),
-            response = @Schema(schemaResource = "sendActionResponse.json"))
+    @Actions({
+            @Action(operationDescription =
+            @Operation(
+                    description = "Send email. With the waitForCompletion parameter set to false, the email is "
+                            + "queued to be sent in the background.",
+                    errors = {
+                            @ApiError(
+                                    code = 400,
+                                    description = "Indicates that the request could not be understood by "
+                                            + "the resource due to malformed syntax."),
+                            @ApiError(
+                                    code = 503,
+                                    description = "Indicates that the send queue is full.")
+                    }),
+                    name = ACTION_SEND,
+                    request = @Schema(schemaResource = "sendActionRequest.json"),
+                    response = @Schema(schemaResource = "sendActionResponse.json")),
+            @Action(operationDescription =
+            @Operation(
+                    description = "Send several emails over one connection, with a result per email",
+                    errors = {
+                            @ApiError(
+                                    code = 400,
+                                    description = "Indicates that the request does not contain a list of "
+                                            + "messages.")
+                    }),
+                    name = ACTION_SEND_BATCH,
+                    request = @Schema(schemaResource = "sendBatchActionRequest.json"),
+                    response = @Schema(schemaResource = "sendBatchActionResponse.json"))
+    })
     @Override
     public Promise<ActionResponse, ResourceException> actionInstance(Context context, ActionRequest request) {
         Map<String, Object> result = new HashMap<>();
         logger.debug("External Email service action called for {} with {}",
                 request.getResourcePath(), request.getContent());
+        final EmailClient emailClient = this.emailClient;
         try {
-            emailClient.send(request.getContent());
+            if (emailClient == null) {
+                throw new ServiceUnavailableException("The email service is not available");
+            }
+            if (ACTION_SEND_BATCH.equals(request.getAction())) {
+                JsonValue messages = request.getContent().get(MESSAGES);
+                if (!messages.isList()) {
+                    throw new BadRequestException("The " + MESSAGES + " list is required");
+                }
+                result.put("results", emailClient.sendBatch(messages).getObject());
+            } else if ("false".equalsIgnoreCase(request.getAdditionalParameter(PARAM_WAIT_FOR_COMPLETION))) {
+                emailClient.queue(request.getContent());
+                result.put("status", "QUEUED");
+            } else {
+                emailClient.send(request.getContent());
+                result.put("status", "OK");
+            }
         } catch (ResourceException e) {
             return e.asPromise();
         }
-        result.put("status", "OK");
         return Promises.newResultPromise(Responses.newActionResponse(new JsonValue(result)));
     }
 
@@ -144,6 +185,11 @@ public class EmailServiceImpl implements SingletonResourceProvider {
     @Deactivate
     void deactivate(ComponentContext compContext) {
         logger.debug("Deactivating Service {}", compContext.getProperties());
+        final EmailClient client = emailClient;
+        emailClient = null;
+        if (client != null) {
+            client.close();
+        }
         logger.info("Notification service stopped.");
     }
 }
@@ -0,0 +1,187 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.external.email.impl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps connected and authenticated SMTP transports, so that messages are not each sent over a new connection.
+ * <p>
+ * A transport idle for longer than the idle timeout is closed rather than reused, as SMTP servers close idle
+ * connections. A reused transport may still have been closed by the server, callers should then send the message
+ * again over a new connection.
+ */
+class TransportPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransportPool.class);
+
+    /**
+     * A connected transport.
+     */
+    static final class PooledTransport {
+        private final Transport transport;
+        private long lastUsed;
+        private boolean reused = false;
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        /**
+         * Sends a message, whose changes must have been saved.
+         *
+         * @param message the message
+         * @throws MessagingException if the message could not be sent
+         */
+        void send(Message message) throws MessagingException {
+            transport.sendMessage(message, message.getAllRecipients());
+        }
+
+        /**
+         * @return whether the transport is still connected
+         */
+        boolean isConnected() {
+            return transport.isConnected();
+        }
+
+        /**
+         * @return whether the transport was connected before being taken from the pool
+         */
+        boolean isReused() {
+            return reused;
+        }
+    }
+
+    private final Session session;
+    private final String username;
+    private final String password;
+    private final long idleTimeout;
+    private final BlockingQueue<PooledTransport> idle;
+
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a pool.
+     *
+     * @param session the mail session
+     * @param username the user name to authenticate with, null if not authenticating
+     * @param password the password to authenticate with
+     * @param size the maximum number of idle transports kept, 0 to close every transport once released
+     * @param idleTimeout how long a transport may be kept idle, in milliseconds
+     */
+    TransportPool(Session session, String username, String password, int size, long idleTimeout) {
+        this.session = session;
+        this.username = username;
+        this.password = password;
+        this.idleTimeout = idleTimeout;
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, size));
+        if (size == 0) {
+            close();
+        }
+    }
+
+    /**
+     * Returns an idle transport, or connects a new one if none is idle.
+     *
+     * @return a connected transport, to release or discard once used
+     * @throws MessagingException if a new transport could not connect
+     */
+    PooledTransport borrow() throws MessagingException {
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            if (System.currentTimeMillis() - pooled.lastUsed < idleTimeout && pooled.transport.isConnected()) {
+                pooled.reused = true;
+                return pooled;
+            }
+            discard(pooled);
+        }
+        return connect();
+    }
+
+    /**
+     * Connects a new transport.
+     *
+     * @return a connected transport, to release or discard once used
+     * @throws MessagingException if the transport could not connect
+     */
+    PooledTransport connect() throws MessagingException {
+        Transport transport = createTransport();
+        if (username != null) {
+            transport.connect(username, password);
+        } else {
+            transport.connect();
+        }
+        return new PooledTransport(transport);
+    }
+
+    /**
+     * Creates a new, unconnected, transport.
+     *
+     * @return the transport
+     * @throws MessagingException if the SMTP provider is not available
+     */
+    Transport createTransport() throws MessagingException {
+        return session.getTransport("smtp");
+    }
+
+    /**
+     * Returns a transport to the pool, or closes it if the pool is full.
+     *
+     * @param pooled the transport
+     */
+    void release(PooledTransport pooled) {
+        pooled.lastUsed = System.currentTimeMillis();
+        if (closed || !idle.offer(pooled)) {
+            discard(pooled);
+        } else if (closed) {
+            // closed meanwhile
+            close();
+        }
+    }
+
+    /**
+     * Closes a transport that failed.
+     *
+     * @param pooled the transport
+     */
+    void discard(PooledTransport pooled) {
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            logger.debug("Failure closing SMTP transport", e);
+        }
+    }
+
+    /**
+     * Closes the idle transports, transports released from now on are closed.
+     */
+    void close() {
+        closed = true;
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            discard(pooled);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.external.email.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+
+import org.forgerock.json.JsonValue;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+public class EmailClientTest {
+
+    private static final JsonValue CONFIG = json(object(field("from", "openidm@example.com")));
+
+    @Test
+    public void testMessageIsSentAgainOverNewConnectionWhenPooledOneIsStale() throws Exception {
+        // closed by the server while idle in the pool
+        final Transport stale = disconnecting();
+        final Transport fresh = connected();
+        final TransportPool pool = TransportPoolTest.pool(2, 30000L, stale, fresh);
+        pool.release(pool.borrow());
+        final EmailClient client = new EmailClient(CONFIG, pool);
+
+        final MessagingException[] failures = client.sendAll(Arrays.asList(message("1")));
+
+        assertThat(failures).containsOnly((MessagingException) null);
+        verify(stale).close();
+        verify(fresh).sendMessage(any(Message.class), any(Address[].class));
+    }
+
+    @Test
+    public void testMessageIsNotSentAgainWhenNewConnectionIsLost() throws Exception {
+        final Transport lost = disconnecting();
+        final Transport fresh = connected();
+        final EmailClient client = new EmailClient(CONFIG, TransportPoolTest.pool(2, 30000L, lost, fresh));
+
+        final MessagingException[] failures = client.sendAll(Arrays.asList(message("1"), message("2")));
+
+        assertThat(failures[0]).isNotNull();
+        // the next messages are sent over a new connection
+        assertThat(failures[1]).isNull();
+        verify(lost).sendMessage(any(Message.class), any(Address[].class));
+        verify(fresh).sendMessage(any(Message.class), any(Address[].class));
+    }
+
+    @Test
+    public void testRefusedMessageFailsAlone() throws Exception {
+        final Transport transport = refusing();
+        final EmailClient client = new EmailClient(CONFIG, TransportPoolTest.pool(2, 30000L, transport));
+
+        final MessagingException[] failures =
+                client.sendAll(Arrays.asList(message("1"), message("refused"), message("3")));
+
+        assertThat(failures[0]).isNull();
+        assertThat(failures[1]).isInstanceOf(SendFailedException.class);
+        assertThat(failures[2]).isNull();
+        verify(transport, never()).close();
+    }
+
+    @Test
+    public void testRemainingMessagesFailWhenConnectingFails() throws Exception {
+        final Transport transport = connected();
+        doThrow(new MessagingException("Connection refused")).when(transport).connect();
+        final EmailClient client = new EmailClient(CONFIG, TransportPoolTest.pool(2, 30000L, transport));
+
+        final MessagingException[] failures = client.sendAll(Arrays.asList(message("1"), message("2")));
+
+        assertThat(failures[0]).hasMessage("Connection refused");
+        assertThat(failures[1]).hasMessage("Connection refused");
+    }
+
+    @Test
+    public void testBatchResultsAreInTheOrderOfTheMessages() throws Exception {
+        final Transport transport = refusing();
+        final EmailClient client = new EmailClient(CONFIG, TransportPoolTest.pool(2, 30000L, transport));
+
+        final JsonValue results = client.sendBatch(json(array(
+                object(field("to", "a@example.com"), field("subject", "1")),
+                object(field("to", "b@example.com"), field("type", "application/pdf")),
+                object(field("to", "c@example.com"), field("subject", "refused")),
+                object(field("to", "d@example.com"), field("subject", "4")))));
+
+        assertThat(results.size()).isEqualTo(4);
+        assertThat(results.get(0).get("status").asString()).isEqualTo("OK");
+        assertThat(results.get(1).get("status").asString()).isEqualTo("FAILED");
+        assertThat(results.get(1).get("error").asString()).contains("application/pdf");
+        assertThat(results.get(2).get("status").asString()).isEqualTo("FAILED");
+        assertThat(results.get(2).get("error").asString()).isEqualTo("Recipient refused");
+        assertThat(results.get(3).get("status").asString()).isEqualTo("OK");
+    }
+
+    private static Transport connected() {
+        final Transport transport = mock(Transport.class);
+        when(transport.isConnected()).thenReturn(true);
+        return transport;
+    }
+
+    /**
+     * Returns a transport which refuses the messages with the subject "refused".
+     */
+    private static Transport refusing() throws MessagingException {
+        final Transport transport = connected();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                if ("refused".equals(((Message) invocation.getArguments()[0]).getSubject())) {
+                    throw new SendFailedException("Recipient refused");
+                }
+                return null;
+            }
+        }).when(transport).sendMessage(any(Message.class), any(Address[].class));
+        return transport;
+    }
+
+    /**
+     * Returns a transport which is found disconnected when sending a message.
+     */
+    private static Transport disconnecting() throws MessagingException {
+        final Transport transport = mock(Transport.class);
+        final AtomicBoolean connected = new AtomicBoolean(true);
+        when(transport.isConnected()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                return connected.get();
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                connected.set(false);
+                throw new MessagingException("Connection closed");
+            }
+        }).when(transport).sendMessage(any(Message.class), any(Address[].class));
+        return transport;
+    }
+
+    private static Message message(String subject) throws MessagingException {
+        final Message message = new MimeMessage((Session) null);
+        message.setSubject(subject);
+        message.setRecipients(Message.RecipientType.TO, new Address[0]);
+        return message;
+    }
+}
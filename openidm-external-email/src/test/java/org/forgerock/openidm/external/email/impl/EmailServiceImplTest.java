@@ -15,6 +15,7 @@
  */
 package org.forgerock.openidm.external.email.impl;
 
+import static org.forgerock.json.JsonValue.array;
 import static org.forgerock.json.JsonValue.field;
 import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
@@ -23,6 +24,8 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.forgerock.services.context.Context;
@@ -36,6 +39,7 @@ import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.Responses;
+import org.forgerock.json.resource.ServiceUnavailableException;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.util.promise.Promise;
 import org.testng.annotations.Test;
@@ -89,6 +93,102 @@ public class EmailServiceImplTest {
         assertThat(promise).failedWithException().isInstanceOf(BadRequestException.class);
     }
 
+    @Test
+    public void testQueuedActionInstance() throws Exception {
+        // given
+        final EmailClient emailClient = mock(EmailClient.class);
+        final EmailServiceImpl emailService = new EmailServiceImpl();
+        final ActionRequest actionRequest = mock(ActionRequest.class);
+
+        emailService.emailClient = emailClient;
+        when(actionRequest.getResourcePath()).thenReturn(RESOURCE_PATH);
+        when(actionRequest.getContent()).thenReturn(json(object()));
+        when(actionRequest.getAdditionalParameter(EmailServiceImpl.PARAM_WAIT_FOR_COMPLETION)).thenReturn("false");
+
+        // when
+        Promise<ActionResponse, ResourceException> promise =
+                emailService.actionInstance(mock(Context.class), actionRequest);
+
+        // then
+        ActionResponse expectedResponse = Responses.newActionResponse(JsonValue.json(object(
+                field(STATUS, "QUEUED")
+        )));
+        assertThat(promise).succeeded().isInstanceOf(ActionResponse.class).isEqualTo(expectedResponse);
+        verify(emailClient).queue(any(JsonValue.class));
+        verify(emailClient, never()).send(any(JsonValue.class));
+    }
+
+    @Test
+    public void testQueuedActionInstanceWithFullQueue() throws Exception {
+        // given
+        final EmailClient emailClient = mock(EmailClient.class);
+        final EmailServiceImpl emailService = new EmailServiceImpl();
+        final ActionRequest actionRequest = mock(ActionRequest.class);
+
+        emailService.emailClient = emailClient;
+        doThrow(new ServiceUnavailableException()).when(emailClient).queue(any(JsonValue.class));
+        when(actionRequest.getResourcePath()).thenReturn(RESOURCE_PATH);
+        when(actionRequest.getContent()).thenReturn(json(object()));
+        when(actionRequest.getAdditionalParameter(EmailServiceImpl.PARAM_WAIT_FOR_COMPLETION)).thenReturn("false");
+
+        // when
+        Promise<ActionResponse, ResourceException> promise =
+                emailService.actionInstance(mock(Context.class), actionRequest);
+
+        // then
+        assertThat(promise).failedWithException().isInstanceOf(ServiceUnavailableException.class);
+    }
+
+    @Test
+    public void testSendBatchActionInstance() throws Exception {
+        // given
+        final EmailClient emailClient = mock(EmailClient.class);
+        final EmailServiceImpl emailService = new EmailServiceImpl();
+        final ActionRequest actionRequest = mock(ActionRequest.class);
+        final JsonValue messages = json(array(object(field("to", "a@example.com")), object(field("to", "b"))));
+        final JsonValue results = json(array(
+                object(field(STATUS, OK)),
+                object(field(STATUS, "FAILED"), field("error", "Bad To: email address"))));
+
+        emailService.emailClient = emailClient;
+        when(emailClient.sendBatch(any(JsonValue.class))).thenReturn(results);
+        when(actionRequest.getAction()).thenReturn(EmailServiceImpl.ACTION_SEND_BATCH);
+        when(actionRequest.getResourcePath()).thenReturn(RESOURCE_PATH);
+        when(actionRequest.getContent())
+                .thenReturn(json(object(field(EmailServiceImpl.MESSAGES, messages.getObject()))));
+
+        // when
+        Promise<ActionResponse, ResourceException> promise =
+                emailService.actionInstance(mock(Context.class), actionRequest);
+
+        // then
+        ActionResponse expectedResponse = Responses.newActionResponse(JsonValue.json(object(
+                field("results", results.getObject())
+        )));
+        assertThat(promise).succeeded().isInstanceOf(ActionResponse.class).isEqualTo(expectedResponse);
+    }
+
+    @Test
+    public void testSendBatchActionInstanceWithoutMessages() throws Exception {
+        // given
+        final EmailClient emailClient = mock(EmailClient.class);
+        final EmailServiceImpl emailService = new EmailServiceImpl();
+        final ActionRequest actionRequest = mock(ActionRequest.class);
+
+        emailService.emailClient = emailClient;
+        when(actionRequest.getAction()).thenReturn(EmailServiceImpl.ACTION_SEND_BATCH);
+        when(actionRequest.getResourcePath()).thenReturn(RESOURCE_PATH);
+        when(actionRequest.getContent()).thenReturn(json(object()));
+
+        // when
+        Promise<ActionResponse, ResourceException> promise =
+                emailService.actionInstance(mock(Context.class), actionRequest);
+
+        // then
+        assertThat(promise).failedWithException().isInstanceOf(BadRequestException.class);
+        verify(emailClient, never()).sendBatch(any(JsonValue.class));
+    }
+
     @Test
     public void testPatchInstanceForbidden() throws Exception {
         // given
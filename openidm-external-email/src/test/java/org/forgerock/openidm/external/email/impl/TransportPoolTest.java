@@ -0,0 +1,125 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.external.email.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import javax.mail.Transport;
+
+import org.testng.annotations.Test;
+
+public class TransportPoolTest {
+
+    @Test
+    public void testReleasedTransportIsReused() throws Exception {
+        final Transport transport = connected();
+        final TransportPool pool = pool(2, 30000L, transport);
+
+        final TransportPool.PooledTransport first = pool.borrow();
+        assertThat(first.isReused()).isFalse();
+        pool.release(first);
+
+        final TransportPool.PooledTransport second = pool.borrow();
+        assertThat(second).isSameAs(first);
+        assertThat(second.isReused()).isTrue();
+        verify(transport).connect();
+        verify(transport, never()).close();
+    }
+
+    @Test
+    public void testIdleTransportIsClosedOnceTimedOut() throws Exception {
+        final Transport idle = connected();
+        final Transport fresh = connected();
+        final TransportPool pool = pool(2, 0L, idle, fresh);
+        pool.release(pool.borrow());
+
+        final TransportPool.PooledTransport borrowed = pool.borrow();
+
+        assertThat(borrowed.isReused()).isFalse();
+        verify(idle).close();
+        verify(fresh).connect();
+    }
+
+    @Test
+    public void testDisconnectedTransportIsNotReused() throws Exception {
+        final Transport disconnected = connected();
+        final Transport fresh = connected();
+        final TransportPool pool = pool(2, 30000L, disconnected, fresh);
+        pool.release(pool.borrow());
+        when(disconnected.isConnected()).thenReturn(false);
+
+        assertThat(pool.borrow().isReused()).isFalse();
+        verify(disconnected).close();
+    }
+
+    @Test
+    public void testTransportIsClosedWhenPoolIsFull() throws Exception {
+        final Transport first = connected();
+        final Transport second = connected();
+        final TransportPool pool = pool(1, 30000L, first, second);
+        final TransportPool.PooledTransport borrowed = pool.borrow();
+        final TransportPool.PooledTransport other = pool.borrow();
+
+        pool.release(borrowed);
+        pool.release(other);
+
+        verify(first, never()).close();
+        verify(second).close();
+    }
+
+    @Test
+    public void testTransportIsClosedOncePoolIsClosed() throws Exception {
+        final Transport inUse = connected();
+        final Transport idle = connected();
+        final TransportPool pool = pool(2, 30000L, inUse, idle);
+        final TransportPool.PooledTransport borrowed = pool.borrow();
+        pool.release(pool.borrow());
+
+        pool.close();
+        verify(idle).close();
+        verify(inUse, never()).close();
+
+        pool.release(borrowed);
+        verify(inUse).close();
+    }
+
+    private static Transport connected() {
+        final Transport transport = mock(Transport.class);
+        when(transport.isConnected()).thenReturn(true);
+        return transport;
+    }
+
+    /**
+     * Returns a pool creating the given transports, in order.
+     */
+    static TransportPool pool(int size, long idleTimeout, Transport... transports) {
+        final Deque<Transport> created = new ArrayDeque<>(Arrays.asList(transports));
+        return new TransportPool(null, null, null, size, idleTimeout) {
+            @Override
+            Transport createTransport() {
+                return created.remove();
+            }
+        };
+    }
+}
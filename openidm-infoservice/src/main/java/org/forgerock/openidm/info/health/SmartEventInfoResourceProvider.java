@@ -0,0 +1,116 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.info.health;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+
+import java.util.Map;
+
+import org.forgerock.api.annotations.Handler;
+import org.forgerock.api.annotations.Operation;
+import org.forgerock.api.annotations.Read;
+import org.forgerock.api.annotations.Schema;
+import org.forgerock.api.annotations.SingletonProvider;
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.info.health.api.SmartEventInfoResource;
+import org.forgerock.openidm.smartevent.core.LatencyHistogram;
+import org.forgerock.openidm.smartevent.core.MonitoringInfo;
+import org.forgerock.openidm.smartevent.core.PrometheusFormat;
+import org.forgerock.openidm.smartevent.core.StatisticsHandler;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.promise.Promise;
+
+/**
+ * Gets the smart event statistics: invocation totals and recent latency percentiles per event name.
+ * <p>
+ * The statistics are also available in the Prometheus text exposition format, by reading only the
+ * "prometheus" field as plain text: {@code GET /openidm/health/smartevent?_fields=prometheus&_mimeType=text/plain}.
+ * Statistics are only gathered if smart events are enabled, with the {@code openidm.smartevent.enabled}
+ * system property.
+ */
+@SingletonProvider(@Handler(
+        id = "smartEventInfoResourceProvider:0",
+        title = "Health - Smart event statistics",
+        description = "Returns the invocation totals and recent latency percentiles of the smart events.",
+        mvccSupported = false,
+        resourceSchema = @Schema(fromType = SmartEventInfoResource.class)))
+public class SmartEventInfoResourceProvider extends AbstractInfoResourceProvider {
+
+    private static final String EVENTS = "events";
+    private static final String PROMETHEUS = "prometheus";
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    @Read(operationDescription = @Operation(description = "Read smart event statistics."))
+    @Override
+    public Promise<ResourceResponse, ResourceException> readInstance(Context context, ReadRequest request) {
+        final Map<String, MonitoringInfo> monitoringInfo = StatisticsHandler.getMonitoringInfo();
+        final JsonValue result = json(object());
+        if (isRequested(request, EVENTS)) {
+            final JsonValue events = json(object());
+            for (Map.Entry<String, MonitoringInfo> entry : monitoringInfo.entrySet()) {
+                events.put(entry.getKey(), toJson(entry.getValue()).getObject());
+            }
+            result.put(EVENTS, events.getObject());
+        }
+        if (isRequested(request, PROMETHEUS)) {
+            result.put(PROMETHEUS, PrometheusFormat.format(monitoringInfo));
+        }
+        return newResourceResponse("", "", result).asPromise();
+    }
+
+    /**
+     * The events are returned by default, the Prometheus format only if requested.
+     */
+    private static boolean isRequested(ReadRequest request, String field) {
+        if (request.getFields().isEmpty()) {
+            return EVENTS.equals(field);
+        }
+        for (JsonPointer pointer : request.getFields()) {
+            if (pointer.isEmpty() || field.equals(pointer.get(0))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static JsonValue toJson(MonitoringInfo info) {
+        final long invokes = info.getTotalInvokes();
+        final LatencyHistogram.Snapshot recent = info.getRecentLatencies();
+        return json(object(
+                field("count", invokes),
+                field("totalTime", millis(info.getTotalTime())),
+                field("mean", invokes > 0 ? millis(info.getTotalTime() / invokes) : 0),
+                field("recent", object(
+                        field("count", recent.getCount()),
+                        field("p50", millis(recent.getValueAtQuantile(0.5))),
+                        field("p95", millis(recent.getValueAtQuantile(0.95))),
+                        field("p99", millis(recent.getValueAtQuantile(0.99))),
+                        field("max", millis(recent.getMax()))
+                ))
+        ));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
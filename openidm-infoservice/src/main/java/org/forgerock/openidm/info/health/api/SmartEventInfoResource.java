@@ -0,0 +1,116 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.info.health.api;
+
+import java.util.Map;
+
+import org.forgerock.api.annotations.Description;
+import org.forgerock.api.annotations.ReadOnly;
+
+/**
+ * Api POJO for {@link org.forgerock.openidm.info.health.SmartEventInfoResourceProvider}.
+ */
+public class SmartEventInfoResource {
+    private Map<String, EventStatistics> events;
+    private String prometheus;
+
+    @Description("Statistics per smart event name")
+    @ReadOnly
+    public Map<String, EventStatistics> getEvents() {
+        return events;
+    }
+
+    @Description("Statistics in the Prometheus text exposition format, only returned if requested in _fields")
+    @ReadOnly
+    public String getPrometheus() {
+        return prometheus;
+    }
+
+    /**
+     * Statistics of a smart event name.
+     */
+    public static class EventStatistics {
+        private long count;
+        private double totalTime;
+        private double mean;
+        private RecentLatencies recent;
+
+        @Description("Number of invocations since the statistics were last reset")
+        @ReadOnly
+        public long getCount() {
+            return count;
+        }
+
+        @Description("Total duration of the invocations in milliseconds")
+        @ReadOnly
+        public double getTotalTime() {
+            return totalTime;
+        }
+
+        @Description("Mean duration of the invocations in milliseconds")
+        @ReadOnly
+        public double getMean() {
+            return mean;
+        }
+
+        @Description("Latencies of the invocations of the last minute")
+        @ReadOnly
+        public RecentLatencies getRecent() {
+            return recent;
+        }
+    }
+
+    /**
+     * Latency percentiles of the recent invocations, in milliseconds.
+     */
+    public static class RecentLatencies {
+        private long count;
+        private double p50;
+        private double p95;
+        private double p99;
+        private double max;
+
+        @Description("Number of recent invocations")
+        @ReadOnly
+        public long getCount() {
+            return count;
+        }
+
+        @Description("Median duration in milliseconds")
+        @ReadOnly
+        public double getP50() {
+            return p50;
+        }
+
+        @Description("95th percentile duration in milliseconds")
+        @ReadOnly
+        public double getP95() {
+            return p95;
+        }
+
+        @Description("99th percentile duration in milliseconds")
+        @ReadOnly
+        public double getP99() {
+            return p99;
+        }
+
+        @Description("Longest duration in milliseconds")
+        @ReadOnly
+        public double getMax() {
+            return max;
+        }
+    }
+}
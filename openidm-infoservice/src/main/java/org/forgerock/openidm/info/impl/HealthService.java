@@ -60,6 +60,7 @@ import org.forgerock.openidm.info.health.DatabaseInfoResourceProvider;
 import org.forgerock.openidm.info.health.MemoryInfoResourceProvider;
 import org.forgerock.openidm.info.health.OsInfoResourceProvider;
 import org.forgerock.openidm.info.health.ReconInfoResourceProvider;
+import org.forgerock.openidm.info.health.SmartEventInfoResourceProvider;
 import org.forgerock.openidm.osgi.ServiceTrackerListener;
 import org.forgerock.openidm.osgi.ServiceTrackerNotifier;
 import org.forgerock.services.context.Context;
@@ -386,6 +387,7 @@ public class HealthService
         router.addRoute(uriTemplate("memory"), new MemoryInfoResourceProvider());
         router.addRoute(uriTemplate("recon"), new ReconInfoResourceProvider());
         router.addRoute(uriTemplate("jdbc"), new DatabaseInfoResourceProvider());
+        router.addRoute(uriTemplate("smartevent"), new SmartEventInfoResourceProvider());
 
         // Check if the framework has already started.  If so, schedule the start up
         // thread that checks the state of OpenIDM.
@@ -0,0 +1,174 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.messaging.jms;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+
+import org.forgerock.openidm.messaging.MessageHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives the messages of a single JMS session on a dedicated thread, and acknowledges them in batches: once
+ * {@code batchSize} messages were handled, or once the oldest unacknowledged message was handled
+ * {@code batchTimeout} milliseconds ago.  A transacted session is committed, otherwise the last message of the
+ * batch is acknowledged, which acknowledges all messages received before it by the session.
+ * <p>
+ * If the handler throws an exception, the session is rolled back (or recovered, if not transacted), so that the
+ * failed message, along with the messages handled since the last acknowledgement, are delivered again.
+ */
+class BatchingConsumer implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(BatchingConsumer.class);
+
+    /** How long to wait for a message when no message is waiting to be acknowledged, in milliseconds */
+    private static final long IDLE_RECEIVE_TIMEOUT = 1000;
+
+    private final String name;
+    private final Session session;
+    private final boolean transacted;
+    private final MessageConsumer consumer;
+    private final MessageHandler<Message> messageHandler;
+    private final int batchSize;
+    private final long batchTimeout;
+
+    private volatile boolean running = true;
+
+    /** The number of messages handled and not acknowledged yet */
+    private int pending = 0;
+
+    /** When the first message not acknowledged yet was handled */
+    private long batchStart;
+
+    /** The last message handled and not acknowledged yet */
+    private Message last;
+
+    /**
+     * Creates a consumer; it must be started once the connection is started.
+     *
+     * @param name the name of the consumer, used to name its thread
+     * @param session the session of the consumer
+     * @param transacted whether the session is transacted
+     * @param consumer the JMS message consumer of the session
+     * @param messageHandler the handler of the received messages
+     * @param batchSize the maximum number of messages acknowledged at once
+     * @param batchTimeout how long a handled message may wait for its acknowledgement, in milliseconds
+     */
+    BatchingConsumer(String name, Session session, boolean transacted, MessageConsumer consumer,
+            MessageHandler<Message> messageHandler, int batchSize, long batchTimeout) {
+        this.name = name;
+        this.session = session;
+        this.transacted = transacted;
+        this.consumer = consumer;
+        this.messageHandler = messageHandler;
+        this.batchSize = batchSize;
+        this.batchTimeout = batchTimeout;
+    }
+
+    /**
+     * Starts receiving messages on a new thread.
+     */
+    void start() {
+        Thread thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops receiving messages, once the message being handled, if any, is handled.  The messages not acknowledged
+     * yet are delivered again once the session is closed.
+     */
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            final Message message;
+            try {
+                message = consumer.receive(pending == 0
+                        ? IDLE_RECEIVE_TIMEOUT
+                        : Math.max(1, batchStart + batchTimeout - System.currentTimeMillis()));
+            } catch (JMSException e) {
+                if (running) {
+                    logger.error("Failure receiving JMS messages, {} stops consuming.", name, e);
+                }
+                return;
+            }
+            if (!running) {
+                return;
+            }
+            if (message != null) {
+                handle(message);
+            }
+            if (pending > 0 && (pending >= batchSize || System.currentTimeMillis() - batchStart >= batchTimeout)) {
+                acknowledge();
+            }
+        }
+    }
+
+    private void handle(Message message) {
+        final String jmsMessageID = JmsMessageSubscriber.getMessageID(message);
+        try {
+            messageHandler.handleMessage(message);
+            logger.trace("JMS Message {} handled by {}", jmsMessageID, name);
+        } catch (Exception e) {
+            // roll back so that the failed message is delivered again, by this or another subscriber.
+            logger.error("Failure handling the JMS message {}, the {} message(s) received since the last "
+                    + "acknowledgement will be delivered again.", jmsMessageID, pending + 1, e);
+            recover();
+            return;
+        }
+        if (pending++ == 0) {
+            batchStart = System.currentTimeMillis();
+        }
+        last = message;
+    }
+
+    private void acknowledge() {
+        try {
+            if (transacted) {
+                session.commit();
+            } else {
+                last.acknowledge();
+            }
+            logger.trace("{} JMS Messages acknowledged by {}", pending, name);
+        } catch (JMSException e) {
+            logger.error("Failure to acknowledge {} JMS messages by {}", pending, name, e);
+        } finally {
+            pending = 0;
+            last = null;
+        }
+    }
+
+    private void recover() {
+        try {
+            if (transacted) {
+                session.rollback();
+            } else {
+                session.recover();
+            }
+        } catch (JMSException e) {
+            logger.error("Failure to recover the JMS session of {}", name, e);
+        } finally {
+            pending = 0;
+            last = null;
+        }
+    }
+}
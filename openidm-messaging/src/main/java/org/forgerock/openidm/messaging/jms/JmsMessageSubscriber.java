@@ -19,7 +19,11 @@ import javax.jms.Connection;
 import javax.jms.ExceptionListener;
 import javax.jms.JMSException;
 import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
 import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.InternalServerErrorException;
@@ -36,14 +40,33 @@ import org.slf4j.LoggerFactory;
 /**
  * A MessageSubscriber that subscribes to JMS destinations.  JMS messages are acknowledged only if the handler doesn't
  * throw an exception.
+ * <p>
+ * The subscriber consumes messages on {@code sessionCount} sessions (1 by default) of a single connection, each
+ * handling its messages one at a time, concurrently with the other sessions.  Messages of a same group, as set by
+ * the producer with the standard {@code JMSXGroupID} property, are delivered in order to a single session by
+ * brokers that support message groups.
+ * <p>
+ * With the CLIENT or TRANSACTED session modes, messages can be acknowledged in batches, every {@code batchSize}
+ * messages or every {@code batchTimeout} milliseconds (1000 by default), whichever comes first.  A message that
+ * fails to be handled is then delivered again, along with the messages handled since the last acknowledgement.
  */
 public class JmsMessageSubscriber extends MessageSubscriber<Message> {
     private static final Logger logger = LoggerFactory.getLogger(JmsMessageSubscriber.class);
+
+    private static final String SESSION_COUNT = "sessionCount";
+    private static final String BATCH_SIZE = "batchSize";
+    private static final String BATCH_TIMEOUT = "batchTimeout";
+    private static final long DEFAULT_BATCH_TIMEOUT = 1000;
+
     private final SessionModeConfig sessionMode;
     private final JndiConfiguration jndiConfiguration;
     private final String messageSelector;
+    private final int sessionCount;
+    private final int batchSize;
+    private final long batchTimeout;
 
-    private Session session;
+    private final List<Session> sessions = new ArrayList<>();
+    private final List<BatchingConsumer> batchingConsumers = new ArrayList<>();
     private Connection connection;
 
     /**
@@ -58,11 +81,18 @@ public class JmsMessageSubscriber extends MessageSubscriber<Message> {
         sessionMode = SessionModeConfig.valueOf(propertiesConfig.get("sessionMode").required().asString());
         messageSelector = propertiesConfig.get("messageSelector").asString();
         jndiConfiguration = new JndiConfiguration(propertiesConfig.get("jndi").required());
+        sessionCount = Math.max(1, propertiesConfig.get(SESSION_COUNT).defaultTo(1).asInteger());
+        batchSize = Math.max(1, propertiesConfig.get(BATCH_SIZE).defaultTo(1).asInteger());
+        batchTimeout = propertiesConfig.get(BATCH_TIMEOUT).defaultTo(DEFAULT_BATCH_TIMEOUT).asLong();
+        if (batchSize > 1 && sessionMode != SessionModeConfig.CLIENT && sessionMode != SessionModeConfig.TRANSACTED) {
+            throw new InvalidException("JMS subscriber " + name + " can only acknowledge messages in batches with "
+                    + "the CLIENT or TRANSACTED session mode");
+        }
     }
 
     /**
      * Implemented to subscribe on the JNDI configured JMS destination (queue or topic).  Implemented to use a single
-     * connection and session.
+     * connection, and one or more sessions.
      *
      * @param messageHandler an instance of a JMS message handler.
      */
@@ -78,7 +108,7 @@ public class JmsMessageSubscriber extends MessageSubscriber<Message> {
 
 
         try {
-            if (null != connection || null != session) {
+            if (null != connection || !sessions.isEmpty()) {
                 // in case there exists an old connection or session, lets unsubscribe those before creating new ones.
                 unsubscribe();
             }
@@ -86,31 +116,22 @@ public class JmsMessageSubscriber extends MessageSubscriber<Message> {
             connection = contextManager.getConnectionFactory().createConnection();
             connection.setClientID(getName());
             connection.setExceptionListener(new SubscriptionExceptionListener(messageHandler));
-            session = connection.createSession(false, sessionMode.getMode());
-            session.createConsumer(contextManager.getDestination(), messageSelector)
-                    .setMessageListener(new javax.jms.MessageListener() {
-                        @Override
-                        public void onMessage(Message message) {
-                            String jmsMessageID = getMessageID(message);
-                            try {
-                                messageHandler.handleMessage(message);
-                                try {
-                                    logger.trace("JMS Message {} handled by {}", jmsMessageID, getName());
-                                    message.acknowledge();
-                                    logger.trace("JMS Message {} acknowledged by {}", jmsMessageID, getName());
-                                } catch (JMSException e) {
-                                    throw new InternalServerErrorException("Failure to acknowledge JMS message " +
-                                            jmsMessageID, e);
-                                }
-                            } catch (Exception e) {
-                                // if the handler throws an exception, the message won't be acknowledged.  This
-                                // leaves the message available to pick up later, by this or another subscriber.
-                                logger.error("Failure handling the JMS message {}.", jmsMessageID, e);
-                            }
-                        }
-                    });
+            for (int i = 0; i < sessionCount; i++) {
+                Session session = connection.createSession(sessionMode.isTransacted(), sessionMode.getMode());
+                sessions.add(session);
+                MessageConsumer consumer = session.createConsumer(contextManager.getDestination(), messageSelector);
+                if (sessionMode.isTransacted() || batchSize > 1) {
+                    batchingConsumers.add(new BatchingConsumer(getName() + "-consumer-" + i, session,
+                            sessionMode.isTransacted(), consumer, messageHandler, batchSize, batchTimeout));
+                } else {
+                    consumer.setMessageListener(new AcknowledgingMessageListener(messageHandler));
+                }
+            }
             connection.start();
-            logger.debug("JMSMessageSubscriber {} is subscribed", getName());
+            for (BatchingConsumer batchingConsumer : batchingConsumers) {
+                batchingConsumer.start();
+            }
+            logger.debug("JMSMessageSubscriber {} is subscribed with {} sessions", getName(), sessionCount);
         } catch (Exception e) {
             logger.error("Failure to create JMS subscription", e);
             unsubscribe();
@@ -118,7 +139,13 @@ public class JmsMessageSubscriber extends MessageSubscriber<Message> {
         }
     }
 
-    private String getMessageID(Message message) {
+    /**
+     * Returns the JMS message ID of a message, for logging.
+     *
+     * @param message the message.
+     * @return the JMS message ID, or "unknown" if it can't be extracted.
+     */
+    static String getMessageID(Message message) {
         String jmsMessageID = "unknown";
         try {
             jmsMessageID = message.getJMSMessageID();
@@ -129,18 +156,22 @@ public class JmsMessageSubscriber extends MessageSubscriber<Message> {
     }
 
     /**
-     * Implemented to close the JMS session and connection associated with this instance.
+     * Implemented to close the JMS sessions and connection associated with this instance.
      */
     @Override
     public void unsubscribe() {
-        if (null != session) {
+        for (BatchingConsumer batchingConsumer : batchingConsumers) {
+            batchingConsumer.stop();
+        }
+        batchingConsumers.clear();
+        for (Session session : sessions) {
             try {
                 session.close();
-                session = null;
             } catch (JMSException e) {
                 logger.error("Failure to close JMS session", e);
             }
         }
+        sessions.clear();
         if (null != connection) {
             try {
                 connection.close();
@@ -151,6 +182,42 @@ public class JmsMessageSubscriber extends MessageSubscriber<Message> {
         }
     }
 
+    /**
+     * Handles the messages of a session one at a time, acknowledging each message once handled.
+     */
+    private class AcknowledgingMessageListener implements MessageListener {
+        private final MessageHandler<Message> messageHandler;
+
+        /**
+         * Constructs the listener that passes the messages to the messageHandler.
+         *
+         * @param messageHandler the handler of the messages.
+         */
+        AcknowledgingMessageListener(MessageHandler<Message> messageHandler) {
+            this.messageHandler = messageHandler;
+        }
+
+        @Override
+        public void onMessage(Message message) {
+            String jmsMessageID = getMessageID(message);
+            try {
+                messageHandler.handleMessage(message);
+                try {
+                    logger.trace("JMS Message {} handled by {}", jmsMessageID, getName());
+                    message.acknowledge();
+                    logger.trace("JMS Message {} acknowledged by {}", jmsMessageID, getName());
+                } catch (JMSException e) {
+                    throw new InternalServerErrorException("Failure to acknowledge JMS message " +
+                            jmsMessageID, e);
+                }
+            } catch (Exception e) {
+                // if the handler throws an exception, the message won't be acknowledged.  This
+                // leaves the message available to pick up later, by this or another subscriber.
+                logger.error("Failure handling the JMS message {}.", jmsMessageID, e);
+            }
+        }
+    }
+
     /**
      * Exception handler for the JMS connection.
      */
@@ -35,7 +35,12 @@ public enum SessionModeConfig {
     /**
      * Dups-OK-acknowledge session mode.
      */
-    DUPS_OK(Session.DUPS_OK_ACKNOWLEDGE);
+    DUPS_OK(Session.DUPS_OK_ACKNOWLEDGE),
+
+    /**
+     * Transacted session mode, messages are acknowledged when the session is committed.
+     */
+    TRANSACTED(Session.SESSION_TRANSACTED);
 
     private int mode;
 
@@ -58,4 +63,13 @@ public enum SessionModeConfig {
     public int getMode() {
         return mode;
     }
+
+    /**
+     * Returns whether the session is transacted.
+     *
+     * @return true if the session is transacted.
+     */
+    public boolean isTransacted() {
+        return mode == Session.SESSION_TRANSACTED;
+    }
 }
\ No newline at end of file
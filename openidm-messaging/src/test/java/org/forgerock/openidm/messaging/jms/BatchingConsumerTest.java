@@ -0,0 +1,137 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.messaging.jms;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.openidm.messaging.MessageHandler;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the {@link BatchingConsumer} acknowledges messages in batches, and delivers them again on failure.
+ */
+@SuppressWarnings("unchecked")
+public class BatchingConsumerTest {
+
+    private static final long LONG_TIMEOUT = 60000;
+
+    @Test
+    public void testTransactedSessionIsCommittedEveryBatch() throws Exception {
+        final Session session = mock(Session.class);
+        final MessageHandler<Message> handler = mock(MessageHandler.class);
+        final MessageConsumer consumer = mock(MessageConsumer.class);
+        final BatchingConsumer batchingConsumer =
+                new BatchingConsumer("test", session, true, consumer, handler, 2, LONG_TIMEOUT);
+        deliver(consumer, batchingConsumer, messages(5));
+
+        batchingConsumer.run();
+
+        verify(handler, times(5)).handleMessage(any(Message.class));
+        // the fifth message is still waiting for its batch to complete when the consumer stops
+        verify(session, times(2)).commit();
+        verify(session, never()).rollback();
+    }
+
+    @Test
+    public void testLastMessageOfBatchIsAcknowledged() throws Exception {
+        final Session session = mock(Session.class);
+        final MessageConsumer consumer = mock(MessageConsumer.class);
+        final Message[] messages = messages(4);
+        final BatchingConsumer batchingConsumer = new BatchingConsumer("test", session, false, consumer,
+                mock(MessageHandler.class), 2, LONG_TIMEOUT);
+        deliver(consumer, batchingConsumer, messages);
+
+        batchingConsumer.run();
+
+        verify(messages[0], never()).acknowledge();
+        verify(messages[1]).acknowledge();
+        verify(messages[2], never()).acknowledge();
+        verify(messages[3]).acknowledge();
+    }
+
+    @Test
+    public void testBatchIsRolledBackOnFailure() throws Exception {
+        final Session session = mock(Session.class);
+        final MessageHandler<Message> handler = mock(MessageHandler.class);
+        final MessageConsumer consumer = mock(MessageConsumer.class);
+        final Message[] messages = messages(3);
+        doThrow(new InternalServerErrorException("failure")).when(handler).handleMessage(messages[1]);
+        final BatchingConsumer batchingConsumer =
+                new BatchingConsumer("test", session, true, consumer, handler, 2, LONG_TIMEOUT);
+        deliver(consumer, batchingConsumer, messages);
+
+        batchingConsumer.run();
+
+        verify(session).rollback();
+        verify(session, never()).commit();
+    }
+
+    @Test
+    public void testBatchIsAcknowledgedOnTimeout() throws Exception {
+        final Session session = mock(Session.class);
+        final MessageConsumer consumer = mock(MessageConsumer.class);
+        final BatchingConsumer batchingConsumer = new BatchingConsumer("test", session, true, consumer,
+                mock(MessageHandler.class), 100, 0);
+        deliver(consumer, batchingConsumer, messages(3));
+
+        batchingConsumer.run();
+
+        verify(session, times(3)).commit();
+    }
+
+    private static Message[] messages(int count) throws Exception {
+        final Message[] messages = new Message[count];
+        for (int i = 0; i < count; i++) {
+            messages[i] = mock(Message.class);
+            when(messages[i].getJMSMessageID()).thenReturn("message" + i);
+        }
+        return messages;
+    }
+
+    /**
+     * Makes the consumer receive the messages, then stop the batching consumer.
+     */
+    private static void deliver(MessageConsumer consumer, final BatchingConsumer batchingConsumer,
+            Message[] messages) throws Exception {
+        final Iterator<Message> iterator = Arrays.asList(messages).iterator();
+        when(consumer.receive(anyLong())).thenAnswer(new Answer<Message>() {
+            @Override
+            public Message answer(InvocationOnMock invocation) {
+                if (iterator.hasNext()) {
+                    return iterator.next();
+                }
+                batchingConsumer.stop();
+                return null;
+            }
+        });
+    }
+}
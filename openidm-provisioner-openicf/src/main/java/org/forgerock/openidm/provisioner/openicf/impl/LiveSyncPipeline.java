@@ -0,0 +1,287 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.provisioner.openicf.impl;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.identityconnectors.framework.common.objects.SyncDelta;
+import org.identityconnectors.framework.common.objects.SyncToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Processes the deltas of a live synchronization run concurrently, on a fixed number of workers.
+ * <p>
+ * Deltas are partitioned across the workers by a hash of their uid, and each worker processes its
+ * deltas in the order the connector returned them, so that the changes of an object are applied in
+ * order. The sync token of the run only advances up to the last delta such that it and all deltas
+ * before it have been processed; deltas processed beyond a delta still in progress or failed are
+ * delivered again by the next run.
+ * <p>
+ * A delta renaming an object moves it to the partition of its new uid. It is therefore only processed
+ * once all deltas before it are, and the deltas after it are only submitted once it is processed, so
+ * that the rename is applied after the changes of the previous uid and before those of the new one.
+ * <p>
+ * If a delta asks for a retry, no further deltas are accepted, and the deltas queued after it are
+ * skipped, so that the next run starts again from the failed delta.
+ * <p>
+ * Deltas are submitted by the single thread running the connector's sync operation.
+ */
+class LiveSyncPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveSyncPipeline.class);
+
+    /** How long an idle worker waits for a delta before checking whether the run is finished */
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * Processes a single delta.
+     */
+    interface DeltaProcessor {
+
+        /**
+         * Processes a delta.
+         *
+         * @param syncDelta the delta
+         * @return true if the delta was processed or its failure was handled, false if it is to be retried
+         */
+        boolean process(SyncDelta syncDelta);
+    }
+
+    private final DeltaProcessor processor;
+    private final BlockingQueue<SequencedDelta>[] queues;
+    private final ExecutorService executor;
+    private final CountDownLatch workersDone;
+
+    /** The sequence number of the next delta submitted */
+    private long nextSequence;
+
+    /** The sequence number of the first delta that asked for a retry or failed, if any */
+    private volatile long stopSequence = Long.MAX_VALUE;
+
+    /** Whether all deltas have been submitted */
+    private volatile boolean closed;
+
+    /** The tokens of the processed deltas beyond the last contiguously processed delta, guarded by this */
+    private final TreeMap<Long, SyncToken> processed = new TreeMap<>();
+
+    /** The sequence number of the last delta such that it and all deltas before it are processed, guarded by this */
+    private long lastContiguous = -1;
+
+    /** The token of the last contiguously processed delta, guarded by this */
+    private SyncToken token;
+
+    /**
+     * Creates a pipeline and starts its workers.
+     *
+     * @param name the name of the pipeline, used to name the worker threads
+     * @param workers the number of workers
+     * @param queueSize the maximum number of deltas queued per worker
+     * @param initialToken the sync token the run started from
+     * @param processor the processor of the deltas
+     */
+    @SuppressWarnings("unchecked")
+    LiveSyncPipeline(final String name, int workers, int queueSize, SyncToken initialToken,
+            DeltaProcessor processor) {
+        this.processor = processor;
+        this.token = initialToken;
+        this.queues = new BlockingQueue[workers];
+        this.workersDone = new CountDownLatch(workers);
+        this.executor = Executors.newFixedThreadPool(workers, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name + "-livesync-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (int i = 0; i < workers; i++) {
+            queues[i] = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+            executor.execute(new Worker(queues[i]));
+        }
+    }
+
+    /**
+     * Hands a delta to its worker, waiting if the worker's queue is full.
+     *
+     * @param syncDelta the delta
+     * @return true to continue with the next delta, false if processing has stopped
+     */
+    boolean submit(SyncDelta syncDelta) {
+        if (stopSequence != Long.MAX_VALUE) {
+            return false;
+        }
+        final SequencedDelta delta = new SequencedDelta(nextSequence++, syncDelta);
+        final boolean rename = syncDelta.getPreviousUid() != null;
+        try {
+            if (rename && !awaitProcessed(delta.sequence - 1)) {
+                return false;
+            }
+            queues[partitionOf(syncDelta.getUid().getUidValue(), queues.length)].put(delta);
+            return !rename || awaitProcessed(delta.sequence);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop(delta.sequence);
+            return false;
+        }
+    }
+
+    /**
+     * Waits for the workers to process the submitted deltas, and stops them.
+     *
+     * @return the token of the last delta such that it and all deltas before it were processed, or
+     *         the initial token if there is none
+     */
+    SyncToken finish() {
+        closed = true;
+        executor.shutdown();
+        try {
+            workersDone.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop(0);
+            executor.shutdownNow();
+        }
+        synchronized (this) {
+            return token;
+        }
+    }
+
+    /**
+     * @return whether every submitted delta was processed, which is only known once {@link #finish()} returned
+     */
+    synchronized boolean isComplete() {
+        return stopSequence == Long.MAX_VALUE && lastContiguous == nextSequence - 1;
+    }
+
+    /**
+     * Returns the partition of an uid.
+     *
+     * @param uid the uid
+     * @param partitions the number of partitions
+     * @return the partition, between 0 and {@code partitions - 1}
+     */
+    static int partitionOf(String uid, int partitions) {
+        return (uid.hashCode() & Integer.MAX_VALUE) % partitions;
+    }
+
+    /**
+     * Waits until a delta and all deltas before it are processed.
+     *
+     * @param sequence the sequence number of the delta
+     * @return true if the deltas were processed, false if processing stopped first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private synchronized boolean awaitProcessed(long sequence) throws InterruptedException {
+        while (lastContiguous < sequence) {
+            if (stopSequence != Long.MAX_VALUE) {
+                return false;
+            }
+            wait();
+        }
+        return true;
+    }
+
+    private synchronized void processed(long sequence, SyncToken deltaToken) {
+        processed.put(sequence, deltaToken);
+        while (!processed.isEmpty() && processed.firstKey() == lastContiguous + 1
+                && processed.firstKey() < stopSequence) {
+            final Map.Entry<Long, SyncToken> first = processed.pollFirstEntry();
+            lastContiguous = first.getKey();
+            token = first.getValue();
+        }
+        notifyAll();
+    }
+
+    private synchronized void stop(long sequence) {
+        if (sequence < stopSequence) {
+            stopSequence = sequence;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Processes the deltas of one partition in order.
+     */
+    private final class Worker implements Runnable {
+
+        private final BlockingQueue<SequencedDelta> queue;
+
+        private Worker(BlockingQueue<SequencedDelta> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    final SequencedDelta delta = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (delta == null) {
+                        if (closed) {
+                            return;
+                        }
+                        continue;
+                    }
+                    if (delta.sequence > stopSequence) {
+                        // Delivered again by the next run, which starts from the failed delta
+                        continue;
+                    }
+                    boolean success;
+                    try {
+                        success = processor.process(delta.syncDelta);
+                    } catch (RuntimeException e) {
+                        logger.warn("Failed to process sync delta of {}, stopping live synchronization",
+                                delta.syncDelta.getUid(), e);
+                        success = false;
+                    }
+                    if (success) {
+                        processed(delta.sequence, delta.syncDelta.getToken());
+                    } else {
+                        stop(delta.sequence);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                workersDone.countDown();
+            }
+        }
+    }
+
+    /**
+     * A delta with its position in the sync results.
+     */
+    private static final class SequencedDelta {
+        private final long sequence;
+        private final SyncDelta syncDelta;
+
+        private SequencedDelta(long sequence, SyncDelta syncDelta) {
+            this.sequence = sequence;
+            this.syncDelta = syncDelta;
+        }
+    }
+}
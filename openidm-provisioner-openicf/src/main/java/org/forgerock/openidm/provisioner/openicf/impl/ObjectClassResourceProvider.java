@@ -30,6 +30,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.forgerock.guava.common.collect.ArrayListMultimap;
@@ -71,6 +73,7 @@ import org.forgerock.openidm.provisioner.openicf.commons.ConnectorUtil;
 import org.forgerock.openidm.provisioner.openicf.commons.ObjectClassInfoHelper;
 import org.forgerock.openidm.provisioner.openicf.commons.OperationOptionInfoHelper;
 import org.forgerock.openidm.smartevent.EventEntry;
+import org.forgerock.openidm.smartevent.Name;
 import org.forgerock.openidm.smartevent.Publisher;
 import org.forgerock.openidm.util.ContextUtil;
 import org.forgerock.openidm.util.HeaderUtil;
@@ -112,6 +115,8 @@ class ObjectClassResourceProvider implements RequestHandler {
     private static final String EVENT_PREFIX = "openidm/internal/system/";
     private static final String REAUTH_PASSWORD_HEADER = "X-OpenIDM-Reauth-Password";
     private static final String ACCOUNT_USERNAME_ATTRIBUTES = "accountUserNameAttributes";
+    /** The maximum number of query ids whose event name is kept, as query ids are client supplied */
+    private static final int MAX_QUERY_ID_EVENT_NAMES = 100;
 
     private static final Logger logger = LoggerFactory.getLogger(OpenICFProvisionerService.class);
 
@@ -124,6 +129,13 @@ class ObjectClassResourceProvider implements RequestHandler {
     private final OpenICFProvisionerService provisionerService;
     private final JsonValue jsonConfiguration;
 
+    // The smartevent names of the queries, resolved once rather than on every query
+    private final String queryEventPrefix;
+    private final Name queryExpressionEventName;
+    private final Name queryFilterEventName;
+    private final Name unknownQueryEventName;
+    private final ConcurrentMap<String, Name> queryIdEventNames = new ConcurrentHashMap<>();
+
     ObjectClassResourceProvider(String objectClass, ObjectClassInfoHelper objectClassInfoHelper,
             Map<Class<? extends APIOperation>, OperationOptionInfoHelper> operations,
             OpenICFProvisionerService provisionerService,
@@ -133,6 +145,11 @@ class ObjectClassResourceProvider implements RequestHandler {
         this.objectClass = objectClass;
         this.provisionerService = provisionerService;
         this.jsonConfiguration = jsonConfiguration;
+        this.queryEventPrefix =
+                EVENT_PREFIX + provisionerService.getSystemIdentifierName() + "/" + objectClass + "/query/";
+        this.queryExpressionEventName = Name.register(queryEventPrefix + "_query_expression");
+        this.queryFilterEventName = Name.register(queryEventPrefix + "_queryFilter");
+        this.unknownQueryEventName = Name.register(queryEventPrefix + "_UNKNOWN");
     }
 
     /**
@@ -412,7 +429,7 @@ class ObjectClassResourceProvider implements RequestHandler {
     @Override
     public Promise<QueryResponse, ResourceException> handleQuery(
             final Context context, final QueryRequest request, final QueryResourceHandler handler) {
-        EventEntry measure = Publisher.start(getQueryEventName( objectClass, request), request, null);
+        EventEntry measure = Publisher.start(getQueryEventName(request), request, null);
         String resourceId = objectClassInfoHelper.getFullResourceId(request);
         try {
             if (!resourceId.isEmpty()) {
@@ -748,18 +765,25 @@ class ObjectClassResourceProvider implements RequestHandler {
     /**
      * @return the smartevent Name for a given query
      */
-    org.forgerock.openidm.smartevent.Name getQueryEventName(String objectClass, QueryRequest request) {
-        String prefix = EVENT_PREFIX + provisionerService.getSystemIdentifierName() + "/" + objectClass + "/query/";
-
+    Name getQueryEventName(QueryRequest request) {
         if (request.getQueryId() != null) {
-            return org.forgerock.openidm.smartevent.Name.get(prefix + request.getQueryId());
+            Name name = queryIdEventNames.get(request.getQueryId());
+            if (name == null) {
+                if (queryIdEventNames.size() < MAX_QUERY_ID_EVENT_NAMES) {
+                    name = Name.register(queryEventPrefix + request.getQueryId());
+                    queryIdEventNames.putIfAbsent(request.getQueryId(), name);
+                } else {
+                    name = Name.get(queryEventPrefix + request.getQueryId());
+                }
+            }
+            return name;
         } else if (request.getQueryExpression() != null) {
-            return org.forgerock.openidm.smartevent.Name.get(prefix + "_query_expression");
+            return queryExpressionEventName;
         } else if (request.getQueryFilter() != null) {
-            return org.forgerock.openidm.smartevent.Name.get(prefix + "_queryFilter");
+            return queryFilterEventName;
         } else {
             // This should never happen...
-            return org.forgerock.openidm.smartevent.Name.get(prefix + "_UNKNOWN");
+            return unknownQueryEventName;
         }
     }
 }
@@ -137,6 +137,9 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
 
     private static final Logger logger = LoggerFactory.getLogger(OpenICFProvisionerService.class);
 
+    /** The default maximum number of live sync deltas queued per worker */
+    private static final int DEFAULT_LIVE_SYNC_QUEUE_SIZE = 1000;
+
     private SimpleSystemIdentifier systemIdentifier = null;
     private OperationHelperBuilder operationHelperBuilder = null;
     private Promise<ConnectorInfo, RuntimeException> connectorFacadeCallback = null;
@@ -146,6 +149,12 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
     private SyncFailureHandler syncFailureHandler = null;
     private String factoryPid = null;
 
+    /** The number of workers processing live sync deltas concurrently, or 0 to process them on the calling thread */
+    private int liveSyncWorkers = 0;
+
+    /** The maximum number of live sync deltas queued per worker */
+    private int liveSyncQueueSize = DEFAULT_LIVE_SYNC_QUEUE_SIZE;
+
     /** use null-object activity logger until/unless ConnectionFactory binder updates it */
     private ActivityLogger activityLogger = NullActivityLogger.INSTANCE;
 
@@ -233,6 +242,10 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
 
             syncFailureHandler = syncFailureHandlerFactory.create(jsonConfiguration.get("syncFailureHandler"));
 
+            final JsonValue liveSyncConfig = jsonConfiguration.get("liveSync");
+            liveSyncWorkers = liveSyncConfig.get("workerThreads").defaultTo(0).asInteger();
+            liveSyncQueueSize = liveSyncConfig.get("queueSize").defaultTo(DEFAULT_LIVE_SYNC_QUEUE_SIZE).asInteger();
+
             final OpenICFProvisionerService provisionerService = this;
             connectorInfoProvider.findConnectorInfoAsync(connectorReference).thenOnResult(
                     new org.forgerock.util.promise.ResultHandler<ConnectorInfo>() {
@@ -836,139 +849,74 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
                     logger.debug("New LatestSyncToken has been fetched. New token is: {}", token);
                 } else {
                     final SyncToken[] lastToken = new SyncToken[]{token};
-                    final String[] failedRecord = new String[1];
                     OperationOptionsBuilder operationOptionsBuilder =
                             helper.getOperationOptionsBuilder(SyncApiOp.class, null, previousStage);
 
+                    final LiveSyncPipeline pipeline = liveSyncWorkers > 0
+                            ? new LiveSyncPipeline(systemIdentifier.getName(), liveSyncWorkers, liveSyncQueueSize,
+                                    token, new LiveSyncPipeline.DeltaProcessor() {
+                                        @Override
+                                        public boolean process(SyncDelta syncDelta) {
+                                            return synchronizeDelta(context, objectType, stage, helper, syncDelta,
+                                                    syncRetry);
+                                        }
+                                    })
+                            : null;
                     try {
                         logger.debug("Execute sync(ObjectClass:{}, SyncToken:{})",
                                 new Object[] { helper.getObjectClass().getObjectClassValue(), token });
-                        SyncToken syncToken = operation.sync(helper.getObjectClass(), token,
-                                new SyncResultsHandler() {
-                                    /**
-                                     * Called to handle a delta in the stream. The Connector framework will call
-                                     * this method multiple times, once for each result.
-                                     * Although this method is callback, the framework will invoke it synchronously.
-                                     * Thus, the framework guarantees that once an application's call to
-                                     * {@link org.identityconnectors.framework.api.operations.SyncApiOp#sync(org.identityconnectors.framework.common.objects.ObjectClass, org.identityconnectors.framework.common.objects.SyncToken, org.identityconnectors.framework.common.objects.SyncResultsHandler, org.identityconnectors.framework.common.objects.OperationOptions)} SyncApiOp#sync() returns,
-                                     * the framework will no longer call this method
-                                     * to handle results from that <code>sync()</code> operation.
-                                     *
-                                     * @param syncDelta The change
-                                     * @return True iff the application wants to continue processing more results.
-                                     * @throws RuntimeException If the application encounters an exception. This will
-                                     * stop iteration and the exception will propagate to the application.
-                                     */
-                                    @SuppressWarnings("fallthrough")
-                                    public boolean handle(SyncDelta syncDelta) {
-                                        try {
-                                            // Q: are we going to encode ids?
-                                            final String resourceId = syncDelta.getUid().getUidValue();
-                                            final String objectTypeName = getObjectTypeName(syncDelta.getObjectClass());
-                                            final String resourceContainer = getSource(objectTypeName == null ? objectType : objectTypeName);
-                                            final JsonValue content = new JsonValue(new LinkedHashMap<String, Object>(2));
-
-                                            //rebuild the OperationHelper if the helper is for the __ALL__ object class
-                                            final OperationHelper syncDeltaOperationHelper = helper.getObjectClass().equals(ObjectClass.ALL)
-                                                    ? operationHelperBuilder.build(objectTypeName, stage, cryptoService)
-                                                    : helper;
-
-                                            switch (syncDelta.getDeltaType()) {
-                                                case CREATE: {
-                                                    JsonValue deltaObject = syncDeltaOperationHelper.build(syncDelta.getObject());
-                                                    content.put("oldValue", null);
-                                                    content.put("newValue", deltaObject.getObject());
-                                                    // TODO import SynchronizationService.Action.notifyCreate and ACTION_PARAM_ constants
-                                                    ActionRequest onCreateRequest = Requests.newActionRequest("sync", "notifyCreate")
-                                                            .setAdditionalParameter("resourceContainer", resourceContainer)
-                                                            .setAdditionalParameter("resourceId", resourceId)
-                                                            .setContent(content);
-                                                    connectionFactory.getConnection().action(context, onCreateRequest);
-
-                                                    activityLogger.log(context, onCreateRequest,
-                                                                    "sync-create", onCreateRequest.getResourcePath(),
-                                                                    deltaObject, deltaObject, Status.SUCCESS);
-                                                    break;
-                                                }
-                                                case UPDATE:
-                                                case CREATE_OR_UPDATE: {
-                                                    JsonValue deltaObject = syncDeltaOperationHelper.build(syncDelta.getObject());
-                                                    content.put("oldValue", null);
-                                                    content.put("newValue", deltaObject.getObject());
-                                                    if (null != syncDelta.getPreviousUid()) {
-                                                        deltaObject.put("_previous-id", syncDelta.getPreviousUid().getUidValue());
-                                                    }
-                                                    // TODO import SynchronizationService.Action.notifyUpdate and ACTION_PARAM_ constants
-                                                    ActionRequest onUpdateRequest = Requests.newActionRequest("sync", "notifyUpdate")
-                                                            .setAdditionalParameter("resourceContainer", resourceContainer)
-                                                            .setAdditionalParameter("resourceId", resourceId)
-                                                            .setContent(content);
-                                                    connectionFactory.getConnection().action(context, onUpdateRequest);
-
-                                                    activityLogger.log(context, onUpdateRequest,
-                                                            "sync-update", onUpdateRequest.getResourcePath(),
-                                                            deltaObject, deltaObject, Status.SUCCESS);
-                                                    break;
-                                                }
-                                                case DELETE:
-                                                    // TODO Pass along the old deltaObject - do we have it?
-                                                    content.put("oldValue", null);
-                                                    // TODO import SynchronizationService.Action.notifyDelete and ACTION_PARAM_ constants
-                                                    ActionRequest onDeleteRequest = Requests.newActionRequest("sync", "notifyDelete")
-                                                            .setAdditionalParameter("resourceContainer", resourceContainer)
-                                                            .setAdditionalParameter("resourceId", resourceId)
-                                                            .setContent(content);
-                                                    connectionFactory.getConnection().action(context, onDeleteRequest);
-
-                                                    activityLogger.log(context, onDeleteRequest,
-                                                            "sync-delete", onDeleteRequest.getResourcePath(),
-                                                            null, null, Status.SUCCESS);
-                                                    break;
+                        SyncToken syncToken;
+                        try {
+                            syncToken = operation.sync(helper.getObjectClass(), token,
+                                    new SyncResultsHandler() {
+                                        /**
+                                         * Called to handle a delta in the stream. The Connector framework will call
+                                         * this method multiple times, once for each result.
+                                         * Although this method is callback, the framework will invoke it synchronously.
+                                         * Thus, the framework guarantees that once an application's call to
+                                         * {@link org.identityconnectors.framework.api.operations.SyncApiOp#sync(org.identityconnectors.framework.common.objects.ObjectClass, org.identityconnectors.framework.common.objects.SyncToken, org.identityconnectors.framework.common.objects.SyncResultsHandler, org.identityconnectors.framework.common.objects.OperationOptions)} SyncApiOp#sync() returns,
+                                         * the framework will no longer call this method
+                                         * to handle results from that <code>sync()</code> operation.
+                                         *
+                                         * @param syncDelta The change
+                                         * @return True iff the application wants to continue processing more results.
+                                         * @throws RuntimeException If the application encounters an exception. This will
+                                         * stop iteration and the exception will propagate to the application.
+                                         */
+                                        public boolean handle(SyncDelta syncDelta) {
+                                            if (pipeline != null) {
+                                                // The token is advanced by the pipeline as its workers process the deltas
+                                                return pipeline.submit(syncDelta);
                                             }
-                                        } catch (Exception e) {
-                                            failedRecord[0] = SerializerUtil.serializeXmlObject(syncDelta, true);
-                                            logger.debug("Failed to synchronize {} object, handle failure using {}",
-                                                    syncDelta.getUid(), syncFailureHandler, e);
-                                            Map<String, Object> syncFailureMap = new HashMap<>(6);
-                                            syncFailureMap.put("token", syncDelta.getToken().getValue());
-                                            syncFailureMap.put("systemIdentifier", systemIdentifier.getName());
-                                            syncFailureMap.put("objectType", objectType);
-                                            syncFailureMap.put("uid", syncDelta.getUid().getUidValue());
-                                            syncFailureMap.put("failedRecord", failedRecord[0]);
-                                            try {
-                                                syncFailureHandler.invoke(context, syncFailureMap, e);
-                                            } catch (SyncHandlerException syncHandlerException) {
-                                                // Current contract of the failure handler is that throwing this exception indicates 
-                                                // that it should retry for this entry
-                                                syncRetry.setValue(true);
-                                                syncRetry.setThrowable(syncHandlerException);
-                                                logger.debug("Sync failure handler indicated to stop current change set processing until retry handling: {}", 
-                                                        syncHandlerException.getMessage(), syncHandlerException);
+                                            if (!synchronizeDelta(context, objectType, stage, helper, syncDelta,
+                                                    syncRetry)) {
+                                                // Stop the processing of this result set. Next retry will start again after last token.
+                                                return false;
+                                            } else {
+                                                // success (either by original sync or by failure handler)
+                                                // Continue the processing of the rest of the result set
+                                                lastToken[0] = syncDelta.getToken();
+                                                return true;
                                             }
                                         }
-
-                                        if (syncRetry.getValue()) {
-                                            // Stop the processing of this result set. Next retry will start again after last token.
-                                            return false; 
-                                        } else {
-                                            // success (either by original sync or by failure handler)
-                                            // Continue the processing of the rest of the result set
-                                            lastToken[0] = syncDelta.getToken();
-                                            return true;
-                                        }
-                                    }
-                        }, operationOptionsBuilder.build());
+                            }, operationOptionsBuilder.build());
+                        } finally {
+                            if (pipeline != null) {
+                                // Wait for the deltas already handed to the workers, even if the sync failed
+                                lastToken[0] = pipeline.finish();
+                            }
+                        }
                         if (syncRetry.getValue()) {
                             Throwable throwable = syncRetry.getThrowable();
                             Map<String, Object> lastException = new LinkedHashMap<>(2);
                             lastException.put("throwable", throwable.getMessage());
-                            if (null != failedRecord[0]) {
-                                lastException.put("syncDelta", failedRecord[0]);
+                            if (null != syncRetry.getFailedRecord()) {
+                                lastException.put("syncDelta", syncRetry.getFailedRecord());
                             }
                             stage.put("lastException", lastException);
                             logger.debug("Live synchronization of {} failed on {}",
                                     new Object[] { objectType, systemIdentifier.getName() }, throwable);
-                        } else {
+                        } else if (pipeline == null || pipeline.isComplete()) {
                             if (syncToken != null) {
                                 lastToken[0] = syncToken;
                             }
@@ -995,6 +943,111 @@ public class OpenICFProvisionerService implements ProvisionerService, SingletonR
         return stage;
     }
 
+    /**
+     * Notifies the synchronization service of a live sync delta, handing a failure to the sync failure handler.
+     *
+     * @param context the context of the live synchronization
+     * @param objectType the object type being synchronized
+     * @param stage the live synchronization stage
+     * @param helper the operation helper of the object type
+     * @param syncDelta the delta
+     * @param syncRetry records the failure if the sync failure handler asks for a retry
+     * @return false if the sync failure handler asked for the delta to be retried, true otherwise
+     */
+    @SuppressWarnings("fallthrough")
+    private boolean synchronizeDelta(Context context, String objectType, JsonValue stage, OperationHelper helper,
+            SyncDelta syncDelta, SyncRetry syncRetry) {
+        try {
+            // Q: are we going to encode ids?
+            final String resourceId = syncDelta.getUid().getUidValue();
+            final String objectTypeName = getObjectTypeName(syncDelta.getObjectClass());
+            final String resourceContainer = getSource(objectTypeName == null ? objectType : objectTypeName);
+            final JsonValue content = new JsonValue(new LinkedHashMap<String, Object>(2));
+
+            //rebuild the OperationHelper if the helper is for the __ALL__ object class
+            final OperationHelper syncDeltaOperationHelper = helper.getObjectClass().equals(ObjectClass.ALL)
+                    ? operationHelperBuilder.build(objectTypeName, stage, cryptoService)
+                    : helper;
+
+            switch (syncDelta.getDeltaType()) {
+                case CREATE: {
+                    JsonValue deltaObject = syncDeltaOperationHelper.build(syncDelta.getObject());
+                    content.put("oldValue", null);
+                    content.put("newValue", deltaObject.getObject());
+                    // TODO import SynchronizationService.Action.notifyCreate and ACTION_PARAM_ constants
+                    ActionRequest onCreateRequest = Requests.newActionRequest("sync", "notifyCreate")
+                            .setAdditionalParameter("resourceContainer", resourceContainer)
+                            .setAdditionalParameter("resourceId", resourceId)
+                            .setContent(content);
+                    connectionFactory.getConnection().action(context, onCreateRequest);
+
+                    activityLogger.log(context, onCreateRequest,
+                                    "sync-create", onCreateRequest.getResourcePath(),
+                                    deltaObject, deltaObject, Status.SUCCESS);
+                    break;
+                }
+                case UPDATE:
+                case CREATE_OR_UPDATE: {
+                    JsonValue deltaObject = syncDeltaOperationHelper.build(syncDelta.getObject());
+                    content.put("oldValue", null);
+                    content.put("newValue", deltaObject.getObject());
+                    if (null != syncDelta.getPreviousUid()) {
+                        deltaObject.put("_previous-id", syncDelta.getPreviousUid().getUidValue());
+                    }
+                    // TODO import SynchronizationService.Action.notifyUpdate and ACTION_PARAM_ constants
+                    ActionRequest onUpdateRequest = Requests.newActionRequest("sync", "notifyUpdate")
+                            .setAdditionalParameter("resourceContainer", resourceContainer)
+                            .setAdditionalParameter("resourceId", resourceId)
+                            .setContent(content);
+                    connectionFactory.getConnection().action(context, onUpdateRequest);
+
+                    activityLogger.log(context, onUpdateRequest,
+                            "sync-update", onUpdateRequest.getResourcePath(),
+                            deltaObject, deltaObject, Status.SUCCESS);
+                    break;
+                }
+                case DELETE:
+                    // TODO Pass along the old deltaObject - do we have it?
+                    content.put("oldValue", null);
+                    // TODO import SynchronizationService.Action.notifyDelete and ACTION_PARAM_ constants
+                    ActionRequest onDeleteRequest = Requests.newActionRequest("sync", "notifyDelete")
+                            .setAdditionalParameter("resourceContainer", resourceContainer)
+                            .setAdditionalParameter("resourceId", resourceId)
+                            .setContent(content);
+                    connectionFactory.getConnection().action(context, onDeleteRequest);
+
+                    activityLogger.log(context, onDeleteRequest,
+                            "sync-delete", onDeleteRequest.getResourcePath(),
+                            null, null, Status.SUCCESS);
+                    break;
+            }
+        } catch (Exception e) {
+            final String failedRecord = SerializerUtil.serializeXmlObject(syncDelta, true);
+            logger.debug("Failed to synchronize {} object, handle failure using {}",
+                    syncDelta.getUid(), syncFailureHandler, e);
+            Map<String, Object> syncFailureMap = new HashMap<>(6);
+            syncFailureMap.put("token", syncDelta.getToken().getValue());
+            syncFailureMap.put("systemIdentifier", systemIdentifier.getName());
+            syncFailureMap.put("objectType", objectType);
+            syncFailureMap.put("uid", syncDelta.getUid().getUidValue());
+            syncFailureMap.put("failedRecord", failedRecord);
+            try {
+                // The failure handlers keep per-record retry state, and are not safe for concurrent use
+                synchronized (syncFailureHandler) {
+                    syncFailureHandler.invoke(context, syncFailureMap, e);
+                }
+            } catch (SyncHandlerException syncHandlerException) {
+                // Current contract of the failure handler is that throwing this exception indicates 
+                // that it should retry for this entry
+                syncRetry.retry(syncHandlerException, failedRecord);
+                logger.debug("Sync failure handler indicated to stop current change set processing until retry handling: {}", 
+                        syncHandlerException.getMessage(), syncHandlerException);
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Package level setter to allow unit tests to set the logger.
      * @param activityLogger the new activity logger
@@ -17,7 +17,9 @@
 package org.forgerock.openidm.provisioner.openicf.impl;
 
 /**
- * A container for information about a sync retry after a failure
+ * A container for information about a sync retry after a failure. The failure is recorded by the
+ * thread processing the failed delta, which is not the thread running the sync operation when the
+ * deltas are processed by a {@link LiveSyncPipeline}.
  */
 class SyncRetry {
 
@@ -31,6 +33,11 @@ class SyncRetry {
      */
     Throwable throwable;
 
+    /**
+     * The serialized delta that failed
+     */
+    String failedRecord;
+
     public SyncRetry() {
         value = false;
         throwable = null;
@@ -41,7 +48,7 @@ class SyncRetry {
      *
      * @return true if the sync should be retried, false otherwise.
      */
-    public boolean getValue() {
+    public synchronized boolean getValue() {
         return value;
     }
 
@@ -50,7 +57,7 @@ class SyncRetry {
      *
      * @param value true if the sync should be retried, false otherwise.
      */
-    public void setValue(boolean value) {
+    public synchronized void setValue(boolean value) {
         this.value = value;
     }
 
@@ -59,7 +66,7 @@ class SyncRetry {
      *
      * @return the {@link Throwable} associated with the failure
      */
-    public Throwable getThrowable() {
+    public synchronized Throwable getThrowable() {
         return throwable;
     }
 
@@ -68,7 +75,30 @@ class SyncRetry {
      *
      * @param throwable the {@link Throwable} associated with the failure.
      */
-    public void setThrowable(Throwable throwable) {
+    public synchronized void setThrowable(Throwable throwable) {
         this.throwable = throwable;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the serialized delta that failed.
+     *
+     * @return the serialized delta, or null if unknown
+     */
+    public synchronized String getFailedRecord() {
+        return failedRecord;
+    }
+
+    /**
+     * Records a failure to be retried, unless one was recorded already.
+     *
+     * @param throwable the {@link Throwable} associated with the failure.
+     * @param failedRecord the serialized delta that failed
+     */
+    public synchronized void retry(Throwable throwable, String failedRecord) {
+        if (!value) {
+            this.value = true;
+            this.throwable = throwable;
+            this.failedRecord = failedRecord;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.provisioner.openicf.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.identityconnectors.framework.common.objects.ConnectorObjectBuilder;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.SyncDelta;
+import org.identityconnectors.framework.common.objects.SyncDeltaBuilder;
+import org.identityconnectors.framework.common.objects.SyncDeltaType;
+import org.identityconnectors.framework.common.objects.SyncToken;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link LiveSyncPipeline}.
+ */
+public class LiveSyncPipelineTest {
+
+    private static final SyncToken INITIAL_TOKEN = new SyncToken(-1);
+
+    @Test
+    public void testDeltasOfAnObjectAreProcessedInOrder() {
+        final Map<String, List<Integer>> processed = new HashMap<>();
+        final LiveSyncPipeline pipeline = new LiveSyncPipeline("test", 4, 2, INITIAL_TOKEN,
+                new LiveSyncPipeline.DeltaProcessor() {
+                    @Override
+                    public boolean process(SyncDelta syncDelta) {
+                        synchronized (processed) {
+                            final String uid = syncDelta.getUid().getUidValue();
+                            if (!processed.containsKey(uid)) {
+                                processed.put(uid, new ArrayList<Integer>());
+                            }
+                            processed.get(uid).add((Integer) syncDelta.getToken().getValue());
+                        }
+                        return true;
+                    }
+                });
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(pipeline.submit(delta("user" + (i % 10), i))).isTrue();
+        }
+
+        assertThat(pipeline.finish().getValue()).isEqualTo(99);
+        assertThat(pipeline.isComplete()).isTrue();
+        assertThat(processed).hasSize(10);
+        for (List<Integer> tokens : processed.values()) {
+            final List<Integer> sorted = new ArrayList<>(tokens);
+            Collections.sort(sorted);
+            assertThat(tokens).hasSize(10).isEqualTo(sorted);
+        }
+    }
+
+    @Test
+    public void testRetryStopsProcessing() {
+        final List<Integer> processed = Collections.synchronizedList(new ArrayList<Integer>());
+        final LiveSyncPipeline pipeline = new LiveSyncPipeline("test", 1, 100, INITIAL_TOKEN,
+                new LiveSyncPipeline.DeltaProcessor() {
+                    @Override
+                    public boolean process(SyncDelta syncDelta) {
+                        final int token = (Integer) syncDelta.getToken().getValue();
+                        processed.add(token);
+                        return token != 5;
+                    }
+                });
+
+        for (int i = 0; i < 10; i++) {
+            pipeline.submit(delta("user" + i, i));
+        }
+
+        assertThat(pipeline.finish().getValue()).isEqualTo(4);
+        assertThat(pipeline.isComplete()).isFalse();
+        assertThat(processed).containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(pipeline.submit(delta("user10", 10))).isFalse();
+    }
+
+    @Test
+    public void testTokenDoesNotPassFailedDelta() {
+        final String first = "user0";
+        String other = "user1";
+        for (int i = 2; LiveSyncPipeline.partitionOf(other, 2) == LiveSyncPipeline.partitionOf(first, 2); i++) {
+            other = "user" + i;
+        }
+        final CountDownLatch laterProcessed = new CountDownLatch(1);
+        final LiveSyncPipeline pipeline = new LiveSyncPipeline("test", 2, 10, INITIAL_TOKEN,
+                new LiveSyncPipeline.DeltaProcessor() {
+                    @Override
+                    public boolean process(SyncDelta syncDelta) {
+                        if (first.equals(syncDelta.getUid().getUidValue())) {
+                            // Fail only once the later delta of the other partition was processed
+                            try {
+                                laterProcessed.await(10, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return false;
+                        }
+                        laterProcessed.countDown();
+                        return true;
+                    }
+                });
+
+        pipeline.submit(delta(first, 0));
+        pipeline.submit(delta(other, 1));
+
+        assertThat(pipeline.finish()).isSameAs(INITIAL_TOKEN);
+        assertThat(laterProcessed.getCount()).isEqualTo(0);
+        assertThat(pipeline.isComplete()).isFalse();
+    }
+
+    @Test
+    public void testRenameIsProcessedBetweenTheDeltasOfBothUids() {
+        final String previousUid = "user0";
+        String uid = "user1";
+        for (int i = 2; LiveSyncPipeline.partitionOf(uid, 2) == LiveSyncPipeline.partitionOf(previousUid, 2); i++) {
+            uid = "user" + i;
+        }
+        final List<String> processed = Collections.synchronizedList(new ArrayList<String>());
+        final LiveSyncPipeline pipeline = new LiveSyncPipeline("test", 2, 10, INITIAL_TOKEN,
+                new LiveSyncPipeline.DeltaProcessor() {
+                    @Override
+                    public boolean process(SyncDelta syncDelta) {
+                        if (previousUid.equals(syncDelta.getUid().getUidValue())) {
+                            // Give the other partition the chance to get ahead
+                            try {
+                                Thread.sleep(50);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        processed.add(syncDelta.getUid().getUidValue() + ":" + syncDelta.getToken().getValue());
+                        return true;
+                    }
+                });
+
+        assertThat(pipeline.submit(delta(previousUid, 0))).isTrue();
+        assertThat(pipeline.submit(delta(previousUid, 1))).isTrue();
+        assertThat(pipeline.submit(rename(previousUid, uid, 2))).isTrue();
+        assertThat(pipeline.submit(delta(uid, 3))).isTrue();
+
+        assertThat(pipeline.finish().getValue()).isEqualTo(3);
+        assertThat(processed).containsExactly(previousUid + ":0", previousUid + ":1", uid + ":2", uid + ":3");
+    }
+
+    @Test
+    public void testRenameIsNotSubmittedOnceProcessingStopped() {
+        final LiveSyncPipeline pipeline = new LiveSyncPipeline("test", 2, 10, INITIAL_TOKEN,
+                new LiveSyncPipeline.DeltaProcessor() {
+                    @Override
+                    public boolean process(SyncDelta syncDelta) {
+                        return false;
+                    }
+                });
+
+        pipeline.submit(delta("user0", 0));
+
+        assertThat(pipeline.submit(rename("user0", "user1", 1))).isFalse();
+        assertThat(pipeline.finish()).isSameAs(INITIAL_TOKEN);
+    }
+
+    private static SyncDelta rename(String previousUid, String uid, int token) {
+        return new SyncDeltaBuilder()
+                .setDeltaType(SyncDeltaType.UPDATE)
+                .setPreviousUid(new Uid(previousUid))
+                .setObject(new ConnectorObjectBuilder()
+                        .setObjectClass(ObjectClass.ACCOUNT)
+                        .setUid(uid)
+                        .setName(uid)
+                        .build())
+                .setToken(new SyncToken(token))
+                .build();
+    }
+
+    private static SyncDelta delta(String uid, int token) {
+        return new SyncDeltaBuilder()
+                .setDeltaType(SyncDeltaType.DELETE)
+                .setUid(new Uid(uid))
+                .setToken(new SyncToken(token))
+                .setObjectClass(ObjectClass.ACCOUNT)
+                .build();
+    }
+}
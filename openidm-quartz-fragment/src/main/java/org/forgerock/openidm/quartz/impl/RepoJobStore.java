@@ -18,17 +18,17 @@ package org.forgerock.openidm.quartz.impl;
 import static org.forgerock.json.JsonValue.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.JsonValueException;
 import org.forgerock.json.resource.ConnectionFactory;
@@ -36,8 +36,11 @@ import org.forgerock.json.resource.CreateRequest;
 import org.forgerock.json.resource.DeleteRequest;
 import org.forgerock.json.resource.NotFoundException;
 import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryRequest;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.SortKey;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.cluster.ClusterEvent;
 import org.forgerock.openidm.cluster.ClusterEventListener;
@@ -45,6 +48,7 @@ import org.forgerock.openidm.cluster.ClusterManagementService;
 import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.repo.RepositoryService;
 import org.forgerock.services.context.Context;
+import org.forgerock.util.query.QueryFilter;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
 import org.osgi.framework.ServiceReference;
@@ -70,8 +74,35 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
 
     private static final Logger logger = LoggerFactory.getLogger(RepoJobStore.class);
 
+    /**
+     * Guards the documents listing the names of jobs, triggers, groups and calendars, which are
+     * updated as a whole. The state of an individual trigger is guarded by its
+     * {@link #getTriggerLock(String, String) trigger lock} instead, and the state shared by the
+     * triggers of a stateful job by its {@link #getJobLock(String, String) job lock}. A thread
+     * holding several of these locks takes them in that order: trigger lock, job lock, then this lock.
+     */
     private static final Object lock = new Object();
 
+    /**
+     * The locks guarding the state of individual triggers within this JVM, striped by trigger id.
+     */
+    private static final Object[] triggerLocks = new Object[64];
+
+    /**
+     * The locks guarding the blocking and unblocking of the triggers of stateful jobs within this JVM,
+     * striped by job id.
+     */
+    private static final Object[] jobLocks = new Object[64];
+
+    static {
+        for (int i = 0; i < triggerLocks.length; i++) {
+            triggerLocks[i] = new Object();
+        }
+        for (int i = 0; i < jobLocks.length; i++) {
+            jobLocks[i] = new Object();
+        }
+    }
+
     private static final String SCHEDULER_RESOURCE_PATH = "/scheduler/";
     private static final String CALENDARS_REPO_RESOURCE_PATH = SCHEDULER_RESOURCE_PATH + "calendars/";
     private static final String CALENDAR_NAMES_RESOURCE_PATH = SCHEDULER_RESOURCE_PATH + "calendarNames";
@@ -89,6 +120,30 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     private static final String ACQUIRED_TRIGGERS_RESOURCE_PATH =
             SCHEDULER_RESOURCE_PATH + "acquiredTriggers";
 
+    /**
+     * The indexed next fire time of a waiting trigger.
+     */
+    private static final JsonPointer NEXT_FIRE_TIME = new JsonPointer("nextFireTime");
+
+    /**
+     * Orders waiting triggers by next fire time, then by descending priority, then by id.
+     */
+    private static final Comparator<ResourceResponse> WAITING_TRIGGER_ORDER = new Comparator<ResourceResponse>() {
+        @Override
+        public int compare(ResourceResponse w1, ResourceResponse w2) {
+            int result = w1.getContent().get(NEXT_FIRE_TIME).asString()
+                    .compareTo(w2.getContent().get(NEXT_FIRE_TIME).asString());
+            if (result == 0) {
+                result = w2.getContent().get("priority").defaultTo(Trigger.DEFAULT_PRIORITY).asInteger()
+                        - w1.getContent().get("priority").defaultTo(Trigger.DEFAULT_PRIORITY).asInteger();
+                if (result == 0) {
+                    result = w1.getId().compareTo(w2.getId());
+                }
+            }
+            return result;
+        }
+    };
+
     /**
      * An identifier used to create unique keys for Jobs and Triggers.
      */
@@ -134,10 +189,15 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
      */
     private int writeRetries = -1;
 
+    /**
+     * The maximum number of waiting triggers read per query when acquiring the next trigger.
+     */
+    private int acquireBatchSize = 20;
+
     /**
      * A list of all "blocked" jobs.
      */
-    private List<String> blockedJobs = new ArrayList<>();
+    private List<String> blockedJobs = Collections.synchronizedList(new ArrayList<String>());
 
     /**
      * An AtomicLong used for creating record IDs
@@ -175,6 +235,9 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         this.loadHelper = loadHelper;
         // Set the number of retries for failed writes to the repository
         this.writeRetries = Integer.parseInt(IdentityServer.getInstance().getProperty("openidm.scheduler.repo.retry", "-1"));
+        // Set the number of waiting triggers to read per acquire query
+        this.acquireBatchSize = Math.max(1, Integer.parseInt(IdentityServer.getInstance().getProperty(
+                "openidm.scheduler.repo.acquireBatchSize", "20")));
     }
 
     public boolean setClusterService() {
@@ -202,6 +265,15 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         return repositoryService;
     }
 
+    /**
+     * Sets the RepositoryService used instead of the one looked up from the OSGi service registry.
+     *
+     * @param repositoryService the RepositoryService
+     */
+    void setRepositoryService(RepositoryService repositoryService) {
+        this.repositoryService = repositoryService;
+    }
+
     @Override
     public void schedulerStarted() throws SchedulerException {
         logger.info("Job Scheduler Started");
@@ -237,6 +309,27 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         return TRIGGERS_RESOURCE_PATH.concat(getTriggerId(group, name));
     }
 
+    /**
+     * Gets the repository ID of a waiting Trigger.
+     *
+     * @param group the Trigger's group
+     * @param name  the Trigger's name
+     * @return  the repository ID
+     */
+    private static String getWaitingTriggersRepoId(String group, String name) {
+        return WAITING_TRIGGERS_RESOURCE_PATH + "/" + getTriggerId(group, name);
+    }
+
+    /**
+     * Gets the repository ID of the list of Triggers acquired by an instance.
+     *
+     * @param instanceId the ID of the instance
+     * @return  the repository ID
+     */
+    private static String getAcquiredTriggersRepoId(String instanceId) {
+        return ACQUIRED_TRIGGERS_RESOURCE_PATH + "/" + instanceId;
+    }
+
     /**
      * Gets the repo location for a given group.
      * @param groupName the group.
@@ -300,6 +393,41 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         return id.substring(id.indexOf(UNIQUE_ID_SEPARATOR) + UNIQUE_ID_SEPARATOR.length());
     }
 
+    /**
+     * Returns the lock guarding the state of a Trigger within this JVM. Concurrent updates of a
+     * Trigger from other cluster nodes are detected by the revisions of its repo objects.
+     *
+     * @param group the Trigger's group
+     * @param name  the Trigger's name
+     * @return  the lock
+     */
+    private static Object getTriggerLock(String group, String name) {
+        return triggerLocks[(getTriggerId(group, name).hashCode() & Integer.MAX_VALUE) % triggerLocks.length];
+    }
+
+    /**
+     * Returns the lock guarding the blocking and unblocking of the Triggers of a stateful Job within
+     * this JVM, so that only one of its Triggers fires at a time.
+     *
+     * @param group the Job's group
+     * @param name  the Job's name
+     * @return  the lock
+     */
+    private static Object getJobLock(String group, String name) {
+        return jobLocks[(getJobId(group, name).hashCode() & Integer.MAX_VALUE) % jobLocks.length];
+    }
+
+    /**
+     * Formats a time as a fixed width string, so that the repo compares and sorts times correctly
+     * when it compares and sorts the indexed properties as strings.
+     *
+     * @param time the time in milliseconds
+     * @return  the formatted time
+     */
+    private static String toIndexedTime(long time) {
+        return String.format("%019d", time);
+    }
+
     /**
      * <p>
      * Called by the QuartzScheduler to inform the <code>JobStore</code> that
@@ -309,11 +437,9 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
      */
     @Override
     public void shutdown() {
-        synchronized(lock) {
-            cleanUpInstance();
-            shutdown = true;
-            logger.debug("Job Scheduler Stopped");
-        }
+        cleanUpInstance();
+        shutdown = true;
+        logger.debug("Job Scheduler Stopped");
     }
 
     @Override
@@ -488,88 +614,130 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     @Override
     public Trigger acquireNextTrigger(SchedulingContext context, long noLaterThan)
             throws JobPersistenceException {
-        synchronized (lock) {
-            logger.debug("Attempting to acquire the next trigger");
-            Trigger trigger = null;
-            WaitingTriggers waitingTriggers = null;
-            while (trigger == null && !shutdown) {
-                try {
-                    waitingTriggers = getWaitingTriggers();
-                    trigger = waitingTriggers.getTriggers().first();
-                } catch (NoSuchElementException e1) {
-                    logger.debug("No waiting triggers to acquire");
-                    return null;
-                }
-
-                if (trigger == null) {
-                    logger.debug("No waiting triggers to acquire");
-                    return null;
-                }
-
-                Date nextFireTime = trigger.getNextFireTime();
-                if (nextFireTime == null) {
-                    logger.debug("Trigger next fire time = null, removing");
-                    removeWaitingTrigger(trigger);
-                    trigger = null;
-                    continue;
+        logger.debug("Attempting to acquire the next trigger");
+        while (!shutdown) {
+            List<ResourceResponse> waitingTriggers = queryWaitingTriggers(noLaterThan);
+            if (waitingTriggers.isEmpty()) {
+                logger.debug("No waiting triggers to acquire");
+                return null;
+            }
+            // Try the batch in order, moving on when a trigger is claimed by another thread or node
+            for (ResourceResponse waiting : waitingTriggers) {
+                if (shutdown) {
+                    break;
                 }
-
-                if (noLaterThan > 0) {
-                    if (nextFireTime.getTime() > noLaterThan) {
-                        logger.debug("Trigger fire time {} is later than {}, not acquiring",
-                                nextFireTime, new Date(noLaterThan));
-                        return null;
+                String group = waiting.getContent().get("group").asString();
+                String name = waiting.getContent().get("name").asString();
+                synchronized (getTriggerLock(group, name)) {
+                    Trigger trigger = acquireWaitingTrigger(waiting, group, name);
+                    if (trigger != null) {
+                        return trigger;
                     }
                 }
+            }
+        }
+        logger.debug("No waiting triggers to acquire");
+        return null;
+    }
 
-                if(!removeWaitingTrigger(trigger)) {
-                    trigger = null;
-                    continue;
-                }
+    /**
+     * Claims a waiting Trigger and sets it in the "acquired" state for this instance.
+     *
+     * @param waiting the waiting Trigger, as returned by {@link #queryWaitingTriggers(long)}
+     * @param group the Trigger's group
+     * @param name the Trigger's name
+     * @return the acquired Trigger, or null if the Trigger was claimed by another thread or node, is not
+     *         in the normal state, or has misfired
+     * @throws JobPersistenceException
+     */
+    private Trigger acquireWaitingTrigger(ResourceResponse waiting, String group, String name)
+            throws JobPersistenceException {
+        if (!claimWaitingTrigger(getWaitingTriggersRepoId(group, name), waiting.getRevision())) {
+            logger.debug("Trigger {} in group {} was acquired concurrently", name, group);
+            return null;
+        }
 
-                TriggerWrapper tw = getTriggerWrapper(trigger.getGroup(), trigger.getName());
+        TriggerWrapper tw = getTriggerWrapper(group, name);
+        if (tw == null) {
+            logger.debug("Trigger {} in group {} no longer exists, not acquiring", name, group);
+            return null;
+        }
+        if (tw.getState() != Trigger.STATE_NORMAL) {
+            logger.debug("Trigger {} in group {} is in state {}, not acquiring", name, group, tw.getState());
+            return null;
+        }
 
-                if (hasTriggerMisfired(trigger)) {
-                    logger.debug("Attempting to process misfired trigger");
-                    processTriggerMisfired(tw);
-                    if (trigger.getNextFireTime() != null) {
-                        addWaitingTrigger(trigger);
-                    }
-                    trigger = null;
-                    continue;
-                }
+        Trigger trigger = tw.getTrigger();
+        if (trigger.getNextFireTime() == null) {
+            logger.debug("Trigger next fire time = null, removing");
+            return null;
+        }
 
-                tw.setAcquired(true);
-                tw.setNodeId(instanceId);
+        synchronized (getJobLock(trigger.getJobGroup(), trigger.getJobName())) {
+            // A trigger of the same stateful job is firing, the trigger is returned to the waiting
+            // triggers when the job completes
+            if (blockedJobs.contains(getJobId(trigger.getJobGroup(), trigger.getJobName()))) {
+                logger.debug("Job of trigger {} in group {} is blocked, not acquiring", name, group);
+                return null;
+            }
+            return acquireTrigger(tw, trigger, group, name);
+        }
+    }
 
-                trigger.setFireInstanceId(getFiredTriggerRecordId());
-                try {
-                    tw.updateTrigger(trigger);
-                } catch (Exception e) {
-                    logger.warn("Error serializing trigger", e);
-                    addWaitingTrigger(trigger);
-                    throw new JobPersistenceException("Error serializing trigger", e);
-                }
+    /**
+     * Sets a claimed Trigger in the "acquired" state for this instance, or processes its misfire.
+     *
+     * @param tw the wrapped Trigger
+     * @param trigger the Trigger
+     * @param group the Trigger's group
+     * @param name the Trigger's name
+     * @return the acquired Trigger, or null if the Trigger has misfired or was updated concurrently
+     * @throws JobPersistenceException
+     */
+    private Trigger acquireTrigger(TriggerWrapper tw, Trigger trigger, String group, String name)
+            throws JobPersistenceException {
+        if (hasTriggerMisfired(trigger)) {
+            logger.debug("Attempting to process misfired trigger");
+            processTriggerMisfired(tw);
+            Trigger updatedTrigger = tw.getTrigger();
+            if (updatedTrigger.getNextFireTime() != null) {
+                addWaitingTrigger(updatedTrigger);
+            }
+            return null;
+        }
 
-                updateTriggerInRepo(trigger.getGroup(), trigger.getName(), tw, tw.getRevision());
+        tw.setAcquired(true);
+        tw.setNodeId(instanceId);
 
-                addAcquiredTrigger(trigger, instanceId);
+        trigger.setFireInstanceId(getFiredTriggerRecordId());
+        try {
+            tw.updateTrigger(trigger);
+        } catch (Exception e) {
+            logger.warn("Error serializing trigger", e);
+            addWaitingTrigger(trigger);
+            throw new JobPersistenceException("Error serializing trigger", e);
+        }
 
-                logger.debug("Acquired next trigger {} to be fired at {}", trigger.getName(), trigger.getNextFireTime());
-                tw.setNodeId(instanceId);
-                return (Trigger)trigger.clone();
-            }
-            logger.debug("No waiting triggers to acquire");
+        try {
+            updateTriggerInRepo(group, name, tw, tw.getRevision());
+        } catch (JobPersistenceException e) {
+            // The trigger was updated since it was read, let the next acquire attempt read it again
+            logger.debug("Trigger {} in group {} was updated while being acquired, returning it to the waiting triggers",
+                    name, group);
+            addWaitingTrigger(trigger);
             return null;
         }
-    }
 
+        addAcquiredTrigger(trigger, instanceId);
 
+        logger.debug("Acquired next trigger {} to be fired at {}", trigger.getName(), trigger.getNextFireTime());
+        return (Trigger) trigger.clone();
+    }
 
     @Override
     public void releaseAcquiredTrigger(SchedulingContext arg0, Trigger trigger)
             throws JobPersistenceException {
-        synchronized (lock) {
+        synchronized (getTriggerLock(trigger.getGroup(), trigger.getName())) {
             TriggerWrapper tw = getTriggerWrapper(trigger.getGroup(), trigger.getName());
             if (tw == null) {
                 logger.debug("Cannot release acquired trigger {} in group {}, trigger does not exist", trigger.getName(), trigger.getGroup());
@@ -605,21 +773,19 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     }
 
     private List<TriggerWrapper> getTriggerWrappersForCalendar(String calName) throws JobPersistenceException {
-        synchronized (lock) {
-            ArrayList<TriggerWrapper> trigList = new ArrayList<TriggerWrapper>();
-            String[] groups = getTriggerGroupNames(null);
-            for (String group : groups) {
-                String[] names = getTriggerNames(null, group);
-                for (String name : names) {
-                    TriggerWrapper tw = getTriggerWrapper(group, name);
-                    Trigger trigger = tw.getTrigger();
-                    if (trigger.getCalendarName().equals(calName)) {
-                        trigList.add(tw);
-                    }
+        ArrayList<TriggerWrapper> trigList = new ArrayList<TriggerWrapper>();
+        String[] groups = getTriggerGroupNames(null);
+        for (String group : groups) {
+            String[] names = getTriggerNames(null, group);
+            for (String name : names) {
+                TriggerWrapper tw = getTriggerWrapper(group, name);
+                Trigger trigger = tw.getTrigger();
+                if (trigger.getCalendarName().equals(calName)) {
+                    trigList.add(tw);
                 }
             }
-            return trigList;
         }
+        return trigList;
     }
 
 
@@ -764,19 +930,17 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     @Override
     public Trigger[] getTriggersForJob(SchedulingContext context, String jobName, String groupName)
             throws JobPersistenceException {
-        synchronized (lock) {
-            String[] triggerNames = getTriggerNames(context, groupName);
-            List<Trigger> triggers = new ArrayList<Trigger>();
-            for (String name : triggerNames) {
-                TriggerWrapper tw = getTriggerWrapper(groupName, name);
-                Trigger trigger = tw.getTrigger();
-                if (trigger.getJobName().equals(jobName)) {
-                    triggers.add(trigger);
-                }
+        String[] triggerNames = getTriggerNames(context, groupName);
+        List<Trigger> triggers = new ArrayList<Trigger>();
+        for (String name : triggerNames) {
+            TriggerWrapper tw = getTriggerWrapper(groupName, name);
+            Trigger trigger = tw.getTrigger();
+            if (trigger.getJobName().equals(jobName)) {
+                triggers.add(trigger);
             }
-            logger.debug("Found {} triggers for group {}", triggers.size(), groupName);
-            return triggers.toArray(new Trigger[triggers.size()]);
         }
+        logger.debug("Found {} triggers for group {}", triggers.size(), groupName);
+        return triggers.toArray(new Trigger[triggers.size()]);
     }
 
     @Override
@@ -795,17 +959,16 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     @Override
     public void pauseJob(SchedulingContext context, String jobName, String groupName)
             throws JobPersistenceException {
-        synchronized (lock) {
-            Trigger[] triggers = getTriggersForJob(context, jobName, groupName);
-            for (Trigger trigger : triggers) {
-                pauseTrigger(context, trigger.getName(), trigger.getGroup());
-            }
+        Trigger[] triggers = getTriggersForJob(context, jobName, groupName);
+        for (Trigger trigger : triggers) {
+            pauseTrigger(context, trigger.getName(), trigger.getGroup());
         }
     }
 
     @Override
     public void pauseJobGroup(SchedulingContext context, String groupName)
             throws JobPersistenceException {
+        List<String> jobNames;
         synchronized (lock) {
             try {
                 // Get job group, set paused, and update
@@ -829,10 +992,7 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 getRepositoryService().update(
                         Requests.newUpdateRequest(JOB_PAUSED_GROUP_NAMES_RESOURCE_PATH, pauseMap).setRevision(rev));
 
-                List<String> jobNames = jgw.getJobNames();
-                for (String jobName : jobNames) {
-                    pauseJob(context, jobName, groupName);
-                }
+                jobNames = jgw.getJobNames();
             } catch (JsonValueException e) {
                 logger.warn("Error pausing job group {}", groupName, e);
                 throw new JobPersistenceException("Error pausing job group", e);
@@ -841,35 +1001,44 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 throw new JobPersistenceException("Error pausing job group", e);
             }
         }
+        // The trigger locks are taken before the global lock, pause the triggers once it is released
+        for (String jobName : jobNames) {
+            pauseJob(context, jobName, groupName);
+        }
     }
 
     @Override
     public void pauseTrigger(SchedulingContext context, String triggerName, String triggerGroup)
             throws JobPersistenceException {
-        synchronized (lock) {
-            TriggerWrapper tw = getTriggerWrapper(triggerGroup, triggerName);
-            if (tw == null) {
+        synchronized (getTriggerLock(triggerGroup, triggerName)) {
+            Trigger trigger = retrieveTrigger(context, triggerName, triggerGroup);
+            if (trigger == null) {
                 logger.warn("Cannot pause trigger {} in group {}, trigger does not exist", triggerName, triggerGroup);
                 return;
             }
-            Trigger trigger;
-            try {
-                trigger = tw.getTrigger();
-            } catch (Exception e) {
-                logger.warn("Error deserializing trigger", e);
-                throw new JobPersistenceException("Error deserializing trigger", e);
+            // Firing or completing a stateful job also updates the state of this trigger
+            synchronized (getJobLock(trigger.getJobGroup(), trigger.getJobName())) {
+                synchronized (lock) {
+                    TriggerWrapper tw = getTriggerWrapper(triggerGroup, triggerName);
+                    if (tw == null) {
+                        logger.warn("Cannot pause trigger {} in group {}, trigger does not exist", triggerName,
+                                triggerGroup);
+                        return;
+                    }
+                    tw.pause();
+                    // Update the trigger
+                    updateTriggerInRepo(triggerGroup, triggerName, tw, tw.getRevision());
+                    // Remove trigger from waitingTriggers
+                    removeWaitingTrigger(trigger);
+                }
             }
-            tw.pause();
-            // Update the trigger
-            updateTriggerInRepo(triggerGroup, triggerName, tw, tw.getRevision());
-            // Remove trigger from waitingTriggers
-            removeWaitingTrigger(trigger);
         }
     }
 
     @Override
     public void pauseTriggerGroup(SchedulingContext context, String groupName)
             throws JobPersistenceException {
+        List<String> triggerNames;
         synchronized (lock) {
             try {
                 // Get trigger group, set paused, and update
@@ -893,10 +1062,7 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 getRepositoryService().update(
                         Requests.newUpdateRequest(TRIGGER_PAUSED_GROUP_NAMES_RESOURCE_PATH, pauseMap).setRevision(rev));
 
-                List<String> triggerNames = tgw.getTriggerNames();
-                for (String triggerName : triggerNames) {
-                    pauseTrigger(context, triggerName, groupName);
-                }
+                triggerNames = tgw.getTriggerNames();
             } catch (JsonValueException e) {
                 logger.warn("Error pausing trigger group {}", groupName, e);
                 throw new JobPersistenceException("Error pausing trigger group", e);
@@ -905,6 +1071,10 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 throw new JobPersistenceException("Error pausing trigger group", e);
             }
         }
+        // The trigger locks are taken before the global lock, pause the triggers once it is released
+        for (String triggerName : triggerNames) {
+            pauseTrigger(context, triggerName, groupName);
+        }
     }
 
     @Override
@@ -977,6 +1147,25 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     @Override
     public boolean removeTrigger(SchedulingContext context, String triggerName, String groupName)
             throws JobPersistenceException {
+        synchronized (getTriggerLock(groupName, triggerName)) {
+            Trigger trigger = retrieveTrigger(context, triggerName, groupName);
+            // Firing or completing a stateful job also updates the state of this trigger
+            Object jobLock = trigger != null ? getJobLock(trigger.getJobGroup(), trigger.getJobName()) : lock;
+            synchronized (jobLock) {
+                return removeStoredTrigger(triggerName, groupName);
+            }
+        }
+    }
+
+    /**
+     * Removes a Trigger, and its Job if the Job is not durable.
+     *
+     * @param triggerName the Trigger's name
+     * @param groupName the Trigger's group
+     * @return true if the Trigger was removed, false if it does not exist
+     * @throws JobPersistenceException
+     */
+    private boolean removeStoredTrigger(String triggerName, String groupName) throws JobPersistenceException {
         synchronized (lock) {
             String triggerId = getTriggersRepoId(groupName, triggerName);
             try {
@@ -1043,29 +1232,31 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     @Override
     public boolean replaceTrigger(SchedulingContext context, String triggerName, String groupName,
             Trigger newTrigger)  throws JobPersistenceException {
-        synchronized (lock) {
-            boolean deleted = false;
-            Trigger oldTrigger = null;
-            TriggerWrapper tw = getTriggerWrapper(groupName, triggerName);
-            if (tw != null) {
-                oldTrigger = tw.getTrigger();
-                if (!oldTrigger.getJobName().equals(newTrigger.getJobName())
-                        || !oldTrigger.getJobGroup().equals(newTrigger.getJobGroup())) {
-                    throw new JobPersistenceException("Error replacing trigger, new trigger references a different job");
-                }
-                logger.debug("Replacing trigger {} in group {} with trigger {} in group {}", triggerName, groupName, newTrigger.getName(), groupName);
-                deleted = removeTrigger(context, triggerName, groupName);
-            }
-            try {
-                storeTrigger(context, newTrigger, false);
-            } catch (JobPersistenceException e) {
-                logger.warn("Error replacing trigger {}, restoring old trigger", triggerName, e);
-                if (oldTrigger != null) {
-                    storeTrigger(context, oldTrigger, false);
+        synchronized (getTriggerLock(groupName, triggerName)) {
+            Trigger oldTrigger = retrieveTrigger(context, triggerName, groupName);
+            if (oldTrigger != null && (!oldTrigger.getJobName().equals(newTrigger.getJobName())
+                    || !oldTrigger.getJobGroup().equals(newTrigger.getJobGroup()))) {
+                throw new JobPersistenceException("Error replacing trigger, new trigger references a different job");
+            }
+            synchronized (getJobLock(newTrigger.getJobGroup(), newTrigger.getJobName())) {
+                synchronized (lock) {
+                    boolean deleted = false;
+                    if (oldTrigger != null) {
+                        logger.debug("Replacing trigger {} in group {} with trigger {} in group {}", triggerName, groupName, newTrigger.getName(), groupName);
+                        deleted = removeTrigger(context, triggerName, groupName);
+                    }
+                    try {
+                        storeTrigger(context, newTrigger, false);
+                    } catch (JobPersistenceException e) {
+                        logger.warn("Error replacing trigger {}, restoring old trigger", triggerName, e);
+                        if (oldTrigger != null) {
+                            storeTrigger(context, oldTrigger, false);
+                        }
+                        throw e;
+                    }
+                    return deleted;
                 }
-                throw e;
             }
-            return deleted;
         }
 
     }
@@ -1082,17 +1273,16 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     @Override
     public void resumeJob(SchedulingContext context, String jobName, String groupName)
             throws JobPersistenceException {
-        synchronized (lock) {
-            Trigger[] triggers = getTriggersForJob(context, jobName, groupName);
-            for (Trigger trigger : triggers) {
-                resumeTrigger(context, trigger.getName(), trigger.getGroup());
-            }
+        Trigger[] triggers = getTriggersForJob(context, jobName, groupName);
+        for (Trigger trigger : triggers) {
+            resumeTrigger(context, trigger.getName(), trigger.getGroup());
         }
     }
 
     @Override
     public void resumeJobGroup(SchedulingContext context, String groupName)
             throws JobPersistenceException {
+        List<String> jobNames;
         synchronized (lock) {
             try {
                 // Get job group, resume, and update
@@ -1113,10 +1303,7 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 getRepositoryService().update(
                         Requests.newUpdateRequest(JOB_PAUSED_GROUP_NAMES_RESOURCE_PATH, pauseMap).setRevision(rev));
 
-                List<String> jobNames = jgw.getJobNames();
-                for (String jobName : jobNames) {
-                    resumeJob(context, jobName, groupName);
-                }
+                jobNames = jgw.getJobNames();
             } catch (JsonValueException e) {
                 logger.warn("Error resuming job group {}", groupName, e);
                 throw new JobPersistenceException("Error resuming job group", e);
@@ -1125,35 +1312,44 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 throw new JobPersistenceException("Error resuming job group", e);
             }
         }
+        // The trigger locks are taken before the global lock, resume the triggers once it is released
+        for (String jobName : jobNames) {
+            resumeJob(context, jobName, groupName);
+        }
     }
 
     @Override
     public void resumeTrigger(SchedulingContext arg0, String triggerName, String triggerGroup)
             throws JobPersistenceException {
-        synchronized (lock) {
-            TriggerWrapper tw = getTriggerWrapper(triggerGroup, triggerName);
-            if (tw == null) {
+        synchronized (getTriggerLock(triggerGroup, triggerName)) {
+            Trigger trigger = retrieveTrigger(arg0, triggerName, triggerGroup);
+            if (trigger == null) {
                 logger.warn("Cannot resume trigger {} in group {}, trigger does not exist", triggerName, triggerGroup);
                 return;
             }
-            Trigger trigger;
-            try {
-                trigger = tw.getTrigger();
-            } catch (Exception e) {
-                logger.warn("Error deserializing trigger", e);
-                throw new JobPersistenceException("Error deserializing trigger", e);
+            // Firing or completing a stateful job also updates the state of this trigger
+            synchronized (getJobLock(trigger.getJobGroup(), trigger.getJobName())) {
+                synchronized (lock) {
+                    TriggerWrapper tw = getTriggerWrapper(triggerGroup, triggerName);
+                    if (tw == null) {
+                        logger.warn("Cannot resume trigger {} in group {}, trigger does not exist", triggerName,
+                                triggerGroup);
+                        return;
+                    }
+                    tw.resume();
+                    // Update the trigger
+                    updateTriggerInRepo(triggerGroup, triggerName, tw, tw.getRevision());
+                    // Add trigger to waitingTriggers
+                    addWaitingTrigger(trigger);
+                }
             }
-            tw.resume();
-            // Update the trigger
-            updateTriggerInRepo(triggerGroup, triggerName, tw, tw.getRevision());
-            // Add trigger to waitingTriggers
-            addWaitingTrigger(trigger);
         }
     }
 
     @Override
     public void resumeTriggerGroup(SchedulingContext context, String groupName)
             throws JobPersistenceException {
+        List<String> triggerNames;
         synchronized (lock) {
             try {
                 // Get trigger group, resume, and update
@@ -1176,10 +1372,7 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 getRepositoryService().update(Requests.newUpdateRequest(TRIGGER_PAUSED_GROUP_NAMES_RESOURCE_PATH, pauseMap)
                                 .setRevision(rev));
 
-                List<String> triggerNames = tgw.getTriggerNames();
-                for (String triggerName : triggerNames) {
-                    resumeTrigger(context, triggerName, groupName);
-                }
+                triggerNames = tgw.getTriggerNames();
             } catch (JsonValueException e) {
                 logger.warn("Error pausing trigger group", groupName, e);
                 throw new JobPersistenceException("Error deserializing trigger", e);
@@ -1188,44 +1381,44 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 throw new JobPersistenceException("Error pausing trigger group", e);
             }
         }
+        // The trigger locks are taken before the global lock, resume the triggers once it is released
+        for (String triggerName : triggerNames) {
+            resumeTrigger(context, triggerName, groupName);
+        }
     }
 
     @Override
     public Calendar retrieveCalendar(SchedulingContext context, String name)
             throws JobPersistenceException {
-        synchronized (lock) {
-            if (name != null) {
-                CalendarWrapper cw = getCalendarWrapper(name);
-                if (cw != null) {
-                    try {
-                        return cw.getCalendar();
-                    } catch (Exception e) {
-                        logger.warn("Error retrieving calendar", e);
-                        throw new JobPersistenceException("Error retrieving calendar", e);
-                    }
+        if (name != null) {
+            CalendarWrapper cw = getCalendarWrapper(name);
+            if (cw != null) {
+                try {
+                    return cw.getCalendar();
+                } catch (Exception e) {
+                    logger.warn("Error retrieving calendar", e);
+                    throw new JobPersistenceException("Error retrieving calendar", e);
                 }
             }
-            return null;
         }
+        return null;
     }
 
     @Override
     public JobDetail retrieveJob(SchedulingContext context, String jobName,
             String jobGroup) throws JobPersistenceException {
-        synchronized (lock) {
-            if (logger.isTraceEnabled()) {
-                logger.trace("Getting job {}", getJobsRepoId(jobGroup, jobName));
-            }
-            JobWrapper jw = getJobWrapper(jobGroup, jobName);
-            if (jw == null) {
-                return null;
-            }
-            try {
-                return jw.getJobDetail();
-            } catch (Exception e) {
-                logger.warn("Error retrieving job", e);
-                throw new JobPersistenceException("Error retrieving job", e);
-            }
+        if (logger.isTraceEnabled()) {
+            logger.trace("Getting job {}", getJobsRepoId(jobGroup, jobName));
+        }
+        JobWrapper jw = getJobWrapper(jobGroup, jobName);
+        if (jw == null) {
+            return null;
+        }
+        try {
+            return jw.getJobDetail();
+        } catch (Exception e) {
+            logger.warn("Error retrieving job", e);
+            throw new JobPersistenceException("Error retrieving job", e);
         }
     }
 
@@ -1251,134 +1444,153 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
 
     public CalendarWrapper getCalendarWrapper(String name)
             throws JobPersistenceException {
-        synchronized (lock) {
-            try {
-                if (logger.isTraceEnabled()) {
-                    logger.trace("Getting calendar {}", getCalendarsRepoId(name));
-                }
-                Map<String, Object> calMap = readFromRepo(getCalendarsRepoId(name)).asMap();
-                if (calMap == null) {
-                    return null;
-                }
-                CalendarWrapper cal = new CalendarWrapper(calMap);
-                return cal;
-            } catch (ResourceException e) {
-                logger.warn("Error retrieving calendar", e);
-                throw new JobPersistenceException("Error retrieving calendar", e);
-            } catch (Exception e) {
-                logger.warn("Error retrieving calendar", e);
-                throw new JobPersistenceException("Error retrieving calendar", e);
+        try {
+            if (logger.isTraceEnabled()) {
+                logger.trace("Getting calendar {}", getCalendarsRepoId(name));
+            }
+            Map<String, Object> calMap = readFromRepo(getCalendarsRepoId(name)).asMap();
+            if (calMap == null) {
+                return null;
             }
+            CalendarWrapper cal = new CalendarWrapper(calMap);
+            return cal;
+        } catch (ResourceException e) {
+            logger.warn("Error retrieving calendar", e);
+            throw new JobPersistenceException("Error retrieving calendar", e);
+        } catch (Exception e) {
+            logger.warn("Error retrieving calendar", e);
+            throw new JobPersistenceException("Error retrieving calendar", e);
         }
     }
 
     @Override
     public Trigger retrieveTrigger(SchedulingContext context, String triggerName, String triggerGroup)
             throws JobPersistenceException {
-        synchronized (lock) {
-            try {
-                TriggerWrapper tw = getTriggerWrapper(triggerGroup, triggerName);
-                if (tw == null) {
-                    return null;
-                }
-                return tw.getTrigger();
-            } catch (Exception e) {
-                logger.warn("Error retrieving trigger", e);
-                throw new JobPersistenceException("Error retrieving trigger", e);
+        try {
+            TriggerWrapper tw = getTriggerWrapper(triggerGroup, triggerName);
+            if (tw == null) {
+                return null;
             }
+            return tw.getTrigger();
+        } catch (Exception e) {
+            logger.warn("Error retrieving trigger", e);
+            throw new JobPersistenceException("Error retrieving trigger", e);
         }
     }
 
     @Override
     public TriggerFiredBundle triggerFired(SchedulingContext context, Trigger trigger)
             throws JobPersistenceException {
-        synchronized (lock) {
+        synchronized (getTriggerLock(trigger.getGroup(), trigger.getName())) {
             logger.debug("Trigger {} has fired", trigger.getFullName());
-            TriggerWrapper tw;
-            try {
-                tw = getTriggerWrapper(trigger.getGroup(), trigger.getName());
-            } catch (Exception e) {
-                logger.warn("Error setting trigger fired", e);
-                throw new JobPersistenceException("Error setting trigger fired", e);
+            JobDetail job = retrieveJob(context, trigger.getJobName(), trigger.getJobGroup());
+            if (job != null && job.isStateful()) {
+                // Block the other triggers of the job atomically with respect to their acquisition
+                synchronized (getJobLock(job.getGroup(), job.getName())) {
+                    if (blockedJobs.contains(getJobNameKey(job))) {
+                        logger.debug("Job {} is blocked, not firing trigger {}", job.getFullName(),
+                                trigger.getFullName());
+                        return null;
+                    }
+                    return fireTrigger(context, trigger, job);
+                }
             }
-            if (tw == null) {
-                logger.warn("Error setting trigger fired, trigger does not exist");
+            return fireTrigger(context, trigger, job);
+        }
+    }
+
+    /**
+     * Sets a Trigger fired, and blocks the other Triggers of its Job if the Job is stateful.
+     *
+     * @param context the SchedulingContext
+     * @param trigger the fired Trigger
+     * @param job the Trigger's Job
+     * @return the TriggerFiredBundle, or null if the Trigger or its calendar no longer exist
+     * @throws JobPersistenceException
+     */
+    private TriggerFiredBundle fireTrigger(SchedulingContext context, Trigger trigger, JobDetail job)
+            throws JobPersistenceException {
+        TriggerWrapper tw;
+        try {
+            tw = getTriggerWrapper(trigger.getGroup(), trigger.getName());
+        } catch (Exception e) {
+            logger.warn("Error setting trigger fired", e);
+            throw new JobPersistenceException("Error setting trigger fired", e);
+        }
+        if (tw == null) {
+            logger.warn("Error setting trigger fired, trigger does not exist");
+            return null;
+        }
+        if (!tw.isAcquired()) {
+            logger.warn("Error setting trigger fired, trigger was not in acquired state");
+        }
+        Trigger localTrigger;
+        try {
+            localTrigger = tw.getTrigger();
+        } catch (Exception e) {
+            logger.warn("Error setting trigger fired", e);
+            throw new JobPersistenceException("Error setting trigger fired", e);
+        }
+        Calendar triggerCalendar = null;
+        if (localTrigger.getCalendarName() != null) {
+            CalendarWrapper cw = getCalendarWrapper(localTrigger.getCalendarName());
+            if (cw == null) {
+                logger.warn("Error setting trigger fired, cannot find trigger's calendar");
                 return null;
-            }
-            if (!tw.isAcquired()) {
-                logger.warn("Error setting trigger fired, trigger was not in acquired state");
-            }
-            Trigger localTrigger;
-            try {
-                localTrigger = tw.getTrigger();
-            } catch (Exception e) {
-                logger.warn("Error setting trigger fired", e);
-                throw new JobPersistenceException("Error setting trigger fired", e);
-            }
-            Calendar triggerCalendar = null;
-            if (localTrigger.getCalendarName() != null) {
-                CalendarWrapper cw = getCalendarWrapper(localTrigger.getCalendarName());
-                if (cw == null) {
-                    logger.warn("Error setting trigger fired, cannot find trigger's calendar");
-                    return null;
-                } else {
-                    try {
-                        triggerCalendar = cw.getCalendar();
-                    } catch (Exception e) {
-                        logger.warn("Error retrieving calendar", e);
-                        throw new JobPersistenceException("Error retrieving calendar", e);
-                    }
+            } else {
+                try {
+                    triggerCalendar = cw.getCalendar();
+                } catch (Exception e) {
+                    logger.warn("Error retrieving calendar", e);
+                    throw new JobPersistenceException("Error retrieving calendar", e);
                 }
             }
+        }
 
-            Date previousFireTime = trigger.getPreviousFireTime();
-            removeWaitingTrigger(trigger);
+        Date previousFireTime = trigger.getPreviousFireTime();
+        removeWaitingTrigger(trigger);
 
-            localTrigger.triggered(triggerCalendar);
-            tw.updateTrigger(localTrigger);
-            updateTriggerInRepo(localTrigger.getGroup(), localTrigger.getName(), tw, tw.getRevision());
-
-            trigger.triggered(triggerCalendar);
-
-            // Set trigger into the normal/waiting state
-            tw.setState(Trigger.STATE_NORMAL);
-            TriggerFiredBundle tfb = new TriggerFiredBundle(retrieveJob(context, trigger.getJobName(),
-                    trigger.getJobGroup()),
-                    trigger,
-                    triggerCalendar,
-                    false,
-                    new Date(),
-                    trigger.getPreviousFireTime(),
-                    previousFireTime,
-                    trigger.getNextFireTime());
-
-            JobDetail job = tfb.getJobDetail();
-
-            if (job.isStateful()) {
-                Trigger[] triggers = getTriggersForJob(context, job.getName(), job.getGroup());
-                for (Trigger t : triggers) {
-                    TriggerWrapper tmpTw = getTriggerWrapper(t.getGroup(), t.getName());
-                    if (tmpTw != null) {
-                        if (tmpTw.getState() == Trigger.STATE_NORMAL || tmpTw.getState() == Trigger.STATE_PAUSED) {
-                            tmpTw.block();
-                        }
-                        // update trigger in repo
-                        updateTriggerInRepo(t.getGroup(), tmpTw.getName(), tmpTw, tmpTw.getRevision());
-                        removeWaitingTrigger(t);
+        localTrigger.triggered(triggerCalendar);
+        tw.updateTrigger(localTrigger);
+        updateTriggerInRepo(localTrigger.getGroup(), localTrigger.getName(), tw, tw.getRevision());
+
+        trigger.triggered(triggerCalendar);
+
+        // Set trigger into the normal/waiting state
+        tw.setState(Trigger.STATE_NORMAL);
+        TriggerFiredBundle tfb = new TriggerFiredBundle(job,
+                trigger,
+                triggerCalendar,
+                false,
+                new Date(),
+                trigger.getPreviousFireTime(),
+                previousFireTime,
+                trigger.getNextFireTime());
+
+        if (job.isStateful()) {
+            Trigger[] triggers = getTriggersForJob(context, job.getName(), job.getGroup());
+            for (Trigger t : triggers) {
+                TriggerWrapper tmpTw = getTriggerWrapper(t.getGroup(), t.getName());
+                if (tmpTw != null) {
+                    if (tmpTw.getState() == Trigger.STATE_NORMAL || tmpTw.getState() == Trigger.STATE_PAUSED) {
+                        tmpTw.block();
                     }
+                    // update trigger in repo
+                    updateTriggerInRepo(t.getGroup(), tmpTw.getName(), tmpTw, tmpTw.getRevision());
+                    removeWaitingTrigger(t);
                 }
-                blockedJobs.add(getJobNameKey(job));
-            } else if (localTrigger.getNextFireTime() != null) {
-                addWaitingTrigger(localTrigger);
             }
-            return tfb;
+            blockedJobs.add(getJobNameKey(job));
+        } else if (localTrigger.getNextFireTime() != null) {
+            addWaitingTrigger(localTrigger);
         }
+        return tfb;
     }
 
     @Override
     public void triggeredJobComplete(SchedulingContext context, Trigger trigger,
             JobDetail jobDetail, int triggerInstCode) throws JobPersistenceException {
-        synchronized(lock) {
+        synchronized (getTriggerLock(trigger.getGroup(), trigger.getName())) {
             logger.debug("Job {} has completed", jobDetail.getFullName());
             String jobKey = getJobNameKey(jobDetail);
             JobWrapper jw = getJobWrapper(jobDetail.getGroup(), jobDetail.getName());
@@ -1409,20 +1621,23 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                         newData.clearDirtyFlag();
                     }
                     jd.setJobDataMap(newData);
-                    blockedJobs.remove(getJobNameKey(jd));
-                    Trigger[] triggers = getTriggersForJob(context, jd.getName(), jd.getGroup());
-                    for (Trigger t : triggers) {
-                        TriggerWrapper tmpTw = getTriggerWrapper(t.getGroup(), t.getName());
-                        if (tmpTw != null) {
-                            if (tmpTw.getState() == Trigger.STATE_BLOCKED) {
-                                tmpTw.unblock();
-                            }
-                            tmpTw.setAcquired(false);
-                            tmpTw.setNodeId(null);
-                            // update trigger in repo
-                            updateTriggerInRepo(t.getGroup(), tmpTw.getName(), tmpTw, tmpTw.getRevision());
-                            if (!tmpTw.isPaused()) {
-                                addWaitingTrigger(t);
+                    // Unblock the triggers of the job atomically with respect to their acquisition
+                    synchronized (getJobLock(jd.getGroup(), jd.getName())) {
+                        blockedJobs.remove(getJobNameKey(jd));
+                        Trigger[] triggers = getTriggersForJob(context, jd.getName(), jd.getGroup());
+                        for (Trigger t : triggers) {
+                            TriggerWrapper tmpTw = getTriggerWrapper(t.getGroup(), t.getName());
+                            if (tmpTw != null) {
+                                if (tmpTw.getState() == Trigger.STATE_BLOCKED) {
+                                    tmpTw.unblock();
+                                }
+                                tmpTw.setAcquired(false);
+                                tmpTw.setNodeId(null);
+                                // update trigger in repo
+                                updateTriggerInRepo(t.getGroup(), tmpTw.getName(), tmpTw, tmpTw.getRevision());
+                                if (!tmpTw.isPaused()) {
+                                    addWaitingTrigger(t);
+                                }
                             }
                         }
                     }
@@ -1582,226 +1797,232 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     }
 
     /**
-     * Adds a Trigger to the list of waiting triggers.
+     * Adds a Trigger to the waiting triggers, or updates its next fire time if it is already waiting.
+     * Each waiting trigger is a repo object of its own, so that triggers are added, acquired and
+     * removed independently of each other.
      *
      * @param trigger   the Trigger to add
      * @throws JobPersistenceException
-     * @throws ResourceException
      */
     private void addWaitingTrigger(Trigger trigger) throws JobPersistenceException {
-        synchronized (lock) {
-            try {
-                int retries = 0;
-                while (writeRetries == -1 || retries <= writeRetries && !shutdown) {
-                    try {
-                        // update repo
-                        addRepoListName(getTriggerId(trigger.getGroup(), trigger.getName()),
-                                WAITING_TRIGGERS_RESOURCE_PATH, "names");
-                        break;
-                    } catch (PreconditionFailedException e) {
-                        logger.debug("Adding waiting trigger failed {}, retrying", e);
-                        retries++;
+        if (trigger.getNextFireTime() == null) {
+            logger.debug("Trigger {} has no next fire time, not adding it to the waiting triggers", trigger.getName());
+            removeWaitingTrigger(trigger);
+            return;
+        }
+        String repoId = getWaitingTriggersRepoId(trigger.getGroup(), trigger.getName());
+        try {
+            int retries = 0;
+            while (writeRetries == -1 || retries <= writeRetries && !shutdown) {
+                JsonValue value = json(object(
+                        field("group", trigger.getGroup()),
+                        field("name", trigger.getName()),
+                        field("nextFireTime", toIndexedTime(trigger.getNextFireTime().getTime())),
+                        field("priority", trigger.getPriority())));
+                try {
+                    JsonValue waiting = readFromRepo(repoId);
+                    if (waiting.isNull()) {
+                        getRepositoryService().create(getCreateRequest(repoId, value));
+                    } else {
+                        getRepositoryService().update(
+                                Requests.newUpdateRequest(repoId, value).setRevision(waiting.get("_rev").asString()));
                     }
+                    break;
+                } catch (PreconditionFailedException | NotFoundException e) {
+                    logger.debug("Adding waiting trigger failed {}, retrying", e);
+                    retries++;
                 }
-            } catch (ResourceException e) {
-                throw new JobPersistenceException("Error adding waiting trigger", e);
             }
+        } catch (ResourceException e) {
+            throw new JobPersistenceException("Error adding waiting trigger", e);
         }
     }
 
     /**
-     * Removes a Trigger from the list of waiting triggers.
+     * Removes a Trigger from the waiting triggers.
      *
      * @param trigger   the Trigger to remove
+     * @return  true if the Trigger was removed, false if it was not waiting or was removed concurrently
      * @throws JobPersistenceException
-     * @throws ResourceException
      */
     private boolean removeWaitingTrigger(Trigger trigger) throws JobPersistenceException {
-        synchronized (lock) {
-            try {
-                boolean result = false;
-                int retries = 0;
-                while (writeRetries == -1 || retries <= writeRetries && !shutdown) {
-                    try {
-                        result = removeRepoListName(getTriggerId(trigger.getGroup(), trigger.getName()),
-                                WAITING_TRIGGERS_RESOURCE_PATH, "names");
-                        break;
-                    } catch (PreconditionFailedException e) {
-                        logger.debug("Removing waiting trigger failed {}, retrying", e);
-                        retries++;
-                    }
+        String repoId = getWaitingTriggersRepoId(trigger.getGroup(), trigger.getName());
+        try {
+            int retries = 0;
+            while (writeRetries == -1 || retries <= writeRetries && !shutdown) {
+                JsonValue waiting = readFromRepo(repoId);
+                if (waiting.isNull()) {
+                    return false;
+                }
+                try {
+                    getRepositoryService().delete(
+                            Requests.newDeleteRequest(repoId).setRevision(waiting.get("_rev").asString()));
+                    return true;
+                } catch (NotFoundException e) {
+                    return false;
+                } catch (PreconditionFailedException e) {
+                    logger.debug("Removing waiting trigger failed {}, retrying", e);
+                    retries++;
                 }
-                return result;
-            } catch (ResourceException e) {
-                throw new JobPersistenceException("Error removing waiting trigger", e);
             }
+            return false;
+        } catch (ResourceException e) {
+            throw new JobPersistenceException("Error removing waiting trigger", e);
         }
     }
 
     /**
-     * Adds a Trigger to the list of acquired triggers.
+     * Claims a waiting Trigger by removing it from the waiting triggers, provided it was not updated
+     * or removed since it was read. Only one thread or node can claim a given waiting Trigger.
      *
-     * @param trigger    the Trigger to add
-     * @param instanceId the instance ID
+     * @param repoId    the repository ID of the waiting Trigger
+     * @param revision  the revision of the waiting Trigger when it was read
+     * @return  true if the Trigger was claimed, false otherwise
      * @throws JobPersistenceException
-     * @throws ResourceException
      */
-    private void addAcquiredTrigger(Trigger trigger, String instanceId) throws JobPersistenceException {
-        synchronized (lock) {
-            try {
-                logger.debug("Adding acquired trigger {} for instance {}", trigger.getName(), instanceId);
-                int retries = 0;
-                while (writeRetries == -1 || retries <= writeRetries && !shutdown) {
-                    try {
-                        addRepoListName(getTriggerId(trigger.getGroup(), trigger.getName()),
-                                ACQUIRED_TRIGGERS_RESOURCE_PATH, instanceId);
-                        break;
-                    } catch (PreconditionFailedException e) {
-                        logger.debug("Adding acquired trigger failed {}, retrying", e);
-                        retries++;
-                    }
-                }
-            } catch (ResourceException e) {
-                throw new JobPersistenceException("Error adding waiting trigger", e);
+    private boolean claimWaitingTrigger(String repoId, String revision) throws JobPersistenceException {
+        try {
+            getRepositoryService().delete(Requests.newDeleteRequest(repoId).setRevision(revision));
+            return true;
+        } catch (NotFoundException | PreconditionFailedException e) {
+            return false;
+        } catch (ResourceException e) {
+            throw new JobPersistenceException("Error claiming waiting trigger", e);
+        }
+    }
+
+    /**
+     * Queries the waiting triggers due no later than a given time, in the order they are to be acquired.
+     *
+     * @param noLaterThan   the latest next fire time, or 0 for all waiting triggers
+     * @return  at most {@link #acquireBatchSize} waiting triggers
+     * @throws JobPersistenceException
+     */
+    private List<ResourceResponse> queryWaitingTriggers(long noLaterThan) throws JobPersistenceException {
+        QueryRequest request = Requests.newQueryRequest(WAITING_TRIGGERS_RESOURCE_PATH)
+                .setQueryFilter(noLaterThan > 0
+                        ? QueryFilter.lessThanOrEqualTo(NEXT_FIRE_TIME, toIndexedTime(noLaterThan))
+                        : QueryFilter.<JsonPointer>alwaysTrue())
+                .addSortKey(SortKey.ascendingOrder(NEXT_FIRE_TIME))
+                .setPageSize(acquireBatchSize);
+        try {
+            List<ResourceResponse> waitingTriggers = new ArrayList<>(getRepositoryService().query(request));
+            // Order triggers due at the same time by priority
+            Collections.sort(waitingTriggers, WAITING_TRIGGER_ORDER);
+            return waitingTriggers;
+        } catch (ResourceException e) {
+            logger.warn("Error querying waiting triggers", e);
+            throw new JobPersistenceException("Error querying waiting triggers", e);
+        }
+    }
+
+    /**
+     * Returns the IDs of all waiting triggers.
+     *
+     * @return  the Trigger IDs
+     * @throws JobPersistenceException
+     */
+    private Set<String> getWaitingTriggerIds() throws JobPersistenceException {
+        Set<String> ids = new HashSet<>();
+        try {
+            for (ResourceResponse waiting : getRepositoryService().query(
+                    Requests.newQueryRequest(WAITING_TRIGGERS_RESOURCE_PATH)
+                            .setQueryFilter(QueryFilter.<JsonPointer>alwaysTrue()))) {
+                ids.add(waiting.getId());
             }
+        } catch (ResourceException e) {
+            logger.warn("Error querying waiting triggers", e);
+            throw new JobPersistenceException("Error querying waiting triggers", e);
         }
+        return ids;
     }
 
     /**
-     * Removes a Trigger from the list of acquired triggers.
+     * Adds a Trigger to the list of triggers acquired by an instance.
      *
-     * @param trigger    the Trigger to remove
+     * @param trigger    the Trigger to add
      * @param instanceId the instance ID
      * @throws JobPersistenceException
      * @throws ResourceException
      */
-    private boolean removeAcquiredTrigger(Trigger trigger, String instanceId) throws JobPersistenceException {
-        synchronized (lock) {
-            try {
-                logger.debug("Removing acquired trigger {} for instance {}", trigger.getName(), instanceId);
-                boolean result = false;
-                int retries = 0;
-                while (writeRetries == -1 || retries <= writeRetries && !shutdown) {
-                    try {
-                        result = removeRepoListName(getTriggerId(trigger.getGroup(), trigger.getName()),
-                                ACQUIRED_TRIGGERS_RESOURCE_PATH, instanceId);
-                        break;
-                    } catch (PreconditionFailedException e) {
-                        logger.debug("Removing acquired trigger failed {}, retrying", e);
-                        retries++;
-                    }
+    private void addAcquiredTrigger(Trigger trigger, String instanceId) throws JobPersistenceException {
+        try {
+            logger.debug("Adding acquired trigger {} for instance {}", trigger.getName(), instanceId);
+            int retries = 0;
+            while (writeRetries == -1 || retries <= writeRetries && !shutdown) {
+                try {
+                    addRepoListName(getTriggerId(trigger.getGroup(), trigger.getName()),
+                            getAcquiredTriggersRepoId(instanceId), "names");
+                    break;
+                } catch (PreconditionFailedException e) {
+                    logger.debug("Adding acquired trigger failed {}, retrying", e);
+                    retries++;
                 }
-                return result;
-            } catch (ResourceException e) {
-                throw new JobPersistenceException("Error removing waiting trigger", e);
             }
+        } catch (ResourceException e) {
+            throw new JobPersistenceException("Error adding waiting trigger", e);
         }
     }
 
     /**
-     * Returns the an AcquiredTriggers object which wraps the List of all triggers in the "acquired" state
+     * Removes a Trigger from the list of triggers acquired by an instance.
      *
-     * @param instanceId    the ID of the instance that acquired the triggers
-     * @return  the WaitingTriggers object
+     * @param trigger    the Trigger to remove
+     * @param instanceId the instance ID
      * @throws JobPersistenceException
+     * @throws ResourceException
      */
-    private AcquiredTriggers getAcquiredTriggers(String instanceId) throws JobPersistenceException {
-        List<Trigger> acquiredTriggers = new ArrayList<Trigger>();
-        List<String> acquiredTriggerIds = new ArrayList<String>();
-        String repoId = ACQUIRED_TRIGGERS_RESOURCE_PATH;
-        String revision = null;
-        JsonValue map;
+    private boolean removeAcquiredTrigger(Trigger trigger, String instanceId) throws JobPersistenceException {
         try {
-            try {
-                map = getRepositoryService().read(Requests.newReadRequest(repoId)).getContent();
-            } catch (NotFoundException e) {
-                logger.trace("repo list {} not found, lets create it", "names");
-                map = null;
-            }
-            if (map == null || map.isNull()) {
-                map = json(object(field(instanceId, acquiredTriggerIds)));
-                // create in repo
-                map = getRepositoryService().create(getCreateRequest(repoId, map)).getContent();
-                revision = map.get("_rev").asString();
-            } else {
-                // else check if list exists in map
-                acquiredTriggerIds = map.get(instanceId).asList(String.class);
-                revision = map.get("_rev").asString();
-                if (acquiredTriggerIds == null) {
-                    acquiredTriggerIds = new ArrayList<>();
-                    map.put(instanceId, acquiredTriggerIds);
-                    JsonValue updatedValue = getRepositoryService().update(
-                            Requests.newUpdateRequest(repoId, map).setRevision(revision)).getContent();
-                    revision = updatedValue.get("_rev").asString();
-                }
-            }
-            for (String id : acquiredTriggerIds) {
-                TriggerWrapper tw = getTriggerWrapper(getGroupFromId(id), getNameFromId(id));
-                if (tw == null) {
-                    logger.warn("Could not add {} to list of waiting Triggers. Trigger not found in repo", id);
-                } else {
-                    logger.trace("Found acquired trigger {} in group {}", tw.getName(),tw.getGroup());
-                    acquiredTriggers.add(tw.getTrigger());
+            logger.debug("Removing acquired trigger {} for instance {}", trigger.getName(), instanceId);
+            boolean result = false;
+            int retries = 0;
+            while (writeRetries == -1 || retries <= writeRetries && !shutdown) {
+                try {
+                    result = removeRepoListName(getTriggerId(trigger.getGroup(), trigger.getName()),
+                            getAcquiredTriggersRepoId(instanceId), "names");
+                    break;
+                } catch (PreconditionFailedException e) {
+                    logger.debug("Removing acquired trigger failed {}, retrying", e);
+                    retries++;
                 }
             }
-            return new AcquiredTriggers(acquiredTriggers, revision);
+            return result;
         } catch (ResourceException e) {
-            logger.warn("Error initializing waiting triggers", e);
-            throw new JobPersistenceException("Error initializing waiting triggers", e);
+            throw new JobPersistenceException("Error removing waiting trigger", e);
         }
     }
 
     /**
-     * Returns the a WaitingTriggers object which wraps the Tree of all triggers in the "waiting" state
+     * Returns the an AcquiredTriggers object which wraps the List of all triggers in the "acquired" state
      *
-     * @return  the WaitingTriggers object
+     * @param instanceId    the ID of the instance that acquired the triggers
+     * @return  the AcquiredTriggers object
      * @throws JobPersistenceException
      */
-    private WaitingTriggers getWaitingTriggers() throws JobPersistenceException {
-        TreeSet<Trigger> waitingTriggers = new TreeSet<>(new TriggerComparator());
-        List<String> waitingTriggersRepoList = null;
-        final String repoId = WAITING_TRIGGERS_RESOURCE_PATH;
-        String revision = null;
-        JsonValue map;
+    private AcquiredTriggers getAcquiredTriggers(String instanceId) throws JobPersistenceException {
+        List<Trigger> acquiredTriggers = new ArrayList<Trigger>();
         try {
-            try {
-                map = getRepositoryService().read(Requests.newReadRequest(repoId)).getContent();
-            } catch (NotFoundException e) {
-                logger.debug("repo list {} not found, lets create it", "names");
-                map = null;
-            }
-            if (map == null || map.isNull()) {
-                map = json(object());
-                waitingTriggersRepoList = new ArrayList<>();
-                map.put("names", waitingTriggersRepoList);
-                // create in repo
-                map = getRepositoryService().create(getCreateRequest(repoId, map)).getContent();
-                revision = map.get("_rev").asString();
-            } else {
-                // else check if list exists in map
-                waitingTriggersRepoList = map.get("names").asList(String.class);
-                revision = map.get("_rev").asString();
-                if (waitingTriggersRepoList == null) {
-                    waitingTriggersRepoList = new ArrayList<>();
-                    map.put("names", waitingTriggersRepoList);
-                    JsonValue updatedValue = getRepositoryService().update(Requests.newUpdateRequest(repoId, map)
-                                    .setRevision(revision)).getContent();
-                    revision = updatedValue.get("_rev").asString();
-                }
-            }
-            for (String id : waitingTriggersRepoList) {
-                TriggerWrapper tw = getTriggerWrapper(getGroupFromId(id), getNameFromId(id));
-                if (tw == null) {
-                    logger.warn("Could not add {} to list of waiting Triggers. Trigger not found in repo", id);
-                } else {
-                    logger.debug("Found waiting trigger {} in group {}", tw.getName(),tw.getGroup());
-                    waitingTriggers.add(tw.getTrigger());
+            JsonValue map = readFromRepo(getAcquiredTriggersRepoId(instanceId));
+            if (map.isNull()) {
+                return new AcquiredTriggers(acquiredTriggers, null);
+            }
+            List<String> acquiredTriggerIds = map.get("names").asList(String.class);
+            if (acquiredTriggerIds != null) {
+                for (String id : acquiredTriggerIds) {
+                    TriggerWrapper tw = getTriggerWrapper(getGroupFromId(id), getNameFromId(id));
+                    if (tw == null) {
+                        logger.warn("Could not add {} to list of acquired Triggers. Trigger not found in repo", id);
+                    } else {
+                        logger.trace("Found acquired trigger {} in group {}", tw.getName(),tw.getGroup());
+                        acquiredTriggers.add(tw.getTrigger());
+                    }
                 }
             }
-            return new WaitingTriggers(waitingTriggers, revision);
+            return new AcquiredTriggers(acquiredTriggers, map.get("_rev").asString());
         } catch (ResourceException e) {
-            logger.warn("Error initializing waiting triggers", e);
-            throw new JobPersistenceException("Error initializing waiting triggers", e);
+            logger.warn("Error initializing acquired triggers", e);
+            throw new JobPersistenceException("Error initializing acquired triggers", e);
         }
     }
 
@@ -1838,23 +2059,21 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
      */
     private void addRepoListName(String name, String id, String list)
             throws JobPersistenceException, ResourceException {
-        synchronized (lock) {
-            logger.trace("Adding name: {} to {}", name, id);
-            JsonValue map = getOrCreateRepo(id);
-            String rev = map.get("_rev").asString();
+        logger.trace("Adding name: {} to {}", name, id);
+        JsonValue map = getOrCreateRepo(id);
+        String rev = map.get("_rev").asString();
 
-            List<String> names = map.get(list).asList(String.class);
-            if (names == null) {
-                names = new ArrayList<>();
-                map.put(list, names);
-            }
-            if (!names.contains(name)) {
-                names.add(name);
-            }
-            // update repo
-            getRepositoryService().update(Requests.newUpdateRequest(id, map)
-                            .setRevision(rev));
+        List<String> names = map.get(list).asList(String.class);
+        if (names == null) {
+            names = new ArrayList<>();
+            map.put(list, names);
         }
+        if (!names.contains(name)) {
+            names.add(name);
+        }
+        // update repo
+        getRepositoryService().update(Requests.newUpdateRequest(id, map)
+                        .setRevision(rev));
 
     }
 
@@ -1869,39 +2088,35 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
      */
      private boolean removeRepoListName(String name, String id, String list)
             throws JobPersistenceException, ResourceException {
-        synchronized (lock) {
-            logger.trace("Removing name: {} from {}", name, id);
-            JsonValue map = getOrCreateRepo(id);
-            String rev = map.get("_rev").asString();
+        logger.trace("Removing name: {} from {}", name, id);
+        JsonValue map = getOrCreateRepo(id);
+        String rev = map.get("_rev").asString();
 
-            List<String> names = map.get(list).asList(String.class);
-            if (names == null) {
-                names = new ArrayList<>();
-                map.put(list, names);
-            }
-            boolean result = names.remove(name);
-            if (result) {
-                // update repo
-                getRepositoryService().update(Requests.newUpdateRequest(id, map).setRevision(rev));
-            }
-            return result;
+        List<String> names = map.get(list).asList(String.class);
+        if (names == null) {
+            names = new ArrayList<>();
+            map.put(list, names);
+        }
+        boolean result = names.remove(name);
+        if (result) {
+            // update repo
+            getRepositoryService().update(Requests.newUpdateRequest(id, map).setRevision(rev));
         }
+        return result;
 
     }
 
 
     private JsonValue getOrCreateRepo(String repoId) throws JobPersistenceException, ResourceException {
-        synchronized (lock) {
-            JsonValue map = readFromRepo(repoId);
+        JsonValue map = readFromRepo(repoId);
 
-            if (map.isNull()) {
-                map = json(object());
-                // create in repo
-                logger.debug("Creating repo {}", repoId);
-                map = getRepositoryService().create(getCreateRequest(repoId, map)).getContent();
-            }
-            return map;
+        if (map.isNull()) {
+            map = json(object());
+            // create in repo
+            logger.debug("Creating repo {}", repoId);
+            map = getRepositoryService().create(getCreateRequest(repoId, map)).getContent();
         }
+        return map;
     }
 
     private List<String> getOrCreateRepoList(String repoId, String listId)
@@ -1946,14 +2161,12 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
      * @throws JobPersistenceException
      */
     private JsonValue getTriggerFromRepo(String group, String name) throws JobPersistenceException {
-        synchronized (lock) {
-            try {
-                logger.trace("Getting trigger {} in group {} from repo", name, group);
-                return readFromRepo(getTriggersRepoId(group, name));
-            } catch (ResourceException e) {
-                logger.warn("Error getting trigger from repo", e);
-                throw new JobPersistenceException("Error getting trigger from repo", e);
-            }
+        try {
+            logger.trace("Getting trigger {} in group {} from repo", name, group);
+            return readFromRepo(getTriggersRepoId(group, name));
+        } catch (ResourceException e) {
+            logger.warn("Error getting trigger from repo", e);
+            throw new JobPersistenceException("Error getting trigger from repo", e);
         }
     }
 
@@ -1967,19 +2180,17 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
      */
     private void updateTriggerInRepo(String group, String name, TriggerWrapper tw, String rev)
             throws JobPersistenceException {
-        synchronized (lock) {
-            try {
-                if (logger.isTraceEnabled()) {
-                    logger.trace("Getting trigger {}", getTriggersRepoId(group, name));
-                }
-                String repoId = getTriggersRepoId(group, name);
-                UpdateRequest r = Requests.newUpdateRequest(repoId, tw.getValue());
-                r.setRevision(rev);
-                getRepositoryService().update(r);
-            } catch (ResourceException e) {
-                logger.warn("Error updating trigger in repo", e);
-                throw new JobPersistenceException("Error updating trigger in repo", e);
+        try {
+            if (logger.isTraceEnabled()) {
+                logger.trace("Getting trigger {}", getTriggersRepoId(group, name));
             }
+            String repoId = getTriggersRepoId(group, name);
+            UpdateRequest r = Requests.newUpdateRequest(repoId, tw.getValue());
+            r.setRevision(rev);
+            getRepositoryService().update(r);
+        } catch (ResourceException e) {
+            logger.warn("Error updating trigger in repo", e);
+            throw new JobPersistenceException("Error updating trigger in repo", e);
         }
     }
 
@@ -2066,32 +2277,38 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     /**
      * Cleans up any triggers previously acquired by this instance and processes any misfires.
      */
-    private void cleanUpInstance() {
-        synchronized (lock) {
-            try {
-                logger.trace("Cleaning up instance");
-                
-                // Get the list of all stored triggers
-                List<Trigger> storedTriggers = new ArrayList<>();
-                String[] groupNames = getTriggerGroupNames(null);
-                for (String groupName : groupNames) {
-                    String[] triggerNames = getTriggerNames(null, groupName);
-                    for (String triggerName : triggerNames) {
-                        storedTriggers.add(getTriggerWrapper(groupName, triggerName).getTrigger());
-                    }
+    void cleanUpInstance() {
+        try {
+            logger.trace("Cleaning up instance");
+
+            // The triggers of a legacy list of waiting triggers are added back as individual waiting triggers
+            removeLegacyWaitingTriggers();
+
+            // Get the list of all stored triggers
+            List<Trigger> storedTriggers = new ArrayList<>();
+            String[] groupNames = getTriggerGroupNames(null);
+            for (String groupName : groupNames) {
+                String[] triggerNames = getTriggerNames(null, groupName);
+                for (String triggerName : triggerNames) {
+                    storedTriggers.add(getTriggerWrapper(groupName, triggerName).getTrigger());
                 }
+            }
 
-                // Ignore triggers which are already present in the waiting list.
-                WaitingTriggers wt = getWaitingTriggers();
-                TreeSet<Trigger> waitingTriggers = wt.getTriggers();
-                for (Trigger t : waitingTriggers) {
-                    storedTriggers.remove(t);
+            // Ignore triggers which are already waiting.
+            Set<String> waitingTriggerIds = getWaitingTriggerIds();
+            Iterator<Trigger> iterator = storedTriggers.iterator();
+            while (iterator.hasNext()) {
+                Trigger t = iterator.next();
+                if (waitingTriggerIds.contains(getTriggerId(t.getGroup(), t.getName()))) {
+                    iterator.remove();
                 }
-                
-                // Process and release any triggers which are acquired
-                AcquiredTriggers at = getAcquiredTriggers(instanceId);
-                List<Trigger> acquiredTriggers = at.getTriggers();
-                for (Trigger t : acquiredTriggers) {
+            }
+
+            // Process and release any triggers which are acquired
+            AcquiredTriggers at = getAcquiredTriggers(instanceId);
+            List<Trigger> acquiredTriggers = at.getTriggers();
+            for (Trigger t : acquiredTriggers) {
+                synchronized (getTriggerLock(t.getGroup(), t.getName())) {
                     if (hasTriggerMisfired(t)) {
                         logger.trace("Trigger {} has misfired", t.getName());
                         processTriggerMisfired(getTriggerWrapper(t.getGroup(), t.getName()));
@@ -2103,73 +2320,38 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                         releaseAcquiredTrigger(null, t);
                     }
                 }
-                
-                // Add remaining triggers to the "waiting" triggers tree
-                for (Trigger t : storedTriggers) {
-                    logger.trace("Adding trigger {} waitingTriggers", t.getName());
-                    addWaitingTrigger(t);
-                }
-            } catch (JobPersistenceException e) {
-                logger.warn("Error initializing RepoJobStore", e);
             }
-        }
-    }
 
-    /**
-     * A Comparator used to compare two Triggers
-     */
-    protected class TriggerComparator implements Comparator<Trigger> {
-
-        public int compare(Trigger t1, Trigger t2) {
-            // First compare by nextFireTime()
-            int result = t1.compareTo(t2);
-            if (result == 0) {
-                // If that didn't work, compare by priority
-                result = t2.getPriority() - t1.getPriority();
-                if (result == 0) {
-                    // If that didn't work, compare by name and group
-                    result = t1.getFullName().compareTo(t2.getFullName());
-                }
+            // Add remaining triggers to the waiting triggers
+            for (Trigger t : storedTriggers) {
+                logger.trace("Adding trigger {} waitingTriggers", t.getName());
+                addWaitingTrigger(t);
             }
-            return result;
+        } catch (JobPersistenceException e) {
+            logger.warn("Error initializing RepoJobStore", e);
         }
     }
 
     /**
-     * A wrapper for the tree of waiting triggers
+     * Removes the single list of waiting triggers kept by earlier versions. Its triggers are stored
+     * triggers which are not individual waiting triggers, so {@link #cleanUpInstance()} adds them back.
+     *
+     * @throws JobPersistenceException
      */
-    protected class WaitingTriggers {
-
-        private TreeSet<Trigger> triggers;
-        private String revision;
-
-        public WaitingTriggers(TreeSet<Trigger> triggers, String rev) {
-            this.triggers = triggers;
-            revision = rev;
-        }
-
-        public TreeSet<Trigger> getTriggers() {
-            return triggers;
-        }
-
-        public String getRevision() {
-            return revision;
-        }
-
-        public void setRevision(String rev) {
-            revision = rev;
-        }
-
-        public List<String> getTriggerNamesList() {
-            List<String> names = new ArrayList<String>();
-            Iterator<Trigger> iterator = triggers.iterator();
-            while (iterator.hasNext()) {
-                Trigger t = iterator.next();
-                names.add(getTriggerId(t.getGroup(), t.getName()));
+    private void removeLegacyWaitingTriggers() throws JobPersistenceException {
+        try {
+            JsonValue legacy = readFromRepo(WAITING_TRIGGERS_RESOURCE_PATH);
+            if (legacy.isNull() || !legacy.isDefined("names")) {
+                return;
             }
-            return names;
+            logger.info("Migrating {} waiting triggers to individual waiting triggers", legacy.get("names").size());
+            getRepositoryService().delete(Requests.newDeleteRequest(WAITING_TRIGGERS_RESOURCE_PATH)
+                    .setRevision(legacy.get("_rev").asString()));
+        } catch (NotFoundException | PreconditionFailedException e) {
+            logger.debug("Legacy waiting triggers were migrated concurrently", e);
+        } catch (ResourceException e) {
+            throw new JobPersistenceException("Error removing legacy waiting triggers", e);
         }
-
     }
 
     /**
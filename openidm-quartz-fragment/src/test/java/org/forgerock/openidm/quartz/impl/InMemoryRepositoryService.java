@@ -0,0 +1,162 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.quartz.impl;
+
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.filter.JsonValueFilterVisitor;
+import org.forgerock.openidm.repo.RepositoryService;
+import org.forgerock.openidm.util.JsonUtil;
+
+/**
+ * A {@link RepositoryService} keeping objects in memory, which checks revisions like the repo does and
+ * queries the objects directly within a path.
+ */
+class InMemoryRepositoryService implements RepositoryService {
+
+    private final Map<String, JsonValue> objects = new HashMap<>();
+    private long revisions;
+    private Runnable afterNextQuery;
+
+    /**
+     * Sets an action run once after the next query, to simulate a concurrent update.
+     *
+     * @param action the action
+     */
+    synchronized void afterNextQuery(Runnable action) {
+        afterNextQuery = action;
+    }
+
+    /**
+     * Returns whether an object exists.
+     *
+     * @param path the path of the object
+     * @return true if the object exists
+     */
+    synchronized boolean exists(String path) {
+        return objects.containsKey(normalize(ResourcePath.valueOf(path)));
+    }
+
+    @Override
+    public synchronized ResourceResponse create(CreateRequest request) throws ResourceException {
+        String id = request.getNewResourceId();
+        String path = normalize(request.getResourcePathObject()) + "/" + id;
+        if (objects.containsKey(path)) {
+            throw new PreconditionFailedException("Object " + path + " already exists");
+        }
+        return store(path, id, request.getContent());
+    }
+
+    @Override
+    public synchronized ResourceResponse read(ReadRequest request) throws ResourceException {
+        JsonValue object = get(normalize(request.getResourcePathObject()), null);
+        return newResourceResponse(object.get("_id").asString(), object.get("_rev").asString(), object.copy());
+    }
+
+    @Override
+    public synchronized ResourceResponse update(UpdateRequest request) throws ResourceException {
+        String path = normalize(request.getResourcePathObject());
+        JsonValue object = get(path, request.getRevision());
+        return store(path, object.get("_id").asString(), request.getContent());
+    }
+
+    @Override
+    public synchronized ResourceResponse delete(DeleteRequest request) throws ResourceException {
+        String path = normalize(request.getResourcePathObject());
+        JsonValue object = get(path, request.getRevision());
+        objects.remove(path);
+        return newResourceResponse(object.get("_id").asString(), object.get("_rev").asString(), object);
+    }
+
+    @Override
+    public List<ResourceResponse> query(QueryRequest request) throws ResourceException {
+        List<ResourceResponse> results = new ArrayList<>();
+        Runnable action;
+        synchronized (this) {
+            String prefix = normalize(request.getResourcePathObject()) + "/";
+            List<JsonValue> matches = new ArrayList<>();
+            for (Map.Entry<String, JsonValue> entry : objects.entrySet()) {
+                String path = entry.getKey();
+                if (path.startsWith(prefix) && path.indexOf('/', prefix.length()) < 0
+                        && request.getQueryFilter().accept(new JsonValueFilterVisitor(), entry.getValue())) {
+                    matches.add(entry.getValue());
+                }
+            }
+            Collections.sort(matches, JsonUtil.getComparator(request.getSortKeys()));
+            for (JsonValue match : matches) {
+                if (request.getPageSize() > 0 && results.size() == request.getPageSize()) {
+                    break;
+                }
+                results.add(newResourceResponse(match.get("_id").asString(), match.get("_rev").asString(),
+                        match.copy()));
+            }
+            action = afterNextQuery;
+            afterNextQuery = null;
+        }
+        if (action != null) {
+            action.run();
+        }
+        return results;
+    }
+
+    private JsonValue get(String path, String revision) throws ResourceException {
+        JsonValue object = objects.get(path);
+        if (object == null) {
+            throw new NotFoundException("Object " + path + " not found");
+        }
+        if (revision != null && !revision.equals(object.get("_rev").asString())) {
+            throw new PreconditionFailedException("Object " + path + " has been updated");
+        }
+        return object;
+    }
+
+    private ResourceResponse store(String path, String id, JsonValue content) {
+        JsonValue object = content.copy();
+        String revision = String.valueOf(++revisions);
+        object.put("_id", id);
+        object.put("_rev", revision);
+        objects.put(path, object);
+        return newResourceResponse(id, revision, object.copy());
+    }
+
+    private static String normalize(ResourcePath path) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < path.size(); i++) {
+            if (i > 0) {
+                builder.append('/');
+            }
+            builder.append(path.get(i));
+        }
+        return builder.toString();
+    }
+}
@@ -25,29 +25,44 @@
 
 package org.forgerock.openidm.quartz.impl;
 
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
 import java.util.Date;
 import java.util.Set;
 
 import org.assertj.core.api.Assertions;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
 import org.quartz.JobDetail;
+import org.quartz.JobPersistenceException;
 import org.quartz.SimpleTrigger;
 import org.quartz.Trigger;
+import org.quartz.spi.TriggerFiredBundle;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
 
 /**
  * Tests {@link RepoJobStore}
  */
 public class TestRepoJobstore {
 
+    private static final String GROUP = "group1";
+
     private RepoJobStore jobStore;
     private SimpleSignaler signaler;
+    private InMemoryRepositoryService repositoryService;
 
     @BeforeMethod
     public void setUp() {
         signaler = new SimpleSignaler();
+        repositoryService = new InMemoryRepositoryService();
         jobStore = new RepoJobStore();
-        //jobStore.setRepositoryService(Resources.newCollection(new MemoryBackend()));
+        jobStore.setRepositoryService(repositoryService);
+        jobStore.setInstanceId("instance1");
         jobStore.setSchedulerSignaler(signaler);
     }
 
@@ -56,6 +71,137 @@ public class TestRepoJobstore {
         jobStore = null;
     }
 
+    @Test
+    public void testAcquireNextTriggerByNextFireTimeAndPriority() throws Exception {
+        long now = System.currentTimeMillis();
+        JobDetail job = storeJob("job1", SimpleJob.class);
+        storeTrigger("later", job, now + 2000, 10);
+        storeTrigger("low", job, now + 1000, 1);
+        storeTrigger("high", job, now + 1000, 10);
+        storeTrigger("notDue", job, now + 60000, 10);
+
+        Assertions.assertThat(jobStore.acquireNextTrigger(null, now + 5000).getName()).isEqualTo("high");
+        Assertions.assertThat(jobStore.acquireNextTrigger(null, now + 5000).getName()).isEqualTo("low");
+        Assertions.assertThat(jobStore.acquireNextTrigger(null, now + 5000).getName()).isEqualTo("later");
+        Assertions.assertThat(jobStore.acquireNextTrigger(null, now + 5000)).isNull();
+        Assertions.assertThat(repositoryService.exists(getWaitingTriggerPath("notDue"))).isTrue();
+    }
+
+    @Test
+    public void testAcquireNextTriggerSkipsTriggerClaimedConcurrently() throws Exception {
+        long now = System.currentTimeMillis();
+        JobDetail job = storeJob("job1", SimpleJob.class);
+        storeTrigger("first", job, now + 1000, 5);
+        storeTrigger("second", job, now + 2000, 5);
+
+        // Another node claims the first trigger once it has been read
+        repositoryService.afterNextQuery(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    repositoryService.delete(Requests.newDeleteRequest(getWaitingTriggerPath("first")));
+                } catch (ResourceException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        Assertions.assertThat(jobStore.acquireNextTrigger(null, now + 5000).getName()).isEqualTo("second");
+        Assertions.assertThat(jobStore.acquireNextTrigger(null, now + 5000)).isNull();
+    }
+
+    @Test
+    public void testPauseTriggerDuringAcquireNextTrigger() throws Exception {
+        long now = System.currentTimeMillis();
+        JobDetail job = storeJob("job1", SimpleJob.class);
+        storeTrigger("first", job, now + 1000, 5);
+        storeTrigger("second", job, now + 2000, 5);
+
+        // The first trigger is paused once it has been read
+        repositoryService.afterNextQuery(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    jobStore.pauseTrigger(null, "first", GROUP);
+                } catch (JobPersistenceException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        Assertions.assertThat(jobStore.acquireNextTrigger(null, now + 5000).getName()).isEqualTo("second");
+        Assertions.assertThat(jobStore.getTriggerState(null, "first", GROUP)).isEqualTo(Trigger.STATE_PAUSED);
+        Assertions.assertThat(repositoryService.exists(getWaitingTriggerPath("first"))).isFalse();
+
+        jobStore.resumeTrigger(null, "first", GROUP);
+        Assertions.assertThat(jobStore.acquireNextTrigger(null, now + 5000).getName()).isEqualTo("first");
+    }
+
+    @Test
+    public void testStatefulJobBlocksItsOtherTriggers() throws Exception {
+        long now = System.currentTimeMillis();
+        JobDetail job = storeJob("job1", StatefulSchedulerServiceJob.class);
+        storeTrigger("first", job, now + 1000, 5);
+        storeTrigger("second", job, now + 2000, 5);
+
+        // Both triggers are acquired before either fires
+        Trigger first = jobStore.acquireNextTrigger(null, now + 5000);
+        Trigger second = jobStore.acquireNextTrigger(null, now + 5000);
+        Assertions.assertThat(first.getName()).isEqualTo("first");
+        Assertions.assertThat(second.getName()).isEqualTo("second");
+
+        TriggerFiredBundle bundle = jobStore.triggerFired(null, first);
+        Assertions.assertThat(bundle).isNotNull();
+        Assertions.assertThat(jobStore.triggerFired(null, second)).isNull();
+        Assertions.assertThat(jobStore.getTriggerState(null, "second", GROUP)).isEqualTo(Trigger.STATE_BLOCKED);
+
+        // The scheduler releases the trigger it could not fire, which cannot be acquired while the job runs
+        jobStore.releaseAcquiredTrigger(null, second);
+        Assertions.assertThat(jobStore.acquireNextTrigger(null, now + 5000)).isNull();
+
+        jobStore.triggeredJobComplete(null, first, bundle.getJobDetail(), Trigger.INSTRUCTION_NOOP);
+        Assertions.assertThat(jobStore.getTriggerState(null, "second", GROUP)).isEqualTo(Trigger.STATE_NORMAL);
+        Assertions.assertThat(jobStore.acquireNextTrigger(null, now + 5000).getName()).isEqualTo("second");
+    }
+
+    @Test
+    public void testCleanUpInstanceMigratesLegacyWaitingTriggers() throws Exception {
+        long now = System.currentTimeMillis();
+        JobDetail job = storeJob("job1", SimpleJob.class);
+        storeTrigger("legacy", job, now + 1000, 5);
+
+        // Replace the waiting trigger with the single list of waiting triggers of earlier versions
+        repositoryService.delete(Requests.newDeleteRequest(getWaitingTriggerPath("legacy")));
+        repositoryService.create(Requests.newCreateRequest("/scheduler", "waitingTriggers",
+                json(object(field("names", array(RepoJobStore.getTriggerId(GROUP, "legacy")))))));
+
+        jobStore.cleanUpInstance();
+
+        Assertions.assertThat(repositoryService.exists("/scheduler/waitingTriggers")).isFalse();
+        Assertions.assertThat(repositoryService.exists(getWaitingTriggerPath("legacy"))).isTrue();
+        Assertions.assertThat(jobStore.acquireNextTrigger(null, now + 5000).getName()).isEqualTo("legacy");
+    }
+
+    private JobDetail storeJob(String name, Class<?> jobClass) throws JobPersistenceException {
+        JobDetail job = new JobDetail(name, GROUP, jobClass);
+        jobStore.storeJob(null, job, false);
+        return job;
+    }
+
+    private Trigger storeTrigger(String name, JobDetail job, long fireTime, int priority)
+            throws JobPersistenceException {
+        SimpleTrigger trigger =
+                new SimpleTrigger(name, GROUP, job.getName(), job.getGroup(), new Date(fireTime), null, 0, 0);
+        trigger.setPriority(priority);
+        trigger.computeFirstFireTime(null);
+        jobStore.storeTrigger(null, trigger, false);
+        return trigger;
+    }
+
+    private static String getWaitingTriggerPath(String name) {
+        return "/scheduler/waitingTriggers/" + RepoJobStore.getTriggerId(GROUP, name);
+    }
+
     @SuppressWarnings("unchecked")
     public void disabletestStoreRetrieveRemoveTrigger() throws Exception {
         Trigger trigger = new SimpleTrigger("trigger1", "group1", new Date());
@@ -76,6 +76,9 @@ public class JDBCDataSourceService implements DataSourceService {
     /** the configured DataSourceService reference so we can swap gracefully when configuration changes */
     private AtomicReference<DataSourceService> configuredDataSourceService = new AtomicReference<>(null);
 
+    /** whether the connections of the configured DataSourceService come from a pool it manages */
+    private volatile boolean pooled;
+
     /**
      * Enhanced configuration service.
      */
@@ -146,23 +149,56 @@ public class JDBCDataSourceService implements DataSourceService {
                 .addMixIn(HikariConfig.class, HikariConfigMixin.class);
     }
 
+    /**
+     * A DataSourceConfigVisitor telling whether the DataSource is a connection pool managed by this service, as
+     * opposed to a DataSource of the container or a DataSource opening a new connection for each request.
+     */
+    private static final DataSourceConfigVisitor<Boolean, Void> POOLED = new DataSourceConfigVisitor<Boolean, Void>() {
+        @Override
+        public Boolean visit(JndiDataSourceConfig config, Void unused) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(OsgiDataSourceConfig config, Void unused) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(NonPoolingDataSourceConfig config, Void unused) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(BoneCPDataSourceConfig config, Void unused) {
+            return true;
+        }
+
+        @Override
+        public Boolean visit(HikariCPDataSourceConfig config, Void unused) {
+            return true;
+        }
+    };
+
     private static DataSourceConfig parseJson(JsonValue config) {
         return OBJECT_MAPPER.convertValue(config.getObject(), DataSourceConfig.class);
     }
 
     /**
-     * Initializes and returns the JDBC Connection Service with the supplied configuration
+     * Initializes and returns the JDBC Connection Service with the supplied configuration, and records whether
+     * its connections are pooled.
      *
      * @param config the configuration object
      * @param bundleContext the bundle context
      * @return a DataSourceService constructed from the configuration
      */
     private DataSourceService initDataSourceService(final JsonValue config, final BundleContext bundleContext) {
+        final DataSourceConfig dataSourceConfig = parseJson(config);
+        final DataSourceFactory dataSourceFactory = dataSourceConfig.accept(
+                new DataSourceFactoryConfigVisitor(bundleContext), null);
+        final DataSource dataSource = dataSourceFactory.newInstance();
+        pooled = dataSourceConfig.accept(POOLED, null);
         return new DataSourceService() {
-            final DataSourceConfig dataSourceConfig = parseJson(config);
-            final DataSourceFactory dataSourceFactory = dataSourceConfig.accept(
-                    new DataSourceFactoryConfigVisitor(bundleContext), null);
-            final DataSource dataSource = dataSourceFactory.newInstance();
 
             @Override
             public String getDatabaseName() {
@@ -249,6 +285,16 @@ public class JDBCDataSourceService implements DataSourceService {
         return !existingConfig.isEqualTo(newConfig);
     }
 
+    /**
+     * Returns whether the connections come from a connection pool managed by this service. The connections of a
+     * DataSource looked up through JNDI or as an OSGi service are managed by the container instead.
+     *
+     * @return true if the DataSource is a connection pool configured in this service
+     */
+    public boolean isPooled() {
+        return pooled;
+    }
+
     @Override
     public String getDatabaseName() {
         return configuredDataSourceService.get().getDatabaseName();
@@ -157,6 +157,22 @@ public interface TableHandler {
     public List<Map<String, Object>> query(String type, Map<String, Object> params, Connection connection)
                 throws SQLException, ResourceException;
 
+    /**
+     * Performs the query on the specified object, handing each result record to the handler as its row
+     * is read rather than collecting all records first. Reading stops once the handler returns false.
+     *
+     * @param type identifies the object to query.
+     * @param params the parameters of the query to perform.
+     * @param connection
+     * @param handler the handler to hand the result records to
+     * @throws BadRequestException if the specified params contain invalid arguments, e.g. a query id that is not
+     * configured, a query expression that is invalid, or missing query substitution tokens.
+     * @throws InternalServerErrorException if the operation failed because of a (possibly transient) failure
+     * @throws java.sql.SQLException
+     */
+    public void query(String type, Map<String, Object> params, Connection connection, QueryResultHandler handler)
+                throws SQLException, ResourceException;
+
     /**
      * Performs the command on the specified target and returns the number of affected objects
      * <p>
@@ -185,9 +201,25 @@ public interface TableHandler {
      * @return true if queryId is available
      */
     public boolean queryIdExists(final String queryId);
+
+    /**
+     * Check if query filter queries on this handler can be paged by seeking past the last object id
+     * of the previous page, rather than by skipping a number of rows. This requires that the filter
+     * can compare {@code _id} and that the results can be sorted by {@code _id}.
+     *
+     * @return true if query filter queries can be paged by object id
+     */
+    public boolean isKeysetPagingSupported();
     
     /**
      * Builds a raw query from the supplied filter.
+     * <p>
+     * Each value asserted by the filter must be rendered as a {@code ${vN}} token, in the order the filter is
+     * visited, and the page requested with the page tokens of
+     * {@link org.forgerock.openidm.repo.jdbc.impl.query.TableQueries}. The query must otherwise only depend on the
+     * structure and fields of the filter, the types of its values, whether its strings read as another JSON type
+     * (see {@link org.forgerock.openidm.repo.jdbc.impl.query.TableQueries#isOtherJsonTypeText}), the resource type
+     * and the sort keys: the query is reused for the filters of the same shape.
      * 
      * @param filter the query filter
      * @param replacementTokens a map to store any replacement tokens
@@ -16,8 +16,6 @@
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
-import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
-import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
 import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
 import static org.forgerock.openidm.repo.util.Clauses.where;
 
@@ -33,6 +31,7 @@ import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.NotFoundException;
 import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
+import org.forgerock.openidm.repo.jdbc.impl.query.TableQueries;
 import org.forgerock.openidm.repo.util.Clause;
 import org.forgerock.util.query.QueryFilter;
 
@@ -81,11 +80,7 @@ public class DB2TableHandler extends GenericTableHandler {
     // blatantly copied from OracleTableHandler...
     @Override
     public String renderQueryFilter(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens, Map<String, Object> params) {
-        final int offsetParam = Integer.parseInt((String)params.get(PAGED_RESULTS_OFFSET));
-        final int pageSizeParam = Integer.parseInt((String)params.get(PAGE_SIZE));
-
         // Create custom builder which overrides SQL output syntax
-        // note enclosing offsetParam and pageSizeParam - we don't bother passing these to the builder to deal with
         final SQLBuilder builder =
                 new SQLBuilder() {
                     @Override
@@ -98,9 +93,9 @@ public class DB2TableHandler extends GenericTableHandler {
                                 + getWhereClause().toSQL()
                                 + getOrderByClause().toSQL()
                                 + ") WHERE rn BETWEEN "
-                                + (offsetParam + 1)
+                                + TableQueries.PAGE_FIRST_ROW_TOKEN
                                 + " AND "
-                                + (offsetParam + pageSizeParam)
+                                + TableQueries.PAGE_LAST_ROW_TOKEN
                                 + " ORDER BY rn";
                     }
                 };
@@ -31,6 +31,7 @@ import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.InternalServerErrorException;
 import org.forgerock.openidm.crypto.CryptoService;
+import org.forgerock.openidm.repo.jdbc.QueryResultHandler;
 import org.forgerock.openidm.util.Accessor;
 import org.forgerock.openidm.util.JsonUtil;
 import org.slf4j.Logger;
@@ -182,13 +183,27 @@ class ExplicitResultSetMapper implements ResultSetMapper {
      */
     @Override
     public List<Map<String, Object>> mapToObject(ResultSet rs, String queryId, String type, Map<String, Object> params) throws SQLException, InternalServerErrorException {
-        List<Map<String, Object>> result = new ArrayList<>();
+        final List<Map<String, Object>> result = new ArrayList<>();
+        mapToObject(rs, queryId, type, params, new QueryResultHandler() {
+            @Override
+            public boolean handleResult(Map<String, Object> obj) {
+                result.add(obj);
+                return true;
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void mapToObject(ResultSet rs, String queryId, String type, Map<String, Object> params,
+            QueryResultHandler handler) throws SQLException, InternalServerErrorException {
         Set<String> names = ExplicitResultSetMapper.getColumnNames(rs);
         while (rs.next()) {
             JsonValue obj = mapToJsonValue(rs, names);
-            result.add(obj.asMap());
+            if (!handler.handleResult(obj.asMap())) {
+                return;
+            }
         }
-        return result;
     }
 
     /**
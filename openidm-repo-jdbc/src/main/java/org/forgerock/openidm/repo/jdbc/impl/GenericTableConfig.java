@@ -26,6 +26,8 @@ class GenericTableConfig {
     public String propertiesTableName;
     public boolean searchableDefault;
     public GenericPropertiesConfig properties;
+    /** Whether the objects are only stored as jsonb, without the properties table; PostgreSQL only */
+    public boolean jsonbStorage;
 
     public boolean isSearchable(JsonPointer propPointer) {
 
@@ -59,6 +61,7 @@ class GenericTableConfig {
         cfg.propertiesTableName = tableConfig.get("propertiesTable").required().asString();
         cfg.searchableDefault = tableConfig.get("searchableDefault").defaultTo(Boolean.TRUE).asBoolean();
         cfg.properties = GenericPropertiesConfig.parse(tableConfig.get("properties"));
+        cfg.jsonbStorage = "jsonb".equals(tableConfig.get("storage").defaultTo("properties").asString());
 
         return cfg;
     }
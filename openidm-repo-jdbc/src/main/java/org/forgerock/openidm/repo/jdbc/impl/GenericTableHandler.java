@@ -17,8 +17,6 @@
 package org.forgerock.openidm.repo.jdbc.impl;
 
 import static org.forgerock.json.resource.Responses.newResourceResponse;
-import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
-import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
 import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
 import static org.forgerock.openidm.repo.util.Clauses.where;
 
@@ -30,6 +28,7 @@ import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,9 +44,11 @@ import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.repo.jdbc.Constants;
 import org.forgerock.openidm.repo.jdbc.ErrorType;
+import org.forgerock.openidm.repo.jdbc.QueryResultHandler;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
 import org.forgerock.openidm.repo.jdbc.TableHandler;
 import org.forgerock.openidm.repo.jdbc.impl.query.TableQueries;
+import org.forgerock.openidm.util.ResourceUtil;
 import org.forgerock.util.query.QueryFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -90,8 +91,15 @@ public class GenericTableHandler implements TableHandler {
     final boolean enableBatching; // Whether to use JDBC statement batching.
     int maxBatchSize;       // The maximum number of statements to batch together. If max batch size is 1, do not use batching.
 
+    /**
+     * The ids of the object types read from the objecttypes table. Rows of that table are never updated nor deleted,
+     * so the ids are kept for good; the map is immutable and replaced as new types are read.
+     */
+    private volatile Map<String, Long> typeIds = Collections.emptyMap();
+
     public enum QueryDefinition {
         READTYPEQUERYSTR,
+        READALLTYPESQUERYSTR,
         CREATETYPEQUERYSTR,
         READFORUPDATEQUERYSTR,
         READQUERYSTR,
@@ -99,7 +107,10 @@ public class GenericTableHandler implements TableHandler {
         UPDATEQUERYSTR,
         DELETEQUERYSTR,
         PROPCREATEQUERYSTR,
+        PROPREADQUERYSTR,
+        PROPUPDATEQUERYSTR,
         PROPDELETEQUERYSTR,
+        PROPDELETEKEYQUERYSTR,
         QUERYALLIDS
     }
 
@@ -108,6 +119,12 @@ public class GenericTableHandler implements TableHandler {
         return queries.queryIdExists(queryId);
     }
 
+    @Override
+    public boolean isKeysetPagingSupported() {
+        // the object id is always held in the main table
+        return true;
+    }
+
     /**
      * Create a generic table handler using a QueryFilterVisitor that uses generic object property tables to process
      * query filters.
@@ -178,6 +195,7 @@ public class GenericTableHandler implements TableHandler {
         // objecttypes table
         result.put(QueryDefinition.CREATETYPEQUERYSTR, "INSERT INTO " + typeTable + " (objecttype) VALUES (?)");
         result.put(QueryDefinition.READTYPEQUERYSTR, "SELECT id FROM " + typeTable + " objtype WHERE objtype.objecttype = ?");
+        result.put(QueryDefinition.READALLTYPESQUERYSTR, "SELECT objtype.id, objtype.objecttype FROM " + typeTable + " objtype");
 
         // Main object table
         result.put(QueryDefinition.READFORUPDATEQUERYSTR, "SELECT obj.* FROM " + mainTable + " obj INNER JOIN " + typeTable + " objtype ON obj.objecttypes_id = objtype.id AND objtype.objecttype = ? WHERE obj.objectid  = ? FOR UPDATE");
@@ -192,7 +210,10 @@ public class GenericTableHandler implements TableHandler {
 
         // Object properties table
         result.put(QueryDefinition.PROPCREATEQUERYSTR, "INSERT INTO " + propertyTable + " ( " + mainTableName + "_id, propkey, proptype, propvalue) VALUES (?,?,?,?)");
+        result.put(QueryDefinition.PROPREADQUERYSTR, "SELECT propkey, proptype, propvalue FROM " + propertyTable + " WHERE " + mainTableName + "_id = ?");
+        result.put(QueryDefinition.PROPUPDATEQUERYSTR, "UPDATE " + propertyTable + " SET proptype = ?, propvalue = ? WHERE " + mainTableName + "_id = ? AND propkey = ?");
         result.put(QueryDefinition.PROPDELETEQUERYSTR, "DELETE prop FROM " + propertyTable + " prop INNER JOIN " + mainTable + " obj ON prop." + mainTableName + "_id = obj.id INNER JOIN " + typeTable + " objtype ON obj.objecttypes_id = objtype.id WHERE objtype.objecttype = ? AND obj.objectid = ?");
+        result.put(QueryDefinition.PROPDELETEKEYQUERYSTR, "DELETE FROM " + propertyTable + " WHERE " + mainTableName + "_id = ? AND propkey = ?");
         // Default object queries
         String tableVariable =  dbSchemaName == null ? "${_mainTable}" : "${_dbSchema}.${_mainTable}";
         result.put(QueryDefinition.QUERYALLIDS, "SELECT obj.objectid FROM " + tableVariable + " obj INNER JOIN " + typeTable + " objtype ON obj.objecttypes_id = objtype.id WHERE objtype.objecttype = ${_resource}");
@@ -286,50 +307,153 @@ public class GenericTableHandler implements TableHandler {
      */
     void writeValueProperties(String fullId, long dbId, String localId, JsonValue value, Connection connection) throws SQLException {
         if (cfg.hasPossibleSearchableProperties()) {
-            Integer batchingCount = 0;
-            PreparedStatement propCreateStatement = getPreparedStatement(connection, QueryDefinition.PROPCREATEQUERYSTR);
+            PropertyBatch inserts = new PropertyBatch(connection, QueryDefinition.PROPCREATEQUERYSTR);
             try {
-                batchingCount = writeValueProperties(fullId, dbId, localId, value, connection, propCreateStatement, batchingCount);
-                if (enableBatching && batchingCount > 0) {
-                    int[] numUpdates = propCreateStatement.executeBatch();
-                    logger.debug("Batch update of objectproperties updated: {}", numUpdates);
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Writing batch of objectproperties, updated: {}", Arrays.asList(numUpdates));
-                    }
-                    propCreateStatement.clearBatch();
+                for (Map.Entry<String, SearchableProperty> property : getValueProperties(value).entrySet()) {
+                    insertProperty(inserts, fullId, dbId, property.getKey(), property.getValue());
                 }
+                inserts.execute();
             } finally {
-                CleanupHelper.loggedClose(propCreateStatement);
+                inserts.close();
             }
         }
     }
+
     /**
-     * Internal recursive function to add/write properties.
-     * If batching is enabled, prepared statements are added to the batch and only executed if they hit the max limit.
-     * After completion returns the number of properties that have only been added to the batch but not yet executed.
-     * The caller is responsible for executing the batch on remaining items when it deems the batch complete.
-     *
-     * If batching is not enabled, prepared statements are immediately executed.
+     * Updates the properties of a given resource in the properties table, writing only the property rows that differ
+     * from those of the new value of the resource. The rows are compared to the rows read from the properties table,
+     * so that the rows of properties no longer searchable are deleted and those of newly searchable properties are
+     * inserted.
      *
      * @param fullId the full URI of the resource the belongs to
-     * @param dbId the generated identifier to link the properties table with the main table (foreign key)
-     * @param localId the local identifier of the resource these properties belong to
-     * @param value the JSON value with the properties to write
+     * @param dbId the identifier linking the properties table with the main table (foreign key)
+     * @param newValue the JSON value with the properties to write
      * @param connection the DB connection
-     * @param propCreateStatement the prepared properties insert statement
-     * @param batchingCount the current number of statements that have been batched and not yet executed on the prepared statement
-     * @return status of the current batchingCount, i.e. how many statements are not yet executed in the PreparedStatement
-     * @throws SQLException if the insert failed
+     * @throws SQLException if a read, insert, update or delete failed
      */
-    private int writeValueProperties(String fullId, long dbId, String localId, JsonValue value, Connection connection,
-            PreparedStatement propCreateStatement, int batchingCount) throws SQLException {
+    void updateValueProperties(String fullId, long dbId, JsonValue newValue, Connection connection)
+            throws SQLException {
+        Map<String, SearchableProperty> oldProperties = readValueProperties(fullId, dbId, connection);
+        Map<String, SearchableProperty> newProperties = cfg.hasPossibleSearchableProperties()
+                ? getValueProperties(newValue)
+                : Collections.<String, SearchableProperty>emptyMap();
+        PropertyBatch inserts = new PropertyBatch(connection, QueryDefinition.PROPCREATEQUERYSTR);
+        PropertyBatch updates = new PropertyBatch(connection, QueryDefinition.PROPUPDATEQUERYSTR);
+        PropertyBatch deletes = new PropertyBatch(connection, QueryDefinition.PROPDELETEKEYQUERYSTR);
+        try {
+            for (Map.Entry<String, SearchableProperty> property : newProperties.entrySet()) {
+                String propkey = property.getKey();
+                SearchableProperty newProperty = property.getValue();
+                SearchableProperty oldProperty = oldProperties.remove(propkey);
+                if (oldProperty == DUPLICATE_PROPERTY) {
+                    // deletes are executed first
+                    deleteProperty(deletes, fullId, dbId, propkey);
+                    insertProperty(inserts, fullId, dbId, propkey, newProperty);
+                } else if (oldProperty == null) {
+                    insertProperty(inserts, fullId, dbId, propkey, newProperty);
+                } else if (!oldProperty.equals(newProperty)) {
+                    if (logger.isTraceEnabled()) {
+                        logger.trace("Updating objectproperty id: {} propkey: {} proptype: {}, propvalue: {}",
+                                fullId, propkey, newProperty.type, newProperty.value);
+                    }
+                    PreparedStatement propUpdateStatement = updates.statement();
+                    propUpdateStatement.setString(1, newProperty.type);
+                    propUpdateStatement.setString(2, newProperty.value);
+                    propUpdateStatement.setLong(3, dbId);
+                    propUpdateStatement.setString(4, propkey);
+                    updates.add();
+                }
+            }
+            for (String propkey : oldProperties.keySet()) {
+                deleteProperty(deletes, fullId, dbId, propkey);
+            }
+            deletes.execute();
+            updates.execute();
+            inserts.execute();
+            logger.debug("Updated objectproperties of {}: {} deleted, {} updated, {} inserted",
+                    fullId, deletes.count, updates.count, inserts.count);
+        } finally {
+            deletes.close();
+            updates.close();
+            inserts.close();
+        }
+    }
 
+    /**
+     * Reads the property rows of a given resource from the properties table.
+     *
+     * @param fullId the full URI of the resource the properties belong to
+     * @param dbId the identifier linking the properties table with the main table (foreign key)
+     * @param connection the DB connection
+     * @return the properties by property key, {@link #DUPLICATE_PROPERTY} for the keys of several rows
+     * @throws SQLException if the read failed
+     */
+    private Map<String, SearchableProperty> readValueProperties(String fullId, long dbId, Connection connection)
+            throws SQLException {
+        Map<String, SearchableProperty> properties = new HashMap<>();
+        ResultSet rs = null;
+        PreparedStatement readStatement = null;
+        try {
+            readStatement = getPreparedStatement(connection, QueryDefinition.PROPREADQUERYSTR);
+            logger.trace("Populating prepared statement {} for {} {}", readStatement, fullId, dbId);
+            readStatement.setLong(1, dbId);
+            logger.debug("Executing: {}", readStatement);
+            rs = readStatement.executeQuery();
+            while (rs.next()) {
+                String propkey = rs.getString("propkey");
+                SearchableProperty property = new SearchableProperty(rs.getString("proptype"), rs.getString("propvalue"));
+                if (properties.put(propkey, property) != null) {
+                    properties.put(propkey, DUPLICATE_PROPERTY);
+                }
+            }
+        } finally {
+            CleanupHelper.loggedClose(rs);
+            CleanupHelper.loggedClose(readStatement);
+        }
+        return properties;
+    }
+
+    private void deleteProperty(PropertyBatch deletes, String fullId, long dbId, String propkey)
+            throws SQLException {
+        logger.trace("Deleting objectproperty id: {} propkey: {}", fullId, propkey);
+        PreparedStatement propDeleteStatement = deletes.statement();
+        propDeleteStatement.setLong(1, dbId);
+        propDeleteStatement.setString(2, propkey);
+        deletes.add();
+    }
+
+    private void insertProperty(PropertyBatch inserts, String fullId, long dbId, String propkey,
+            SearchableProperty property) throws SQLException {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Inserting objectproperty id: {} propkey: {} proptype: {}, propvalue: {}",
+                    fullId, propkey, property.type, property.value);
+        }
+        PreparedStatement propCreateStatement = inserts.statement();
+        propCreateStatement.setLong(1, dbId);
+        propCreateStatement.setString(2, propkey);
+        propCreateStatement.setString(3, property.type);
+        propCreateStatement.setString(4, property.value);
+        inserts.add();
+    }
+
+    /**
+     * Returns the searchable properties of a JSON value, as they are written to the properties table.
+     *
+     * @param value the JSON value
+     * @return the searchable properties, by property key
+     */
+    Map<String, SearchableProperty> getValueProperties(JsonValue value) {
+        Map<String, SearchableProperty> properties = new LinkedHashMap<>();
+        getValueProperties(value, properties);
+        return properties;
+    }
+
+    private void getValueProperties(JsonValue value, Map<String, SearchableProperty> properties) {
         for (JsonValue entry : value) {
             JsonPointer propPointer = entry.getPointer();
             if (cfg.isSearchable(propPointer)) {
-                String propkey = propPointer.toString();
                 if (entry.isMap() || entry.isList()) {
-                    batchingCount = writeValueProperties(fullId, dbId, localId, entry, connection, propCreateStatement, batchingCount);
+                    getValueProperties(entry, properties);
                 } else {
                     String propvalue = null;
                     Object val = entry.getObject();
@@ -340,37 +464,99 @@ public class GenericTableHandler implements TableHandler {
                     if (propvalue != null) {
                         proptype = entry.getObject().getClass().getName(); // TODO: proper type info
                     }
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("Populating statement {} with params {}, {}, {}, {}, {}",
-                                queryMap.get(QueryDefinition.PROPCREATEQUERYSTR), dbId, localId, propkey, proptype, propvalue);
-                    }
-                    propCreateStatement.setLong(1, dbId);
-                    propCreateStatement.setString(2, propkey);
-                    propCreateStatement.setString(3, proptype);
-                    propCreateStatement.setString(4, propvalue);
-                    logger.debug("Executing: {}", propCreateStatement);
-                    if (enableBatching) {
-                        propCreateStatement.addBatch();
-                        batchingCount++;
-                    } else {
-                        int numUpdate = propCreateStatement.executeUpdate();
-                    }
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("Inserting objectproperty id: {} propkey: {} proptype: {}, propvalue: {}", fullId, propkey, proptype, propvalue);
-                    }
+                    properties.put(propPointer.toString(), new SearchableProperty(proptype, propvalue));
                 }
-                if (enableBatching && batchingCount >= maxBatchSize) {
-                    int[] numUpdates = propCreateStatement.executeBatch();
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Batch limit reached, update of objectproperties updated: {}", Arrays.asList(numUpdates));
-                    }
-                    propCreateStatement.clearBatch();
-                    batchingCount = 0;
+            }
+        }
+    }
+
+    /** Stands for the property keys of several rows in the properties table, which are rewritten */
+    private static final SearchableProperty DUPLICATE_PROPERTY = new SearchableProperty(null, null);
+
+    /**
+     * The type and value of a searchable property, as written to the properties table.
+     */
+    static final class SearchableProperty {
+        final String type;
+        final String value;
+
+        SearchableProperty(String type, String value) {
+            this.type = type;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SearchableProperty)) {
+                return false;
+            }
+            SearchableProperty other = (SearchableProperty) o;
+            return StringUtils.equals(type, other.type) && StringUtils.equals(value, other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (type != null ? type.hashCode() : 0) + (value != null ? value.hashCode() : 0);
+        }
+    }
+
+    /**
+     * A properties table statement, either added to a batch executed once it reaches the maximum batch size, or
+     * executed right away if batching is not enabled. The statement is only prepared once used.
+     */
+    private final class PropertyBatch {
+        private final Connection connection;
+        private final QueryDefinition queryDefinition;
+        private PreparedStatement statement;
+        int count = 0;
+        private int batchingCount = 0;
+
+        PropertyBatch(Connection connection, QueryDefinition queryDefinition) {
+            this.connection = connection;
+            this.queryDefinition = queryDefinition;
+        }
+
+        PreparedStatement statement() throws SQLException {
+            if (statement == null) {
+                statement = getPreparedStatement(connection, queryDefinition);
+            }
+            return statement;
+        }
+
+        void add() throws SQLException {
+            logger.debug("Executing: {}", statement);
+            count++;
+            if (!enableBatching) {
+                statement.executeUpdate();
+                return;
+            }
+            statement.addBatch();
+            if (++batchingCount >= maxBatchSize) {
+                int[] numUpdates = statement.executeBatch();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Batch limit reached, update of objectproperties updated: {}", Arrays.asList(numUpdates));
                 }
+                statement.clearBatch();
+                batchingCount = 0;
             }
         }
 
-        return batchingCount;
+        void execute() throws SQLException {
+            if (enableBatching && batchingCount > 0) {
+                int[] numUpdates = statement.executeBatch();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Writing batch of objectproperties, updated: {}", Arrays.asList(numUpdates));
+                }
+                statement.clearBatch();
+                batchingCount = 0;
+            }
+        }
+
+        void close() {
+            if (statement != null) {
+                CleanupHelper.loggedClose(statement);
+            }
+        }
     }
 
     @Override
@@ -414,6 +600,10 @@ public class GenericTableHandler implements TableHandler {
      * @throws java.sql.SQLException
      */
     long readTypeId(String type, Connection connection) throws SQLException {
+        Long cachedTypeId = typeIds.get(type);
+        if (cachedTypeId != null) {
+            return cachedTypeId;
+        }
         long typeId = -1;
 
         Map<String, Object> result = null;
@@ -431,6 +621,7 @@ public class GenericTableHandler implements TableHandler {
             if (rs.next()) {
                 typeId = rs.getLong(Constants.RAW_ID);
                 logger.debug("Type: {}, id: {}", type, typeId);
+                cacheTypeIds(Collections.singletonMap(type, typeId));
             }
         } finally {
             CleanupHelper.loggedClose(rs);
@@ -439,6 +630,37 @@ public class GenericTableHandler implements TableHandler {
         return typeId;
     }
 
+    /**
+     * Reads the ids of all the object types, so that they need not be read as objects are created.
+     *
+     * @param connection the DB connection
+     * @throws SQLException if reading the objecttypes table failed
+     */
+    public void loadTypeIds(Connection connection) throws SQLException {
+        Map<String, Long> ids = new HashMap<>();
+        ResultSet rs = null;
+        PreparedStatement readAllTypesStatement = null;
+        try {
+            readAllTypesStatement = getPreparedStatement(connection, QueryDefinition.READALLTYPESQUERYSTR);
+            logger.debug("Executing: {}", readAllTypesStatement);
+            rs = readAllTypesStatement.executeQuery();
+            while (rs.next()) {
+                ids.put(rs.getString(2), rs.getLong(1));
+            }
+        } finally {
+            CleanupHelper.loggedClose(rs);
+            CleanupHelper.loggedClose(readAllTypesStatement);
+        }
+        logger.debug("Loaded {} object type ids for {}", ids.size(), this);
+        cacheTypeIds(ids);
+    }
+
+    private synchronized void cacheTypeIds(Map<String, Long> ids) {
+        Map<String, Long> updated = new HashMap<>(typeIds);
+        updated.putAll(ids);
+        typeIds = Collections.unmodifiableMap(updated);
+    }
+
     /**
      * @param type       the object type URI
      * @param connection the DB connection
@@ -513,7 +735,6 @@ public class GenericTableHandler implements TableHandler {
         obj.put("_rev", newRev); // Save the rev in the object, and return the changed rev from the create.
 
         PreparedStatement updateStatement = null;
-        PreparedStatement deletePropStatement = null;
         try {
             JsonValue result = new JsonValue(readForUpdate(fullId, type, localId, connection));
             String existingRev = result.get(Constants.RAW_OBJECT_REV).asString();
@@ -525,7 +746,6 @@ public class GenericTableHandler implements TableHandler {
                 throw new PreconditionFailedException("Update rejected as current Object revision " + existingRev + " is different than expected by caller (" + rev + "), the object has changed since retrieval.");
             }
             updateStatement = getPreparedStatement(connection, QueryDefinition.UPDATEQUERYSTR);
-            deletePropStatement = getPreparedStatement(connection, QueryDefinition.PROPDELETEQUERYSTR);
 
             // Support changing object identifier
             String newLocalId = (String) obj.get(Constants.OBJECT_ID);
@@ -549,21 +769,26 @@ public class GenericTableHandler implements TableHandler {
                 throw new InternalServerErrorException("Update execution did not result in updating 1 row as expected. Updated rows: " + updateCount);
             }
 
-            JsonValue jv = new JsonValue(obj);
-            // TODO: only update what changed?
-            logger.trace("Populating prepared statement {} for {} {} {}", deletePropStatement, fullId, type, localId);
-            deletePropStatement.setString(1, type);
-            deletePropStatement.setString(2, localId);
-            logger.debug("Update properties del statement: {}", deletePropStatement);
-            int deleteCount = deletePropStatement.executeUpdate();
-            logger.trace("Deleted child rows: {} for: {}", deleteCount, fullId);
-            writeValueProperties(fullId, dbId, localId, jv, connection);
+            writeUpdatedValueProperties(fullId, dbId, new JsonValue(obj), connection);
         } finally {
             CleanupHelper.loggedClose(updateStatement);
-            CleanupHelper.loggedClose(deletePropStatement);
         }
     }
 
+    /**
+     * Writes the properties of an updated object, only those that changed.
+     *
+     * @param fullId the full URI of the object
+     * @param dbId the identifier of the object row
+     * @param newValue the updated object
+     * @param connection the DB connection
+     * @throws SQLException if writing the properties failed
+     */
+    void writeUpdatedValueProperties(String fullId, long dbId, JsonValue newValue, Connection connection)
+            throws SQLException {
+        updateValueProperties(fullId, dbId, newValue, connection);
+    }
+
     /**
      * @see org.forgerock.openidm.repo.jdbc.impl.GenericTableHandler#delete(java.lang.String, java.lang.String, java.lang.String, java.lang.String, java.sql.Connection)
      */
@@ -618,6 +843,12 @@ public class GenericTableHandler implements TableHandler {
         return queries.query(type, params, connection);
     }
 
+    @Override
+    public void query(String type, Map<String, Object> params, Connection connection, QueryResultHandler handler)
+            throws ResourceException {
+        queries.query(type, params, connection, handler);
+    }
+
     @Override
     public Integer command(String type, Map<String, Object> params, Connection connection) throws SQLException, ResourceException {
         return queries.command(type, params, connection);
@@ -642,9 +873,6 @@ public class GenericTableHandler implements TableHandler {
      */
     @Override
     public String renderQueryFilter(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens, Map<String, Object> params) {
-        final int offsetParam = Integer.parseInt((String) params.get(PAGED_RESULTS_OFFSET));
-        final int pageSizeParam = Integer.parseInt((String) params.get(PAGE_SIZE));
-
         SQLBuilder builder = new SQLBuilder() {
             @Override
             public String toSQL() {
@@ -653,8 +881,8 @@ public class GenericTableHandler implements TableHandler {
                         + getJoinClause().toSQL()
                         + getWhereClause().toSQL()
                         + getOrderByClause().toSQL()
-                        + " LIMIT " + pageSizeParam
-                        + " OFFSET " + offsetParam;
+                        + " LIMIT " + TableQueries.PAGE_SIZE_TOKEN
+                        + " OFFSET " + TableQueries.PAGE_OFFSET_TOKEN;
             }
         };
 
@@ -694,6 +922,11 @@ public class GenericTableHandler implements TableHandler {
         }
         for (int i = 0; i < sortKeys.size(); i++) {
             final SortKey sortKey = sortKeys.get(i);
+            if (ResourceUtil.RESOURCE_FIELD_CONTENT_ID_POINTER.equals(sortKey.getField())) {
+                // the object id is not a property, sort on the main table
+                builder.orderBy("obj.objectid", sortKey.isAscendingOrder());
+                continue;
+            }
             final String tokenName = "sortKey" + i;
             final String tableAlias = "orderby" + i;
             builder.join("${_dbSchema}.${_propTable}", tableAlias)
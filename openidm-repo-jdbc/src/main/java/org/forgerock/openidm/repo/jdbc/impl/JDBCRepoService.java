@@ -27,6 +27,7 @@ import static org.forgerock.json.resource.ResourceResponse.FIELD_CONTENT_REVISIO
 import static org.forgerock.json.resource.Responses.newActionResponse;
 import static org.forgerock.json.resource.Responses.newQueryResponse;
 import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_AFTER;
 import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
 import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
 import static org.forgerock.openidm.repo.QueryConstants.QUERY_EXPRESSION;
@@ -35,12 +36,16 @@ import static org.forgerock.openidm.repo.QueryConstants.QUERY_ID;
 import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -57,6 +62,7 @@ import org.apache.felix.scr.annotations.ReferencePolicy;
 import org.apache.felix.scr.annotations.ReferenceStrategy;
 import org.apache.felix.scr.annotations.Service;
 import org.forgerock.openidm.datasource.DataSourceService;
+import org.forgerock.openidm.datasource.jdbc.impl.JDBCDataSourceService;
 import org.forgerock.openidm.smartevent.EventEntry;
 import org.forgerock.openidm.smartevent.Name;
 import org.forgerock.openidm.smartevent.Publisher;
@@ -81,6 +87,7 @@ import org.forgerock.json.resource.RequestHandler;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.SortKey;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.config.enhanced.EnhancedConfig;
 import org.forgerock.openidm.config.enhanced.InvalidException;
@@ -90,9 +97,14 @@ import org.forgerock.openidm.repo.RepoBootService;
 import org.forgerock.openidm.repo.RepositoryService;
 import org.forgerock.openidm.repo.jdbc.DatabaseType;
 import org.forgerock.openidm.repo.jdbc.ErrorType;
+import org.forgerock.openidm.repo.jdbc.QueryResultHandler;
 import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.forgerock.openidm.repo.jdbc.impl.query.TableQueries;
 import org.forgerock.openidm.util.Accessor;
+import org.forgerock.openidm.util.ResourceUtil;
+import org.forgerock.util.encode.Base64;
 import org.forgerock.util.promise.Promise;
+import org.forgerock.util.query.QueryFilter;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 import org.osgi.service.component.ComponentContext;
@@ -115,13 +127,23 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
     final static Logger logger = LoggerFactory.getLogger(JDBCRepoService.class);
 
     public static final String PID = "org.forgerock.openidm.repo.jdbc";
+
+    private static final Name EVENT_GET_CONNECTION = Name.register("openidm/internal/JDBCRepoService/getConnection");
     private static final String ACTION_COMMAND = "command";
 
+    /** Prefix of paged results cookies holding the last object id of the page, rather than an offset */
+    private static final String KEYSET_COOKIE_PREFIX = "id:";
+
+    /** Suffix of the companion of a query id returning the page after {@code ${_pagedResultsAfter}} */
+    private static final String KEYSET_QUERY_SUFFIX = "-keyset";
+
     // Keys in the JSON configuration
     public static final String CONFIG_USE_DATASOURCE = "useDataSource";
     public static final String CONFIG_DB_TYPE = "dbType";
     public static final String CONFIG_MAX_TX_RETRY = "maxTxRetry";
     public static final String CONFIG_MAX_BATCH_SIZE = "maxBatchSize";
+    public static final String CONFIG_QUERY_FETCH_SIZE = "queryFetchSize";
+    public static final String CONFIG_STREAM_QUERY_RESULTS = "streamQueryResults";
 
     Map<String, TableHandler> tableHandlers;
     TableHandler defaultTableHandler;
@@ -131,6 +153,22 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
     private JsonValue config;
     private int maxTxRetry = 5;
 
+    /** The number of query result rows to fetch from the database at a time; 0 to leave it to the driver */
+    private int queryFetchSize;
+
+    /**
+     * Whether query results are handed to the query handler as they are read, while the connection is held,
+     * rather than once all are read and the connection is released
+     */
+    boolean streamQueryResults;
+
+    /**
+     * Set while the current thread streams query results to a query handler. The handler must not call back
+     * into the repository: each such call would wait for a second connection while holding the first, which
+     * exhausts the connection pool, and then deadlocks, under concurrent load.
+     */
+    private static final ThreadLocal<Boolean> streaming = new ThreadLocal<>();
+
     /** CryptoService for detecting whether a value is encrypted */
     @Reference
     protected CryptoService cryptoService;
@@ -574,38 +612,50 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         try {
 
             // If paged results are requested then decode the cookie in order to determine
-            // the index of the first result to be returned.
+            // the first result to be returned.
             final int requestPageSize = request.getPageSize();
 
-            // Cookie containing offset of last request
+            // Cookie containing offset of last request, or the last object id if paging by object id
             final String pagedResultsCookie = request.getPagedResultsCookie();
 
             final boolean pagedResultsRequested = requestPageSize > 0;
 
             // index of first record (used for SKIP/OFFSET)
-            final int firstResultIndex;
+            int firstResultIndex = 0;
+
+            // object id after which the page starts (used when paging by object id)
+            String pagedResultsAfter = null;
 
             if (pagedResultsRequested) {
                 if (!isNullOrEmpty(pagedResultsCookie)) {
-                    try {
-                        firstResultIndex = Integer.parseInt(pagedResultsCookie);
-                    } catch (final NumberFormatException e) {
-                        throw new BadRequestException("Invalid paged results cookie");
+                    if (pagedResultsCookie.startsWith(KEYSET_COOKIE_PREFIX)) {
+                        pagedResultsAfter = decodeKeysetCookie(pagedResultsCookie);
+                    } else {
+                        try {
+                            firstResultIndex = Integer.parseInt(pagedResultsCookie);
+                        } catch (final NumberFormatException e) {
+                            throw new BadRequestException("Invalid paged results cookie");
+                        }
                     }
                 } else {
                     firstResultIndex = Math.max(0, request.getPagedResultsOffset());
                 }
-            } else {
-                firstResultIndex = 0;
             }
 
+            final TableHandler tableHandler = getTableHandler(trimStartingSlash(request.getResourcePath()));
+            final boolean keysetPaging = pagedResultsRequested && isKeysetPageable(request, tableHandler);
+            if (pagedResultsAfter != null && !keysetPaging) {
+                throw new BadRequestException("Invalid paged results cookie");
+            }
+
+            final QueryRequest pageRequest = keysetPaging ? keysetPageRequest(request, pagedResultsAfter) : request;
+
             // Once cookie is processed Queries.query() can rely on the offset.
-            request.setPagedResultsOffset(firstResultIndex);
+            pageRequest.setPagedResultsOffset(firstResultIndex);
 
-            List<ResourceResponse> results = query(request);
-            for (ResourceResponse result : results) {
-                handler.handleResource(result);
-            }
+            // Hand the results to the handler, as they are read if streaming is enabled
+            final PageResultHandler results = new PageResultHandler(handler);
+            query(pageRequest, pagedResultsAfter, results, streamQueryResults);
 
             /*
              * Execute additional -count query if we are paging
@@ -616,8 +666,6 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
             final int resultCount;
 
             if (pagedResultsRequested) {
-                TableHandler tableHandler = getTableHandler(trimStartingSlash(request.getResourcePath()));
-
                 // count if requested
                 switch (request.getTotalPagedResultsPolicy()) {
                     case ESTIMATE:
@@ -652,10 +700,12 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
                         break;
                 }
 
-                if (results.size() < requestPageSize) {
+                if (results.count < requestPageSize) {
                     nextCookie = null;
+                } else if (keysetPaging) {
+                    nextCookie = encodeKeysetCookie(results.lastId);
                 } else {
-                    final int remainingResults = resultCount - (firstResultIndex + results.size());
+                    final int remainingResults = resultCount - (firstResultIndex + results.count);
                     if (remainingResults == 0) {
                         nextCookie = null;
                     } else {
@@ -679,8 +729,144 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         }
     }
 
+    /**
+     * Checks whether a paged query can be paged by seeking past the last object id of the previous
+     * page rather than by offset, which gets linearly slower with the depth of the page.
+     * <p>
+     * A query id qualifies if a companion query with the {@link #KEYSET_QUERY_SUFFIX} is configured;
+     * the query itself must then return its results ordered by object id, and the companion the
+     * results after the object id passed as {@code ${_pagedResultsAfter}}. A query filter qualifies
+     * if the table handler supports it and the results are not sorted by anything but {@code _id}.
+     *
+     * @param request the query request
+     * @param tableHandler the table handler of the queried resource
+     * @return whether the query can be paged by object id
+     */
+    private boolean isKeysetPageable(QueryRequest request, TableHandler tableHandler) {
+        if (tableHandler == null) {
+            return false;
+        }
+        if (request.getQueryId() != null) {
+            return tableHandler.queryIdExists(request.getQueryId() + KEYSET_QUERY_SUFFIX);
+        }
+        if (request.getQueryFilter() != null && tableHandler.isKeysetPagingSupported()) {
+            final List<SortKey> sortKeys = request.getSortKeys();
+            return sortKeys.isEmpty()
+                    || (sortKeys.size() == 1
+                        && ResourceUtil.RESOURCE_FIELD_CONTENT_ID_POINTER.equals(sortKeys.get(0).getField()));
+        }
+        return false;
+    }
+
+    /**
+     * Creates the request for a page of a query paged by object id.
+     *
+     * @param request the query request
+     * @param pagedResultsAfter the last object id of the previous page, or null for the first page
+     * @return the request for the page
+     */
+    private QueryRequest keysetPageRequest(QueryRequest request, String pagedResultsAfter) {
+        final QueryRequest pageRequest = Requests.copyOfQueryRequest(request);
+        if (request.getQueryId() != null) {
+            if (pagedResultsAfter != null) {
+                pageRequest.setQueryId(request.getQueryId() + KEYSET_QUERY_SUFFIX);
+            }
+            return pageRequest;
+        }
+        final boolean ascending;
+        if (request.getSortKeys().isEmpty()) {
+            // a stable order is required to seek past the previous page
+            pageRequest.addSortKey(SortKey.ascendingOrder(FIELD_CONTENT_ID));
+            ascending = true;
+        } else {
+            ascending = request.getSortKeys().get(0).isAscendingOrder();
+        }
+        if (pagedResultsAfter != null) {
+            pageRequest.setQueryFilter(QueryFilter.and(request.getQueryFilter(), ascending
+                    ? QueryFilter.greaterThan(ResourceUtil.RESOURCE_FIELD_CONTENT_ID_POINTER, pagedResultsAfter)
+                    : QueryFilter.lessThan(ResourceUtil.RESOURCE_FIELD_CONTENT_ID_POINTER, pagedResultsAfter)));
+        }
+        return pageRequest;
+    }
+
+    private static String encodeKeysetCookie(String lastId) throws InternalServerErrorException {
+        if (lastId == null) {
+            throw new InternalServerErrorException("Query paged by object id returned a result without _id");
+        }
+        return KEYSET_COOKIE_PREFIX + Base64.encode(lastId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeKeysetCookie(String cookie) throws BadRequestException {
+        final byte[] lastId;
+        try {
+            lastId = Base64.decode(cookie.substring(KEYSET_COOKIE_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid paged results cookie");
+        }
+        if (lastId == null) {
+            throw new BadRequestException("Invalid paged results cookie");
+        }
+        return new String(lastId, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Hands the results of a page to a resource handler as they are read, keeping track of the
+     * number of results and the last object id of the page.
+     */
+    private static final class PageResultHandler implements QueryResultHandler {
+        private final QueryResourceHandler handler;
+        private int count;
+        private String lastId;
+
+        PageResultHandler(QueryResourceHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public boolean handleResult(Map<String, Object> result) {
+            final ResourceResponse resource = toResourceResponse(result);
+            count++;
+            lastId = resource.getId();
+            return handler.handleResource(resource);
+        }
+    }
+
+    private static ResourceResponse toResourceResponse(Map<String, Object> resultMap) {
+        String id = (String) resultMap.get("_id");
+        String rev = (String) resultMap.get("_rev");
+        return newResourceResponse(id, rev, new JsonValue(resultMap));
+    }
+
     @Override
     public List<ResourceResponse> query(QueryRequest request) throws ResourceException {
+        final List<ResourceResponse> results = new ArrayList<>();
+        // Collecting the results does not call back into the repository, so they can be streamed
+        query(request, null, new QueryResultHandler() {
+            @Override
+            public boolean handleResult(Map<String, Object> result) {
+                results.add(toResourceResponse(result));
+                return true;
+            }
+        }, true);
+        return results;
+    }
+
+    /**
+     * Performs a query, optionally passing the object id after which a query paged by object id starts.
+     * <p>
+     * If streamed, the results are handed to the handler as they are read from the database, while the
+     * connection is held, so the handler must not call back into the repository; such calls fail rather
+     * than wait for a second connection. Otherwise the results are read in full, and handed to the handler
+     * once the connection is released.
+     *
+     * @param request the query request
+     * @param pagedResultsAfter the object id the page starts after, or null
+     * @param handler the handler to hand the results to
+     * @param stream whether to stream the results to the handler
+     * @throws ResourceException if the query failed
+     */
+    private void query(QueryRequest request, String pagedResultsAfter, QueryResultHandler handler, boolean stream)
+            throws ResourceException {
         String fullId = request.getResourcePath();
         String type = trimStartingSlash(fullId);
         logger.trace("Full id: {} Extracted type: {}", fullId, type);
@@ -692,8 +878,15 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         params.put(PAGE_SIZE, request.getPageSize());
         params.put(PAGED_RESULTS_OFFSET, request.getPagedResultsOffset());
         params.put(SORT_KEYS, request.getSortKeys());  
+        if (pagedResultsAfter != null) {
+            params.put(PAGED_RESULTS_AFTER, pagedResultsAfter);
+        }
+        params.put(TableQueries.FETCH_SIZE, queryFetchSize);
 
+        final List<Map<String, Object>> buffered = stream ? null : new ArrayList<Map<String, Object>>();
         Connection connection = null;
+        // Whether a transaction is open for the driver to read the results with a cursor
+        boolean cursorTransaction = false;
         try {
             TableHandler tableHandler = getTableHandler(type);
             if (tableHandler == null) {
@@ -701,19 +894,31 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
                         "No handler configured for resource type " + type);
             }
             connection = getConnection();
-            connection.setAutoCommit(true); // Ensure we do not implicitly
-                                            // start transaction isolation
-
-            List<Map<String, Object>> docs = tableHandler.query(type, params, connection);
-            List<ResourceResponse> results = new ArrayList<>();
-            for (Map<String, Object> resultMap : docs) {
-                String id = (String) resultMap.get("_id");
-                String rev = (String) resultMap.get("_rev");
-                JsonValue value = new JsonValue(resultMap);
-                ResourceResponse resultResource = newResourceResponse(id, rev, value);
-                results.add(resultResource);
+            // Ensure we do not implicitly start transaction isolation, unless the driver only
+            // fetches rows with a cursor inside a transaction
+            cursorTransaction = queryFetchSize > 0 && databaseType == DatabaseType.POSTGRESQL;
+            connection.setAutoCommit(!cursorTransaction);
+
+            if (stream) {
+                streaming.set(Boolean.TRUE);
+                try {
+                    tableHandler.query(type, params, connection, handler);
+                } finally {
+                    streaming.remove();
+                }
+            } else {
+                tableHandler.query(type, params, connection, new QueryResultHandler() {
+                    @Override
+                    public boolean handleResult(Map<String, Object> result) {
+                        buffered.add(result);
+                        return true;
+                    }
+                });
+            }
+            if (cursorTransaction) {
+                connection.commit();
+                cursorTransaction = false;
             }
-            return results;
         } catch (SQLException ex) {
             if (logger.isDebugEnabled()) {
                 logger.debug("SQL Exception in query of {} with error code {}, sql state {}",
@@ -724,8 +929,18 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
             logger.debug("ResourceException in query of {}", fullId, ex);
             throw ex;
         } finally {
+            if (cursorTransaction) {
+                rollback(connection);
+            }
             CleanupHelper.loggedClose(connection);
         }
+        if (buffered != null) {
+            for (Map<String, Object> result : buffered) {
+                if (!handler.handleResult(result)) {
+                    break;
+                }
+            }
+        }
     }
     
     @Override
@@ -825,7 +1040,15 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
     }
 
     Connection getConnection() throws SQLException {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/JDBCRepoService/getConnection"), null, null);
+        if (streaming.get() != null) {
+            throw new SQLException("The repository was called while streaming query results to a handler, "
+                    + "which may exhaust the connection pool; disable " + CONFIG_STREAM_QUERY_RESULTS);
+        }
+        return openConnection();
+    }
+
+    Connection openConnection() throws SQLException {
+        EventEntry measure = Publisher.start(EVENT_GET_CONNECTION, null, null);
         try {
             return dataSourceService.getDataSource().getConnection();
         } finally {
@@ -891,6 +1114,8 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
                     .defaultTo(DatabaseType.ANSI_SQL99.name())
                     .as(enumConstant(DatabaseType.class));
             maxTxRetry = config.get(CONFIG_MAX_TX_RETRY).defaultTo(5).asInteger();
+            queryFetchSize = config.get(CONFIG_QUERY_FETCH_SIZE).defaultTo(0).asInteger();
+            streamQueryResults = config.get(CONFIG_STREAM_QUERY_RESULTS).defaultTo(false).asBoolean();
             int maxBatchSize = config.get(CONFIG_MAX_BATCH_SIZE).defaultTo(100).asInteger();
 
             JsonValue defaultMapping = config.get("resourceMapping").get("default");
@@ -954,6 +1179,19 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
                 }
             }
 
+            // Cache prepared statements on the physical connections of the pools configured in OpenIDM only,
+            // container data sources provide their own statement caching
+            boolean cacheStatements = dataSourceService instanceof JDBCDataSourceService
+                    && ((JDBCDataSourceService) dataSourceService).isPooled();
+            for (TableHandler handler : getAllTableHandlers()) {
+                if (handler instanceof GenericTableHandler) {
+                    ((GenericTableHandler) handler).queries.setStatementCaching(cacheStatements);
+                } else if (handler instanceof MappedTableHandler) {
+                    ((MappedTableHandler) handler).queries.setStatementCaching(cacheStatements);
+                }
+            }
+            logger.debug("Prepared statement caching enabled: {}", cacheStatements);
+
         } catch (RuntimeException ex) {
             logger.warn("Configuration invalid, can not start JDBC repository.", ex);
             throw new InvalidException("Configuration invalid, can not start JDBC repository.", ex);
@@ -968,6 +1206,7 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
             testConn = getConnection();
             testConn.setAutoCommit(true); // Ensure we do not implicitly start
                                           // transaction isolation
+            initializeTableHandlers(testConn);
         } catch (Exception ex) {
             logger.warn(
                     "JDBC Repository start-up experienced a failure getting a DB connection: "
@@ -985,6 +1224,43 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         }
     }
 
+    /**
+     * Warms up the object type ids of the generic table handlers, so that creating objects does not read them, and
+     * creates the indexes of the PostgreSQL tables storing objects as jsonb.
+     */
+    private void initializeTableHandlers(Connection connection) {
+        for (TableHandler handler : getAllTableHandlers()) {
+            if (handler instanceof GenericTableHandler) {
+                try {
+                    ((GenericTableHandler) handler).loadTypeIds(connection);
+                } catch (SQLException ex) {
+                    logger.warn("Failure loading the object type ids of {}, they will be read as needed",
+                            handler, ex);
+                }
+            }
+            if (handler instanceof PostgreSQLTableHandler) {
+                try {
+                    ((PostgreSQLTableHandler) handler).createIndexes(connection);
+                } catch (SQLException ex) {
+                    logger.warn("Failure creating the indexes of {}, queries will not be served by them",
+                            handler, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the table handlers, each one once.
+     */
+    private Set<TableHandler> getAllTableHandlers() {
+        Set<TableHandler> handlers = Collections.newSetFromMap(new IdentityHashMap<TableHandler, Boolean>());
+        handlers.addAll(tableHandlers.values());
+        if (defaultTableHandler != null) {
+            handlers.add(defaultTableHandler);
+        }
+        return handlers;
+    }
+
     GenericTableHandler getGenericTableHandler(DatabaseType databaseType, JsonValue tableConfig,
             String dbSchemaName, JsonValue queries, JsonValue commands, int maxBatchSize) {
 
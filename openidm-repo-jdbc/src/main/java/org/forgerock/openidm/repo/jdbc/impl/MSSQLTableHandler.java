@@ -16,8 +16,6 @@
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
-import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
-import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
 import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
 import static org.forgerock.openidm.repo.util.Clauses.where;
 
@@ -33,6 +31,7 @@ import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.repo.jdbc.Constants;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
+import org.forgerock.openidm.repo.jdbc.impl.query.TableQueries;
 import org.forgerock.openidm.repo.util.Clause;
 import org.forgerock.util.query.QueryFilter;
 
@@ -94,7 +93,6 @@ public class MSSQLTableHandler extends GenericTableHandler {
         obj.put(Constants.OBJECT_REV, newRev); // Save the rev in the object, and return the changed rev from the create.
 
         PreparedStatement updateStatement = null;
-        PreparedStatement deletePropStatement = null;
         try {
             JsonValue result = new JsonValue(readForUpdate(fullId, type, localId, connection));
             String existingRev = result.get(Constants.RAW_OBJECT_REV).asString();
@@ -110,7 +108,6 @@ public class MSSQLTableHandler extends GenericTableHandler {
                         + "the object has changed since retrieval.");
             }
             updateStatement = getPreparedStatement(connection, QueryDefinition.UPDATEQUERYSTR);
-            deletePropStatement = getPreparedStatement(connection, QueryDefinition.PROPDELETEQUERYSTR);
             // Support changing object identifier
             String newLocalId = (String) obj.get(Constants.OBJECT_ID);
             if (newLocalId != null && !localId.equals(newLocalId)) {
@@ -137,28 +134,15 @@ public class MSSQLTableHandler extends GenericTableHandler {
                 throw new org.forgerock.json.resource.InternalServerErrorException("Update execution did not result in updating 1 row as expected. Updated rows: " + updateCount);
             }
 
-            JsonValue jv = new JsonValue(obj);
-            // TODO: only update what changed?
-            logger.trace("Populating prepared statement {} for {} {} {}", deletePropStatement, fullId, type, localId);
-            deletePropStatement.setString(1, type);
-            deletePropStatement.setString(2, localId);
-            logger.debug("Update properties del statement: {}", deletePropStatement);
-            int deleteCount = deletePropStatement.executeUpdate();
-            logger.trace("Deleted child rows: {} for: {}", deleteCount, fullId);
-            writeValueProperties(fullId, dbId, localId, jv, connection);
+            writeUpdatedValueProperties(fullId, dbId, new JsonValue(obj), connection);
         } finally {
             CleanupHelper.loggedClose(updateStatement);
-            CleanupHelper.loggedClose(deletePropStatement);
         }
     }
 
     @Override
     public String renderQueryFilter(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens, Map<String, Object> params) {
-        final int offsetParam = Integer.parseInt((String) params.get(PAGED_RESULTS_OFFSET));
-        final int pageSizeParam = Integer.parseInt((String) params.get(PAGE_SIZE));
-
         // Create custom builder which overrides SQL output syntax
-        // note enclosing offsetParam and pageSizeParam - we don't bother passing these to the builder to deal with
         final SQLBuilder builder =
                 new SQLBuilder() {
                     @Override
@@ -170,9 +154,9 @@ public class MSSQLTableHandler extends GenericTableHandler {
                                 + getJoinClause().toSQL()
                                 + getWhereClause().toSQL()
                                 + ") SELECT * FROM results WHERE rowNo BETWEEN "
-                                + (offsetParam + 1)
+                                + TableQueries.PAGE_FIRST_ROW_TOKEN
                                 + " AND "
-                                + (offsetParam + pageSizeParam);
+                                + TableQueries.PAGE_LAST_ROW_TOKEN;
                     }
                 };
 
@@ -17,8 +17,6 @@
 package org.forgerock.openidm.repo.jdbc.impl;
 
 import static org.forgerock.json.resource.Responses.newResourceResponse;
-import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
-import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
 import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
 
 import java.io.IOException;
@@ -46,12 +44,14 @@ import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.crypto.CryptoService;
 import org.forgerock.openidm.repo.jdbc.Constants;
 import org.forgerock.openidm.repo.jdbc.ErrorType;
+import org.forgerock.openidm.repo.jdbc.QueryResultHandler;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
 import org.forgerock.openidm.repo.jdbc.TableHandler;
 import org.forgerock.openidm.repo.jdbc.impl.query.TableQueries;
 import org.forgerock.openidm.repo.util.StringSQLQueryFilterVisitor;
 import org.forgerock.openidm.repo.util.StringSQLRenderer;
 import org.forgerock.openidm.util.Accessor;
+import org.forgerock.openidm.util.ResourceUtil;
 import org.forgerock.util.query.QueryFilter;
 import org.forgerock.util.query.QueryFilterVisitor;
 import org.slf4j.Logger;
@@ -474,6 +474,12 @@ public class MappedTableHandler implements TableHandler {
         return queries.query(type, params, connection);
     }
 
+    @Override
+    public void query(String type, Map<String, Object> params, Connection connection, QueryResultHandler handler)
+            throws ResourceException {
+        queries.query(type, params, connection, handler);
+    }
+
     @Override
     public Integer command(String type, Map<String, Object> params, Connection connection) throws SQLException, ResourceException {
         return queries.command(type, params, connection);
@@ -484,6 +490,17 @@ public class MappedTableHandler implements TableHandler {
         return queries.queryIdExists(queryId);
     }
 
+    @Override
+    public boolean isKeysetPagingSupported() {
+        // only if the object id is mapped to a column the filter can compare and sort on
+        try {
+            explicitMapping.getDbColumnName(ResourceUtil.RESOURCE_FIELD_CONTENT_ID_POINTER);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
     // TODO: make common to generic and explicit handlers
     public boolean isErrorType(SQLException ex, ErrorType errorType) {
         return sqlExceptionHandler.isErrorType(ex, errorType);
@@ -501,9 +518,7 @@ public class MappedTableHandler implements TableHandler {
 
     @Override
     public String renderQueryFilter(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens, Map<String, Object> params) {
-        final String offsetParam = (String) params.get(PAGED_RESULTS_OFFSET);
-        final String pageSizeParam = (String) params.get(PAGE_SIZE);
-        String pageClause = " LIMIT " + pageSizeParam + " OFFSET " + offsetParam;
+        String pageClause = " LIMIT " + TableQueries.PAGE_SIZE_TOKEN + " OFFSET " + TableQueries.PAGE_OFFSET_TOKEN;
 
         // JsonValue-cheat to avoid an unchecked cast
         final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).asList(SortKey.class);
@@ -23,8 +23,6 @@
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
-import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
-import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
 import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
 
 import java.util.List;
@@ -37,6 +35,7 @@ import org.forgerock.json.resource.InternalServerErrorException;
 import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.crypto.CryptoService;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
+import org.forgerock.openidm.repo.jdbc.impl.query.TableQueries;
 import org.forgerock.openidm.util.Accessor;
 import org.forgerock.util.query.QueryFilter;
 
@@ -50,8 +49,6 @@ public class OracleMappedTableHandler extends MappedTableHandler {
     
     @Override
     public String renderQueryFilter(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens, Map<String, Object> params) {
-        final int offsetParam = Integer.parseInt((String)params.get(PAGED_RESULTS_OFFSET));
-        final int pageSizeParam = Integer.parseInt((String)params.get(PAGE_SIZE));
         String filterString = getFilterString(filter, replacementTokens);
         final String keysClause;
 
@@ -69,9 +66,9 @@ public class OracleMappedTableHandler extends MappedTableHandler {
                 + " ) AS rn FROM ${_dbSchema}.${_mainTable} "
                 + filterString 
                 + " ) WHERE rn BETWEEN " 
-                + (offsetParam+1)
+                + TableQueries.PAGE_FIRST_ROW_TOKEN
                 + " AND " 
-                + (offsetParam + pageSizeParam)
+                + TableQueries.PAGE_LAST_ROW_TOKEN
                 + " ORDER BY rn";
     }
 
@@ -24,8 +24,6 @@
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
-import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
-import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
 import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
 import static org.forgerock.openidm.repo.util.Clauses.where;
 
@@ -42,6 +40,7 @@ import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.InternalServerErrorException;
 import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
+import org.forgerock.openidm.repo.jdbc.impl.query.TableQueries;
 import org.forgerock.openidm.repo.util.Clause;
 import org.forgerock.util.query.QueryFilter;
 import org.slf4j.Logger;
@@ -123,11 +122,7 @@ public class OracleTableHandler extends GenericTableHandler {
 
     @Override
     public String renderQueryFilter(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens, Map<String, Object> params) {
-        final int offsetParam = Integer.parseInt((String)params.get(PAGED_RESULTS_OFFSET));
-        final int pageSizeParam = Integer.parseInt((String)params.get(PAGE_SIZE));
-
         // Create custom builder which overrides SQL output syntax
-        // note enclosing offsetParam and pageSizeParam - we don't bother passing these to the builder to deal with
         final SQLBuilder builder =
                 new SQLBuilder() {
                     @Override
@@ -140,9 +135,9 @@ public class OracleTableHandler extends GenericTableHandler {
                                 + getWhereClause().toSQL()
                                 + getOrderByClause().toSQL()
                                 + ") WHERE rn BETWEEN "
-                                + (offsetParam + 1)
+                                + TableQueries.PAGE_FIRST_ROW_TOKEN
                                 + " AND "
-                                + (offsetParam + pageSizeParam)
+                                + TableQueries.PAGE_LAST_ROW_TOKEN
                                 + " ORDER BY rn";
                     }
                 };
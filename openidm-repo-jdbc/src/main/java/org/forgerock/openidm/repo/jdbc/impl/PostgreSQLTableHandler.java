@@ -23,14 +23,17 @@
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
-import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
-import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
 import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 import org.forgerock.guava.common.base.Function;
@@ -39,6 +42,7 @@ import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
+import org.forgerock.openidm.repo.jdbc.impl.query.TableQueries;
 import org.forgerock.openidm.repo.util.StringSQLQueryFilterVisitor;
 import org.forgerock.openidm.repo.util.StringSQLRenderer;
 import org.forgerock.openidm.util.ResourceUtil;
@@ -46,9 +50,31 @@ import org.forgerock.util.query.QueryFilter;
 
 /**
  * Postgres-specific generic table handler.
+ * <p>
+ * With the {@code "storage" : "jsonb"} table configuration, the objects are only held by the {@code fullobject}
+ * column, which must be of type {@code jsonb}, and the properties table is not written. Query filters, sorting and
+ * paging are then rendered against the jsonb column: equality assertions of strings as containment, served by a gin
+ * index on the column if {@code searchableDefault} is true, and other assertions on the extracted field values,
+ * served by expression indexes on the explicitly searchable properties. The indexes are created by
+ * {@link #createIndexes}. Equality assertions of numbers, booleans, and strings that could be the text of another
+ * JSON type are compared to the extracted text, as with the json storage, so that a string matches a stored number
+ * or boolean of the same text and the other way around.
+ * The {@code json_extract_path_text} calls of the configured queries are turned into their jsonb equivalent.
  */
 public class PostgreSQLTableHandler extends GenericTableHandler {
 
+    /** The path elements that can be written as SQL literals */
+    private static final Pattern LITERAL_ELEMENT = Pattern.compile("[\\w-]+");
+
+    /** The path elements that may be array indexes */
+    private static final Pattern INDEX_ELEMENT = Pattern.compile("\\d+");
+
+    /** The calls extracting values from a json column, in configured queries */
+    private static final Pattern JSON_EXTRACT_PATH_TEXT = Pattern.compile("\\bjson_extract_path_text\\s*\\(");
+
+    /** The maximum length of PostgreSQL identifiers */
+    private static final int MAX_IDENTIFIER_LENGTH = 63;
+
     private class JsonExtractPathQueryFilterVisitor extends StringSQLQueryFilterVisitor<Map<String, Object>> {
         // value number for each value placeholder
         int objectNumber = 0;
@@ -117,6 +143,45 @@ public class PostgreSQLTableHandler extends GenericTableHandler {
         }
     }
 
+    private class JsonbQueryFilterVisitor extends StringSQLQueryFilterVisitor<Map<String, Object>> {
+        // value number for each value placeholder
+        int objectNumber = 0;
+
+        @Override
+        public StringSQLRenderer visitValueAssertion(Map<String, Object> objects, String operand, JsonPointer field, Object valueAssertion) {
+            ++objectNumber;
+            String value = "v" + objectNumber;
+            objects.put(value, valueAssertion);
+            if (ResourceUtil.RESOURCE_FIELD_CONTENT_ID_POINTER.equals(field)) {
+                return new StringSQLRenderer("(obj.objectid " + operand + " ${" + value + "})");
+            }
+            String type = getJsonbType(valueAssertion);
+            if ("=".equals(operand) && isContainmentPath(field) && isContainmentValue(valueAssertion)) {
+                // containment, served by the gin index of the column
+                return new StringSQLRenderer("(obj.fullobject @> "
+                        + jsonbBuildObject(field, "(${" + value + "})::text") + ")");
+            }
+            String path = jsonbExtractPath("obj.fullobject", field, "p" + objectNumber + "_", objects);
+            if ("numeric".equals(type)) {
+                return new StringSQLRenderer("(" + path + "::numeric " + operand + " (${" + value + "})::numeric)");
+            } else {
+                return new StringSQLRenderer("(" + path + " " + operand + " ${" + value + "})");
+            }
+        }
+
+        @Override
+        public StringSQLRenderer visitPresentFilter(Map<String, Object> objects, JsonPointer field) {
+            if (ResourceUtil.RESOURCE_FIELD_CONTENT_ID_POINTER.equals(field)) {
+                // NOT NULL enforced by the schema
+                return new StringSQLRenderer("(obj.objectid IS NOT NULL)");
+            } else {
+                ++objectNumber;
+                return new StringSQLRenderer("("
+                        + jsonbExtractPath("obj.fullobject", field, "p" + objectNumber + "_", objects) + " IS NOT NULL)");
+            }
+        }
+    }
+
     /**
      * Construct a table handler for Postgres using Postgres-specific json-handling
      *
@@ -124,7 +189,203 @@ public class PostgreSQLTableHandler extends GenericTableHandler {
      */
     public PostgreSQLTableHandler(JsonValue tableConfig, String dbSchemaName, JsonValue queriesConfig, JsonValue commandsConfig,
             int maxBatchSize, SQLExceptionHandler sqlExceptionHandler) {
-        super(tableConfig, dbSchemaName, queriesConfig, commandsConfig, maxBatchSize, sqlExceptionHandler);
+        super(tableConfig, dbSchemaName,
+                isJsonbStorage(tableConfig) ? toJsonbQueries(queriesConfig) : queriesConfig,
+                isJsonbStorage(tableConfig) ? toJsonbQueries(commandsConfig) : commandsConfig,
+                maxBatchSize, sqlExceptionHandler);
+    }
+
+    private static boolean isJsonbStorage(JsonValue tableConfig) {
+        return GenericTableConfig.parse(tableConfig).jsonbStorage;
+    }
+
+    /**
+     * Returns the configured queries, extracting the values of a jsonb rather than a json column.
+     */
+    private static JsonValue toJsonbQueries(JsonValue queriesConfig) {
+        if (queriesConfig.isNull()) {
+            return queriesConfig;
+        }
+        Map<String, Object> queries = new LinkedHashMap<>();
+        for (String queryName : queriesConfig.keys()) {
+            JsonValue query = queriesConfig.get(queryName);
+            queries.put(queryName, query.isString()
+                    ? JSON_EXTRACT_PATH_TEXT.matcher(query.asString()).replaceAll("jsonb_extract_path_text(")
+                    : query.getObject());
+        }
+        return new JsonValue(queries);
+    }
+
+    @Override
+    int getSearchableLength() {
+        // values are compared to the full object, they must not be trimmed
+        return cfg.jsonbStorage ? 0 : super.getSearchableLength();
+    }
+
+    @Override
+    void writeValueProperties(String fullId, long dbId, String localId, JsonValue value, Connection connection)
+            throws SQLException {
+        if (!cfg.jsonbStorage) {
+            super.writeValueProperties(fullId, dbId, localId, value, connection);
+        }
+    }
+
+    @Override
+    void writeUpdatedValueProperties(String fullId, long dbId, JsonValue newValue, Connection connection)
+            throws SQLException {
+        if (!cfg.jsonbStorage) {
+            super.writeUpdatedValueProperties(fullId, dbId, newValue, connection);
+        }
+    }
+
+    /**
+     * Creates the indexes of the jsonb column that do not exist yet: a gin index if all the properties are
+     * searchable by default, and an expression index for each explicitly searchable property.
+     *
+     * @param connection the DB connection
+     * @throws SQLException if creating an index failed
+     */
+    public void createIndexes(Connection connection) throws SQLException {
+        if (!cfg.jsonbStorage) {
+            return;
+        }
+        Statement statement = connection.createStatement();
+        try {
+            for (String sql : getIndexStatements()) {
+                logger.debug("Creating index: {}", sql);
+                statement.execute(sql);
+            }
+        } finally {
+            CleanupHelper.loggedClose(statement);
+        }
+    }
+
+    /**
+     * @return the statements creating the indexes of the jsonb column
+     */
+    List<String> getIndexStatements() {
+        String mainTable = dbSchemaName == null ? mainTableName : dbSchemaName + "." + mainTableName;
+        List<String> statements = new ArrayList<>();
+        if (cfg.searchableDefault) {
+            statements.add("CREATE INDEX IF NOT EXISTS " + getIndexName("fullobject") + " ON " + mainTable
+                    + " USING gin (fullobject jsonb_path_ops)");
+        }
+        for (Map.Entry<JsonPointer, Boolean> property : cfg.properties.explicitlySearchable.entrySet()) {
+            if (!property.getValue()) {
+                continue;
+            }
+            if (!isLiteralPath(property.getKey())) {
+                logger.info("No index created for searchable property {} of {}", property.getKey(), mainTableName);
+                continue;
+            }
+            statements.add("CREATE INDEX IF NOT EXISTS "
+                    + getIndexName(StringUtils.join(property.getKey().toArray(), "_")) + " ON " + mainTable
+                    + " ((" + jsonbExtractPath("fullobject", property.getKey(), null, null) + "))");
+        }
+        return statements;
+    }
+
+    private String getIndexName(String suffix) {
+        String name = ("idx_" + mainTableName + "_" + suffix).replaceAll("\\W", "_").toLowerCase();
+        if (name.length() > MAX_IDENTIFIER_LENGTH) {
+            String hash = Integer.toHexString(name.hashCode());
+            name = name.substring(0, MAX_IDENTIFIER_LENGTH - hash.length() - 1) + "_" + hash;
+        }
+        return name;
+    }
+
+    /**
+     * Returns whether all the elements of a field can be written as SQL literals, as needed for the query to
+     * match an expression index.
+     */
+    private static boolean isLiteralPath(JsonPointer field) {
+        if (field.isEmpty()) {
+            return false;
+        }
+        for (String element : field.toArray()) {
+            if (!LITERAL_ELEMENT.matcher(element).matches()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether a field can be matched by containment, which requires no element to be an array index.
+     */
+    private static boolean isContainmentPath(JsonPointer field) {
+        if (!isLiteralPath(field)) {
+            return false;
+        }
+        for (String element : field.toArray()) {
+            if (INDEX_ELEMENT.matcher(element).matches()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether an equality assertion can be matched by containment, which unlike the comparison of the
+     * extracted text also compares the JSON types. This is only the case of the strings that can only be the text
+     * of a stored string.
+     */
+    private static boolean isContainmentValue(Object valueAssertion) {
+        return valueAssertion instanceof String && !TableQueries.isOtherJsonTypeText(valueAssertion);
+    }
+
+    /**
+     * Generates the jsonb_extract_path_text fragment for a field, the elements that cannot be written as SQL
+     * literals being replaced by placeholders:
+     *
+     * <pre><blockquote>
+     *  jsonb_extract_path_text(obj.fullobject, 'name', ${p1_1} ...)
+     * </blockquote></pre>
+     */
+    private static String jsonbExtractPath(String column, JsonPointer field, String tokenPrefix,
+            Map<String, Object> objects) {
+        StringBuilder sql = new StringBuilder("jsonb_extract_path_text(").append(column);
+        String[] elements = field.toArray();
+        for (int i = 0; i < elements.length; i++) {
+            if (LITERAL_ELEMENT.matcher(elements[i]).matches()) {
+                sql.append(", '").append(elements[i]).append("'");
+            } else {
+                String placeholder = tokenPrefix + i;
+                objects.put(placeholder, elements[i]);
+                sql.append(", ${").append(placeholder).append("}");
+            }
+        }
+        return sql.append(")").toString();
+    }
+
+    /**
+     * Generates the jsonb_build_object fragment for a field holding a value:
+     *
+     * <pre><blockquote>
+     *  jsonb_build_object('name', jsonb_build_object('givenName', value))
+     * </blockquote></pre>
+     */
+    private static String jsonbBuildObject(JsonPointer field, String value) {
+        String sql = value;
+        String[] elements = field.toArray();
+        for (int i = elements.length - 1; i >= 0; i--) {
+            sql = "jsonb_build_object('" + elements[i] + "', " + sql + ")";
+        }
+        return sql;
+    }
+
+    /**
+     * @return the SQL type to compare a value as
+     */
+    private static String getJsonbType(Object valueAssertion) {
+        if (valueAssertion instanceof Integer || valueAssertion instanceof Long
+                || valueAssertion instanceof Float || valueAssertion instanceof Double) {
+            return "numeric";
+        } else if (valueAssertion instanceof Boolean) {
+            return "boolean";
+        } else {
+            return "text";
+        }
     }
 
     protected Map<QueryDefinition, String> initializeQueryMap() {
@@ -134,8 +395,10 @@ public class PostgreSQLTableHandler extends GenericTableHandler {
         String mainTable = dbSchemaName == null ? mainTableName : dbSchemaName + "." + mainTableName;
         String propertyTable = dbSchemaName == null ? propTableName : dbSchemaName + "." + propTableName;
 
-        result.put(QueryDefinition.UPDATEQUERYSTR, "UPDATE " + mainTable + " SET objectid = ?, rev = ?, fullobject = ?::json WHERE id = ?");
-        result.put(QueryDefinition.CREATEQUERYSTR, "INSERT INTO " + mainTable + " (objecttypes_id, objectid, rev, fullobject) VALUES (?,?,?,?::json)");
+        String jsonType = cfg.jsonbStorage ? "jsonb" : "json";
+
+        result.put(QueryDefinition.UPDATEQUERYSTR, "UPDATE " + mainTable + " SET objectid = ?, rev = ?, fullobject = ?::" + jsonType + " WHERE id = ?");
+        result.put(QueryDefinition.CREATEQUERYSTR, "INSERT INTO " + mainTable + " (objecttypes_id, objectid, rev, fullobject) VALUES (?,?,?,?::" + jsonType + ")");
         result.put(QueryDefinition.DELETEQUERYSTR, "DELETE FROM " + mainTable + " obj USING " + typeTable + " objtype WHERE obj.objecttypes_id = objtype.id AND objtype.objecttype = ? AND obj.objectid = ? AND obj.rev = ?");
         result.put(QueryDefinition.PROPDELETEQUERYSTR, "DELETE FROM " + propertyTable + " WHERE " + mainTableName + "_id IN (SELECT obj.id FROM " + mainTable + " obj INNER JOIN " + typeTable + " objtype ON obj.objecttypes_id = objtype.id WHERE objtype.objecttype = ? AND obj.objectid = ?)");
         result.put(QueryDefinition.READFORUPDATEQUERYSTR, "SELECT obj.* FROM " + mainTable + " obj INNER JOIN " + typeTable + " objtype ON obj.objecttypes_id = objtype.id AND objtype.objecttype = ? WHERE obj.objectid  = ? FOR UPDATE OF obj");
@@ -144,9 +407,10 @@ public class PostgreSQLTableHandler extends GenericTableHandler {
     
     @Override
     public String renderQueryFilter(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens, Map<String, Object> params) {
-        final String offsetParam = (String) params.get(PAGED_RESULTS_OFFSET);
-        final String pageSizeParam = (String) params.get(PAGE_SIZE);
-        String pageClause = " LIMIT " + pageSizeParam + " OFFSET " + offsetParam;
+        if (cfg.jsonbStorage) {
+            return renderJsonbQueryFilter(filter, replacementTokens, params);
+        }
+        String pageClause = " LIMIT " + TableQueries.PAGE_SIZE_TOKEN + " OFFSET " + TableQueries.PAGE_OFFSET_TOKEN;
         
         // JsonValue-cheat to avoid an unchecked cast
         final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).asList(SortKey.class);
@@ -155,6 +419,11 @@ public class PostgreSQLTableHandler extends GenericTableHandler {
             List<String> keys = new ArrayList<String>();
             for (int i = 0; i < sortKeys.size(); i++) {
                 final SortKey sortKey = sortKeys.get(i);
+                if (ResourceUtil.RESOURCE_FIELD_CONTENT_ID_POINTER.equals(sortKey.getField())) {
+                    // the object id is not part of the full object, sort on the column
+                    keys.add("obj.objectid" + (sortKey.isAscendingOrder() ? " ASC" : " DESC"));
+                    continue;
+                }
                 final String tokenName = "sortKey" + i;
                 keys.add("json_extract_path_text(fullobject, ${" + tokenName + (sortKey.isAscendingOrder() ? "}) ASC" : "}) DESC"));
                 replacementTokens.put(tokenName, sortKey.getField().toString().substring(1));
@@ -169,4 +438,34 @@ public class PostgreSQLTableHandler extends GenericTableHandler {
                 + " WHERE "
                 + filter.accept(new JsonExtractPathQueryFilterVisitor(), replacementTokens).toSQL() + pageClause;
     }
+
+    private String renderJsonbQueryFilter(QueryFilter<JsonPointer> filter, Map<String, Object> replacementTokens,
+            Map<String, Object> params) {
+        String pageClause = " LIMIT " + TableQueries.PAGE_SIZE_TOKEN + " OFFSET " + TableQueries.PAGE_OFFSET_TOKEN;
+
+        // JsonValue-cheat to avoid an unchecked cast
+        final List<SortKey> sortKeys = new JsonValue(params).get(SORT_KEYS).asList(SortKey.class);
+        // Check for sort keys and build up order-by syntax
+        if (sortKeys != null && sortKeys.size() > 0) {
+            List<String> keys = new ArrayList<String>();
+            for (int i = 0; i < sortKeys.size(); i++) {
+                final SortKey sortKey = sortKeys.get(i);
+                if (ResourceUtil.RESOURCE_FIELD_CONTENT_ID_POINTER.equals(sortKey.getField())) {
+                    // the object id is not part of the full object, sort on the column
+                    keys.add("obj.objectid" + (sortKey.isAscendingOrder() ? " ASC" : " DESC"));
+                    continue;
+                }
+                keys.add(jsonbExtractPath("obj.fullobject", sortKey.getField(), "sortKey" + i + "_", replacementTokens)
+                        + (sortKey.isAscendingOrder() ? " ASC" : " DESC"));
+            }
+            pageClause = " ORDER BY " + StringUtils.join(keys, ", ") + pageClause;
+        }
+
+        replacementTokens.put("otype", params.get("_resource"));
+        return "SELECT fullobject::text"
+                + " FROM ${_dbSchema}.${_mainTable} obj"
+                + " INNER JOIN ${_dbSchema}.objecttypes objtype ON objtype.id = obj.objecttypes_id AND objtype.objecttype = ${otype}"
+                + " WHERE "
+                + filter.accept(new JsonbQueryFilterVisitor(), replacementTokens).toSQL() + pageClause;
+    }
 }
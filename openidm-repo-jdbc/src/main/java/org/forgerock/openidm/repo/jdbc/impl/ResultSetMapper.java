@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.openidm.repo.jdbc.QueryResultHandler;
 
 /**
  * Handles the conversion of ResultSets into Object set results
@@ -32,6 +33,13 @@ public interface ResultSetMapper {
     List<Map<String, Object>> mapToObject(ResultSet rs, String queryId, String type, Map<String, Object> params)
             throws SQLException, IOException, InternalServerErrorException;
 
+    /**
+     * Maps the rows of the ResultSet one at a time as they are read, handing each to the handler,
+     * until the rows are exhausted or the handler returns false.
+     */
+    void mapToObject(ResultSet rs, String queryId, String type, Map<String, Object> params,
+            QueryResultHandler handler) throws SQLException, IOException, InternalServerErrorException;
+
     List<Map<String, Object>> mapToRawObject(ResultSet rs) throws SQLException,
             IOException, InternalServerErrorException;
 }
@@ -0,0 +1,388 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl.query;
+
+import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.util.query.QueryFilter;
+import org.forgerock.util.query.QueryFilterVisitor;
+
+/**
+ * Keeps the SQL rendered for the query filters of a table, keyed by the shape of the filter: its structure, the
+ * fields and the types of the values asserted, but not the values themselves. Filters of the same shape share the
+ * same SQL, only the values bound to the statement differ, which also lets the database reuse its execution plan.
+ * <p>
+ * The table handlers render each value asserted by a filter as a {@code ${vN}} token, in the order the filter is
+ * visited, and the page requested as the page tokens of {@link TableQueries}, bound for each query; all the other
+ * tokens are derived from the shape. The values of a filter are bound to these tokens the way
+ * {@link org.forgerock.openidm.repo.util.AbstractSQLQueryFilterVisitor} renders them, {@code contains} and
+ * {@code startsWith} values being wrapped in wildcards. A shape is only cached if the handler rendered the values
+ * of the filter exactly that way.
+ * <p>
+ * The generic table handlers trim the string values asserted to the searchable length. Filters asserting a longer
+ * value are neither cached nor served from the cache, so that their values are always rendered by the handler.
+ * <p>
+ * The cache is bounded, the least recently used templates being dropped.
+ */
+class QueryFilterCache {
+
+    /** The name of the tokens holding the values asserted by a filter */
+    private static final Pattern VALUE_TOKEN = Pattern.compile("v\\d+");
+
+    /**
+     * The SQL rendered for a filter shape, along with the tokens to bind.
+     */
+    static final class Template {
+        private final QueryInfo queryInfo;
+        private final Map<String, Object> constants;
+        private final List<String> valueTokens;
+
+        private Template(QueryInfo queryInfo, Map<String, Object> constants, List<String> valueTokens) {
+            this.queryInfo = queryInfo;
+            this.constants = constants;
+            this.valueTokens = valueTokens;
+        }
+
+        /**
+         * @return the prepared statement SQL and its tokens
+         */
+        QueryInfo getQueryInfo() {
+            return queryInfo;
+        }
+
+        /**
+         * Returns the replacement tokens of a filter of this shape, but the page tokens.
+         *
+         * @param values the values of the filter
+         * @return the replacement tokens
+         */
+        Map<String, Object> bind(Values values) {
+            final Map<String, Object> replacementTokens = new LinkedHashMap<>(constants);
+            for (int i = 0; i < valueTokens.size(); i++) {
+                replacementTokens.put(valueTokens.get(i), values.rendered.get(i));
+            }
+            return replacementTokens;
+        }
+    }
+
+    /**
+     * The values asserted by a filter.
+     */
+    static final class Values {
+        /** The values, as bound to the value tokens */
+        private final List<Object> rendered = new ArrayList<>();
+
+        /** The length of the longest string value */
+        private int maxLength = 0;
+
+        private Void add(Object valueAssertion, String prefix, String suffix) {
+            if (!(valueAssertion instanceof Number || valueAssertion instanceof Boolean)) {
+                maxLength = Math.max(maxLength, String.valueOf(valueAssertion).length());
+            }
+            rendered.add(prefix.isEmpty() && suffix.isEmpty() ? valueAssertion : prefix + valueAssertion + suffix);
+            return null;
+        }
+    }
+
+    private final Map<String, Template> templates;
+    private final int maxValueLength;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxSize the maximum number of filter shapes cached
+     * @param maxValueLength the length of the longest string value a cached filter may assert, 0 if unbounded
+     */
+    QueryFilterCache(final int maxSize, int maxValueLength) {
+        this.maxValueLength = maxValueLength;
+        this.templates = Collections.synchronizedMap(new LinkedHashMap<String, Template>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Returns the template cached for a filter shape, unless the values of the filter may not be bound as is.
+     *
+     * @param shape the filter shape
+     * @param values the values of the filter
+     * @return the template, or null if not cached or the filter must be rendered
+     */
+    Template get(String shape, Values values) {
+        return isCacheable(values) ? templates.get(shape) : null;
+    }
+
+    /**
+     * Caches the SQL rendered for a filter, if its tokens allow binding the values of other filters of that shape.
+     *
+     * @param shape the filter shape
+     * @param values the values of the filter
+     * @param queryInfo the prepared statement SQL and its tokens
+     * @param replacementTokens the replacement tokens rendered for the filter
+     */
+    void put(String shape, Values values, QueryInfo queryInfo, Map<String, Object> replacementTokens) {
+        if (!isCacheable(values)) {
+            return;
+        }
+        final Map<String, Object> constants = new LinkedHashMap<>();
+        final List<String> valueTokens = new ArrayList<>();
+        for (Map.Entry<String, Object> token : replacementTokens.entrySet()) {
+            if (VALUE_TOKEN.matcher(token.getKey()).matches()) {
+                if (valueTokens.size() >= values.rendered.size()
+                        || !Objects.equals(token.getValue(), values.rendered.get(valueTokens.size()))) {
+                    // the handler transformed the values, they cannot be bound as is
+                    return;
+                }
+                valueTokens.add(token.getKey());
+            } else {
+                constants.put(token.getKey(), token.getValue());
+            }
+        }
+        if (valueTokens.size() != values.rendered.size()) {
+            return;
+        }
+        templates.put(shape, new Template(queryInfo, constants, valueTokens));
+    }
+
+    private boolean isCacheable(Values values) {
+        return maxValueLength <= 0 || values.maxLength <= maxValueLength;
+    }
+
+    /**
+     * Returns the shape of a filter, which along with the type of the resources queried and the sort keys determines
+     * the SQL rendered.
+     *
+     * @param filter the filter
+     * @param params the query parameters
+     * @return the shape
+     */
+    static String shapeOf(QueryFilter<JsonPointer> filter, Map<String, Object> params) {
+        final StringBuilder shape = new StringBuilder();
+        filter.accept(SHAPE_VISITOR, shape);
+        return shape.append('|').append(params.get("_resource"))
+                .append('|').append(params.get(SORT_KEYS))
+                .toString();
+    }
+
+    /**
+     * Returns the values asserted by a filter, in the order the filter is visited.
+     *
+     * @param filter the filter
+     * @return the values
+     */
+    static Values valuesOf(QueryFilter<JsonPointer> filter) {
+        final Values values = new Values();
+        filter.accept(VALUES_VISITOR, values);
+        return values;
+    }
+
+    /**
+     * Renders the structure of a filter; field names are prefixed by their length, so that no field name can be
+     * mistaken for the structure.
+     */
+    private static final QueryFilterVisitor<Void, StringBuilder, JsonPointer> SHAPE_VISITOR =
+            new QueryFilterVisitor<Void, StringBuilder, JsonPointer>() {
+                @Override
+                public Void visitAndFilter(StringBuilder shape, List<QueryFilter<JsonPointer>> subFilters) {
+                    return composite(shape, "and", subFilters);
+                }
+
+                @Override
+                public Void visitBooleanLiteralFilter(StringBuilder shape, boolean value) {
+                    shape.append(value);
+                    return null;
+                }
+
+                @Override
+                public Void visitContainsFilter(StringBuilder shape, JsonPointer field, Object valueAssertion) {
+                    return assertion(shape, "co", field, valueAssertion);
+                }
+
+                @Override
+                public Void visitEqualsFilter(StringBuilder shape, JsonPointer field, Object valueAssertion) {
+                    return assertion(shape, "eq", field, valueAssertion);
+                }
+
+                @Override
+                public Void visitExtendedMatchFilter(StringBuilder shape, JsonPointer field, String operator,
+                        Object valueAssertion) {
+                    return assertion(shape, operator.length() + ":" + operator, field, valueAssertion);
+                }
+
+                @Override
+                public Void visitGreaterThanFilter(StringBuilder shape, JsonPointer field, Object valueAssertion) {
+                    return assertion(shape, "gt", field, valueAssertion);
+                }
+
+                @Override
+                public Void visitGreaterThanOrEqualToFilter(StringBuilder shape, JsonPointer field,
+                        Object valueAssertion) {
+                    return assertion(shape, "ge", field, valueAssertion);
+                }
+
+                @Override
+                public Void visitLessThanFilter(StringBuilder shape, JsonPointer field, Object valueAssertion) {
+                    return assertion(shape, "lt", field, valueAssertion);
+                }
+
+                @Override
+                public Void visitLessThanOrEqualToFilter(StringBuilder shape, JsonPointer field,
+                        Object valueAssertion) {
+                    return assertion(shape, "le", field, valueAssertion);
+                }
+
+                @Override
+                public Void visitNotFilter(StringBuilder shape, QueryFilter<JsonPointer> subFilter) {
+                    shape.append("!(");
+                    subFilter.accept(this, shape);
+                    shape.append(')');
+                    return null;
+                }
+
+                @Override
+                public Void visitOrFilter(StringBuilder shape, List<QueryFilter<JsonPointer>> subFilters) {
+                    return composite(shape, "or", subFilters);
+                }
+
+                @Override
+                public Void visitPresentFilter(StringBuilder shape, JsonPointer field) {
+                    return assertion(shape, "pr", field, null);
+                }
+
+                @Override
+                public Void visitStartsWithFilter(StringBuilder shape, JsonPointer field, Object valueAssertion) {
+                    return assertion(shape, "sw", field, valueAssertion);
+                }
+
+                private Void composite(StringBuilder shape, String operator,
+                        List<QueryFilter<JsonPointer>> subFilters) {
+                    shape.append(operator).append('(');
+                    for (QueryFilter<JsonPointer> subFilter : subFilters) {
+                        subFilter.accept(this, shape);
+                        shape.append(',');
+                    }
+                    shape.append(')');
+                    return null;
+                }
+
+                private Void assertion(StringBuilder shape, String operator, JsonPointer field,
+                        Object valueAssertion) {
+                    final String pointer = field.toString();
+                    shape.append(operator).append('(').append(pointer.length()).append(':').append(pointer);
+                    if (valueAssertion != null) {
+                        // the SQL rendered depends on the type of the value
+                        shape.append(',').append(valueAssertion.getClass().getName());
+                        if (TableQueries.isOtherJsonTypeText(valueAssertion)) {
+                            shape.append("~json");
+                        }
+                    }
+                    shape.append(')');
+                    return null;
+                }
+            };
+
+    /**
+     * Collects the values asserted by a filter, as rendered by the table handlers.
+     */
+    private static final QueryFilterVisitor<Void, Values, JsonPointer> VALUES_VISITOR =
+            new QueryFilterVisitor<Void, Values, JsonPointer>() {
+                @Override
+                public Void visitAndFilter(Values values, List<QueryFilter<JsonPointer>> subFilters) {
+                    for (QueryFilter<JsonPointer> subFilter : subFilters) {
+                        subFilter.accept(this, values);
+                    }
+                    return null;
+                }
+
+                @Override
+                public Void visitBooleanLiteralFilter(Values values, boolean value) {
+                    return null;
+                }
+
+                @Override
+                public Void visitContainsFilter(Values values, JsonPointer field, Object valueAssertion) {
+                    return values.add(valueAssertion, "%", "%");
+                }
+
+                @Override
+                public Void visitEqualsFilter(Values values, JsonPointer field, Object valueAssertion) {
+                    return values.add(valueAssertion, "", "");
+                }
+
+                @Override
+                public Void visitExtendedMatchFilter(Values values, JsonPointer field, String operator,
+                        Object valueAssertion) {
+                    return values.add(valueAssertion, "", "");
+                }
+
+                @Override
+                public Void visitGreaterThanFilter(Values values, JsonPointer field, Object valueAssertion) {
+                    return values.add(valueAssertion, "", "");
+                }
+
+                @Override
+                public Void visitGreaterThanOrEqualToFilter(Values values, JsonPointer field,
+                        Object valueAssertion) {
+                    return values.add(valueAssertion, "", "");
+                }
+
+                @Override
+                public Void visitLessThanFilter(Values values, JsonPointer field, Object valueAssertion) {
+                    return values.add(valueAssertion, "", "");
+                }
+
+                @Override
+                public Void visitLessThanOrEqualToFilter(Values values, JsonPointer field,
+                        Object valueAssertion) {
+                    return values.add(valueAssertion, "", "");
+                }
+
+                @Override
+                public Void visitNotFilter(Values values, QueryFilter<JsonPointer> subFilter) {
+                    subFilter.accept(this, values);
+                    return null;
+                }
+
+                @Override
+                public Void visitOrFilter(Values values, List<QueryFilter<JsonPointer>> subFilters) {
+                    for (QueryFilter<JsonPointer> subFilter : subFilters) {
+                        subFilter.accept(this, values);
+                    }
+                    return null;
+                }
+
+                @Override
+                public Void visitPresentFilter(Values values, JsonPointer field) {
+                    return null;
+                }
+
+                @Override
+                public Void visitStartsWithFilter(Values values, JsonPointer field, Object valueAssertion) {
+                    return values.add(valueAssertion, "", "%");
+                }
+            };
+}
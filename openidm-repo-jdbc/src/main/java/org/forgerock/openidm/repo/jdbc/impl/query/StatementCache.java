@@ -0,0 +1,294 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl.query;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the prepared statements of each physical database connection, keyed by their SQL, so that the statements
+ * used over and over by the repository are prepared once per connection rather than for every operation.
+ * <p>
+ * Connection pools close the statements prepared through a pooled connection once it is returned to the pool, so
+ * the statements are prepared on the physical connection that the pooled connection wraps. This bypasses the
+ * statement tracking of the pool, and is therefore only used for the pools the repository's data source service
+ * manages, not for container data sources. The statements handed out are wrappers: closing them returns the
+ * statement to the cache, with its parameters and batch cleared and its fetch size, maximum rows and query timeout
+ * restored, rather than closing it. A statement is only handed out to one user at a time; if the statement for a SQL is already in use,
+ * another one is prepared.
+ * <p>
+ * The cache of a connection is bounded, the least recently used statements being closed. The caches of the
+ * connections closed by the pool are dropped whenever a new physical connection is seen.
+ */
+class StatementCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+
+    private static final Method CLOSE;
+    private static final Method IS_CLOSED;
+    private static final Method SET_FETCH_SIZE;
+    private static final Method SET_MAX_ROWS;
+    private static final Method SET_QUERY_TIMEOUT;
+    private static final Method ADD_BATCH;
+
+    static {
+        try {
+            CLOSE = Statement.class.getMethod("close");
+            IS_CLOSED = Statement.class.getMethod("isClosed");
+            SET_FETCH_SIZE = Statement.class.getMethod("setFetchSize", int.class);
+            SET_MAX_ROWS = Statement.class.getMethod("setMaxRows", int.class);
+            SET_QUERY_TIMEOUT = Statement.class.getMethod("setQueryTimeout", int.class);
+            ADD_BATCH = PreparedStatement.class.getMethod("addBatch");
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final int maxSize;
+
+    /** The statements of each physical connection, guarded by the map */
+    private final Map<Connection, Map<String, PreparedStatement>> connections = new IdentityHashMap<>();
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxSize the maximum number of statements kept per connection
+     */
+    StatementCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns a prepared statement for the SQL.
+     *
+     * @param connection the connection, possibly pooled
+     * @param sql the SQL of the statement
+     * @return the statement, to close once used
+     * @throws SQLException if preparing the statement failed
+     */
+    PreparedStatement prepareStatement(Connection connection, String sql) throws SQLException {
+        return prepareStatement(connection, sql, sql, Statement.NO_GENERATED_KEYS, null);
+    }
+
+    /**
+     * Returns a prepared statement for the SQL, returning the generated keys.
+     *
+     * @param connection the connection, possibly pooled
+     * @param sql the SQL of the statement
+     * @param autoGeneratedKeys whether to return the keys generated by the database
+     * @return the statement, to close once used
+     * @throws SQLException if preparing the statement failed
+     */
+    PreparedStatement prepareStatement(Connection connection, String sql, int autoGeneratedKeys)
+            throws SQLException {
+        return prepareStatement(connection, sql, autoGeneratedKeys + ":" + sql, autoGeneratedKeys, null);
+    }
+
+    /**
+     * Returns a prepared statement for the SQL, returning the generated values of the given columns.
+     *
+     * @param connection the connection, possibly pooled
+     * @param sql the SQL of the statement
+     * @param columns the columns whose generated values to return
+     * @return the statement, to close once used
+     * @throws SQLException if preparing the statement failed
+     */
+    PreparedStatement prepareStatement(Connection connection, String sql, String[] columns) throws SQLException {
+        return prepareStatement(connection, sql, Arrays.toString(columns) + ":" + sql,
+                Statement.NO_GENERATED_KEYS, columns);
+    }
+
+    private PreparedStatement prepareStatement(Connection connection, String sql, String key,
+            int autoGeneratedKeys, String[] columns) throws SQLException {
+        final Connection physical = connection.isWrapperFor(Connection.class)
+                ? connection.unwrap(Connection.class)
+                : connection;
+        final Map<String, PreparedStatement> statements = getStatements(physical);
+        PreparedStatement statement;
+        synchronized (statements) {
+            statement = statements.remove(key);
+        }
+        if (statement != null && statement.isClosed()) {
+            statement = null;
+        }
+        if (statement == null) {
+            if (columns != null) {
+                statement = physical.prepareStatement(sql, columns);
+            } else if (autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS) {
+                statement = physical.prepareStatement(sql, autoGeneratedKeys);
+            } else {
+                statement = physical.prepareStatement(sql);
+            }
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                new CachedStatement(statements, key, statement));
+    }
+
+    private Map<String, PreparedStatement> getStatements(Connection physical) {
+        synchronized (connections) {
+            Map<String, PreparedStatement> statements = connections.get(physical);
+            if (statements == null) {
+                removeClosedConnections();
+                statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                        if (size() > maxSize) {
+                            closeQuietly(eldest.getValue());
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+                connections.put(physical, statements);
+            }
+            return statements;
+        }
+    }
+
+    /**
+     * Drops the statements of the connections closed by the pool, called with the connections lock held.
+     */
+    private void removeClosedConnections() {
+        final Iterator<Map.Entry<Connection, Map<String, PreparedStatement>>> iterator =
+                connections.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Connection, Map<String, PreparedStatement>> entry = iterator.next();
+            boolean closed;
+            try {
+                closed = entry.getKey().isClosed();
+            } catch (SQLException e) {
+                closed = true;
+            }
+            if (closed) {
+                iterator.remove();
+                synchronized (entry.getValue()) {
+                    for (PreparedStatement statement : entry.getValue().values()) {
+                        closeQuietly(statement);
+                    }
+                    entry.getValue().clear();
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.debug("Failure closing cached statement", e);
+        }
+    }
+
+    /**
+     * The statement handed out, returned to the cache once closed.
+     */
+    private static final class CachedStatement implements InvocationHandler {
+        private final Map<String, PreparedStatement> statements;
+        private final String key;
+        private final PreparedStatement statement;
+        private boolean closed = false;
+        private boolean batched = false;
+        private Integer fetchSize = null;
+        private Integer maxRows = null;
+        private Integer queryTimeout = null;
+
+        private CachedStatement(Map<String, PreparedStatement> statements, String key,
+                PreparedStatement statement) {
+            this.statements = statements;
+            this.key = key;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(statement, args);
+            } else if (CLOSE.equals(method)) {
+                close();
+                return null;
+            } else if (IS_CLOSED.equals(method)) {
+                return closed;
+            } else if (closed) {
+                throw new SQLException("Statement is closed");
+            } else if (ADD_BATCH.equals(method)) {
+                batched = true;
+            } else if (SET_FETCH_SIZE.equals(method) && fetchSize == null) {
+                fetchSize = statement.getFetchSize();
+            } else if (SET_MAX_ROWS.equals(method) && maxRows == null) {
+                maxRows = statement.getMaxRows();
+            } else if (SET_QUERY_TIMEOUT.equals(method) && queryTimeout == null) {
+                queryTimeout = statement.getQueryTimeout();
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void close() throws SQLException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                statement.clearParameters();
+                if (batched) {
+                    statement.clearBatch();
+                }
+                if (fetchSize != null) {
+                    statement.setFetchSize(fetchSize);
+                }
+                if (maxRows != null) {
+                    statement.setMaxRows(maxRows);
+                }
+                if (queryTimeout != null) {
+                    statement.setQueryTimeout(queryTimeout);
+                }
+            } catch (SQLException e) {
+                // not reusable
+                statement.close();
+                return;
+            }
+            final PreparedStatement previous;
+            synchronized (statements) {
+                previous = statements.put(key, statement);
+                if (previous != null && previous != statement) {
+                    // the same statement was prepared again while this one was in use, keep one of them
+                    statements.put(key, previous);
+                }
+            }
+            if (previous != null && previous != statement) {
+                statement.close();
+            }
+        }
+    }
+}
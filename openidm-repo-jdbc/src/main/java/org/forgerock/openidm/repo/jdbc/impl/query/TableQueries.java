@@ -35,6 +35,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 import org.forgerock.json.JsonPointer;
@@ -43,6 +44,7 @@ import org.forgerock.json.resource.BadRequestException;
 import org.forgerock.json.resource.InternalServerErrorException;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.openidm.core.ServerConstants;
+import org.forgerock.openidm.repo.jdbc.QueryResultHandler;
 import org.forgerock.openidm.repo.jdbc.TableHandler;
 import org.forgerock.openidm.repo.jdbc.impl.CleanupHelper;
 import org.forgerock.openidm.repo.jdbc.impl.GenericTableHandler.QueryDefinition;
@@ -69,10 +71,50 @@ public class TableQueries {
     public static final String PREFIX_INT = "int";
     
     public static final String PREFIX_LIST = "list";
+
+    /** The strings that may be the text of a JSON number */
+    private static final Pattern NUMBER_TEXT = Pattern.compile("-?\\d+(\\.\\d+)?([eE][-+]?\\d+)?");
+
+    private static final String PAGE_OFFSET = "_pageOffset";
+    private static final String PAGE_LIMIT = "_pageLimit";
+    private static final String PAGE_FIRST_ROW = "_pageFirstRow";
+    private static final String PAGE_LAST_ROW = "_pageLastRow";
+
+    /** Token of the rendered query filters bound to the offset of the page requested */
+    public static final String PAGE_OFFSET_TOKEN = "${" + PREFIX_INT + ":" + PAGE_OFFSET + "}";
+
+    /** Token of the rendered query filters bound to the size of the page requested */
+    public static final String PAGE_SIZE_TOKEN = "${" + PREFIX_INT + ":" + PAGE_LIMIT + "}";
+
+    /** Token of the rendered query filters bound to the number of the first row of the page, from 1 */
+    public static final String PAGE_FIRST_ROW_TOKEN = "${" + PREFIX_INT + ":" + PAGE_FIRST_ROW + "}";
+
+    /** Token of the rendered query filters bound to the number of the last row of the page, from 1 */
+    public static final String PAGE_LAST_ROW_TOKEN = "${" + PREFIX_INT + ":" + PAGE_LAST_ROW + "}";
+
+    /**
+     * Query parameter holding the number of rows to fetch from the database at a time, as an Integer;
+     * absent or 0 to leave it to the driver.
+     */
+    public static final String FETCH_SIZE = "_fetchSize";
     
     // Monitoring event name prefix
     static final String EVENT_RAW_QUERY_PREFIX = "openidm/internal/repo/jdbc/raw/query/";
 
+    /** System property holding the maximum number of prepared statements cached per connection, 0 to disable */
+    public static final String STATEMENT_CACHE_SIZE_PROPERTY = "openidm.repo.jdbc.statementCache.size";
+
+    /** The prepared statements of each database connection, shared by all the tables; null if disabled */
+    private static final StatementCache sharedStatementCache = newStatementCache();
+
+    private static StatementCache newStatementCache() {
+        final int size = Integer.valueOf(System.getProperty(STATEMENT_CACHE_SIZE_PROPERTY, "50"));
+        return size > 0 ? new StatementCache(size) : null;
+    }
+
+    /** System property holding the maximum number of query filter shapes whose SQL is cached per table, 0 to disable */
+    public static final String QUERY_FILTER_CACHE_SIZE_PROPERTY = "openidm.repo.jdbc.queryFilterCache.size";
+
     /**
      * Helper class to wrap configured queries/commands.
      */
@@ -165,6 +207,12 @@ public class TableQueries {
     /** The Table Handler */
     private final TableHandler tableHandler;
 
+    /** The SQL rendered for the query filters, by filter shape; null if disabled */
+    private final QueryFilterCache queryFilterCache;
+
+    /** The prepared statements of the connections, null unless enabled for a pool managed by the repository */
+    private volatile StatementCache statementCache = null;
+
     /**
      * Constructor.
      *
@@ -185,6 +233,24 @@ public class TableQueries {
         this.dbSchemaName = dbSchemaName;
         this.maxPropLen = maxPropLen;
         this.resultMapper = resultMapper;
+        final int queryFilterCacheSize = Integer.valueOf(System.getProperty(QUERY_FILTER_CACHE_SIZE_PROPERTY, "100"));
+        // the table handlers trim the values asserted by a filter to no less than the searchable length, if any
+        this.queryFilterCache = queryFilterCacheSize > 0
+                ? new QueryFilterCache(queryFilterCacheSize, maxPropLen)
+                : null;
+    }
+
+    /**
+     * Enables or disables the caching of prepared statements per connection. Statements are cached on the
+     * physical connection the pooled connection wraps, which is only safe for the pools managed by the
+     * repository's data source service. For container data sources, such as those looked up through JNDI,
+     * caching is left to the container or driver.
+     *
+     * @param enabled whether to cache prepared statements, unless disabled by
+     *            {@link #STATEMENT_CACHE_SIZE_PROPERTY}
+     */
+    public void setStatementCaching(boolean enabled) {
+        statementCache = enabled ? sharedStatementCache : null;
     }
 
     /**
@@ -220,16 +286,17 @@ public class TableQueries {
      */
     public PreparedStatement getPreparedStatement(Connection connection, String sql,
             boolean autoGeneratedKeys) throws SQLException {
-        // This is where local prepared statement caching could be added for
-        // stand-alone operation.
-
-        // In the context of a (JavaEE) container rely on its built-in prepared
-        // statement caching
-        // rather than doing it explicitly here.
+        // Statements are cached per connection if enabled, otherwise rely on the caching of the container or
+        // driver instead
+        final StatementCache statementCache = this.statementCache;
         if (autoGeneratedKeys) {
-            return connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            return statementCache != null
+                    ? statementCache.prepareStatement(connection, sql, Statement.RETURN_GENERATED_KEYS)
+                    : connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
         } else {
-            return connection.prepareStatement(sql);
+            return statementCache != null
+                    ? statementCache.prepareStatement(connection, sql)
+                    : connection.prepareStatement(sql);
         }
     }
 
@@ -255,7 +322,10 @@ public class TableQueries {
      */
     public PreparedStatement getPreparedStatement(Connection connection, String sql, String[] columns)
             throws SQLException {
-        return connection.prepareStatement(sql, columns);
+        final StatementCache statementCache = this.statementCache;
+        return statementCache != null
+                ? statementCache.prepareStatement(connection, sql, columns)
+                : connection.prepareStatement(sql, columns);
     }
 
     /**
@@ -285,8 +355,44 @@ public class TableQueries {
      */
     public List<Map<String, Object>> query(final String type, Map<String, Object> params, Connection con)
             throws ResourceException {
+        final List<Map<String, Object>> result = new ArrayList<>();
+        query(type, params, con, new QueryResultHandler() {
+            @Override
+            public boolean handleResult(Map<String, Object> obj) {
+                result.add(obj);
+                return true;
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Execute a query like {@link #query(String, Map, Connection)}, handing each result to the
+     * handler as its row is read rather than collecting all results. Rows are read with a
+     * forward-only cursor, fetched from the database {@link #FETCH_SIZE} rows at a time if that
+     * parameter is set, and reading stops once the handler returns false.
+     *
+     * @param type
+     *            the resource component name targeted by the URI
+     * @param params
+     *            the parameters which include the query id, or the query
+     *            expression, as well as the token key/value pairs to replace in
+     *            the query
+     * @param con
+     *            a handle to a database connection newBuilder for exclusive use
+     *            by the query method whilst it is executing.
+     * @param handler
+     *            the handler to hand the results to
+     * @throws BadRequestException
+     *             if the passed request parameters are invalid, e.g. missing
+     *             query id or query expression or tokens.
+     * @throws InternalServerErrorException
+     *             if the preparing or executing the query fails because of
+     *             configuration or DB issues
+     */
+    public void query(final String type, Map<String, Object> params, Connection con,
+            final QueryResultHandler handler) throws ResourceException {
 
-        List<Map<String, Object>> result = null;
         params.put(ServerConstants.RESOURCE_NAME, type);
 
         // If paged results are requested then decode the cookie in order to determine
@@ -345,9 +451,20 @@ public class TableQueries {
         EventEntry measure = Publisher.start(eventName, foundQuery, null);
         ResultSet rs = null;
         try {
+            final Object fetchSize = params.get(FETCH_SIZE);
+            if (fetchSize instanceof Integer && (Integer) fetchSize > 0) {
+                foundQuery.setFetchSize((Integer) fetchSize);
+            }
             rs = foundQuery.executeQuery();
-            result = resultMapper.mapToObject(rs, queryId, type, params);
-            measure.setResult(result);
+            final int[] count = new int[1];
+            resultMapper.mapToObject(rs, queryId, type, params, new QueryResultHandler() {
+                @Override
+                public boolean handleResult(Map<String, Object> obj) {
+                    count[0]++;
+                    return handler.handleResult(obj);
+                }
+            });
+            measure.setResult(count[0]);
         } catch (SQLException ex) {
             logger.debug("DB reported failure executing query " +
                             "{} with params: {} error code: {} sqlstate: {} message: {}",
@@ -362,7 +479,6 @@ public class TableQueries {
             CleanupHelper.loggedClose(foundQuery);
             measure.end();
         }
-        return result;
     }
 
     public Integer command(final String type, Map<String, Object> params, Connection con)
@@ -416,7 +532,7 @@ public class TableQueries {
     }
 
     /**
-     * Resolves a query filter.
+     * Resolves a query filter, reusing the SQL rendered for a previous filter of the same shape.
      *
      * @param con
      *            The db connection
@@ -426,6 +542,20 @@ public class TableQueries {
      */
     PreparedStatement parseQueryFilter(Connection con, QueryFilter<JsonPointer> filter, Map<String, Object> params)
             throws SQLException, ResourceException {
+        String shape = null;
+        QueryFilterCache.Values values = null;
+        if (queryFilterCache != null) {
+            shape = QueryFilterCache.shapeOf(filter, params);
+            values = QueryFilterCache.valuesOf(filter);
+            QueryFilterCache.Template template = queryFilterCache.get(shape, values);
+            if (template != null) {
+                // same SQL as a previous filter of that shape, only bind the values and the page
+                Map<String, Object> replacementTokens = template.bind(values);
+                putPageTokens(replacementTokens, params);
+                return resolveQuery(template.getQueryInfo(), con, replacementTokens);
+            }
+        }
+
         Map<String, Object> replacementTokens = new LinkedHashMap<>();
 
         String rawQuery = tableHandler.renderQueryFilter(filter, replacementTokens, params);
@@ -446,9 +576,46 @@ public class TableQueries {
         String queryString = tokenHandler.replaceTokens(tempQueryString, "?", PREFIX_LIST);
 
         QueryInfo queryInfo = new QueryInfo(queryString, tokenNames);
+        if (queryFilterCache != null) {
+            queryFilterCache.put(shape, values, queryInfo, replacementTokens);
+        }
+        putPageTokens(replacementTokens, params);
         return resolveQuery(queryInfo, con, replacementTokens);
     }
 
+    /**
+     * Adds the values of the page tokens of a rendered query filter, which are bound for each query rather than
+     * rendered in the SQL of the filter shape.
+     *
+     * @param replacementTokens the replacement tokens to resolve the query with
+     * @param params the query parameters, holding the page offset and size as Strings
+     */
+    private static void putPageTokens(Map<String, Object> replacementTokens, Map<String, Object> params) {
+        final int offset = Integer.parseInt((String) params.get(PAGED_RESULTS_OFFSET));
+        final int pageSize = Integer.parseInt((String) params.get(PAGE_SIZE));
+        replacementTokens.put(PAGE_OFFSET, offset);
+        replacementTokens.put(PAGE_LIMIT, pageSize);
+        replacementTokens.put(PAGE_FIRST_ROW, offset + 1);
+        replacementTokens.put(PAGE_LAST_ROW, (int) Math.min((long) offset + pageSize, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns whether a value asserted by a query filter is a string that may also be the text of a JSON number,
+     * boolean, array or object. The rendered query filters may depend on it, as they do on the type of the values.
+     *
+     * @param valueAssertion the value asserted
+     * @return true if the value is a string reading as another JSON type
+     */
+    public static boolean isOtherJsonTypeText(Object valueAssertion) {
+        if (!(valueAssertion instanceof String)) {
+            return false;
+        }
+        final String value = (String) valueAssertion;
+        return value.startsWith("[") || value.startsWith("{")
+                || "true".equals(value) || "false".equals(value)
+                || NUMBER_TEXT.matcher(value).matches();
+    }
+
     /**
      * Resolves a full query expression Currently does not support token
      * replacement
@@ -0,0 +1,258 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.openidm.repo.jdbc.Constants;
+import org.forgerock.openidm.repo.jdbc.impl.GenericTableHandler.SearchableProperty;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that {@link GenericTableHandler} only writes the property rows that differ from the searchable properties
+ * on update, and reads the object type ids once.
+ */
+public class GenericTableHandlerTest {
+
+    private static final long DB_ID = 42L;
+
+    private Connection connection;
+    private PreparedStatement insertStatement;
+    private PreparedStatement updateStatement;
+    private PreparedStatement deleteStatement;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        connection = mock(Connection.class);
+        insertStatement = mock(PreparedStatement.class);
+        updateStatement = mock(PreparedStatement.class);
+        deleteStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(startsWith("INSERT"))).thenReturn(insertStatement);
+        when(connection.prepareStatement(startsWith("UPDATE"))).thenReturn(updateStatement);
+        when(connection.prepareStatement(startsWith("DELETE"))).thenReturn(deleteStatement);
+    }
+
+    @Test
+    public void testGetValuePropertiesOfSearchableProperties() {
+        final GenericTableHandler handler = newHandler(false, 1);
+
+        final JsonValue value = json(object(
+                field("userName", "bjensen"),
+                field("roles", array("admin", "user")),
+                field("description", "not searchable")));
+
+        assertThat(handler.getValueProperties(value)).containsOnlyKeys("/userName", "/roles/0", "/roles/1");
+        assertThat(handler.getValueProperties(value).get("/userName"))
+                .isEqualTo(new SearchableProperty(String.class.getName(), "bjensen"));
+    }
+
+    @Test
+    public void testUpdateOnlyWritesChangedProperties() throws Exception {
+        final GenericTableHandler handler = newHandler(true, 1);
+
+        storeProperties(handler.getValueProperties(json(object(
+                field("userName", "bjensen"),
+                field("lastLogin", "2026-01-01"),
+                field("mail", "bjensen@example.com"),
+                field("roles", array("admin", "user"))))));
+        final JsonValue newValue = json(object(
+                field("userName", "bjensen"),
+                field("lastLogin", "2026-01-02"),
+                field("roles", array("admin", "user", "auditor"))));
+
+        handler.updateValueProperties("managed/user/1", DB_ID, newValue, connection);
+
+        verify(updateStatement).setString(4, "/lastLogin");
+        verify(updateStatement, times(1)).executeUpdate();
+        verify(deleteStatement).setString(2, "/mail");
+        verify(deleteStatement, times(1)).executeUpdate();
+        verify(insertStatement).setString(2, "/roles/2");
+        verify(insertStatement, times(1)).executeUpdate();
+    }
+
+    @Test
+    public void testUpdateWithoutChangesWritesNothing() throws Exception {
+        final GenericTableHandler handler = newHandler(true, 1);
+
+        final JsonValue value = json(object(field("userName", "bjensen"), field("age", 42)));
+        storeProperties(handler.getValueProperties(value));
+
+        handler.updateValueProperties("managed/user/1", DB_ID, value.copy(), connection);
+
+        verify(connection, never()).prepareStatement(startsWith("INSERT"));
+        verify(connection, never()).prepareStatement(startsWith("UPDATE"));
+        verify(connection, never()).prepareStatement(startsWith("DELETE"));
+    }
+
+    @Test
+    public void testUpdateDeletesPropertiesNoLongerSearchable() throws Exception {
+        final GenericTableHandler handler = newHandler(false, 1);
+
+        // stored while every property was searchable
+        storeProperties(newHandler(true, 1).getValueProperties(json(object(
+                field("userName", "bjensen"),
+                field("description", "no longer searchable")))));
+
+        handler.updateValueProperties("managed/user/1", DB_ID,
+                json(object(field("userName", "bjensen"), field("description", "no longer searchable"))), connection);
+
+        verify(deleteStatement).setString(2, "/description");
+        verify(deleteStatement, times(1)).executeUpdate();
+        verify(connection, never()).prepareStatement(startsWith("INSERT"));
+        verify(connection, never()).prepareStatement(startsWith("UPDATE"));
+    }
+
+    @Test
+    public void testUpdateInsertsMissingProperties() throws Exception {
+        final GenericTableHandler handler = newHandler(true, 1);
+
+        // stored while only the explicitly searchable properties were
+        storeProperties(newHandler(false, 1).getValueProperties(json(object(
+                field("userName", "bjensen"),
+                field("mail", "bjensen@example.com")))));
+
+        handler.updateValueProperties("managed/user/1", DB_ID,
+                json(object(field("userName", "bjensen"), field("mail", "bjensen@example.com"))), connection);
+
+        verify(insertStatement).setString(2, "/mail");
+        verify(insertStatement, times(1)).executeUpdate();
+        verify(connection, never()).prepareStatement(startsWith("UPDATE"));
+        verify(connection, never()).prepareStatement(startsWith("DELETE"));
+    }
+
+    @Test
+    public void testUpdateRewritesDuplicateProperties() throws Exception {
+        final GenericTableHandler handler = newHandler(true, 1);
+
+        final SearchableProperty userName = new SearchableProperty(String.class.getName(), "bjensen");
+        storeProperties("/userName", userName, "/userName", userName);
+
+        handler.updateValueProperties("managed/user/1", DB_ID, json(object(field("userName", "bjensen"))),
+                connection);
+
+        verify(deleteStatement).setString(2, "/userName");
+        verify(deleteStatement, times(1)).executeUpdate();
+        verify(insertStatement).setString(2, "/userName");
+        verify(insertStatement, times(1)).executeUpdate();
+    }
+
+    @Test
+    public void testUpdateBatchesChangedProperties() throws Exception {
+        final GenericTableHandler handler = newHandler(true, 10);
+
+        storeProperties(handler.getValueProperties(json(object(field("a", "1"), field("b", "1"), field("c", "1")))));
+        final JsonValue newValue = json(object(field("a", "2"), field("b", "2"), field("c", "2")));
+
+        handler.updateValueProperties("managed/user/1", DB_ID, newValue, connection);
+
+        verify(updateStatement, times(3)).addBatch();
+        verify(updateStatement, times(1)).executeBatch();
+        verify(updateStatement, never()).executeUpdate();
+    }
+
+    @Test
+    public void testTypeIdIsReadOnce() throws Exception {
+        final GenericTableHandler handler = newHandler(true, 1);
+        final PreparedStatement readTypeStatement = mock(PreparedStatement.class);
+        final ResultSet resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(startsWith("SELECT id FROM"))).thenReturn(readTypeStatement);
+        when(readTypeStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getLong(Constants.RAW_ID)).thenReturn(7L);
+
+        assertThat(handler.getTypeId("managed/user", connection)).isEqualTo(7L);
+        assertThat(handler.getTypeId("managed/user", connection)).isEqualTo(7L);
+
+        verify(readTypeStatement, times(1)).executeQuery();
+    }
+
+    /**
+     * Makes the properties table return the given property rows.
+     */
+    private void storeProperties(Map<String, SearchableProperty> properties) throws Exception {
+        final List<Object> rows = new ArrayList<>();
+        for (Map.Entry<String, SearchableProperty> property : properties.entrySet()) {
+            rows.add(property.getKey());
+            rows.add(property.getValue());
+        }
+        storeProperties(rows.toArray());
+    }
+
+    /**
+     * Makes the properties table return the given property rows, as pairs of property key and property.
+     */
+    private void storeProperties(final Object... rows) throws Exception {
+        final PreparedStatement readStatement = mock(PreparedStatement.class);
+        final ResultSet resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(startsWith("SELECT propkey"))).thenReturn(readStatement);
+        when(readStatement.executeQuery()).thenReturn(resultSet);
+        final int[] row = { -1 };
+        when(resultSet.next()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                return ++row[0] < rows.length / 2;
+            }
+        });
+        when(resultSet.getString(anyString())).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) {
+                final String column = (String) invocation.getArguments()[0];
+                final SearchableProperty property = (SearchableProperty) rows[2 * row[0] + 1];
+                switch (column) {
+                case "propkey":
+                    return (String) rows[2 * row[0]];
+                case "proptype":
+                    return property.type;
+                default:
+                    return property.value;
+                }
+            }
+        });
+    }
+
+    private static GenericTableHandler newHandler(boolean searchableDefault, int maxBatchSize) {
+        final JsonValue tableConfig = json(object(
+                field("mainTable", "managedobjects"),
+                field("propertiesTable", "managedobjectproperties"),
+                field("searchableDefault", searchableDefault),
+                field("properties", object(
+                        field("/userName", object(field("searchable", true))),
+                        field("/roles", object(field("searchable", true)))))));
+        return new GenericTableHandler(tableConfig, "openidm", json(object()), json(object()), maxBatchSize, null);
+    }
+}
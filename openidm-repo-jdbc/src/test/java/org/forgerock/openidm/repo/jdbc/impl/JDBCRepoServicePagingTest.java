@@ -0,0 +1,232 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.resource.Requests.newQueryRequest;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.SortKey;
+import org.forgerock.openidm.repo.QueryConstants;
+import org.forgerock.openidm.repo.jdbc.QueryResultHandler;
+import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.forgerock.services.context.RootContext;
+import org.forgerock.util.encode.Base64;
+import org.forgerock.util.query.QueryFilter;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that {@link JDBCRepoService} pages query filters sorted by {@code _id}, and query ids with a keyset
+ * companion query, by the last object id of the previous page rather than by offset.
+ */
+public class JDBCRepoServicePagingTest {
+
+    private static final JsonPointer ID = new JsonPointer("_id");
+
+    private TableHandler tableHandler;
+    private JDBCRepoService repoService;
+
+    /** The parameters of the last query passed to the table handler */
+    private Map<String, Object> queryParams;
+
+    /** The object ids the table handler returns */
+    private List<String> resultIds;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        final Connection connection = mock(Connection.class);
+        tableHandler = mock(TableHandler.class);
+        when(tableHandler.isKeysetPagingSupported()).thenReturn(true);
+        doAnswer(new Answer<Void>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Void answer(InvocationOnMock invocation) {
+                queryParams = (Map<String, Object>) invocation.getArguments()[1];
+                final QueryResultHandler handler = (QueryResultHandler) invocation.getArguments()[3];
+                for (String id : resultIds) {
+                    final Map<String, Object> result = new HashMap<>();
+                    result.put("_id", id);
+                    result.put("_rev", "0");
+                    handler.handleResult(result);
+                }
+                return null;
+            }
+        }).when(tableHandler).query(anyString(), anyMapOf(String.class, Object.class), any(Connection.class),
+                any(QueryResultHandler.class));
+
+        repoService = new JDBCRepoService() {
+            @Override
+            Connection openConnection() {
+                return connection;
+            }
+        };
+        repoService.tableHandlers = new ConcurrentHashMap<>();
+        repoService.defaultTableHandler = tableHandler;
+    }
+
+    @Test
+    public void testFirstPageIsSortedByIdAndReturnsKeysetCookie() throws Exception {
+        resultIds = Arrays.asList("a", "b");
+        final List<ResourceResponse> resources = new ArrayList<>();
+
+        final QueryResponse response = query(filterRequest(null), resources);
+
+        assertThat(resources).hasSize(2);
+        assertThat(String.valueOf(queryParams.get(QueryConstants.SORT_KEYS)))
+                .isEqualTo(String.valueOf(Arrays.asList(SortKey.ascendingOrder("_id"))));
+        assertThat(String.valueOf(queryParams.get(QueryConstants.QUERY_FILTER)))
+                .isEqualTo(QueryFilter.<JsonPointer>alwaysTrue().toString());
+        assertThat(response.getPagedResultsCookie()).isEqualTo(cookie("b"));
+    }
+
+    @Test
+    public void testNextPageSeeksPastLastId() throws Exception {
+        resultIds = Arrays.asList("c", "d");
+
+        final QueryResponse response = query(filterRequest(cookie("b")), null);
+
+        assertThat(queryParams.get(QueryConstants.QUERY_FILTER).toString()).isEqualTo(
+                QueryFilter.and(QueryFilter.<JsonPointer>alwaysTrue(), QueryFilter.greaterThan(ID, "b")).toString());
+        assertThat(queryParams.get(QueryConstants.PAGED_RESULTS_OFFSET)).isEqualTo(0);
+        assertThat(response.getPagedResultsCookie()).isEqualTo(cookie("d"));
+    }
+
+    @Test
+    public void testLastPageHasNoCookie() throws Exception {
+        resultIds = Arrays.asList("e");
+
+        final QueryResponse response = query(filterRequest(cookie("d")), null);
+
+        assertThat(response.getPagedResultsCookie()).isNull();
+    }
+
+    @Test
+    public void testDescendingIdSortSeeksBackwards() throws Exception {
+        resultIds = Arrays.asList("b", "a");
+
+        query(filterRequest(cookie("c")).addSortKey(SortKey.descendingOrder("_id")), null);
+
+        assertThat(String.valueOf(queryParams.get(QueryConstants.SORT_KEYS)))
+                .isEqualTo(String.valueOf(Arrays.asList(SortKey.descendingOrder("_id"))));
+        assertThat(queryParams.get(QueryConstants.QUERY_FILTER).toString()).isEqualTo(
+                QueryFilter.and(QueryFilter.<JsonPointer>alwaysTrue(), QueryFilter.lessThan(ID, "c")).toString());
+    }
+
+    @Test
+    public void testOtherSortKeysArePagedByOffset() throws Exception {
+        resultIds = Arrays.asList("a", "b");
+
+        final QueryResponse response = query(filterRequest(null).addSortKey(SortKey.ascendingOrder("userName")), null);
+
+        assertThat(queryParams).doesNotContainKey(QueryConstants.PAGED_RESULTS_AFTER);
+        assertThat(response.getPagedResultsCookie()).isEqualTo("2");
+    }
+
+    @Test(expectedExceptions = BadRequestException.class)
+    public void testKeysetCookieIsRejectedForOtherSortKeys() throws Exception {
+        resultIds = Arrays.asList("a", "b");
+
+        query(filterRequest(cookie("b")).addSortKey(SortKey.ascendingOrder("userName")), null);
+    }
+
+    @Test(expectedExceptions = BadRequestException.class)
+    public void testMalformedKeysetCookieIsRejected() throws Exception {
+        resultIds = Arrays.asList("a", "b");
+
+        query(filterRequest("id:%%%"), null);
+    }
+
+    @Test
+    public void testQueryIdIsPagedWithItsKeysetCompanion() throws Exception {
+        when(tableHandler.queryIdExists("query-all-ids-keyset")).thenReturn(true);
+        resultIds = Arrays.asList("a", "b");
+
+        final QueryResponse firstPage = query(queryIdRequest("query-all-ids", null), null);
+
+        assertThat(queryParams.get(QueryConstants.QUERY_ID)).isEqualTo("query-all-ids");
+        assertThat(queryParams).doesNotContainKey(QueryConstants.PAGED_RESULTS_AFTER);
+        assertThat(firstPage.getPagedResultsCookie()).isEqualTo(cookie("b"));
+
+        query(queryIdRequest("query-all-ids", firstPage.getPagedResultsCookie()), null);
+
+        assertThat(queryParams.get(QueryConstants.QUERY_ID)).isEqualTo("query-all-ids-keyset");
+        assertThat(queryParams.get(QueryConstants.PAGED_RESULTS_AFTER)).isEqualTo("b");
+    }
+
+    @Test
+    public void testQueryIdWithoutKeysetCompanionIsPagedByOffset() throws Exception {
+        resultIds = Arrays.asList("a", "b");
+
+        final QueryResponse response = query(queryIdRequest("query-all-ids", "2"), null);
+
+        assertThat(queryParams.get(QueryConstants.QUERY_ID)).isEqualTo("query-all-ids");
+        assertThat(queryParams.get(QueryConstants.PAGED_RESULTS_OFFSET)).isEqualTo(2);
+        assertThat(response.getPagedResultsCookie()).isEqualTo("4");
+    }
+
+    private QueryResponse query(QueryRequest request, final List<ResourceResponse> resources) throws Exception {
+        return repoService.handleQuery(new RootContext(), request, new QueryResourceHandler() {
+            @Override
+            public boolean handleResource(ResourceResponse resource) {
+                if (resources != null) {
+                    resources.add(resource);
+                }
+                return true;
+            }
+        }).getOrThrowUninterruptibly();
+    }
+
+    private static QueryRequest filterRequest(String cookie) {
+        return newQueryRequest("managed/user")
+                .setQueryFilter(QueryFilter.<JsonPointer>alwaysTrue())
+                .setPageSize(2)
+                .setPagedResultsCookie(cookie);
+    }
+
+    private static QueryRequest queryIdRequest(String queryId, String cookie) {
+        return newQueryRequest("managed/user")
+                .setQueryId(queryId)
+                .setPageSize(2)
+                .setPagedResultsCookie(cookie);
+    }
+
+    private static String cookie(String lastId) {
+        return "id:" + Base64.encode(lastId.getBytes(StandardCharsets.UTF_8));
+    }
+}
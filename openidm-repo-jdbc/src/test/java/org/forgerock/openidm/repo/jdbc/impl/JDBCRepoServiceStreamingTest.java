@@ -0,0 +1,187 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.resource.Requests.newQueryRequest;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.repo.jdbc.QueryResultHandler;
+import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.forgerock.services.context.RootContext;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that {@link JDBCRepoService} only hands query results to a query handler while holding the connection
+ * if streaming is enabled, and that the repository then refuses to be called back from the handler.
+ */
+public class JDBCRepoServiceStreamingTest {
+
+    private JDBCRepoService repoService;
+
+    /** Whether the connection of the last query was released */
+    private boolean released;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        final Connection connection = mock(Connection.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                released = true;
+                return null;
+            }
+        }).when(connection).close();
+
+        final TableHandler tableHandler = mock(TableHandler.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                final QueryResultHandler handler = (QueryResultHandler) invocation.getArguments()[3];
+                for (int i = 0; i < 3; i++) {
+                    final Map<String, Object> result = new HashMap<>();
+                    result.put("_id", "id" + i);
+                    if (!handler.handleResult(result)) {
+                        break;
+                    }
+                }
+                return null;
+            }
+        }).when(tableHandler).query(anyString(), anyMapOf(String.class, Object.class), any(Connection.class),
+                any(QueryResultHandler.class));
+
+        repoService = new JDBCRepoService() {
+            @Override
+            Connection openConnection() {
+                released = false;
+                return connection;
+            }
+        };
+        repoService.tableHandlers = new ConcurrentHashMap<>();
+        repoService.defaultTableHandler = tableHandler;
+    }
+
+    @Test
+    public void testResultsAreHandedOverOnceTheConnectionIsReleased() throws Exception {
+        final List<Boolean> releasedWhenHandled = new ArrayList<>();
+
+        repoService.handleQuery(new RootContext(), request(), new QueryResourceHandler() {
+            @Override
+            public boolean handleResource(ResourceResponse resource) {
+                releasedWhenHandled.add(released);
+                return true;
+            }
+        }).getOrThrowUninterruptibly();
+
+        assertThat(releasedWhenHandled).containsExactly(true, true, true);
+    }
+
+    @Test
+    public void testHandlerMayCallBackIntoTheRepository() throws Exception {
+        final List<Integer> nestedResults = new ArrayList<>();
+
+        repoService.handleQuery(new RootContext(), request(), new QueryResourceHandler() {
+            @Override
+            public boolean handleResource(ResourceResponse resource) {
+                try {
+                    nestedResults.add(repoService.query(request()).size());
+                } catch (ResourceException e) {
+                    throw new IllegalStateException(e);
+                }
+                return true;
+            }
+        }).getOrThrowUninterruptibly();
+
+        assertThat(nestedResults).containsExactly(3, 3, 3);
+    }
+
+    @Test
+    public void testBufferedResultsStopWhenTheHandlerDoes() throws Exception {
+        final List<String> ids = new ArrayList<>();
+
+        repoService.handleQuery(new RootContext(), request(), new QueryResourceHandler() {
+            @Override
+            public boolean handleResource(ResourceResponse resource) {
+                ids.add(resource.getId());
+                return ids.size() < 2;
+            }
+        }).getOrThrowUninterruptibly();
+
+        assertThat(ids).containsExactly("id0", "id1");
+    }
+
+    @Test
+    public void testStreamedResultsAreHandedOverWhileTheConnectionIsHeld() throws Exception {
+        repoService.streamQueryResults = true;
+        final List<Boolean> releasedWhenHandled = new ArrayList<>();
+
+        repoService.handleQuery(new RootContext(), request(), new QueryResourceHandler() {
+            @Override
+            public boolean handleResource(ResourceResponse resource) {
+                releasedWhenHandled.add(released);
+                return true;
+            }
+        }).getOrThrowUninterruptibly();
+
+        assertThat(releasedWhenHandled).containsExactly(false, false, false);
+    }
+
+    @Test
+    public void testStreamingHandlerMustNotCallBackIntoTheRepository() throws Exception {
+        repoService.streamQueryResults = true;
+        final List<ResourceException> failures = new ArrayList<>();
+
+        repoService.handleQuery(new RootContext(), request(), new QueryResourceHandler() {
+            @Override
+            public boolean handleResource(ResourceResponse resource) {
+                try {
+                    repoService.query(request());
+                } catch (ResourceException e) {
+                    failures.add(e);
+                }
+                return true;
+            }
+        }).getOrThrowUninterruptibly();
+
+        assertThat(failures).hasSize(3);
+        assertThat(failures.get(0)).isInstanceOf(InternalServerErrorException.class);
+        // the repository can be called again once the results are streamed
+        assertThat(repoService.query(request())).hasSize(3);
+    }
+
+    private static QueryRequest request() {
+        return newQueryRequest("managed/user").setQueryId("query-all-ids");
+    }
+}
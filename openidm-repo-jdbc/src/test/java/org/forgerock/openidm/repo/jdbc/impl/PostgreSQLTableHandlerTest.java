@@ -0,0 +1,143 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
+import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
+import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.SortKey;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the jsonb storage of {@link PostgreSQLTableHandler}.
+ */
+public class PostgreSQLTableHandlerTest {
+
+    @Test
+    public void testEqualityIsRenderedAsContainment() {
+        final Map<String, Object> tokens = new LinkedHashMap<>();
+
+        final String sql = newHandler("jsonb").renderQueryFilter(
+                QueryFilters.parse("name/givenName eq \"Barbara\" and age gt 40"), tokens, newParams());
+
+        assertThat(sql).contains("(obj.fullobject @> jsonb_build_object('name', "
+                + "jsonb_build_object('givenName', (${v1})::text)))");
+        assertThat(sql).contains("(jsonb_extract_path_text(obj.fullobject, 'age')::numeric > (${v2})::numeric)");
+        assertThat(sql).contains(" ORDER BY jsonb_extract_path_text(obj.fullobject, 'sn') ASC"
+                + " LIMIT ${int:_pageLimit} OFFSET ${int:_pageOffset}");
+        assertThat(tokens).containsEntry("v1", "Barbara").containsKey("v2").containsEntry("otype", "managed/user");
+    }
+
+    @Test
+    public void testEqualityOfNumbersAndBooleansIsComparedAsText() {
+        final String sql = newHandler("jsonb").renderQueryFilter(
+                QueryFilters.parse("age eq 40 or active eq true"), new LinkedHashMap<String, Object>(), newParams());
+
+        // a stored string of the same text matches, as with the json storage
+        assertThat(sql).contains("(jsonb_extract_path_text(obj.fullobject, 'age')::numeric = (${v1})::numeric)");
+        assertThat(sql).contains("(jsonb_extract_path_text(obj.fullobject, 'active') = ${v2})");
+        assertThat(sql).doesNotContain("@>");
+    }
+
+    @Test
+    public void testEqualityOfStringsOfOtherTypesIsComparedAsText() {
+        final String sql = newHandler("jsonb").renderQueryFilter(
+                QueryFilters.parse("age eq \"40\" or active eq \"true\" or roles eq \"[]\""),
+                new LinkedHashMap<String, Object>(), newParams());
+
+        // a stored number, boolean or array of the same text matches, as with the json storage
+        assertThat(sql).contains("(jsonb_extract_path_text(obj.fullobject, 'age') = ${v1})");
+        assertThat(sql).contains("(jsonb_extract_path_text(obj.fullobject, 'active') = ${v2})");
+        assertThat(sql).contains("(jsonb_extract_path_text(obj.fullobject, 'roles') = ${v3})");
+        assertThat(sql).doesNotContain("@>");
+    }
+
+    @Test
+    public void testUnusualFieldNamesAreBound() {
+        final Map<String, Object> tokens = new LinkedHashMap<>();
+
+        final String sql = newHandler("jsonb").renderQueryFilter(
+                QueryFilters.parse("/given.name eq \"Barbara\""), tokens, newParams());
+
+        assertThat(sql).contains("(jsonb_extract_path_text(obj.fullobject, ${p1_0}) = ${v1})");
+        assertThat(tokens).containsEntry("p1_0", "given.name");
+    }
+
+    @Test
+    public void testIndexesFollowSearchableConfig() {
+        assertThat(newHandler("jsonb").getIndexStatements()).containsOnly(
+                "CREATE INDEX IF NOT EXISTS idx_managedobjects_fullobject ON openidm.managedobjects "
+                        + "USING gin (fullobject jsonb_path_ops)",
+                "CREATE INDEX IF NOT EXISTS idx_managedobjects_username ON openidm.managedobjects "
+                        + "((jsonb_extract_path_text(fullobject, 'userName')))");
+    }
+
+    @Test
+    public void testPropertiesAreNotWritten() throws Exception {
+        final Connection connection = mock(Connection.class);
+
+        newHandler("jsonb").writeValueProperties("managed/user/1", 42L, "1",
+                json(object(field("userName", "bjensen"))), connection);
+
+        verify(connection, never()).prepareStatement(anyString());
+    }
+
+    @Test
+    public void testJsonStorageIsUnchanged() {
+        final String sql = newHandler("properties").renderQueryFilter(
+                QueryFilters.parse("userName eq \"bjensen\""), new HashMap<String, Object>(), newParams());
+
+        assertThat(sql).contains("json_extract_path_text(obj.fullobject, ${p2})").doesNotContain("jsonb");
+    }
+
+    private static PostgreSQLTableHandler newHandler(String storage) {
+        final JsonValue tableConfig = json(object(
+                field("mainTable", "managedobjects"),
+                field("propertiesTable", "managedobjectproperties"),
+                field("searchableDefault", true),
+                field("storage", storage),
+                field("properties", object(
+                        field("/userName", object(field("searchable", true))),
+                        field("/password", object(field("searchable", false)))))));
+        return new PostgreSQLTableHandler(tableConfig, "openidm", json(object()), json(object()), 1, null);
+    }
+
+    private static Map<String, Object> newParams() {
+        final Map<String, Object> params = new HashMap<>();
+        params.put("_resource", "managed/user");
+        params.put(PAGED_RESULTS_OFFSET, "0");
+        params.put(PAGE_SIZE, "10");
+        params.put(SORT_KEYS, Collections.singletonList(SortKey.ascendingOrder("sn")));
+        return params;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
+import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.openidm.repo.jdbc.impl.GenericTableHandler;
+import org.forgerock.util.query.QueryFilter;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the {@link QueryFilterCache} reuses the SQL rendered for filters of the same shape.
+ */
+public class QueryFilterCacheTest {
+
+    private static final int SEARCHABLE_LENGTH = 2000;
+
+    @Test
+    public void testShapeIgnoresValues() {
+        final Map<String, Object> params = newParams();
+
+        assertThat(QueryFilterCache.shapeOf(parse("userName eq \"bjensen\" and age gt 40"), params))
+                .isEqualTo(QueryFilterCache.shapeOf(parse("userName eq \"scarter\" and age gt 18"), params));
+    }
+
+    @Test
+    public void testShapeDependsOnFieldsAndValueTypes() {
+        final Map<String, Object> params = newParams();
+        final String shape = QueryFilterCache.shapeOf(parse("userName eq \"bjensen\""), params);
+
+        assertThat(QueryFilterCache.shapeOf(parse("mail eq \"bjensen\""), params)).isNotEqualTo(shape);
+        assertThat(QueryFilterCache.shapeOf(parse("userName eq 42"), params)).isNotEqualTo(shape);
+        assertThat(QueryFilterCache.shapeOf(parse("userName sw \"bjensen\""), params)).isNotEqualTo(shape);
+        assertThat(QueryFilterCache.shapeOf(parse("!(userName eq \"bjensen\")"), params)).isNotEqualTo(shape);
+    }
+
+    @Test
+    public void testShapeDependsOnStringsReadingAsOtherJsonTypes() {
+        final Map<String, Object> params = newParams();
+        final String shape = QueryFilterCache.shapeOf(parse("userName eq \"bjensen\""), params);
+
+        assertThat(QueryFilterCache.shapeOf(parse("userName eq \"scarter\""), params)).isEqualTo(shape);
+        assertThat(QueryFilterCache.shapeOf(parse("userName eq \"42\""), params)).isNotEqualTo(shape);
+        assertThat(QueryFilterCache.shapeOf(parse("userName eq \"true\""), params)).isNotEqualTo(shape);
+    }
+
+    @Test
+    public void testShapeIgnoresPage() {
+        final Map<String, Object> params = newParams();
+        final String shape = QueryFilterCache.shapeOf(parse("userName eq \"bjensen\""), params);
+        params.put(PAGED_RESULTS_OFFSET, "50");
+        params.put(PAGE_SIZE, "25");
+
+        assertThat(QueryFilterCache.shapeOf(parse("userName eq \"bjensen\""), params)).isEqualTo(shape);
+    }
+
+    @Test
+    public void testTemplateBindsTheValuesOfTheFilter() {
+        final GenericTableHandler handler = new GenericTableHandler(
+                json(object(field("mainTable", "managedobjects"), field("propertiesTable", "managedobjectproperties"))),
+                "openidm", json(object()), json(object()), 1, null);
+        final QueryFilter<JsonPointer> cached = parse("userName co \"jens\" or (age ge 40 and /_id pr)");
+        final QueryFilter<JsonPointer> filter = parse("userName co \"cart\" or (age ge 18 and /_id pr)");
+        final Map<String, Object> params = newParams();
+        final QueryFilterCache cache = new QueryFilterCache(10, SEARCHABLE_LENGTH);
+
+        final Map<String, Object> cachedTokens = new LinkedHashMap<>();
+        handler.renderQueryFilter(cached, cachedTokens, params);
+        final QueryInfo queryInfo = new QueryInfo("SELECT ...", new ArrayList<>(cachedTokens.keySet()));
+        final String shape = QueryFilterCache.shapeOf(cached, params);
+        cache.put(shape, QueryFilterCache.valuesOf(cached), queryInfo, cachedTokens);
+
+        final Map<String, Object> expectedTokens = new LinkedHashMap<>();
+        handler.renderQueryFilter(filter, expectedTokens, params);
+        final QueryFilterCache.Values values = QueryFilterCache.valuesOf(filter);
+        final QueryFilterCache.Template template = cache.get(QueryFilterCache.shapeOf(filter, params), values);
+
+        assertThat(template).isNotNull();
+        assertThat(template.getQueryInfo()).isSameAs(queryInfo);
+        assertThat(template.bind(values)).isEqualTo(expectedTokens);
+    }
+
+    @Test
+    public void testLongValuesAreNotServed() {
+        final Map<String, Object> params = newParams();
+        final QueryFilterCache cache = new QueryFilterCache(10, SEARCHABLE_LENGTH);
+        final QueryFilter<JsonPointer> cached = parse("userName co \"jens\"");
+        final QueryFilter<JsonPointer> filter = QueryFilter.contains(new JsonPointer("userName"), longValue());
+
+        final Map<String, Object> tokens = new HashMap<>();
+        tokens.put("v1", "%jens%");
+        cache.put(QueryFilterCache.shapeOf(cached, params), QueryFilterCache.valuesOf(cached),
+                new QueryInfo("SELECT 1", new ArrayList<String>()), tokens);
+
+        assertThat(QueryFilterCache.shapeOf(filter, params)).isEqualTo(QueryFilterCache.shapeOf(cached, params));
+        assertThat(cache.get(QueryFilterCache.shapeOf(cached, params), QueryFilterCache.valuesOf(cached)))
+                .isNotNull();
+        assertThat(cache.get(QueryFilterCache.shapeOf(filter, params), QueryFilterCache.valuesOf(filter))).isNull();
+    }
+
+    @Test
+    public void testLongValuesAreServedWithoutSearchableLength() {
+        final Map<String, Object> params = newParams();
+        final QueryFilterCache cache = new QueryFilterCache(10, 0);
+        final QueryFilter<JsonPointer> filter = QueryFilter.equalTo(new JsonPointer("userName"), longValue());
+
+        final Map<String, Object> tokens = new HashMap<>();
+        tokens.put("v1", longValue());
+        cache.put(QueryFilterCache.shapeOf(filter, params), QueryFilterCache.valuesOf(filter),
+                new QueryInfo("SELECT 1", new ArrayList<String>()), tokens);
+
+        assertThat(cache.get(QueryFilterCache.shapeOf(filter, params), QueryFilterCache.valuesOf(filter)))
+                .isNotNull();
+    }
+
+    @Test
+    public void testTransformedValuesAreNotCached() {
+        final Map<String, Object> params = newParams();
+        final QueryFilterCache cache = new QueryFilterCache(10, SEARCHABLE_LENGTH);
+        final QueryFilter<JsonPointer> filter = parse("userName eq \"BJensen\"");
+
+        final Map<String, Object> tokens = new HashMap<>();
+        tokens.put("v1", "bjensen");
+        cache.put(QueryFilterCache.shapeOf(filter, params), QueryFilterCache.valuesOf(filter),
+                new QueryInfo("SELECT 1", new ArrayList<String>()), tokens);
+
+        assertThat(cache.get(QueryFilterCache.shapeOf(filter, params), QueryFilterCache.valuesOf(filter))).isNull();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedShapeIsDropped() {
+        final Map<String, Object> params = newParams();
+        final QueryFilterCache cache = new QueryFilterCache(1, SEARCHABLE_LENGTH);
+        final QueryFilter<JsonPointer> first = parse("userName eq \"bjensen\"");
+        final QueryFilter<JsonPointer> second = parse("mail eq \"bjensen@example.com\"");
+
+        final Map<String, Object> firstTokens = new HashMap<>();
+        firstTokens.put("v1", "bjensen");
+        cache.put(QueryFilterCache.shapeOf(first, params), QueryFilterCache.valuesOf(first),
+                new QueryInfo("SELECT 1", new ArrayList<String>()), firstTokens);
+        final Map<String, Object> secondTokens = new HashMap<>();
+        secondTokens.put("v1", "bjensen@example.com");
+        cache.put(QueryFilterCache.shapeOf(second, params), QueryFilterCache.valuesOf(second),
+                new QueryInfo("SELECT 2", new ArrayList<String>()), secondTokens);
+
+        assertThat(cache.get(QueryFilterCache.shapeOf(first, params), QueryFilterCache.valuesOf(first))).isNull();
+        assertThat(cache.get(QueryFilterCache.shapeOf(second, params), QueryFilterCache.valuesOf(second)))
+                .isNotNull();
+    }
+
+    private static String longValue() {
+        final StringBuilder value = new StringBuilder();
+        while (value.length() <= SEARCHABLE_LENGTH) {
+            value.append("bjensen");
+        }
+        return value.toString();
+    }
+
+    private static QueryFilter<JsonPointer> parse(String filter) {
+        return QueryFilters.parse(filter);
+    }
+
+    private static Map<String, Object> newParams() {
+        final Map<String, Object> params = new HashMap<>();
+        params.put("_resource", "managed/user");
+        params.put(PAGED_RESULTS_OFFSET, "0");
+        params.put(PAGE_SIZE, "10");
+        return params;
+    }
+}
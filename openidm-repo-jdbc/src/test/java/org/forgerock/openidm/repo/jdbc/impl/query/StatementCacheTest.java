@@ -0,0 +1,133 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the {@link StatementCache} reuses the statements of a connection.
+ */
+public class StatementCacheTest {
+
+    private static final String SQL = "SELECT id FROM objecttypes WHERE objecttype = ?";
+
+    @Test
+    public void testClosedStatementIsReused() throws Exception {
+        final Connection connection = newConnection();
+        final StatementCache cache = new StatementCache(10);
+
+        final PreparedStatement first = cache.prepareStatement(connection, SQL);
+        first.setString(1, "managed/user");
+        first.close();
+        final PreparedStatement second = cache.prepareStatement(connection, SQL);
+
+        assertThat(first.isClosed()).isTrue();
+        assertThat(second.isClosed()).isFalse();
+        verify(connection, times(1)).prepareStatement(SQL);
+        verify(second.unwrap(PreparedStatement.class), never()).close();
+        verify(second.unwrap(PreparedStatement.class)).clearParameters();
+    }
+
+    @Test
+    public void testStatementSettingsAreRestoredOnReuse() throws Exception {
+        final Connection connection = newConnection();
+        final StatementCache cache = new StatementCache(10);
+
+        final PreparedStatement first = cache.prepareStatement(connection, SQL);
+        final PreparedStatement statement = first.unwrap(PreparedStatement.class);
+        when(statement.getFetchSize()).thenReturn(0);
+        when(statement.getMaxRows()).thenReturn(0);
+        when(statement.getQueryTimeout()).thenReturn(0);
+        first.setFetchSize(100);
+        first.setMaxRows(10);
+        first.setQueryTimeout(30);
+        first.close();
+
+        verify(statement).setFetchSize(0);
+        verify(statement).setMaxRows(0);
+        verify(statement).setQueryTimeout(0);
+    }
+
+    @Test
+    public void testStatementInUseIsNotShared() throws Exception {
+        final Connection connection = newConnection();
+        final StatementCache cache = new StatementCache(10);
+
+        final PreparedStatement first = cache.prepareStatement(connection, SQL);
+        final PreparedStatement second = cache.prepareStatement(connection, SQL);
+
+        verify(connection, times(2)).prepareStatement(SQL);
+        first.close();
+        second.close();
+        // only one of them is kept
+        assertThat(cache.prepareStatement(connection, SQL)).isNotNull();
+        verify(connection, times(2)).prepareStatement(SQL);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedStatementIsClosed() throws Exception {
+        final Connection connection = newConnection();
+        final StatementCache cache = new StatementCache(1);
+
+        final PreparedStatement first = cache.prepareStatement(connection, SQL);
+        final PreparedStatement firstStatement = first.unwrap(PreparedStatement.class);
+        first.close();
+        cache.prepareStatement(connection, "SELECT 1").close();
+
+        verify(firstStatement).close();
+    }
+
+    @Test(expectedExceptions = SQLException.class)
+    public void testClosedStatementCannotBeUsed() throws Exception {
+        final StatementCache cache = new StatementCache(10);
+
+        final PreparedStatement statement = cache.prepareStatement(newConnection(), SQL);
+        statement.close();
+        statement.executeQuery();
+    }
+
+    /**
+     * Returns a connection preparing a new mock statement each time, which unwraps to itself.
+     */
+    private static Connection newConnection() throws SQLException {
+        final Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(SQL)).thenAnswer(new StatementAnswer());
+        when(connection.prepareStatement("SELECT 1")).thenAnswer(new StatementAnswer());
+        return connection;
+    }
+
+    private static final class StatementAnswer implements Answer<PreparedStatement> {
+        @Override
+        public PreparedStatement answer(InvocationOnMock invocation) throws Throwable {
+            final PreparedStatement statement = mock(PreparedStatement.class);
+            when(statement.unwrap(PreparedStatement.class)).thenReturn(statement);
+            return statement;
+        }
+    }
+}
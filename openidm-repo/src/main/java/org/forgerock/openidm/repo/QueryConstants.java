@@ -129,6 +129,12 @@ public final class QueryConstants {
      */
     public final static String PAGED_RESULTS_OFFSET = HttpUtils.PARAM_PAGED_RESULTS_OFFSET;
 
+    /**
+     * The object id after which the requested page starts, when paging by object id rather than
+     * by offset. Used in a WHERE clause of a query paging by object id.
+     */
+    public static final String PAGED_RESULTS_AFTER = "_pagedResultsAfter";
+
     /**
      * Page size requested. Generally used in a LIMIT clause.
      */
@@ -201,6 +201,15 @@ public class TaskScannerContext {
         return numParams.asInteger();
     }
 
+    /**
+     * Retrieve the maximum number of query results waiting to be processed by the task threads.
+     *
+     * @return the size of the queue of tasks, 1000 by default
+     */
+    public int getQueueSize() {
+        return Math.max(1, params.get("queueSize").defaultTo(1000).asInteger());
+    }
+
     public TaskScannerStatistic getStatistics() {
         return this.statistics;
     }
@@ -20,10 +20,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.Callable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.script.ScriptException;
 
@@ -55,6 +57,12 @@ public class TaskScannerJob {
     private final static Logger logger = LoggerFactory.getLogger(TaskScannerJob.class);
     private final static DateUtil DATE_UTIL = DateUtil.getDateUtil(ServerConstants.TIME_ZONE_UTC);
 
+    /** Marks the end of the query results in the queue of tasks */
+    private final static JsonValue END_OF_TASKS = new JsonValue(null);
+
+    /** How long to wait for room in the queue of tasks before checking whether the task scan was cancelled */
+    private final static long QUEUE_POLL_SECONDS = 1;
+
     private ConnectionFactory connectionFactory;
     private TaskScannerContext taskScannerContext;
 
@@ -106,6 +114,10 @@ public class TaskScannerJob {
     /**
      * Performs the task associated with the task scanner event.
      * Runs the query and executes the script across each resulting object.
+     * <p>
+     * The query results are handed, as they are returned, to a bounded queue shared by the task threads, so that
+     * the results are not held in memory all at once and a slow object does not hold up the objects behind it.
+     * The query waits while the queue is full.
      *
      * @param executor ExecutorService in which to invoke this task.
      * @throws ExecutionException
@@ -116,48 +128,41 @@ public class TaskScannerJob {
         logger.info("Task {} started from {} with script {}",
                 new Object[] { taskScannerContext.getTaskScanID(), taskScannerContext.getInvokerName(), taskScannerContext.getScriptName() });
 
-        JsonValue results;
-        taskScannerContext.startQuery();
-        try {
-            results = fetchAllObjects();
-        } catch (ResourceException e1) {
-            throw new ExecutionException("Error during query", e1);
-        }
-        taskScannerContext.endQuery();
-        Integer maxRecords = taskScannerContext.getMaxRecords();
-        if (maxRecords == null) {
-            taskScannerContext.setNumberOfTasksToProcess(results.size());
-        } else {
-            taskScannerContext.setNumberOfTasksToProcess(Math.min(results.size(), maxRecords));
+        int numberOfThreads = taskScannerContext.getNumberOfThreads();
+        BlockingQueue<JsonValue> queue = new ArrayBlockingQueue<JsonValue>(taskScannerContext.getQueueSize());
+        List<Future<?>> workers = new ArrayList<Future<?>>();
+        for (int i = 0; i < numberOfThreads; i++) {
+            workers.add(executor.submit(new TaskWorker(queue)));
         }
-        logger.debug("TaskScan {} query results: {}", taskScannerContext.getInvokerName(), results.size());
-        // TODO jump out early if it's empty?
 
-        // Split and prune the result set according to our max and if we're synchronous or not
-        List<JsonValue> resultSets = splitResultsOverThreads(results, taskScannerContext.getNumberOfThreads(), maxRecords);
-        logger.debug("Split result set into {} units", resultSets.size());
-
-        List<Callable<Object>> todo = new ArrayList<Callable<Object>>();
-        for (final JsonValue result : resultSets) {
-            Runnable command = new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        performTaskOverSet(result);
-                    } catch (Exception ex) {
-                        logger.warn("Taskscanner failed with unexpected exception", ex);
-                    }
-                }
-            };
-            todo.add(Executors.callable(command));
+        ResourceException queryFailure = null;
+        taskScannerContext.startQuery();
+        try {
+            queueAllObjects(queue);
+        } catch (ResourceException e) {
+            queryFailure = e;
+        } finally {
+            taskScannerContext.endQuery();
+            for (int i = 0; i < numberOfThreads; i++) {
+                queueObject(queue, END_OF_TASKS);
+            }
         }
+        logger.debug("TaskScan {} query results: {}", taskScannerContext.getInvokerName(),
+                taskScannerContext.getStatistics().getNumberOfTasksToProcess());
 
         try {
-            executor.invokeAll(todo);
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
         } catch (InterruptedException e) {
             // Mark it interrupted
             taskScannerContext.interrupted();
             logger.warn("Task scan '" + taskScannerContext.getTaskScanID() + "' interrupted");
+        } catch (java.util.concurrent.ExecutionException e) {
+            logger.warn("Taskscanner failed with unexpected exception", e.getCause());
+        }
+        if (queryFailure != null) {
+            throw new ExecutionException("Error during query", queryFailure);
         }
         // Don't mark the job as completed if its been deactivated
         if (!taskScannerContext.isInactive()) {
@@ -172,95 +177,116 @@ public class TaskScannerJob {
         });
     }
 
-    private List<JsonValue> splitResultsOverThreads(JsonValue results, int numberOfThreads, Integer max) {
-        List<List<Object>> resultSets = new ArrayList<List<Object>>();
-        for (int i = 0; i < numberOfThreads; i++) {
-            resultSets.add(new ArrayList<Object>());
-        }
+    /**
+     * Takes the query results from the shared queue and performs the task on each of them, until the end of
+     * the results is reached or the task scan is cancelled.
+     */
+    private class TaskWorker implements Runnable {
+        private final BlockingQueue<JsonValue> queue;
 
-        int i = 0;
-        for (JsonValue obj : results) {
-            if (max != null && i >= max) {
-                break;
-            }
-            resultSets.get(i % numberOfThreads).add(obj.getObject());
-            i++;
+        TaskWorker(BlockingQueue<JsonValue> queue) {
+            this.queue = queue;
         }
 
-        List<JsonValue> jsonSets = new ArrayList<JsonValue>();
-        for (List<Object> set : resultSets) {
-            jsonSets.add(new JsonValue(set));
+        @Override
+        public void run() {
+            try {
+                for (JsonValue input = queue.take(); input != END_OF_TASKS; input = queue.take()) {
+                    if (taskScannerContext.isCanceled()) {
+                        logger.info("Task '" + taskScannerContext.getTaskScanID() + "' cancelled. Terminating execution.");
+                        break; // Jump out quick since we've cancelled the job
+                    }
+                    try {
+                        performTaskOnObject(input);
+                    } catch (Exception ex) {
+                        logger.warn("Taskscanner failed with unexpected exception", ex);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
-
-        return jsonSets;
     }
 
-    private void performTaskOverSet(JsonValue results)
+    private void performTaskOnObject(JsonValue input)
                     throws ExecutionException {
-        for (JsonValue input : results) {
-            if (taskScannerContext.isCanceled()) {
-                logger.info("Task '" + taskScannerContext.getTaskScanID() + "' cancelled. Terminating execution.");
-                break; // Jump out quick since we've cancelled the job
-            }
-            // Check if this object has a STARTED time already
-            JsonValue startTime = input.get(taskScannerContext.getStartField());
-            String startTimeString = null;
-            if (startTime != null && !startTime.isNull()) {
-                startTimeString = startTime.asString();
-                DateTime startedTime = DATE_UTIL.parseTimestamp(startTimeString);
-
-                // Skip if the startTime + interval has not been passed
-                ReadablePeriod period = taskScannerContext.getRecoveryTimeout();
-                DateTime expirationDate = startedTime.plus(period);
-                if (expirationDate.isAfterNow()) {
-                    logger.debug("Object already started and has not expired. Started at: {}. Timeout: {}. Expires at: {}",
-                            new Object[] {
-                            DATE_UTIL.formatDateTime(startedTime),
-                            period,
-                            DATE_UTIL.formatDateTime(expirationDate)});
-                    continue;
-                }
+        // Check if this object has a STARTED time already
+        JsonValue startTime = input.get(taskScannerContext.getStartField());
+        String startTimeString = null;
+        if (startTime != null && !startTime.isNull()) {
+            startTimeString = startTime.asString();
+            DateTime startedTime = DATE_UTIL.parseTimestamp(startTimeString);
+
+            // Skip if the startTime + interval has not been passed
+            ReadablePeriod period = taskScannerContext.getRecoveryTimeout();
+            DateTime expirationDate = startedTime.plus(period);
+            if (expirationDate.isAfterNow()) {
+                logger.debug("Object already started and has not expired. Started at: {}. Timeout: {}. Expires at: {}",
+                        new Object[] {
+                        DATE_UTIL.formatDateTime(startedTime),
+                        period,
+                        DATE_UTIL.formatDateTime(expirationDate)});
+                return;
             }
+        }
 
-            try {
-                claimAndExecScript(input, startTimeString);
-            } catch (ResourceException e) {
-                throw new ExecutionException("Error during claim and execution phase", e);
-            }
+        try {
+            claimAndExecScript(input, startTimeString);
+        } catch (ResourceException e) {
+            throw new ExecutionException("Error during claim and execution phase", e);
         }
     }
 
     /**
-     * Flatten a list of parameters and perform a query to fetch all objects from storage.
+     * Flatten a list of parameters and perform a query, handing each retrieved object to the queue of tasks,
+     * up to the maximum number of records if any.
      *
-     * @return JsonValue containing a list of all the retrieved objects
+     * @param queue the queue of tasks
      * @throws ResourceException
      */
-    private JsonValue fetchAllObjects() throws ResourceException {
+    private void queueAllObjects(final BlockingQueue<JsonValue> queue) throws ResourceException {
         JsonValue flatParams = flattenJson(taskScannerContext.getScanValue());
         ConfigMacroUtil.expand(flatParams);
-        return performQuery(taskScannerContext.getObjectID(), flatParams);
-    }
-
-    /**
-     * Performs a query on a resource and returns the result set
-     * @param resourceID the identifier of the resource to query
-     * @param params parameters to supply to the query
-     * @return the set of results from the performed query
-     * @throws ResourceException
-     */
-    private JsonValue performQuery(String resourceID, JsonValue params) throws ResourceException {
-        final JsonValue queryResults = new JsonValue(new ArrayList<Map<String, Object>>());;
+        final Integer maxRecords = taskScannerContext.getMaxRecords();
 
-        QueryRequest request = RequestUtil.buildQueryRequestFromParameterMap(resourceID, params.asMap());
+        QueryRequest request = RequestUtil.buildQueryRequestFromParameterMap(taskScannerContext.getObjectID(),
+                flatParams.asMap());
         connectionFactory.getConnection().query(taskScannerContext.getContext(), request, new QueryResourceHandler() {
+            private int queued = 0;
+
             @Override
             public boolean handleResource(ResourceResponse resource) {
-                queryResults.add(resource.getContent().getObject());
+                if (maxRecords != null && queued >= maxRecords) {
+                    return false;
+                }
+                if (!queueObject(queue, resource.getContent())) {
+                    return false;
+                }
+                taskScannerContext.setNumberOfTasksToProcess(++queued);
                 return true;
             }
         });
-        return queryResults;
+    }
+
+    /**
+     * Hands an object to the queue of tasks, waiting while the queue is full.
+     *
+     * @param queue the queue of tasks
+     * @param input the object
+     * @return true if the object was queued, false if the task scan was cancelled or interrupted
+     */
+    private boolean queueObject(BlockingQueue<JsonValue> queue, JsonValue input) {
+        try {
+            while (!queue.offer(input, QUEUE_POLL_SECONDS, TimeUnit.SECONDS)) {
+                if (taskScannerContext.isCanceled()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 
     /**
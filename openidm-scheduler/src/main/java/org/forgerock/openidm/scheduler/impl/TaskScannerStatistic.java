@@ -31,7 +31,7 @@ public class TaskScannerStatistic {
     private long jobEndTime;
     private long queryStartTime;
     private long queryEndTime;
-    private int numberToProcess = 0;
+    private volatile int numberToProcess = 0;
 
     // Note: These should be the only ones used during the thread executions
     private AtomicInteger numSuccessful;
@@ -0,0 +1,113 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.scheduler.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.Resources;
+import org.forgerock.json.resource.Router;
+import org.forgerock.services.context.RootContext;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TaskScannerJobTest {
+
+    private static final String OBJECT = "managed/user";
+    private static final JsonPointer STARTED = new JsonPointer("/sunset/task-started");
+    private static final int OBJECTS = 25;
+
+    private ConnectionFactory connectionFactory;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        final Router router = new Router();
+        router.addRoute(Router.uriTemplate(OBJECT), new MemoryBackend());
+        connectionFactory = Resources.newInternalConnectionFactory(router);
+        for (int i = 0; i < OBJECTS; i++) {
+            connectionFactory.getConnection().create(new RootContext(), Requests.newCreateRequest(OBJECT,
+                    json(object(field("userName", "user" + i), field("sunset", object())))));
+        }
+    }
+
+    @Test
+    public void testAllObjectsAreClaimedThroughTheQueue() throws Exception {
+        final TaskScannerContext context = newContext(json(object(
+                field("waitForCompletion", true),
+                field("numberOfThreads", 4),
+                field("queueSize", 2),
+                field("scan", scan()))));
+
+        new TaskScannerJob(connectionFactory, context).startTask();
+
+        assertThat(context.isCompleted()).isTrue();
+        assertThat(context.getStatistics().getNumberOfTasksToProcess()).isEqualTo(OBJECTS);
+        assertThat(startedObjects()).isEqualTo(OBJECTS);
+    }
+
+    @Test
+    public void testMaxRecordsLimitsTheObjectsQueued() throws Exception {
+        final TaskScannerContext context = newContext(json(object(
+                field("waitForCompletion", true),
+                field("numberOfThreads", 3),
+                field("queueSize", 1),
+                field("maxRecords", 10),
+                field("scan", scan()))));
+
+        new TaskScannerJob(connectionFactory, context).startTask();
+
+        assertThat(context.getStatistics().getNumberOfTasksToProcess()).isEqualTo(10);
+        assertThat(startedObjects()).isEqualTo(10);
+    }
+
+    private static TaskScannerContext newContext(JsonValue params) throws Exception {
+        return new TaskScannerContext("test", "test", params, new RootContext(), null);
+    }
+
+    private static Object scan() {
+        return object(
+                field("_queryFilter", "true"),
+                field("object", OBJECT),
+                field("taskState", object(
+                        field("started", STARTED.toString()),
+                        field("completed", "/sunset/task-completed"))));
+    }
+
+    private int startedObjects() throws Exception {
+        final List<ResourceResponse> results = new ArrayList<>();
+        connectionFactory.getConnection().query(new RootContext(),
+                Requests.newQueryRequest(OBJECT).setQueryFilter(QueryFilters.parse("true")), results);
+        int started = 0;
+        for (ResourceResponse result : results) {
+            if (result.getContent().get(STARTED).isNotNull()) {
+                started++;
+            }
+        }
+        return started;
+    }
+}
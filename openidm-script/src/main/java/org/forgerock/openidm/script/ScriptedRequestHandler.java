@@ -81,6 +81,9 @@ public class ScriptedRequestHandler implements Scope, RequestHandler {
 
     private final boolean includeJavascriptDebugState;
 
+    /** The event names of the script entry, resolved once rather than on every request */
+    private volatile EventNames eventNames;
+
     public ScriptedRequestHandler(final ScriptEntry scriptEntry, final ScriptCustomizer customizer) {
         if (null == scriptEntry) {
             throw new NullPointerException();
@@ -89,6 +92,7 @@ public class ScriptedRequestHandler implements Scope, RequestHandler {
             throw new NullPointerException();
         }
         this.scriptEntry = new AtomicReference<ScriptEntry>(scriptEntry);
+        this.eventNames = new EventNames(scriptEntry);
         this.customizer = customizer;
         includeJavascriptDebugState =
                 Boolean.parseBoolean(IdentityServer.getInstance().getProperty("javascript.exception.debug.info", "false"));
@@ -112,6 +116,31 @@ public class ScriptedRequestHandler implements Scope, RequestHandler {
             throw new NullPointerException();
         }
         scriptEntry.lazySet(newScriptEntry);
+        eventNames = new EventNames(newScriptEntry);
+    }
+
+    /**
+     * The smart event names of the requests handled by a script.
+     */
+    private static final class EventNames {
+        private final Name action;
+        private final Name create;
+        private final Name delete;
+        private final Name patch;
+        private final Name query;
+        private final Name read;
+        private final Name update;
+
+        private EventNames(final ScriptEntry scriptEntry) {
+            final String prefix = "openidm/internal/script/" + scriptEntry.getName().getName();
+            action = Name.register(prefix + "/action");
+            create = Name.register(prefix + "/create");
+            delete = Name.register(prefix + "/delete");
+            patch = Name.register(prefix + "/patch");
+            query = Name.register(prefix + "/query");
+            read = Name.register(prefix + "/read");
+            update = Name.register(prefix + "/update");
+        }
     }
 
     // ----- Implementation of Scope interface
@@ -149,7 +178,7 @@ public class ScriptedRequestHandler implements Scope, RequestHandler {
     // ----- Implementation of RequestHandler interface
 
     public Promise<ActionResponse, ResourceException> handleAction(final Context context, final ActionRequest request) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/script/" + this.getScriptEntry().getName().getName() + "/action"), null, null);
+        EventEntry measure = Publisher.start(eventNames.action, null, null);
         try {
             final ScriptEntry _scriptEntry = getScriptEntry();
             if (!_scriptEntry.isActive()) {
@@ -182,7 +211,7 @@ public class ScriptedRequestHandler implements Scope, RequestHandler {
     }
 
     public Promise<ResourceResponse, ResourceException> handleCreate(Context context, CreateRequest request) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/script/" + this.getScriptEntry().getName().getName() + "/create"), null, null);
+        EventEntry measure = Publisher.start(eventNames.create, null, null);
         try {
             final ScriptEntry _scriptEntry = getScriptEntry();
             if (!_scriptEntry.isActive()) {
@@ -204,7 +233,7 @@ public class ScriptedRequestHandler implements Scope, RequestHandler {
     }
 
     public Promise<ResourceResponse, ResourceException> handleDelete(Context context, DeleteRequest request) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/script/" + this.getScriptEntry().getName().getName() + "/delete"), null, null);
+        EventEntry measure = Publisher.start(eventNames.delete, null, null);
         try {
             final ScriptEntry _scriptEntry = getScriptEntry();
             if (!_scriptEntry.isActive()) {
@@ -226,7 +255,7 @@ public class ScriptedRequestHandler implements Scope, RequestHandler {
     }
 
     public Promise<ResourceResponse, ResourceException> handlePatch(Context context, PatchRequest request) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/script/" + this.getScriptEntry().getName().getName() + "/patch"), null, null);
+        EventEntry measure = Publisher.start(eventNames.patch, null, null);
         try {
             final ScriptEntry _scriptEntry = getScriptEntry();
             if (!_scriptEntry.isActive()) {
@@ -254,7 +283,7 @@ public class ScriptedRequestHandler implements Scope, RequestHandler {
      */
     public Promise<QueryResponse, ResourceException> handleQuery(final Context context, final QueryRequest request,
             final QueryResourceHandler handler) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/script/" + this.getScriptEntry().getName().getName() + "/query"), null, null);
+        EventEntry measure = Publisher.start(eventNames.query, null, null);
         try {
             final ScriptEntry _scriptEntry = getScriptEntry();
             if (!_scriptEntry.isActive()) {
@@ -379,7 +408,7 @@ public class ScriptedRequestHandler implements Scope, RequestHandler {
     
 
     public Promise<ResourceResponse, ResourceException> handleRead(Context context, ReadRequest request) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/script/" + this.getScriptEntry().getName().getName() + "/read"), null, null);
+        EventEntry measure = Publisher.start(eventNames.read, null, null);
         try {
             final ScriptEntry _scriptEntry = getScriptEntry();
             if (!_scriptEntry.isActive()) {
@@ -401,7 +430,7 @@ public class ScriptedRequestHandler implements Scope, RequestHandler {
     }
 
     public Promise<ResourceResponse, ResourceException> handleUpdate(Context context, UpdateRequest request) {
-        EventEntry measure = Publisher.start(Name.get("openidm/internal/script/" + this.getScriptEntry().getName().getName() + "/update"), null, null);
+        EventEntry measure = Publisher.start(eventNames.update, null, null);
         try {
             final ScriptEntry _scriptEntry = getScriptEntry();
             if (!_scriptEntry.isActive()) {
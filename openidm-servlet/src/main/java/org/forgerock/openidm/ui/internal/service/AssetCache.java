@@ -0,0 +1,251 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.ui.internal.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the content of UI asset files in memory, along with a gzip compressed variant of the text assets and a
+ * content hash to use as entity tag.
+ * <p>
+ * The cache is bounded by the total size of the content it holds. Assets are not evicted: once the cache is full,
+ * or for assets larger than a quarter of it, the files are served from disk. A cached asset is reloaded once its
+ * file is modified.
+ */
+final class AssetCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssetCache.class);
+
+    /** The extensions of the assets worth compressing */
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "html", "htm", "js", "css", "json", "map", "svg", "txt", "xml", "ttf", "eot"));
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * The content of an asset file.
+     */
+    static final class Asset {
+        private final File file;
+        private final long lastModified;
+        private final long length;
+        private final byte[] content;
+        private final byte[] gzipContent;
+        private final String etag;
+
+        private Asset(File file, long lastModified, long length, byte[] content, byte[] gzipContent, String etag) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.content = content;
+            this.gzipContent = gzipContent;
+            this.etag = etag;
+        }
+
+        /**
+         * @return the last modification time of the file, in milliseconds
+         */
+        long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * @return the content of the file
+         */
+        byte[] getContent() {
+            return content;
+        }
+
+        /**
+         * @return the gzip compressed content of the file, or null if not worth compressing
+         */
+        byte[] getGzipContent() {
+            return gzipContent;
+        }
+
+        /**
+         * Returns the entity tag of the content, quoted; the compressed content has its own entity tag.
+         *
+         * @param gzip whether the compressed content is served
+         * @return the entity tag
+         */
+        String getETag(boolean gzip) {
+            return gzip ? "\"" + etag + "-gzip\"" : "\"" + etag + "\"";
+        }
+
+        private boolean isCurrent() {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+
+        private long size() {
+            return content.length + (gzipContent != null ? gzipContent.length : 0);
+        }
+    }
+
+    private final ConcurrentMap<String, Asset> assets = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
+    private final long maxSize;
+    private final long maxAssetSize;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxSize the maximum size of the cached content, in bytes
+     */
+    AssetCache(long maxSize) {
+        this.maxSize = maxSize;
+        this.maxAssetSize = maxSize / 4;
+    }
+
+    /**
+     * Returns the content of an asset file, loading it if not cached yet or modified since.
+     *
+     * @param file the canonical asset file
+     * @return the asset, or null if the file cannot be cached
+     * @throws IOException if the file cannot be read
+     */
+    Asset get(File file) throws IOException {
+        final String path = file.getPath();
+        final Asset asset = assets.get(path);
+        if (asset != null) {
+            if (asset.isCurrent()) {
+                return asset;
+            }
+            if (assets.remove(path, asset)) {
+                size.addAndGet(-asset.size());
+            }
+        }
+        return load(file);
+    }
+
+    /**
+     * Loads the assets of a directory and its sub-directories, as long as they fit, skipping those overridden
+     * by a file of the same relative path in another directory. Stops early if the thread is interrupted.
+     *
+     * @param dir the canonical directory
+     * @param overrideDir the canonical directory whose files are served instead, or null if none
+     */
+    void preload(File dir, File overrideDir) {
+        preload(dir, dir.toPath(), overrideDir);
+    }
+
+    private void preload(File dir, Path root, File overrideDir) {
+        final File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (size.get() >= maxSize || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                if (file.isDirectory()) {
+                    preload(file, root, overrideDir);
+                } else if (!assets.containsKey(file.getPath()) && !isOverridden(file, root, overrideDir)) {
+                    load(file);
+                }
+            } catch (IOException e) {
+                logger.debug("Unable to preload UI asset {}", file, e);
+            }
+        }
+    }
+
+    private static boolean isOverridden(File file, Path root, File overrideDir) {
+        return overrideDir != null
+                && overrideDir.toPath().resolve(root.relativize(file.toPath()).toString()).toFile().isFile();
+    }
+
+    /**
+     * Removes all the cached assets.
+     */
+    void clear() {
+        assets.clear();
+        size.set(0);
+    }
+
+    private Asset load(File file) throws IOException {
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        if (length > maxAssetSize || size.get() + length > maxSize) {
+            return null;
+        }
+        final byte[] content = Files.readAllBytes(file.toPath());
+        if (content.length != length) {
+            // modified while reading, serve it from disk this time
+            return null;
+        }
+        final Asset asset = new Asset(file, lastModified, length, content,
+                isCompressible(file.getName()) ? gzip(content) : null, hash(content));
+        if (size.addAndGet(asset.size()) > maxSize) {
+            size.addAndGet(-asset.size());
+            return asset;
+        }
+        final Asset existing = assets.putIfAbsent(file.getPath(), asset);
+        if (existing != null) {
+            size.addAndGet(-asset.size());
+        }
+        return asset;
+    }
+
+    private static boolean isCompressible(String fileName) {
+        final int dot = fileName.lastIndexOf('.');
+        return dot >= 0 && COMPRESSIBLE_EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Compresses the content, returns null if the compressed content is not smaller.
+     */
+    private static byte[] gzip(byte[] content) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content);
+        }
+        return bytes.size() < content.length ? bytes.toByteArray() : null;
+    }
+
+    private static String hash(byte[] content) {
+        final byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+        // the first 128 bits are plenty to tell versions of an asset apart
+        final char[] hex = new char[32];
+        for (int i = 0; i < 16; i++) {
+            hex[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
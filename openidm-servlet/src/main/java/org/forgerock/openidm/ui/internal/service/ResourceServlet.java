@@ -19,13 +19,15 @@
 package org.forgerock.openidm.ui.internal.service;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.URL;
-import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Dictionary;
 import java.util.Hashtable;
+import java.util.regex.Pattern;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -69,6 +71,18 @@ public final class ResourceServlet extends HttpServlet {
     private static final String CONFIG_CONTEXT_ROOT = "urlContextRoot";
     private static final String CONFIG_DEFAULT_DIR = "defaultDir";
     private static final String CONFIG_EXTENSION_DIR = "extensionDir";
+    private static final String CONFIG_ASSET_CACHE_SIZE = "assetCacheSize";
+
+    /** the default maximum size of the assets kept in memory, in bytes */
+    private static final long DEFAULT_ASSET_CACHE_SIZE = 32 * 1024 * 1024;
+
+    /**
+     * file names with a content hash, such as main.3f2a9c1b.js, change name whenever their content changes; the
+     * hash must have a hex letter, so that date stamped names such as app-20240101.css are not taken for one
+     */
+    private static final Pattern FINGERPRINTED =
+            Pattern.compile(".*[.-](?=[0-9]*[a-fA-F])[0-9a-fA-F]{8,}\\.[^./]+$");
+    private static final String FINGERPRINTED_CACHE_CONTROL = "public, max-age=31536000, immutable";
 
     /** the Felix web console self-attaches to this servlet target */
     private static final String FELIX_WEB_CONSOLE = "/system/console";
@@ -77,6 +91,8 @@ public final class ResourceServlet extends HttpServlet {
     private String defaultDir;
     private String extensionDir;
     private String contextRoot;
+    private volatile AssetCache assetCache;
+    private Thread preloadThread;
 
     @Reference
     private WebContainer webContainer;
@@ -132,25 +148,25 @@ public final class ResourceServlet extends HttpServlet {
             }
 
             // Locate the file in extension dir first, fall back to default dir
-            URL url = null;
+            File resource = null;
             String loadDir = (String) PropertyUtil.substVars(extensionDir, IdentityServer.getInstance(), false);
             File file = new File(loadDir + target);
             if (file.getCanonicalPath().startsWith(new File(loadDir).getCanonicalPath())
                     && file.exists() && !file.isDirectory()) {
-                url = file.getCanonicalFile().toURI().toURL();
+                resource = file.getCanonicalFile();
             } else {
                 loadDir = (String) PropertyUtil.substVars(defaultDir, IdentityServer.getInstance(), false);
                 file = new File(loadDir + target);
                 if (file.getCanonicalPath().startsWith(new File(loadDir).getCanonicalPath())
                         && file.exists() && !file.isDirectory()) {
-                    url = file.getCanonicalFile().toURI().toURL();
+                    resource = file.getCanonicalFile();
                 }
             }
 
-            if (url == null) {
+            if (resource == null) {
                 res.sendError(HttpServletResponse.SC_NOT_FOUND);
             } else {
-                handle(req, res, url, target);
+                handle(req, res, resource, target);
             }
         }
     }
@@ -184,6 +200,13 @@ public final class ResourceServlet extends HttpServlet {
         defaultDir = config.get(CONFIG_DEFAULT_DIR).asString();
         extensionDir = config.get(CONFIG_EXTENSION_DIR).asString();
         contextRoot = prependSlash(config.get(CONFIG_CONTEXT_ROOT).asString());
+        long assetCacheSize = config.get(CONFIG_ASSET_CACHE_SIZE).defaultTo(DEFAULT_ASSET_CACHE_SIZE).asLong();
+        if (assetCacheSize > 0) {
+            assetCache = new AssetCache(assetCacheSize);
+            preloadAssets(assetCache);
+        } else {
+            assetCache = null;
+        }
 
         Dictionary<String, Object> props = new Hashtable<>();
         webContainer.registerServlet(contextRoot, this,  props, webContainer.getDefaultSharedHttpContext());
@@ -194,11 +217,45 @@ public final class ResourceServlet extends HttpServlet {
      * Clears the servlet, unregistering it with the WebContainer and removing the bundle listener.
      */
     private void clear() {
+        if (preloadThread != null) {
+            preloadThread.interrupt();
+            preloadThread = null;
+        }
+        AssetCache cache = assetCache;
+        assetCache = null;
+        if (cache != null) {
+            cache.clear();
+        }
         webContainer.unregister(contextRoot);
         logger.debug("Unregistered UI servlet at {}", contextRoot);
     }
     
-    private void handle(HttpServletRequest req, HttpServletResponse res, URL url, String resName)
+    /**
+     * Loads the assets, and compresses them, in the background so that the first users of the UI do not wait for it.
+     */
+    private void preloadAssets(final AssetCache cache) {
+        final String extensionLoadDir =
+                (String) PropertyUtil.substVars(extensionDir, IdentityServer.getInstance(), false);
+        final String defaultLoadDir = (String) PropertyUtil.substVars(defaultDir, IdentityServer.getInstance(), false);
+        Thread preload = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    File overrides = new File(extensionLoadDir).getCanonicalFile();
+                    cache.preload(overrides, null);
+                    cache.preload(new File(defaultLoadDir).getCanonicalFile(), overrides);
+                    logger.debug("Preloaded UI assets of {}", contextRoot);
+                } catch (IOException e) {
+                    logger.info("Unable to preload UI assets of {}", contextRoot, e);
+                }
+            }
+        }, "UI asset preload " + contextRoot);
+        preload.setDaemon(true);
+        preload.start();
+        preloadThread = preload;
+    }
+
+    private void handle(HttpServletRequest req, HttpServletResponse res, File file, String resName)
             throws IOException {
         String contentType = getServletContext().getMimeType(resName);
         if (contentType != null) {
@@ -207,41 +264,97 @@ public final class ResourceServlet extends HttpServlet {
             res.setContentType(getMimeType(resName));
         }
 
-        long lastModified = getLastModified(url);
+        if (FINGERPRINTED.matcher(resName).matches()) {
+            res.setHeader("Cache-Control", FINGERPRINTED_CACHE_CONTROL);
+        }
+
+        AssetCache cache = assetCache;
+        AssetCache.Asset asset = cache != null ? cache.get(file) : null;
+        if (asset == null) {
+            handleFile(req, res, file);
+            return;
+        }
+
+        boolean gzip = asset.getGzipContent() != null && acceptsGzip(req);
+        if (asset.getGzipContent() != null) {
+            res.setHeader("Vary", "Accept-Encoding");
+        }
+        String etag = asset.getETag(gzip);
+        res.setHeader("ETag", etag);
+        res.setDateHeader("Last-Modified", asset.getLastModified());
+
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null
+                ? etagMatches(ifNoneMatch, etag)
+                : !resourceModified(asset.getLastModified(), req.getDateHeader("If-Modified-Since"))) {
+            res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] content = gzip ? asset.getGzipContent() : asset.getContent();
+        if (gzip) {
+            res.setHeader("Content-Encoding", "gzip");
+        }
+        res.setContentLength(content.length);
+        try (OutputStream os = res.getOutputStream()) {
+            os.write(content);
+        }
+    }
+
+    /**
+     * Serves a file that is not cached, transferring it from its file channel.
+     */
+    private void handleFile(HttpServletRequest req, HttpServletResponse res, File file) throws IOException {
+        long lastModified = file.lastModified();
         if (lastModified != 0) {
             res.setDateHeader("Last-Modified", lastModified);
         }
 
         if (!resourceModified(lastModified, req.getDateHeader("If-Modified-Since"))) {
             res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
-        } else {
-            copyResource(url, res);
+            return;
         }
-    }
-
-    private long getLastModified(URL url) {
-        long lastModified = 0;
 
-        try {
-            URLConnection conn = url.openConnection();
-            lastModified = conn.getLastModified();
-        } catch (Exception e) {
-            // Do nothing
+        try (FileInputStream is = new FileInputStream(file);
+             FileChannel channel = is.getChannel();
+             OutputStream os = res.getOutputStream();
+             WritableByteChannel out = Channels.newChannel(os)) {
+            long length = channel.size();
+            res.setHeader("Content-Length", Long.toString(length));
+            long position = 0;
+            while (position < length) {
+                position += channel.transferTo(position, length - position, out);
+            }
         }
+    }
 
-        if (lastModified == 0) {
-            String filepath = url.getPath();
-            if (filepath != null) {
-                File f = new File(filepath);
-                if (f.exists()) {
-                    lastModified = f.lastModified();
-                }
+    private boolean acceptsGzip(HttpServletRequest req) {
+        String acceptEncoding = req.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
             }
         }
+        return false;
+    }
 
-        return lastModified;
+    private boolean etagMatches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if ("*".equals(candidate) || etag.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
     }
-    
+
     private String getMimeType(String fileName) {
         if (fileName.endsWith(".css")) {
             return "text/css";
@@ -263,36 +376,6 @@ public final class ResourceServlet extends HttpServlet {
         return resTimestamp == 0 || modSince == -1 || resTimestamp > modSince;
     }
 
-    private void copyResource(URL url, HttpServletResponse res)
-            throws IOException {
-        OutputStream os = null;
-        InputStream is = null;
-
-        try {
-            os = res.getOutputStream();
-            is = url.openStream();
-
-            int len = 0;
-            byte[] buf = new byte[1024];
-            int n;
-
-            while ((n = is.read(buf, 0, buf.length)) >= 0) {
-                os.write(buf, 0, n);
-                len += n;
-            }
-
-            res.setContentLength(len);
-        } finally {
-            if (is != null) {
-                is.close();
-            }
-
-            if (os != null) {
-                os.close();
-            }
-        }
-    }
-
     private String prependSlash(String path) {
         return path.startsWith("/") ? path : "/" + path;
     }
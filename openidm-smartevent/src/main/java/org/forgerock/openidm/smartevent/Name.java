@@ -25,7 +25,10 @@
 package org.forgerock.openidm.smartevent;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.forgerock.guava.common.cache.CacheBuilder;
 import org.forgerock.guava.common.cache.CacheLoader;
@@ -49,7 +52,7 @@ import org.slf4j.LoggerFactory;
  * configuration by declaring the Names outside of the publishing of the events
  * 
  * The fluent API allows for easier set-up directly in the declaration example:
- * <code>public static final Name MY_EVENT = Name.get("internal/myevent").setTags(new String[] {MONITOR, APP_EVENT}).setXyz("dummy")</code>
+ * <code>public static final Name MY_EVENT = Name.register("internal/myevent").setTags(new String[] {MONITOR, APP_EVENT}).setXyz("dummy")</code>
  * 
  * 
  */
@@ -64,6 +67,15 @@ public class Name {
      */
     enum PublisherType {BLOCKING, DISRUPTOR};
 
+    /**
+     * Whether event processing is enabled by default, read once as it is checked on the request paths
+     */
+    static final boolean DEFAULT_EVENTS_ENABLED = Boolean.valueOf(System.getProperty("openidm.smartevent.enabled",
+            Boolean.FALSE.toString()));
+
+    static final PublisherType DEFAULT_PUBLISHER_TYPE = PublisherType.valueOf(PublisherType.class,
+            System.getProperty("openidm.smartevent.publishertype", PublisherType.BLOCKING.toString()));
+
     // Holds the event stringified name to the Name instance mapping
     static LoadingCache<String, Name> names = CacheBuilder.newBuilder()
             .maximumSize(Integer.valueOf(System.getProperty("openidm.smartevent.maxevents", "1000")))
@@ -75,6 +87,9 @@ public class Name {
                         }
                     });
 
+    // Holds the names registered by callers keeping a reference to them, which are never evicted
+    static final ConcurrentMap<String, Name> registeredNames = new ConcurrentHashMap<String, Name>();
+
     /**
      * Stringified version of the event name
      */
@@ -101,11 +116,8 @@ public class Name {
 
     private Name(String stringifiedName) {
         this.stringifiedName = stringifiedName;
-        // Default Setting
-        setEventsEnabled(Boolean.valueOf(System.getProperty("openidm.smartevent.enabled",
-                Boolean.FALSE.toString())));
-        this.publisherType = (PublisherType.valueOf(PublisherType.class, System.getProperty("openidm.smartevent.publishertype",
-                PublisherType.BLOCKING.toString())));
+        this.publisherType = DEFAULT_PUBLISHER_TYPE;
+        setEventsEnabled(DEFAULT_EVENTS_ENABLED);
         // Name parsing can be added here
     }
 
@@ -117,7 +129,30 @@ public class Name {
      * @return the event Name object representing the requested event type
      */
     public final static Name get(String stringifiedName) {
-        return names.getUnchecked(stringifiedName);
+        Name name = registeredNames.get(stringifiedName);
+        return name != null ? name : names.getUnchecked(stringifiedName);
+    }
+
+    /**
+     * Factory method to get the event Name object of a caller keeping a
+     * reference to it, for example in a static field. The name is never
+     * evicted, so that enabling the events of the name, for example through
+     * the statistics MBean, applies to the instance the caller holds.
+     * 
+     * @param stringifiedName
+     *            The string representation of the event name
+     * @return the event Name object representing the requested event type
+     */
+    public final static Name register(String stringifiedName) {
+        Name name = registeredNames.get(stringifiedName);
+        if (name == null) {
+            name = names.getUnchecked(stringifiedName);
+            Name existing = registeredNames.putIfAbsent(stringifiedName, name);
+            if (existing != null) {
+                name = existing;
+            }
+        }
+        return name;
     }
 
     /**
@@ -201,7 +236,9 @@ public class Name {
      */
     public final static Map<String, Name> getAllNames() {
         // TODO: consider making/wrapping as immutable
-        return names.asMap();
+        Map<String, Name> allNames = new HashMap<String, Name>(names.asMap());
+        allNames.putAll(registeredNames);
+        return allNames;
     }
 
     /**
@@ -24,6 +24,8 @@
 
 package org.forgerock.openidm.smartevent;
 
+import org.forgerock.openidm.smartevent.core.DisabledPublisher;
+
 /**
  * Publish smart events
  * 
@@ -33,6 +35,11 @@ package org.forgerock.openidm.smartevent;
  */
 public class Publisher {
 
+    /**
+     * The entry of the events of disabled names, which does nothing
+     */
+    private static final EventEntry DISABLED_ENTRY = DisabledPublisher.getInstance().start(null, null, null);
+
     /**
      * For events that mark/span the beginning and end of something, call this
      * method to mark the beginning of the event window. Upon reaching the end
@@ -53,6 +60,10 @@ public class Publisher {
      *            (and monitoring) can act upon it
      */
     public final static EventEntry start(Name eventName, Object payload, Object context) {
+        if (!eventName.eventsEnabled) {
+            // the common case, checked without going through the publisher
+            return DISABLED_ENTRY;
+        }
         return eventName.publisherImpl.start(eventName, payload, context);
     }
 
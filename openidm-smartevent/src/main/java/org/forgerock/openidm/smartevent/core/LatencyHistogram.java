@@ -0,0 +1,238 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.smartevent.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records event durations, in nanoseconds, into a histogram over a sliding time window, so that latency
+ * percentiles of recent events can be reported.
+ * <p>
+ * Durations are counted in log-linear buckets: 16 buckets per power of two, so that a reported percentile is
+ * within 1/16th of the recorded duration. The window is made of a ring of time slices, the oldest slice being
+ * cleared and reused once the window moved past it.
+ * <p>
+ * Recording is lock-free and may happen concurrently with reading. A duration recorded while its slice is
+ * being recycled may be lost, so the percentiles are approximate.
+ */
+public class LatencyHistogram {
+
+    /** The number of bits of a duration used to select a bucket within a power of two */
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** The highest power of two of the durations counted, longer durations are counted as about 18 minutes */
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    /** The default number of slices in the window */
+    static final int DEFAULT_SLICES = 6;
+
+    /** The default duration of a slice, 10 seconds, making a one minute window */
+    static final long DEFAULT_SLICE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final Slice[] slices;
+    private final long sliceNanos;
+
+    /**
+     * Creates a histogram over a one minute window.
+     */
+    public LatencyHistogram() {
+        this(DEFAULT_SLICES, DEFAULT_SLICE_NANOS);
+    }
+
+    /**
+     * Creates a histogram over a window of {@code slices * sliceNanos} nanoseconds.
+     *
+     * @param slices the number of slices of the window
+     * @param sliceNanos the duration of a slice, in nanoseconds
+     */
+    LatencyHistogram(int slices, long sliceNanos) {
+        this.slices = new Slice[slices];
+        for (int i = 0; i < slices; i++) {
+            this.slices[i] = new Slice();
+        }
+        this.sliceNanos = sliceNanos;
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param durationNanos the duration, in nanoseconds
+     */
+    public void record(long durationNanos) {
+        record(durationNanos, System.nanoTime());
+    }
+
+    /**
+     * Records a duration at the given time.
+     *
+     * @param durationNanos the duration, in nanoseconds
+     * @param nowNanos the current time, as per {@link System#nanoTime()}
+     */
+    void record(long durationNanos, long nowNanos) {
+        if (durationNanos < 0) {
+            return;
+        }
+        final long epoch = nowNanos / sliceNanos;
+        final Slice slice = slices[(int) ((epoch % slices.length + slices.length) % slices.length)];
+        final long sliceEpoch = slice.epoch.get();
+        if (sliceEpoch < epoch && slice.epoch.compareAndSet(sliceEpoch, epoch)) {
+            slice.clear();
+        }
+        slice.counts.incrementAndGet(bucketOf(durationNanos));
+        long max = slice.max.get();
+        while (durationNanos > max && !slice.max.compareAndSet(max, durationNanos)) {
+            max = slice.max.get();
+        }
+    }
+
+    /**
+     * Returns the durations recorded within the window.
+     *
+     * @return a snapshot of the window
+     */
+    public Snapshot getSnapshot() {
+        return getSnapshot(System.nanoTime());
+    }
+
+    /**
+     * Returns the durations recorded within the window ending at the given time.
+     *
+     * @param nowNanos the current time, as per {@link System#nanoTime()}
+     * @return a snapshot of the window
+     */
+    Snapshot getSnapshot(long nowNanos) {
+        final long oldestEpoch = nowNanos / sliceNanos - slices.length + 1;
+        final long[] counts = new long[BUCKETS];
+        long count = 0;
+        long max = 0;
+        for (Slice slice : slices) {
+            if (slice.epoch.get() < oldestEpoch) {
+                continue;
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                final long bucketCount = slice.counts.get(i);
+                counts[i] += bucketCount;
+                count += bucketCount;
+            }
+            max = Math.max(max, slice.max.get());
+        }
+        return new Snapshot(counts, count, max);
+    }
+
+    /**
+     * Returns the bucket counting a duration.
+     *
+     * @param value the duration, not negative
+     * @return the index of the bucket
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+        if (exponent == MAX_EXPONENT && value >= (1L << (MAX_EXPONENT + 1))) {
+            return BUCKETS - 1;
+        }
+        final int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the highest duration counted by a bucket.
+     *
+     * @param bucket the index of the bucket
+     * @return the highest duration of the bucket
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final int subBucket = bucket % SUB_BUCKETS;
+        final long lowest = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * A slice of the window.
+     */
+    private static final class Slice {
+        private final AtomicLong epoch = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong max = new AtomicLong();
+
+        private void clear() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+            max.set(0);
+        }
+    }
+
+    /**
+     * The durations recorded within a window.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.max = max;
+        }
+
+        /**
+         * @return the number of durations recorded within the window
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the longest duration recorded within the window, in nanoseconds
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Returns the duration that the given fraction of the durations recorded within the window did not exceed.
+         *
+         * @param quantile the fraction, between 0 and 1
+         * @return the duration in nanoseconds, or 0 if no duration was recorded
+         */
+        public long getValueAtQuantile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueOf(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
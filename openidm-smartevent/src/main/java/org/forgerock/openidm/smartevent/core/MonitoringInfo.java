@@ -16,26 +16,71 @@
 
 package org.forgerock.openidm.smartevent.core;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Holds monitoring and statistics info
  * 
+ * Totals are kept since the last reset, and latency percentiles over a sliding window, see
+ * {@link LatencyHistogram}. Recording may happen concurrently with reading.
  */
 public class MonitoringInfo {
 
-    public long totalInvokes;
-    public long totalTime;
+    private final AtomicLong totalInvokes = new AtomicLong();
+    private final AtomicLong totalTime = new AtomicLong();
+    private volatile LatencyHistogram histogram = new LatencyHistogram();
+
+    /**
+     * Records an invocation
+     *
+     * @param durationNanos the duration of the invocation, in nanoseconds
+     */
+    public void record(long durationNanos) {
+        totalInvokes.incrementAndGet();
+        totalTime.addAndGet(durationNanos);
+        histogram.record(durationNanos);
+    }
+
+    /**
+     * @return the number of invocations since the last reset
+     */
+    public long getTotalInvokes() {
+        return totalInvokes.get();
+    }
+
+    /**
+     * @return the total duration of the invocations since the last reset, in nanoseconds
+     */
+    public long getTotalTime() {
+        return totalTime.get();
+    }
+
+    /**
+     * @return the durations of the recent invocations
+     */
+    public LatencyHistogram.Snapshot getRecentLatencies() {
+        return histogram.getSnapshot();
+    }
 
     /**
      * Reset the statistics
      */
     public void reset() {
-        totalInvokes = 0;
-        totalTime = 0;
+        totalInvokes.set(0);
+        totalTime.set(0);
+        histogram = new LatencyHistogram();
     }
 
     public String toString() {
-        return "Invocations: " + totalInvokes + " total time: "
-                + StatisticsHandler.formatNsAsMs(totalTime) + " mean: "
-                + StatisticsHandler.formatNsAsMs(totalInvokes > 0 ? totalTime / totalInvokes : -1);
+        final long invokes = totalInvokes.get();
+        final long time = totalTime.get();
+        final LatencyHistogram.Snapshot recent = histogram.getSnapshot();
+        return "Invocations: " + invokes + " total time: "
+                + StatisticsHandler.formatNsAsMs(time) + " mean: "
+                + StatisticsHandler.formatNsAsMs(invokes > 0 ? time / invokes : -1)
+                + " recent p50: " + StatisticsHandler.formatNsAsMs(recent.getValueAtQuantile(0.5))
+                + " p95: " + StatisticsHandler.formatNsAsMs(recent.getValueAtQuantile(0.95))
+                + " p99: " + StatisticsHandler.formatNsAsMs(recent.getValueAtQuantile(0.99))
+                + " max: " + StatisticsHandler.formatNsAsMs(recent.getMax());
     }
 }
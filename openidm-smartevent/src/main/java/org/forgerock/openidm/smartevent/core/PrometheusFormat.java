@@ -0,0 +1,77 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.smartevent.core;
+
+import java.util.Map;
+
+/**
+ * Formats the smart event statistics in the Prometheus text exposition format: a summary of the event durations,
+ * in seconds, with the recent p50, p95 and p99 latencies as quantiles, and a gauge of the recent longest duration.
+ */
+public final class PrometheusFormat {
+
+    static final String DURATION_METRIC = "openidm_smartevent_duration_seconds";
+    static final String MAX_METRIC = DURATION_METRIC + "_max";
+
+    private static final double[] QUANTILES = { 0.5, 0.95, 0.99 };
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private PrometheusFormat() {
+        // prevent instantiation
+    }
+
+    /**
+     * Formats the statistics of events.
+     *
+     * @param monitoringInfo the monitoring data per event name
+     * @return the statistics in the Prometheus text exposition format
+     */
+    public static String format(Map<String, MonitoringInfo> monitoringInfo) {
+        final StringBuilder summary = new StringBuilder()
+                .append("# HELP ").append(DURATION_METRIC)
+                .append(" Duration of smart events, with quantiles over the recent events.\n")
+                .append("# TYPE ").append(DURATION_METRIC).append(" summary\n");
+        final StringBuilder max = new StringBuilder()
+                .append("# HELP ").append(MAX_METRIC).append(" Longest duration of the recent smart events.\n")
+                .append("# TYPE ").append(MAX_METRIC).append(" gauge\n");
+        for (Map.Entry<String, MonitoringInfo> entry : monitoringInfo.entrySet()) {
+            final String label = "event=\"" + escapeLabelValue(entry.getKey()) + "\"";
+            final LatencyHistogram.Snapshot recent = entry.getValue().getRecentLatencies();
+            for (double quantile : QUANTILES) {
+                summary.append(DURATION_METRIC).append('{').append(label).append(",quantile=\"").append(quantile)
+                        .append("\"} ").append(seconds(recent.getValueAtQuantile(quantile))).append('\n');
+            }
+            summary.append(DURATION_METRIC).append("_sum{").append(label).append("} ")
+                    .append(seconds(entry.getValue().getTotalTime())).append('\n');
+            summary.append(DURATION_METRIC).append("_count{").append(label).append("} ")
+                    .append(entry.getValue().getTotalInvokes()).append('\n');
+            max.append(MAX_METRIC).append('{').append(label).append("} ")
+                    .append(seconds(recent.getMax())).append('\n');
+        }
+        return summary.append(max).toString();
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / NANOS_PER_SECOND;
+    }
+
+    /**
+     * Escapes a label value: backslash, double quote and line feed.
+     */
+    static String escapeLabelValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
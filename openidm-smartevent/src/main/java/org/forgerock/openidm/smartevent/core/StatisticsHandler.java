@@ -21,9 +21,10 @@ package org.forgerock.openidm.smartevent.core;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -57,9 +58,9 @@ public class StatisticsHandler implements EventHandler<DisruptorReferringEventEn
     Disruptor<DisruptorReferringEventEntry> disruptor;
 
     /**
-     * Keep track of monitoring data per event Name
+     * Keep track of monitoring data per event Name, shared by the publishers
      */
-    public Map<String, MonitoringInfo> map = new HashMap<>();
+    private static final ConcurrentMap<String, MonitoringInfo> map = new ConcurrentHashMap<>();
 
     // Regular statistics logging option
     private ScheduledExecutorService logScheduler;
@@ -130,6 +131,28 @@ public class StatisticsHandler implements EventHandler<DisruptorReferringEventEn
         }
     }
 
+    /**
+     * @return the monitoring data per event name, ordered by name
+     */
+    public static Map<String, MonitoringInfo> getMonitoringInfo() {
+        return new TreeMap<>(map);
+    }
+
+    /**
+     * Returns the monitoring data of an event name, creating it if needed
+     */
+    private static MonitoringInfo getOrCreateMonitoringInfo(String eventName) {
+        MonitoringInfo entry = map.get(eventName);
+        if (entry == null) {
+            MonitoringInfo created = new MonitoringInfo();
+            entry = map.putIfAbsent(eventName, created);
+            if (entry == null) {
+                entry = created;
+            }
+        }
+        return entry;
+    }
+
     public Map<String, String> getTotals() {
         Map<String, String> stats = new TreeMap<>();
         for (Map.Entry<String, MonitoringInfo> entry : map.entrySet()) {
@@ -235,13 +258,7 @@ public class StatisticsHandler implements EventHandler<DisruptorReferringEventEn
          * += diff; ++info.totalInvokes;
          */
 
-        MonitoringInfo entry = map.get(eventEntry.eventName.asString());
-        if (entry == null) {
-            entry = new MonitoringInfo();
-            map.put(eventEntry.eventName.asString(), entry);
-        }
-        entry.totalTime += diff;
-        entry.totalInvokes++;
+        getOrCreateMonitoringInfo(eventEntry.eventName.asString()).record(diff);
     }
 
     // TODO: more research on latency of batched end time option
@@ -274,13 +291,7 @@ public class StatisticsHandler implements EventHandler<DisruptorReferringEventEn
         EventEntryImpl eventEntry = (EventEntryImpl) eventEntryParam;
         long diff = eventEntry.endTime - eventEntry.startTime;
 
-        MonitoringInfo entry = map.get(eventEntry.eventName.asString());
-        if (entry == null) {
-            entry = new MonitoringInfo();
-            map.put(eventEntry.eventName.asString(), entry);
-        }
-        entry.totalTime += diff;
-        entry.totalInvokes++;
+        getOrCreateMonitoringInfo(eventEntry.eventName.asString()).record(diff);
         if (endOfBatch) {
             newBatch = true;
         } else {
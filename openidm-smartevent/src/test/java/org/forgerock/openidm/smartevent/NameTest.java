@@ -0,0 +1,57 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.smartevent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the registration of event names.
+ */
+public class NameTest {
+
+    @Test
+    public void testRegisteredNameIsNotEvicted() {
+        Name name = Name.register("openidm/test/name/registered");
+
+        // as if evicted by the bounded cache of names
+        Name.names.invalidate("openidm/test/name/registered");
+
+        assertThat(Name.get("openidm/test/name/registered")).isSameAs(name);
+        assertThat(Name.register("openidm/test/name/registered")).isSameAs(name);
+        assertThat(Name.getAllNames()).containsEntry("openidm/test/name/registered", name);
+    }
+
+    @Test
+    public void testRegisterKeepsTheCachedName() {
+        Name name = Name.get("openidm/test/name/cached");
+
+        assertThat(Name.register("openidm/test/name/cached")).isSameAs(name);
+    }
+
+    @Test
+    public void testEnablingEventsByNameAppliesToRegisteredName() {
+        Name name = Name.register("openidm/test/name/enabled");
+        Name.names.invalidate("openidm/test/name/enabled");
+
+        // as StatisticsHandler.setEventsEnabled does
+        Name.get("openidm/test/name/enabled").setEventsEnabled(!Name.DEFAULT_EVENTS_ENABLED);
+
+        assertThat(name.getEventsEnabled()).isEqualTo(!Name.DEFAULT_EVENTS_ENABLED);
+        name.setEventsEnabled(Name.DEFAULT_EVENTS_ENABLED);
+    }
+}
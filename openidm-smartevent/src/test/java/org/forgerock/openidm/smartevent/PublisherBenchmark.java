@@ -0,0 +1,106 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.smartevent;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the cost of instrumenting a request with smart events when event publishing is disabled, the default.
+ * <p>
+ * Not run by the tests; run {@link #main(String[])} with the test classpath, for example from the IDE. The
+ * {@code baseline} benchmark does the same work without instrumentation, {@code disabledResolvedName} should be
+ * within noise of it, {@code disabledCachedName} adds the lookup of a name kept by the caller, while
+ * {@code disabledNameLookup} shows the cost of building and looking up an event name on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dopenidm.smartevent.enabled=false")
+public class PublisherBenchmark {
+
+    private static final Name RESOLVED_NAME = Name.register("openidm/internal/script/benchmark/action");
+
+    private final ConcurrentMap<String, Name> eventNames = new ConcurrentHashMap<>();
+
+    private String scriptName = "benchmark";
+    private int counter;
+
+    private int work() {
+        return counter++;
+    }
+
+    @Benchmark
+    public void baseline(Blackhole blackhole) {
+        blackhole.consume(work());
+    }
+
+    @Benchmark
+    public void disabledResolvedName(Blackhole blackhole) {
+        EventEntry measure = Publisher.start(RESOLVED_NAME, null, null);
+        try {
+            blackhole.consume(work());
+        } finally {
+            measure.end();
+        }
+    }
+
+    @Benchmark
+    public void disabledCachedName(Blackhole blackhole) {
+        Name name = eventNames.get(scriptName);
+        if (name == null) {
+            name = Name.register("openidm/internal/script/" + scriptName + "/action");
+            eventNames.putIfAbsent(scriptName, name);
+        }
+        EventEntry measure = Publisher.start(name, null, null);
+        try {
+            blackhole.consume(work());
+        } finally {
+            measure.end();
+        }
+    }
+
+    @Benchmark
+    public void disabledNameLookup(Blackhole blackhole) {
+        EventEntry measure = Publisher.start(Name.get("openidm/internal/script/" + scriptName + "/action"), null, null);
+        try {
+            blackhole.consume(work());
+        } finally {
+            measure.end();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PublisherBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.smartevent.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the latency percentiles of {@link LatencyHistogram} and their {@link PrometheusFormat} export.
+ */
+public class LatencyHistogramTest {
+
+    private static final long SLICE = TimeUnit.SECONDS.toNanos(10);
+
+    @Test
+    public void testBucketsCoverTheirValues() {
+        for (long value = 0; value < (1L << 20); value = value * 3 / 2 + 1) {
+            final int bucket = LatencyHistogram.bucketOf(value);
+            assertThat(LatencyHistogram.highestValueOf(bucket)).isGreaterThanOrEqualTo(value);
+            if (bucket > 0) {
+                assertThat(LatencyHistogram.highestValueOf(bucket - 1)).isLessThan(value);
+            }
+        }
+    }
+
+    @Test
+    public void testBucketPrecision() {
+        final long value = TimeUnit.MILLISECONDS.toNanos(250);
+        assertPercentile(LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(value)), value);
+    }
+
+    @Test
+    public void testLongestDurationsShareTheLastBucket() {
+        assertThat(LatencyHistogram.bucketOf(Long.MAX_VALUE))
+                .isEqualTo(LatencyHistogram.bucketOf(TimeUnit.HOURS.toNanos(1)));
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram(6, SLICE);
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i), 0);
+        }
+
+        final LatencyHistogram.Snapshot snapshot = histogram.getSnapshot(0);
+
+        assertThat(snapshot.getCount()).isEqualTo(100);
+        assertThat(snapshot.getMax()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertPercentile(snapshot.getValueAtQuantile(0.5), TimeUnit.MILLISECONDS.toNanos(50));
+        assertPercentile(snapshot.getValueAtQuantile(0.95), TimeUnit.MILLISECONDS.toNanos(95));
+        assertPercentile(snapshot.getValueAtQuantile(0.99), TimeUnit.MILLISECONDS.toNanos(99));
+        assertThat(snapshot.getValueAtQuantile(1)).isEqualTo(snapshot.getMax());
+    }
+
+    @Test
+    public void testEmptySnapshot() {
+        final LatencyHistogram.Snapshot snapshot = new LatencyHistogram().getSnapshot();
+
+        assertThat(snapshot.getCount()).isZero();
+        assertThat(snapshot.getMax()).isZero();
+        assertThat(snapshot.getValueAtQuantile(0.99)).isZero();
+    }
+
+    @Test
+    public void testOldDurationsLeaveTheWindow() {
+        final LatencyHistogram histogram = new LatencyHistogram(3, SLICE);
+        histogram.record(1000, 0);
+        histogram.record(2000, SLICE);
+
+        assertThat(histogram.getSnapshot(2 * SLICE).getCount()).isEqualTo(2);
+        assertThat(histogram.getSnapshot(3 * SLICE).getCount()).isEqualTo(1);
+        assertThat(histogram.getSnapshot(3 * SLICE).getMax()).isEqualTo(2000);
+
+        // the slice of the first duration is reused
+        histogram.record(3000, 3 * SLICE);
+        final LatencyHistogram.Snapshot snapshot = histogram.getSnapshot(3 * SLICE);
+        assertThat(snapshot.getCount()).isEqualTo(2);
+        assertThat(snapshot.getValueAtQuantile(0.1)).isGreaterThanOrEqualTo(2000).isLessThan(3000);
+    }
+
+    @Test
+    public void testPrometheusFormat() {
+        final MonitoringInfo info = new MonitoringInfo();
+        info.record(TimeUnit.MILLISECONDS.toNanos(500));
+        info.record(TimeUnit.MILLISECONDS.toNanos(1500));
+
+        final String text = PrometheusFormat.format(
+                Collections.singletonMap("openidm/internal/\"repo\"\\read", info));
+
+        final String label = "event=\"openidm/internal/\\\"repo\\\"\\\\read\"";
+        assertThat(text)
+                .contains("# TYPE " + PrometheusFormat.DURATION_METRIC + " summary\n")
+                .contains("# TYPE " + PrometheusFormat.MAX_METRIC + " gauge\n")
+                .contains(PrometheusFormat.DURATION_METRIC + "{" + label + ",quantile=\"0.5\"} ")
+                .contains(PrometheusFormat.DURATION_METRIC + "{" + label + ",quantile=\"0.99\"} ")
+                .contains(PrometheusFormat.DURATION_METRIC + "_sum{" + label + "} 2.0\n")
+                .contains(PrometheusFormat.DURATION_METRIC + "_count{" + label + "} 2\n")
+                .contains(PrometheusFormat.MAX_METRIC + "{" + label + "} 1.5\n");
+    }
+
+    private static void assertPercentile(long actual, long expected) {
+        assertThat(actual).isGreaterThanOrEqualTo(expected).isLessThanOrEqualTo(expected + expected / 16);
+    }
+}
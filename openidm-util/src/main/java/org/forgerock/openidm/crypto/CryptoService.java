@@ -15,6 +15,8 @@
  */
 package org.forgerock.openidm.crypto;
 
+import java.util.List;
+
 import org.forgerock.json.JsonValueException;
 import org.forgerock.json.crypto.JsonCryptoException;
 import org.forgerock.json.crypto.JsonEncryptor;
@@ -82,6 +84,22 @@ public interface CryptoService {
      */
     JsonValue hash(JsonValue value, String algorithm) throws JsonException, JsonCryptoException;
 
+    /**
+     * Hashes several JSON values with the same algorithm, for example when importing objects. Generates a new salt
+     * value for each of them.
+     *
+     * @param values
+     *            the JSON values to be hashed.
+     * @param algorithm
+     *            the hashing algorithm to use.
+     * @return copies of the values, in the same order, hashed with the specified algorithm and their salt.
+     * @throws JsonException
+     *             if an exception occurred encrypting a value.
+     * @throws JsonCryptoException
+     *             if the algorithm is not supported.
+     */
+    List<JsonValue> hash(List<JsonValue> values, String algorithm) throws JsonException, JsonCryptoException;
+
     /**
      * Decrypts a JSON value and all of its children.
      *
@@ -27,6 +27,7 @@
 package org.forgerock.openidm.crypto;
 
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Arrays;
 
@@ -40,6 +41,9 @@ import org.slf4j.LoggerFactory;
  * value.  The values that it generates are also salted, which protects against dictionary attacks. It 
  * does this by generating a random salt which is appended to the  clear-text value.  A hash is then 
  * generated based on this, the salt is appended to the hash, and  then the entire value is base64-encoded.
+ * <p>
+ * Instances are thread safe and meant to be shared: each thread uses its own message digest and random number
+ * generator, so that concurrent hashes do not contend on a lock.
  */
 public class FieldStorageSchemeImpl implements FieldStorageScheme {
 
@@ -54,19 +58,14 @@ public class FieldStorageSchemeImpl implements FieldStorageScheme {
     private static final int NUM_SALT_BYTES = 16;
 
     /**
-     * The message digest that will actually be used to generate the hashes.
+     * The message digest of each thread that will actually be used to generate the hashes.
      */
-    private MessageDigest messageDigest;
+    private final ThreadLocal<MessageDigest> messageDigest;
 
     /** 
-     * The lock used to provide thread safe access to the message digest. 
+     * The secure random number generator of each thread to use to generate the salt values. 
      */
-    private Object digestLock;
-
-    /** 
-     * The secure random number generator to use to generate the salt values. 
-     */
-    private SecureRandom random;
+    private final ThreadLocal<SecureRandom> random;
 
     /** 
      * Size of the digest in bytes.
@@ -80,10 +79,25 @@ public class FieldStorageSchemeImpl implements FieldStorageScheme {
      * @param algorithm the algorithm to use.
      * @throws Exception
      */
-    public FieldStorageSchemeImpl(int digestSize, String algorithm) throws Exception {
-        this.messageDigest = MessageDigest.getInstance(algorithm);
-        this.digestLock = new Object();
-        this.random     = new SecureRandom();
+    public FieldStorageSchemeImpl(int digestSize, final String algorithm) throws Exception {
+        // Fail on unsupported algorithms now rather than on first use.
+        MessageDigest.getInstance(algorithm);
+        this.messageDigest = new ThreadLocal<MessageDigest>() {
+            @Override
+            protected MessageDigest initialValue() {
+                try {
+                    return MessageDigest.getInstance(algorithm);
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        this.random = new ThreadLocal<SecureRandom>() {
+            @Override
+            protected SecureRandom initialValue() {
+                return new SecureRandom();
+            }
+        };
         this.digestSize = digestSize;
     }
 
@@ -96,20 +110,20 @@ public class FieldStorageSchemeImpl implements FieldStorageScheme {
         System.arraycopy(plaintext.getBytes(),0, plainPlusSalt, 0, plainBytesLength);
         byte[] digestBytes;
 
-        synchronized (digestLock) {
-            try {
-                // Generate the salt and put in the plain+salt array.
-                random.nextBytes(saltBytes);
-                System.arraycopy(saltBytes,0, plainPlusSalt, plainBytesLength, NUM_SALT_BYTES);
-
-                // Create the hash from the concatenated value.
-                digestBytes = messageDigest.digest(plainPlusSalt);
-            } catch (Exception e) {
-                logger.error("Cannot encode field: " + e.getMessage(), e);
-                throw e;
-            } finally {
-                Arrays.fill(plainPlusSalt, (byte) 0);
-            }
+        MessageDigest digest = messageDigest.get();
+        try {
+            // Generate the salt and put in the plain+salt array.
+            random.get().nextBytes(saltBytes);
+            System.arraycopy(saltBytes,0, plainPlusSalt, plainBytesLength, NUM_SALT_BYTES);
+
+            // Create the hash from the concatenated value.
+            digestBytes = digest.digest(plainPlusSalt);
+        } catch (Exception e) {
+            logger.error("Cannot encode field: " + e.getMessage(), e);
+            digest.reset();
+            throw e;
+        } finally {
+            Arrays.fill(plainPlusSalt, (byte) 0);
         }
 
         // Append the salt to the hashed value and base64-the whole thing.
@@ -154,15 +168,15 @@ public class FieldStorageSchemeImpl implements FieldStorageScheme {
 
         byte[] userDigestBytes;
 
-        synchronized (digestLock) {
-            try {
-                userDigestBytes = messageDigest.digest(plainPlusSalt);
-            } catch (Exception e) {
-                logger.error("Cannot encode field", storedField, e);
-                return false;
-            } finally {
-                Arrays.fill(plainPlusSalt, (byte) 0);
-            }
+        MessageDigest digest = messageDigest.get();
+        try {
+            userDigestBytes = digest.digest(plainPlusSalt);
+        } catch (Exception e) {
+            logger.error("Cannot encode field", storedField, e);
+            digest.reset();
+            return false;
+        } finally {
+            Arrays.fill(plainPlusSalt, (byte) 0);
         }
 
         return Arrays.equals(digestBytes, userDigestBytes);